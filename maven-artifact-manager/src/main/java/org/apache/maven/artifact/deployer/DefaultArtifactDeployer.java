@@ -20,6 +20,7 @@ package org.apache.maven.artifact.deployer;
  */
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.manager.LocalRepositoryFiles;
 import org.apache.maven.artifact.manager.WagonManager;
 import org.apache.maven.artifact.metadata.ArtifactMetadata;
 import org.apache.maven.artifact.repository.ArtifactRepository;
@@ -28,7 +29,6 @@ import org.apache.maven.artifact.repository.metadata.RepositoryMetadataManager;
 import org.apache.maven.artifact.transform.ArtifactTransformationManager;
 import org.apache.maven.wagon.TransferFailedException;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
-import org.codehaus.plexus.util.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
@@ -74,7 +74,7 @@ public class DefaultArtifactDeployer
             File artifactFile = new File( localRepository.getBasedir(), localRepository.pathOf( artifact ) );
             if ( !artifactFile.equals( source ) )
             {
-                FileUtils.copyFile( source, artifactFile );
+                LocalRepositoryFiles.copy( source, artifactFile );
             }
 
             wagonManager.putArtifact( source, artifact, deploymentRepository );
@@ -20,13 +20,13 @@ package org.apache.maven.artifact.installer;
  */
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.manager.LocalRepositoryFiles;
 import org.apache.maven.artifact.metadata.ArtifactMetadata;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.repository.metadata.RepositoryMetadataInstallationException;
 import org.apache.maven.artifact.repository.metadata.RepositoryMetadataManager;
 import org.apache.maven.artifact.transform.ArtifactTransformationManager;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
-import org.codehaus.plexus.util.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
@@ -63,14 +63,10 @@ public class DefaultArtifactInstaller
 
             // TODO: use a file: wagon and the wagon manager?
             File destination = new File( localRepository.getBasedir(), localPath );
-            if ( !destination.getParentFile().exists() )
-            {
-                destination.getParentFile().mkdirs();
-            }
 
             getLogger().info( "Installing " + source.getPath() + " to " + destination );
 
-            FileUtils.copyFile( source, destination );
+            LocalRepositoryFiles.copy( source, destination );
 
             // must be after the artifact is installed
             for ( Iterator i = artifact.getMetadataList().iterator(); i.hasNext(); )
@@ -0,0 +1,199 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.observers.ChecksumObserver;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+/**
+ * Decides which checksums are computed for downloads, and in which order the checksum files are looked up on a
+ * repository. The configured order is used until a repository turns out to only publish one of the later
+ * checksums: that one is then tried first for the repository, saving a request for a file which isn't there on
+ * every download.
+ *
+ * @version $Id$
+ */
+class ChecksumStrategy
+{
+    /**
+     * Map( String, String ) from the checksum file extensions to the digest algorithms, in the configured order.
+     */
+    private final Map algorithms = new LinkedHashMap();
+
+    /**
+     * Map( String, String ) from the repository ids to the extension of the checksum last found there.
+     */
+    private final Map preferredExtensions = new HashMap();
+
+    /**
+     * @param algorithms comma separated list of digest algorithms, e.g. <code>SHA-1,MD5</code>
+     */
+    ChecksumStrategy( String algorithms )
+    {
+        for ( StringTokenizer tok = new StringTokenizer( algorithms, ", " ); tok.hasMoreTokens(); )
+        {
+            String algorithm = tok.nextToken();
+
+            this.algorithms.put( getExtension( algorithm ), algorithm );
+        }
+    }
+
+    /**
+     * @return the extension of the checksum files for the algorithm, e.g. <code>sha1</code> for <code>SHA-1</code>
+     */
+    static String getExtension( String algorithm )
+    {
+        StringBuffer extension = new StringBuffer( algorithm.length() );
+
+        for ( int i = 0; i < algorithm.length(); i++ )
+        {
+            char c = algorithm.charAt( i );
+
+            if ( c != '-' )
+            {
+                extension.append( Character.toLowerCase( c ) );
+            }
+        }
+
+        return extension.toString();
+    }
+
+    /**
+     * @return Map( String, ChecksumObserver ) from the checksum file extensions to new observers, in the
+     *         configured order
+     */
+    Map createObservers()
+        throws NoSuchAlgorithmException
+    {
+        Map observers = new LinkedHashMap();
+
+        for ( Iterator i = algorithms.entrySet().iterator(); i.hasNext(); )
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+
+            observers.put( entry.getKey(), new ChecksumObserver( (String) entry.getValue() ) );
+        }
+
+        return observers;
+    }
+
+    /**
+     * @return Map( String, String ) from the checksum file extensions to the checksums of the file, computed with
+     *         the configured algorithms
+     */
+    Map digest( File file )
+        throws IOException, NoSuchAlgorithmException
+    {
+        return digest( file, algorithms );
+    }
+
+    /**
+     * @param algorithms Map( String, String ) from the checksum file extensions to the digest algorithms
+     * @return Map( String, String ) from the checksum file extensions to the checksums of the file, in the
+     *         lowercase hexadecimal form of the {@link ChecksumObserver}
+     */
+    static Map digest( File file, Map algorithms )
+        throws IOException, NoSuchAlgorithmException
+    {
+        Map digests = new LinkedHashMap();
+        for ( Iterator i = algorithms.entrySet().iterator(); i.hasNext(); )
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+
+            digests.put( entry.getKey(), MessageDigest.getInstance( (String) entry.getValue() ) );
+        }
+
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream( file );
+
+            byte[] buffer = new byte[64 * 1024];
+            for ( int n; ( n = in.read( buffer ) ) >= 0; )
+            {
+                for ( Iterator i = digests.values().iterator(); i.hasNext(); )
+                {
+                    ( (MessageDigest) i.next() ).update( buffer, 0, n );
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+
+        Map checksums = new LinkedHashMap();
+        for ( Iterator i = digests.entrySet().iterator(); i.hasNext(); )
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+
+            byte[] digest = ( (MessageDigest) entry.getValue() ).digest();
+
+            StringBuffer checksum = new StringBuffer( digest.length * 2 );
+            for ( int j = 0; j < digest.length; j++ )
+            {
+                checksum.append( Character.forDigit( ( digest[j] >> 4 ) & 0xf, 16 ) );
+                checksum.append( Character.forDigit( digest[j] & 0xf, 16 ) );
+            }
+
+            checksums.put( entry.getKey(), checksum.toString() );
+        }
+        return checksums;
+    }
+
+    /**
+     * @return List( String ) with the checksum file extensions in the order to try them on the repository
+     */
+    synchronized List getExtensions( String repositoryId )
+    {
+        List extensions = new ArrayList( algorithms.keySet() );
+
+        String preferred = (String) preferredExtensions.get( repositoryId );
+
+        if ( preferred != null && extensions.remove( preferred ) )
+        {
+            extensions.add( 0, preferred );
+        }
+
+        return extensions;
+    }
+
+    /**
+     * Record that the repository has checksum files with the given extension.
+     */
+    synchronized void found( String repositoryId, String extension )
+    {
+        preferredExtensions.put( repositoryId, extension );
+    }
+}
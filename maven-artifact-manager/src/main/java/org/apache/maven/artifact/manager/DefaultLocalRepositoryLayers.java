@@ -0,0 +1,120 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.codehaus.plexus.logging.AbstractLogEnabled;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @version $Id$
+ */
+public class DefaultLocalRepositoryLayers
+    extends AbstractLogEnabled
+    implements LocalRepositoryLayers
+{
+    private static final File[] EMPTY = new File[0];
+
+    /**
+     * The base repositories, replaced rather than changed so that lookups needn't copy them.
+     */
+    private File[] baseRepositories = EMPTY;
+
+    public synchronized void addBaseRepository( File basedir )
+    {
+        List repositories = new ArrayList( Arrays.asList( baseRepositories ) );
+
+        add( basedir, repositories );
+
+        baseRepositories = (File[]) repositories.toArray( new File[repositories.size()] );
+    }
+
+    public void setBaseRepositories( List basedirs )
+    {
+        List repositories = new ArrayList( basedirs.size() );
+
+        for ( Iterator i = basedirs.iterator(); i.hasNext(); )
+        {
+            add( (File) i.next(), repositories );
+        }
+
+        synchronized ( this )
+        {
+            baseRepositories = (File[]) repositories.toArray( new File[repositories.size()] );
+        }
+    }
+
+    private void add( File basedir, List repositories )
+    {
+        File directory = basedir.getAbsoluteFile();
+
+        if ( repositories.contains( directory ) )
+        {
+            return;
+        }
+
+        if ( !directory.isDirectory() )
+        {
+            getLogger().warn( "Base repository " + directory + " doesn't exist" );
+        }
+        else
+        {
+            getLogger().debug( "Using base repository " + directory );
+        }
+
+        repositories.add( directory );
+    }
+
+    public List getBaseRepositories()
+    {
+        return Collections.unmodifiableList( Arrays.asList( getBaseDirectories() ) );
+    }
+
+    public File getLocalFile( ArtifactRepository localRepository, String path )
+    {
+        File file = new File( localRepository.getBasedir(), path );
+
+        if ( !file.exists() )
+        {
+            File[] directories = getBaseDirectories();
+            for ( int i = 0; i < directories.length; i++ )
+            {
+                File baseFile = new File( directories[i], path );
+
+                if ( baseFile.exists() )
+                {
+                    return baseFile;
+                }
+            }
+        }
+        return file;
+    }
+
+    private synchronized File[] getBaseDirectories()
+    {
+        return baseRepositories;
+    }
+}
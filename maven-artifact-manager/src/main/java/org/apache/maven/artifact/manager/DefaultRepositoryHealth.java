@@ -0,0 +1,295 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.logging.AbstractLogEnabled;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Circuit breaker over the outcomes of the recent requests to each repository. The timeout of a repository follows
+ * the time it took to start answering the requests it answered: it is a multiple of their 99th percentile, within
+ * the configured bounds. A request which was answered counts as a success however long the transfer took, since
+ * that depends on the size of the file as much as on the repository.
+ *
+ * @version $Id$
+ */
+public class DefaultRepositoryHealth
+    extends AbstractLogEnabled
+    implements RepositoryHealth
+{
+    private static final int TIMEOUT_PERCENTILE = 99;
+
+    private static final int TIMEOUT_FACTOR = 3;
+
+    private static final int CLOSED = 0;
+
+    private static final int OPEN = 1;
+
+    private static final int PROBING = 2;
+
+    /**
+     * Number of the most recent requests to a repository its failure rate is computed on.
+     */
+    private int windowSize = 20;
+
+    /**
+     * Number of requests to a repository below which it is never made unavailable.
+     */
+    private int minimumRequests = 5;
+
+    /**
+     * Percentage of the recent requests to a repository which must fail to make it unavailable.
+     */
+    private int failureRate = 50;
+
+    /**
+     * Time in milliseconds a repository is unavailable for at first. It doubles each time a probe fails.
+     */
+    private long openInterval = 30000;
+
+    private long maximumOpenInterval = 10 * 60 * 1000;
+
+    private long minimumTimeout = 20000;
+
+    private long maximumTimeout = 2 * 60 * 1000;
+
+    private final RepositoryLatencies latencies = new RepositoryLatencies();
+
+    /**
+     * Map( String, Circuit ) from the repository ids to the state of their circuits.
+     */
+    private final Map circuits = new HashMap();
+
+    public synchronized boolean isAvailable( String repositoryId )
+    {
+        Circuit circuit = (Circuit) circuits.get( repositoryId );
+
+        if ( circuit == null || circuit.state == CLOSED )
+        {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+
+        if ( circuit.state == OPEN )
+        {
+            return now >= circuit.openUntil;
+        }
+
+        // a probe which never reported back must not keep the repository unavailable forever
+        return now - circuit.probeStarted > getTimeout( repositoryId );
+    }
+
+    public synchronized boolean request( String repositoryId )
+    {
+        if ( !isAvailable( repositoryId ) )
+        {
+            return false;
+        }
+
+        Circuit circuit = getCircuit( repositoryId );
+
+        if ( circuit.state != CLOSED )
+        {
+            getLogger().debug( "Probing repository " + repositoryId );
+
+            circuit.state = PROBING;
+            circuit.probeStarted = System.currentTimeMillis();
+        }
+        return true;
+    }
+
+    public synchronized void succeeded( String repositoryId, long latency )
+    {
+        latencies.record( repositoryId, latency );
+
+        record( repositoryId, false );
+    }
+
+    public synchronized void failed( String repositoryId, long latency )
+    {
+        record( repositoryId, true );
+    }
+
+    public synchronized long getTimeout( String repositoryId )
+    {
+        long latency = latencies.getPercentile( repositoryId, TIMEOUT_PERCENTILE );
+
+        if ( latency < 0 )
+        {
+            return maximumTimeout;
+        }
+        return Math.max( minimumTimeout, Math.min( maximumTimeout, latency * TIMEOUT_FACTOR ) );
+    }
+
+    public synchronized long getLatency( String repositoryId, int percentile )
+    {
+        return latencies.getPercentile( repositoryId, percentile );
+    }
+
+    private void record( String repositoryId, boolean failure )
+    {
+        Circuit circuit = getCircuit( repositoryId );
+
+        if ( circuit.state == PROBING )
+        {
+            if ( failure )
+            {
+                open( circuit, Math.min( maximumOpenInterval, circuit.openInterval * 2 ) );
+
+                getLogger().warn( "Repository '" + repositoryId + "' is still failing, it won't be used for the next " +
+                    circuit.openInterval / 1000 + " seconds" );
+            }
+            else
+            {
+                circuit.close();
+
+                getLogger().info( "Repository '" + repositoryId + "' is available again" );
+            }
+        }
+        else if ( circuit.state == CLOSED )
+        {
+            circuit.add( failure );
+
+            if ( circuit.count >= minimumRequests && circuit.failures * 100 >= failureRate * circuit.count )
+            {
+                getLogger().warn( "Repository '" + repositoryId + "' failed " + circuit.failures + " of its last " +
+                    circuit.count + " requests, it won't be used for the next " + openInterval / 1000 + " seconds" );
+
+                open( circuit, openInterval );
+            }
+        }
+        // else the request was made before the repository was made unavailable: it changes nothing
+    }
+
+    private void open( Circuit circuit, long interval )
+    {
+        circuit.state = OPEN;
+        circuit.openInterval = interval;
+        circuit.openUntil = System.currentTimeMillis() + interval;
+    }
+
+    private Circuit getCircuit( String repositoryId )
+    {
+        Circuit circuit = (Circuit) circuits.get( repositoryId );
+        if ( circuit == null )
+        {
+            circuit = new Circuit( windowSize );
+            circuits.put( repositoryId, circuit );
+        }
+        return circuit;
+    }
+
+    public synchronized void setWindowSize( int windowSize )
+    {
+        this.windowSize = windowSize;
+
+        circuits.clear();
+    }
+
+    public synchronized void setMinimumRequests( int minimumRequests )
+    {
+        this.minimumRequests = minimumRequests;
+    }
+
+    public synchronized void setFailureRate( int failureRate )
+    {
+        this.failureRate = failureRate;
+    }
+
+    public synchronized void setOpenInterval( long openInterval )
+    {
+        this.openInterval = openInterval;
+    }
+
+    public synchronized void setMaximumOpenInterval( long maximumOpenInterval )
+    {
+        this.maximumOpenInterval = maximumOpenInterval;
+    }
+
+    public synchronized void setMinimumTimeout( long minimumTimeout )
+    {
+        this.minimumTimeout = minimumTimeout;
+    }
+
+    public synchronized void setMaximumTimeout( long maximumTimeout )
+    {
+        this.maximumTimeout = maximumTimeout;
+    }
+
+    /**
+     * The outcomes of the recent requests to a repository, and whether it is available.
+     */
+    private static final class Circuit
+    {
+        private final boolean[] outcomes;
+
+        private int next;
+
+        private int count;
+
+        private int failures;
+
+        private int state = CLOSED;
+
+        private long openInterval;
+
+        private long openUntil;
+
+        private long probeStarted;
+
+        Circuit( int windowSize )
+        {
+            outcomes = new boolean[windowSize];
+        }
+
+        void add( boolean failure )
+        {
+            if ( count == outcomes.length )
+            {
+                if ( outcomes[next] )
+                {
+                    failures--;
+                }
+            }
+            else
+            {
+                count++;
+            }
+
+            outcomes[next] = failure;
+            if ( failure )
+            {
+                failures++;
+            }
+            next = ( next + 1 ) % outcomes.length;
+        }
+
+        void close()
+        {
+            state = CLOSED;
+            next = 0;
+            count = 0;
+            failures = 0;
+        }
+    }
+}
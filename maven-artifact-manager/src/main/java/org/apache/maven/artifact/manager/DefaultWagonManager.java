@@ -25,6 +25,9 @@ import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.repository.ArtifactRepositoryFactory;
 import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
 import org.apache.maven.artifact.repository.DefaultArtifactRepository;
+import org.apache.maven.artifact.repository.archive.ArchiveArtifactRepository;
+import org.apache.maven.artifact.repository.archive.RepositoryArchive;
+import org.apache.maven.artifact.resolver.ResolutionWorkerPool;
 import org.apache.maven.wagon.ConnectionException;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.TransferFailedException;
@@ -33,6 +36,7 @@ import org.apache.maven.wagon.Wagon;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
 import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.events.TransferEvent;
 import org.apache.maven.wagon.events.TransferListener;
 import org.apache.maven.wagon.observers.ChecksumObserver;
 import org.apache.maven.wagon.proxy.ProxyInfo;
@@ -57,9 +61,13 @@ import org.codehaus.plexus.util.xml.Xpp3Dom;
 import java.io.File;
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -69,6 +77,20 @@ public class DefaultWagonManager
 {
     private static final String WILDCARD = "*";
 
+    private static final int HEDGE_THREADS = 10;
+
+    /**
+     * Map( String, String ) from the extensions of the checksum files deployed along with the files to their
+     * algorithms.
+     */
+    private static final Map DEPLOYED_CHECKSUMS = new LinkedHashMap();
+
+    static
+    {
+        DEPLOYED_CHECKSUMS.put( "md5", "MD5" );
+        DEPLOYED_CHECKSUMS.put( "sha1", "SHA-1" );
+    }
+
     private PlexusContainer container;
 
     // TODO: proxies, authentication and mirrors are via settings, and should come in via an alternate method - perhaps
@@ -92,10 +114,77 @@ public class DefaultWagonManager
 
     private ArtifactRepositoryFactory repositoryFactory;
 
+    private RepositoryHealth repositoryHealth;
+
     private boolean interactive = true;
 
     private Map availableWagons = new HashMap();
 
+    /**
+     * Maximum number of idle connections kept open per repository, for reuse by later transfers.
+     */
+    private int maxConnectionsPerRepository = 4;
+
+    /**
+     * Time in milliseconds after which an unused connection is closed.
+     */
+    private long connectionIdleTimeout = 60000;
+
+    private WagonConnectionPool connectionPool;
+
+    /**
+     * Comma separated list of the digest algorithms of the checksums verified on download, in the order in which
+     * their checksum files are looked up on the repository.
+     */
+    private String checksumAlgorithms = "SHA-1,MD5";
+
+    private ChecksumStrategy checksumStrategy;
+
+    /**
+     * Whether the remote repositories an artifact was not found in are remembered, so that they aren't asked for
+     * it again until their update policy says so.
+     */
+    private boolean cacheNotFound = true;
+
+    private final NotFoundCache notFoundCache = new NotFoundCache();
+
+    /**
+     * Whether the remote repository which served an artifact of a group is asked first for the next artifacts of
+     * that group.
+     */
+    private boolean routeRepositories = true;
+
+    /**
+     * Map( String, RepositoryRoutes ) from the base directories of the local repositories to their routes.
+     */
+    private final Map routes = new HashMap();
+
+    /**
+     * Whether a release artifact is requested from the next repository as well, when the repositories asked so far
+     * take longer to answer than they usually do.
+     */
+    private boolean hedgeRequests = false;
+
+    /**
+     * Percentile of the times a repository takes to start answering after which the next repository is asked as
+     * well.
+     */
+    private int hedgePercentile = 95;
+
+    /**
+     * Time in milliseconds after which the next repository is asked as well, until enough requests were made to a
+     * repository to know its latencies.
+     */
+    private long hedgeDelay = 3000;
+
+    private ResolutionWorkerPool hedgePool;
+
+    /**
+     * Map( String, Transfer ) of the transfers in progress, keyed by the repository, the remote path and the
+     * local file.
+     */
+    private final Map transfers = new HashMap();
+
     // TODO: this leaks the component in the public api - it is never released back to the container
     public Wagon getWagon( Repository repository )
         throws UnsupportedProtocolException, WagonConfigurationException
@@ -165,23 +254,16 @@ public class DefaultWagonManager
     {
         failIfNotOnline();
 
-        String protocol = repository.getProtocol();
-
-        Wagon wagon;
-        try
-        {
-            wagon = getWagon( protocol );
-
-            configureWagon( wagon, repository );
-        }
-        catch ( UnsupportedProtocolException e )
+        if ( repository instanceof ArchiveArtifactRepository )
         {
-            throw new TransferFailedException( "Unsupported Protocol: '" + protocol + "': " + e.getMessage(), e );
+            throw new TransferFailedException( "Repository '" + repository.getId() + "' is a read-only archive" );
         }
 
-        if ( downloadMonitor != null )
+        if ( isFileRepository( repository ) )
         {
-            wagon.addTransferListener( downloadMonitor );
+            putLocalFile( repository, source, remotePath );
+
+            return;
         }
 
         Map checksums = new HashMap( 2 );
@@ -190,39 +272,36 @@ public class DefaultWagonManager
         // TODO: configure these on the repository
         try
         {
-            ChecksumObserver checksumObserver = new ChecksumObserver( "MD5" );
-            wagon.addTransferListener( checksumObserver );
-            checksums.put( "md5", checksumObserver );
-            checksumObserver = new ChecksumObserver( "SHA-1" );
-            wagon.addTransferListener( checksumObserver );
-            checksums.put( "sha1", checksumObserver );
+            checksums.put( "md5", new ChecksumObserver( "MD5" ) );
+            checksums.put( "sha1", new ChecksumObserver( "SHA-1" ) );
         }
         catch ( NoSuchAlgorithmException e )
         {
             throw new TransferFailedException( "Unable to add checksum methods: " + e.getMessage(), e );
         }
 
+        Wagon wagon = acquireWagon( repository );
+
+        boolean reusable = false;
+
         try
         {
-            Repository artifactRepository = new Repository( repository.getId(), repository.getUrl() );
-
-            if ( serverPermissionsMap.containsKey( repository.getId() ) )
+            if ( downloadMonitor != null )
             {
-                RepositoryPermissions perms = (RepositoryPermissions) serverPermissionsMap.get( repository.getId() );
-                getLogger().debug(
-                    "adding permissions to wagon connection: " + perms.getFileMode() + " " + perms.getDirectoryMode() );
-                artifactRepository.setPermissions( perms );
+                wagon.addTransferListener( downloadMonitor );
             }
-            else
+
+            for ( Iterator i = checksums.values().iterator(); i.hasNext(); )
             {
-                getLogger().debug( "not adding permissions to wagon connection" );
+                wagon.addTransferListener( (ChecksumObserver) i.next() );
             }
 
-            wagon.connect( artifactRepository, getAuthenticationInfo( repository.getId() ), getProxy( protocol ) );
-
             wagon.put( source, remotePath );
 
-            wagon.removeTransferListener( downloadMonitor );
+            if ( downloadMonitor != null )
+            {
+                wagon.removeTransferListener( downloadMonitor );
+            }
 
             // Pre-store the checksums as any future puts will overwrite them
             for ( Iterator i = checksums.keySet().iterator(); i.hasNext(); )
@@ -244,14 +323,8 @@ public class DefaultWagonManager
 
                 wagon.put( temp, remotePath + "." + extension );
             }
-        }
-        catch ( ConnectionException e )
-        {
-            throw new TransferFailedException( "Connection failed: " + e.getMessage(), e );
-        }
-        catch ( AuthenticationException e )
-        {
-            throw new TransferFailedException( "Authentication failed: " + e.getMessage(), e );
+
+            reusable = true;
         }
         catch ( AuthorizationException e )
         {
@@ -267,14 +340,55 @@ public class DefaultWagonManager
         }
         finally
         {
-            disconnectWagon( wagon );
+            if ( downloadMonitor != null )
+            {
+                wagon.removeTransferListener( downloadMonitor );
+            }
 
-            releaseWagon( protocol, wagon );
+            for ( Iterator i = checksums.values().iterator(); i.hasNext(); )
+            {
+                wagon.removeTransferListener( (ChecksumObserver) i.next() );
+            }
+
+            returnWagon( repository, wagon, reusable );
         }
     }
 
     public void getArtifact( Artifact artifact, List remoteRepositories )
         throws TransferFailedException, ResourceDoesNotExistException
+    {
+        getArtifact( artifact, remoteRepositories, null );
+    }
+
+    public void getArtifact( Artifact artifact, List remoteRepositories, ArtifactRepository localRepository )
+        throws TransferFailedException, ResourceDoesNotExistException
+    {
+        RepositoryRoutes routes = null;
+        if ( routeRepositories && localRepository != null )
+        {
+            routes = getRoutes( localRepository );
+
+            remoteRepositories = routes.order( artifact.getGroupId(), remoteRepositories );
+        }
+
+        boolean successful;
+        if ( hedgeRequests && !artifact.isSnapshot() && !artifact.getFile().exists() )
+        {
+            successful = getArtifactHedged( artifact, remoteRepositories, routes );
+        }
+        else
+        {
+            successful = getArtifactInTurn( artifact, remoteRepositories, routes );
+        }
+
+        // if it already exists locally we were just trying to force it - ignore the update
+        if ( !successful && !artifact.getFile().exists() )
+        {
+            throw new ResourceDoesNotExistException( "Unable to download the artifact from any repository" );
+        }
+    }
+
+    private boolean getArtifactInTurn( Artifact artifact, List remoteRepositories, RepositoryRoutes routes )
     {
         // TODO [BP]: The exception handling here needs some work
         boolean successful = false;
@@ -282,19 +396,28 @@ public class DefaultWagonManager
         {
             ArtifactRepository repository = (ArtifactRepository) iter.next();
 
+            if ( isNotFound( artifact, repository ) )
+            {
+                continue;
+            }
+
             try
             {
                 getArtifact( artifact, repository );
 
                 successful = artifact.isResolved();
+
+                if ( successful && routes != null )
+                {
+                    routes.served( artifact.getGroupId(), repository );
+                }
             }
             catch ( ResourceDoesNotExistException e )
             {
                 // This one we will eat when looking through remote repositories
                 // because we want to cycle through them all before squawking.
 
-                getLogger().warn( "Unable to get resource '" + artifact.getId() + "' from repository " +
-                    repository.getId() + " (" + repository.getUrl() + ")" );
+                notFound( artifact, repository );
             }
             catch ( TransferFailedException e )
             {
@@ -302,11 +425,111 @@ public class DefaultWagonManager
                     repository.getId() + " (" + repository.getUrl() + ")" );
             }
         }
+        return successful;
+    }
 
-        // if it already exists locally we were just trying to force it - ignore the update
-        if ( !successful && !artifact.getFile().exists() )
+    /**
+     * Get a release artifact from the first of the repositories which has it, like
+     * {@link #getArtifactInTurn(Artifact,List,RepositoryRoutes)}, except that the next repository is asked as well
+     * whenever the ones asked so far take longer than they usually do to start answering. The first download to be
+     * verified is kept, and the others are discarded.
+     */
+    private boolean getArtifactHedged( Artifact artifact, List remoteRepositories, RepositoryRoutes routes )
+        throws TransferFailedException
+    {
+        List candidates = new ArrayList( remoteRepositories.size() );
+        for ( Iterator i = remoteRepositories.iterator(); i.hasNext(); )
         {
-            throw new ResourceDoesNotExistException( "Unable to download the artifact from any repository" );
+            ArtifactRepository repository = (ArtifactRepository) i.next();
+
+            if ( repository.getReleases().isEnabled() && !repository.isBlacklisted() &&
+                repositoryHealth.isAvailable( repository.getId() ) && !isNotFound( artifact, repository ) )
+            {
+                candidates.add( repository );
+            }
+        }
+
+        HedgedDownload download = new HedgedDownload( artifact );
+        try
+        {
+            Iterator next = candidates.iterator();
+            while ( true )
+            {
+                if ( download.getRunning() == 0 )
+                {
+                    if ( !next.hasNext() )
+                    {
+                        return false;
+                    }
+                    download.start( (ArtifactRepository) next.next() );
+                }
+
+                HedgedAttempt attempt = download.awaitAttempt( next.hasNext() );
+
+                if ( attempt == null )
+                {
+                    ArtifactRepository repository = (ArtifactRepository) next.next();
+
+                    getLogger().debug( "No answer yet for '" + artifact.getId() + "', also trying repository " +
+                        repository.getId() );
+
+                    download.start( repository );
+                }
+                else if ( attempt.error == null )
+                {
+                    download.complete( attempt );
+
+                    artifact.setResolved( true );
+
+                    if ( routes != null )
+                    {
+                        routes.served( artifact.getGroupId(), attempt.repository );
+                    }
+                    return true;
+                }
+                else if ( attempt.error instanceof ResourceDoesNotExistException )
+                {
+                    notFound( artifact, attempt.repository );
+                }
+                else if ( attempt.error instanceof Error )
+                {
+                    throw (Error) attempt.error;
+                }
+                else
+                {
+                    getLogger().warn( "Unable to get resource '" + artifact.getId() + "' from repository " +
+                        attempt.repository.getId() + " (" + attempt.repository.getUrl() + ")" );
+                }
+            }
+        }
+        finally
+        {
+            download.close();
+        }
+    }
+
+    private boolean isNotFound( Artifact artifact, ArtifactRepository repository )
+    {
+        ArtifactRepositoryPolicy policy = artifact.isSnapshot() ? repository.getSnapshots() : repository.getReleases();
+
+        if ( cacheNotFound && notFoundCache.isNotFound( artifact.getFile(), repository, policy ) )
+        {
+            getLogger().debug( "Skipping repository " + repository.getId() + ": '" + artifact.getId() +
+                "' was not found there last time it was checked" );
+
+            return true;
+        }
+        return false;
+    }
+
+    private void notFound( Artifact artifact, ArtifactRepository repository )
+    {
+        getLogger().warn( "Unable to get resource '" + artifact.getId() + "' from repository " +
+            repository.getId() + " (" + repository.getUrl() + ")" );
+
+        if ( cacheNotFound )
+        {
+            notFoundCache.notFound( artifact.getFile(), repository );
         }
     }
 
@@ -325,6 +548,10 @@ public class DefaultWagonManager
         {
             getLogger().debug( "Skipping blacklisted repository " + repository.getId() );
         }
+        else if ( !repositoryHealth.isAvailable( repository.getId() ) )
+        {
+            getLogger().debug( "Skipping unavailable repository " + repository.getId() );
+        }
         else
         {
             getLogger().debug( "Trying repository " + repository.getId() );
@@ -346,122 +573,263 @@ public class DefaultWagonManager
         getRemoteFile( repository, destination, remotePath, null, checksumPolicy, true );
     }
 
+    /**
+     * Get the remote file, unless the same file is already being transferred. Threads asking for a file which is
+     * being transferred wait for that transfer and get its outcome, and processes sharing the local repository
+     * wait for each other through a lock on the local file, and don't transfer it again if it changed meanwhile.
+     * <p/>
+     * A transfer is only registered once the lock is held, so that the thread transferring the file never waits for
+     * a thread which itself waits for the lock, e.g. while the metadata is checked for updates under its lock.
+     */
     private void getRemoteFile( ArtifactRepository repository, File destination, String remotePath,
                                 TransferListener downloadMonitor, String checksumPolicy, boolean force )
         throws TransferFailedException, ResourceDoesNotExistException
     {
-        // TODO: better excetpions - transfer failed is not enough?
-
-        failIfNotOnline();
+        String key = repository.getId() + '|' + repository.getUrl() + '|' + remotePath + '|' +
+            destination.getAbsolutePath();
 
-        ArtifactRepository mirror = getMirror( repository.getId() );
-        if ( mirror != null )
+        Transfer transfer;
+        synchronized ( transfers )
         {
-            repository = repositoryFactory.createArtifactRepository( mirror.getId(), mirror.getUrl(),
-                                                                     repository.getLayout(), repository.getSnapshots(),
-                                                                     repository.getReleases() );
+            transfer = (Transfer) transfers.get( key );
         }
 
-        String protocol = repository.getProtocol();
-        Wagon wagon;
-        try
+        if ( transfer != null )
         {
-            wagon = getWagon( protocol );
+            getLogger().debug( "Waiting for the transfer of " + remotePath + " from " + repository.getId() );
 
-            configureWagon( wagon, repository );
-        }
-        catch ( UnsupportedProtocolException e )
-        {
-            throw new TransferFailedException( "Unsupported Protocol: '" + protocol + "': " + e.getMessage(), e );
-        }
+            transfer.await();
 
-        if ( downloadMonitor != null )
-        {
-            wagon.addTransferListener( downloadMonitor );
+            return;
         }
 
-        // TODO: configure on repository
-        ChecksumObserver md5ChecksumObserver;
-        ChecksumObserver sha1ChecksumObserver;
+        long lastModified = destination.lastModified();
+
+        LocalFileLock lock;
         try
         {
-            md5ChecksumObserver = new ChecksumObserver( "MD5" );
-            wagon.addTransferListener( md5ChecksumObserver );
-
-            sha1ChecksumObserver = new ChecksumObserver( "SHA-1" );
-            wagon.addTransferListener( sha1ChecksumObserver );
+            lock = LocalFileLock.lock( destination );
         }
-        catch ( NoSuchAlgorithmException e )
+        catch ( InterruptedException e )
         {
-            throw new TransferFailedException( "Unable to add checksum methods: " + e.getMessage(), e );
-        }
-
-        File temp = new File( destination + ".tmp" );
-        temp.deleteOnExit();
+            Thread.currentThread().interrupt();
 
-        boolean downloaded = false;
+            throw new TransferFailedException(
+                "Interrupted while waiting for the lock on " + destination + ": " + e.getMessage(), e );
+        }
 
         try
         {
-            wagon.connect( new Repository( repository.getId(), repository.getUrl() ),
-                           getAuthenticationInfo( repository.getId() ), getProxy( protocol ) );
-
-            boolean firstRun = true;
-            boolean retry = true;
-
-            // this will run at most twice. The first time, the firstRun flag is turned off, and if the retry flag
-            // is set on the first run, it will be turned off and not re-set on the second try. This is because the
-            // only way the retry flag can be set is if ( firstRun == true ).
-            while ( firstRun || retry )
+            transfer = new Transfer();
+            synchronized ( transfers )
             {
-                // reset the retry flag.
-                retry = false;
+                transfers.put( key, transfer );
+            }
 
-                // This should take care of creating destination directory now on
-                if ( destination.exists() && !force )
+            // don't leave the other threads waiting, whatever happens
+            Exception error = new TransferFailedException( "The transfer of " + remotePath + " failed" );
+            try
+            {
+                if ( destination.lastModified() != lastModified )
                 {
-                    try
-                    {
-                        downloaded = wagon.getIfNewer( remotePath, temp, destination.lastModified() );
-                        if ( !downloaded )
-                        {
-                            // prevent additional checks of this artifact until it expires again
-                            destination.setLastModified( System.currentTimeMillis() );
-                        }
-                    }
-                    catch ( UnsupportedOperationException e )
-                    {
-                        // older wagons throw this. Just get() instead
-                        wagon.get( remotePath, temp );
-                        downloaded = true;
-                    }
+                    getLogger().debug( remotePath + " from " + repository.getId() +
+                        " has just been transferred by another thread or process" );
                 }
                 else
                 {
-                    wagon.get( remotePath, temp );
-                    downloaded = true;
+                    transferRemoteFile( repository, destination, remotePath, downloadMonitor, checksumPolicy,
+                                        force );
                 }
 
-                if ( downloaded )
-                {
-                    // keep the checksum files from showing up on the download monitor...
-                    if ( downloadMonitor != null )
-                    {
-                        wagon.removeTransferListener( downloadMonitor );
-                    }
+                error = null;
+            }
+            catch ( TransferFailedException e )
+            {
+                error = e;
 
-                    // try to verify the SHA-1 checksum for this file.
-                    try
-                    {
-                        verifyChecksum( sha1ChecksumObserver, destination, temp, remotePath, ".sha1", wagon );
-                    }
-                    catch ( ChecksumFailedException e )
-                    {
-                        // if we catch a ChecksumFailedException, it means the transfer/read succeeded, but the checksum
-                        // doesn't match. This could be a problem with the server (ibiblio HTTP-200 error page), so we'll
-                        // try this up to two times. On the second try, we'll handle it as a bona-fide error, based on the
-                        // repository's checksum checking policy.
-                        if ( firstRun )
+                throw e;
+            }
+            catch ( ResourceDoesNotExistException e )
+            {
+                error = e;
+
+                throw e;
+            }
+            finally
+            {
+                finishTransfer( key, transfer, error );
+            }
+        }
+        finally
+        {
+            lock.release();
+        }
+    }
+
+    /**
+     * Let the threads waiting for the transfer have its outcome, and the threads coming later transfer the file
+     * again.
+     */
+    private void finishTransfer( String key, Transfer transfer, Exception error )
+    {
+        synchronized ( transfers )
+        {
+            if ( transfers.get( key ) == transfer )
+            {
+                transfers.remove( key );
+            }
+        }
+
+        transfer.finish( error );
+    }
+
+    private void transferRemoteFile( ArtifactRepository repository, File destination, String remotePath,
+                                     TransferListener downloadMonitor, String checksumPolicy, boolean force )
+        throws TransferFailedException, ResourceDoesNotExistException
+    {
+        // TODO: better excetpions - transfer failed is not enough?
+
+        failIfNotOnline();
+
+        String repositoryId = repository.getId();
+
+        ArtifactRepository mirror = getMirror( repository.getId() );
+        if ( mirror != null )
+        {
+            repository = repositoryFactory.createArtifactRepository( mirror.getId(), mirror.getUrl(),
+                                                                     repository.getLayout(), repository.getSnapshots(),
+                                                                     repository.getReleases() );
+        }
+
+        if ( repository instanceof ArchiveArtifactRepository )
+        {
+            getArchivedFile( (ArchiveArtifactRepository) repository, remotePath, destination, force );
+
+            return;
+        }
+
+        // there is no point in computing and fetching checksums which would be ignored anyway
+        Map checksumObservers = Collections.EMPTY_MAP;
+        if ( !ArtifactRepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals( checksumPolicy ) )
+        {
+            try
+            {
+                checksumObservers = getChecksumStrategy().createObservers();
+            }
+            catch ( NoSuchAlgorithmException e )
+            {
+                throw new TransferFailedException( "Unable to add checksum methods: " + e.getMessage(), e );
+            }
+        }
+
+        File temp = new File( destination + ".tmp" );
+        temp.deleteOnExit();
+
+        boolean downloaded = false;
+
+        if ( !repositoryHealth.request( repositoryId ) )
+        {
+            throw new TransferFailedException( "Repository '" + repositoryId +
+                "' is unavailable after repeated failures, it will be tried again later" );
+        }
+
+        ResponseTimer responseTimer = new ResponseTimer();
+
+        Wagon wagon;
+        try
+        {
+            wagon = acquireWagon( repository );
+        }
+        catch ( TransferFailedException e )
+        {
+            repositoryHealth.failed( repositoryId, responseTimer.getLatency() );
+
+            throw e;
+        }
+
+        boolean reusable = false;
+
+        // the files of a file repository are copied directly, the wagon only fetches their checksums
+        boolean local = isFileRepository( repository );
+
+        try
+        {
+            wagon.addTransferListener( responseTimer );
+
+            if ( downloadMonitor != null )
+            {
+                wagon.addTransferListener( downloadMonitor );
+            }
+
+            for ( Iterator i = checksumObservers.values().iterator(); i.hasNext(); )
+            {
+                wagon.addTransferListener( (ChecksumObserver) i.next() );
+            }
+
+            boolean firstRun = true;
+            boolean retry = true;
+
+            // this will run at most twice. The first time, the firstRun flag is turned off, and if the retry flag
+            // is set on the first run, it will be turned off and not re-set on the second try. This is because the
+            // only way the retry flag can be set is if ( firstRun == true ).
+            while ( firstRun || retry )
+            {
+                // reset the retry flag.
+                retry = false;
+
+                // This should take care of creating destination directory now on
+                if ( destination.exists() && !force )
+                {
+                    try
+                    {
+                        downloaded = local
+                            ? getLocalFile( repository, remotePath, temp, destination.lastModified() )
+                            : wagon.getIfNewer( remotePath, temp, destination.lastModified() );
+                        if ( !downloaded )
+                        {
+                            // prevent additional checks of this artifact until it expires again
+                            destination.setLastModified( System.currentTimeMillis() );
+                        }
+                    }
+                    catch ( UnsupportedOperationException e )
+                    {
+                        // older wagons throw this. Just get() instead
+                        wagon.get( remotePath, temp );
+                        downloaded = true;
+                    }
+                }
+                else if ( local )
+                {
+                    downloaded = getLocalFile( repository, remotePath, temp, -1 );
+                }
+                else
+                {
+                    wagon.get( remotePath, temp );
+                    downloaded = true;
+                }
+
+                if ( downloaded && !checksumObservers.isEmpty() )
+                {
+                    // keep the checksum files from showing up on the download monitor...
+                    if ( downloadMonitor != null )
+                    {
+                        wagon.removeTransferListener( downloadMonitor );
+                    }
+
+                    try
+                    {
+                        Map actualChecksums =
+                            local ? getLocalChecksums( temp ) : getActualChecksums( checksumObservers );
+
+                        verifyChecksums( repository, actualChecksums, destination, temp, remotePath, wagon );
+                    }
+                    catch ( ChecksumFailedException e )
+                    {
+                        // if we catch a ChecksumFailedException, it means the transfer/read succeeded, but the checksum
+                        // doesn't match. This could be a problem with the server (ibiblio HTTP-200 error page), so we'll
+                        // try this up to two times. On the second try, we'll handle it as a bona-fide error, based on the
+                        // repository's checksum checking policy.
+                        if ( firstRun )
                         {
                             getLogger().warn( "*** CHECKSUM FAILED - " + e.getMessage() + " - RETRYING" );
                             retry = true;
@@ -471,35 +839,10 @@ public class DefaultWagonManager
                             handleChecksumFailure( checksumPolicy, e.getMessage(), e.getCause() );
                         }
                     }
-                    catch ( ResourceDoesNotExistException sha1TryException )
+                    catch ( ResourceDoesNotExistException e )
                     {
-                        getLogger().debug( "SHA1 not found, trying MD5", sha1TryException );
-
-                        // if this IS NOT a ChecksumFailedException, it was a problem with transfer/read of the checksum
-                        // file...we'll try again with the MD5 checksum.
-                        try
-                        {
-                            verifyChecksum( md5ChecksumObserver, destination, temp, remotePath, ".md5", wagon );
-                        }
-                        catch ( ChecksumFailedException e )
-                        {
-                            // if we also fail to verify based on the MD5 checksum, and the checksum transfer/read
-                            // succeeded, then we need to determine whether to retry or handle it as a failure.
-                            if ( firstRun )
-                            {
-                                retry = true;
-                            }
-                            else
-                            {
-                                handleChecksumFailure( checksumPolicy, e.getMessage(), e.getCause() );
-                            }
-                        }
-                        catch ( ResourceDoesNotExistException md5TryException )
-                        {
-                            // this was a failed transfer, and we don't want to retry.
-                            handleChecksumFailure( checksumPolicy, "Error retrieving checksum file for " + remotePath,
-                                                   md5TryException );
-                        }
+                        // none of the checksum files is there, and we don't want to retry.
+                        handleChecksumFailure( checksumPolicy, "Error retrieving checksum file for " + remotePath, e );
                     }
 
                     // reinstate the download monitor...
@@ -512,14 +855,21 @@ public class DefaultWagonManager
                 // unset the firstRun flag, so we don't get caught in an infinite loop...
                 firstRun = false;
             }
+
+            reusable = true;
         }
-        catch ( ConnectionException e )
+        catch ( ResourceDoesNotExistException e )
         {
-            throw new TransferFailedException( "Connection failed: " + e.getMessage(), e );
+            // the connection itself is still good
+            reusable = true;
+
+            throw e;
         }
-        catch ( AuthenticationException e )
+        catch ( ChecksumFailedException e )
         {
-            throw new TransferFailedException( "Authentication failed: " + e.getMessage(), e );
+            reusable = true;
+
+            throw e;
         }
         catch ( AuthorizationException e )
         {
@@ -527,9 +877,29 @@ public class DefaultWagonManager
         }
         finally
         {
-            disconnectWagon( wagon );
+            wagon.removeTransferListener( responseTimer );
 
-            releaseWagon( protocol, wagon );
+            if ( downloadMonitor != null )
+            {
+                wagon.removeTransferListener( downloadMonitor );
+            }
+
+            for ( Iterator i = checksumObservers.values().iterator(); i.hasNext(); )
+            {
+                wagon.removeTransferListener( (ChecksumObserver) i.next() );
+            }
+
+            returnWagon( repository, wagon, reusable );
+
+            // the connection is reusable whenever the repository answered
+            if ( reusable )
+            {
+                repositoryHealth.succeeded( repositoryId, responseTimer.getLatency() );
+            }
+            else
+            {
+                repositoryHealth.failed( repositoryId, responseTimer.getLatency() );
+            }
         }
 
         if ( downloaded )
@@ -542,22 +912,16 @@ public class DefaultWagonManager
             // The temporary file is named destination + ".tmp" and is done this way to ensure
             // that the temporary file is in the same file system as the destination because the
             // File.renameTo operation doesn't really work across file systems.
-            // So we will attempt to do a File.renameTo for efficiency and atomicity, if this fails
-            // then we will use a brute force copy and delete the temporary file.
+            // So the other processes sharing the local repository never see a half written file.
 
-            if ( !temp.renameTo( destination ) )
+            try
             {
-                try
-                {
-                    FileUtils.copyFile( temp, destination );
-
-                    temp.delete();
-                }
-                catch ( IOException e )
-                {
-                    throw new TransferFailedException(
-                        "Error copying temporary file to the final destination: " + e.getMessage(), e );
-                }
+                LocalRepositoryFiles.move( temp, destination );
+            }
+            catch ( IOException e )
+            {
+                throw new TransferFailedException(
+                    "Error copying temporary file to the final destination: " + e.getMessage(), e );
             }
         }
     }
@@ -586,18 +950,229 @@ public class DefaultWagonManager
         // otherwise it is ignore
     }
 
-    private void verifyChecksum( ChecksumObserver checksumObserver, File destination, File tempDestination,
-                                 String remotePath, String checksumFileExtension, Wagon wagon )
-        throws ResourceDoesNotExistException, TransferFailedException, AuthorizationException
+    /**
+     * @return Map( String, String ) from the checksum file extensions to the checksums the observers computed
+     */
+    private static Map getActualChecksums( Map checksumObservers )
+    {
+        // grab them first, because they're about to change while the checksum files are downloaded...
+        Map actualChecksums = new LinkedHashMap();
+        for ( Iterator i = checksumObservers.entrySet().iterator(); i.hasNext(); )
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+
+            actualChecksums.put( entry.getKey(), ( (ChecksumObserver) entry.getValue() ).getActualChecksum() );
+        }
+        return actualChecksums;
+    }
+
+    private Map getLocalChecksums( File file )
+        throws TransferFailedException
+    {
+        try
+        {
+            return getChecksumStrategy().digest( file );
+        }
+        catch ( IOException e )
+        {
+            throw new TransferFailedException( "Unable to compute the checksums of " + file + ": " + e.getMessage(),
+                                               e );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new TransferFailedException( "Unable to add checksum methods: " + e.getMessage(), e );
+        }
+    }
+
+    private static boolean isFileRepository( ArtifactRepository repository )
+    {
+        return "file".equals( repository.getProtocol() );
+    }
+
+    /**
+     * Copy a file of a file repository without going through the wagon.
+     *
+     * @param timestamp the time the file must have been modified after to be copied, or a negative value to copy it
+     *                  anyway
+     * @return whether the file was copied
+     */
+    private boolean getLocalFile( ArtifactRepository repository, String remotePath, File destination,
+                                  long timestamp )
+        throws TransferFailedException, ResourceDoesNotExistException
+    {
+        File source = new File( repository.getBasedir(), remotePath );
+
+        if ( !source.isFile() )
+        {
+            throw new ResourceDoesNotExistException( "File " + source + " does not exist" );
+        }
+
+        if ( source.lastModified() <= timestamp )
+        {
+            return false;
+        }
+
+        try
+        {
+            LocalRepositoryFiles.transfer( source, destination );
+        }
+        catch ( IOException e )
+        {
+            throw new TransferFailedException( "Unable to copy " + source + ": " + e.getMessage(), e );
+        }
+        return true;
+    }
+
+    /**
+     * Extract a file of an archive repository. Neither the wagon nor checksums are involved: the archive is a local
+     * file, written whole before it is used.
+     */
+    private void getArchivedFile( ArchiveArtifactRepository repository, String remotePath, File destination,
+                                  boolean force )
+        throws TransferFailedException, ResourceDoesNotExistException
+    {
+        File temp = null;
+        try
+        {
+            RepositoryArchive archive = repository.getArchive();
+
+            if ( !archive.contains( remotePath ) )
+            {
+                throw new ResourceDoesNotExistException( remotePath + " is not in " + archive.getFile() );
+            }
+
+            if ( destination.exists() && !force && destination.lastModified() >= archive.getLastModified() )
+            {
+                // prevent additional checks of this artifact until it expires again
+                destination.setLastModified( System.currentTimeMillis() );
+
+                return;
+            }
+
+            getLogger().debug( "Extracting " + remotePath + " from " + archive.getFile() );
+
+            temp = LocalRepositoryFiles.createTempFile( destination );
+
+            archive.extract( remotePath, temp );
+
+            LocalRepositoryFiles.move( temp, destination );
+        }
+        catch ( IOException e )
+        {
+            throw new TransferFailedException( "Unable to extract " + remotePath + " from " +
+                repository.getArchiveFile() + ": " + e.getMessage(), e );
+        }
+        finally
+        {
+            if ( temp != null )
+            {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Put a file into a file repository without going through the wagon, along with its checksum files. Each file is
+     * written to a temporary file renamed in place, without the directory locks of the local repository, which
+     * would leave lock files in the repository deployed to.
+     */
+    private void putLocalFile( ArtifactRepository repository, File source, String remotePath )
+        throws TransferFailedException
     {
+        File destination = new File( repository.getBasedir(), remotePath );
+
+        getLogger().debug( "Copying " + source + " to " + destination );
+
         try
         {
-            // grab it first, because it's about to change...
-            String actualChecksum = checksumObserver.getActualChecksum();
+            Map checksums = ChecksumStrategy.digest( source, DEPLOYED_CHECKSUMS );
 
-            File tempChecksumFile = new File( tempDestination + checksumFileExtension + ".tmp" );
-            tempChecksumFile.deleteOnExit();
-            wagon.get( remotePath + checksumFileExtension, tempChecksumFile );
+            LocalRepositoryFiles.copy( source, destination, false );
+
+            for ( Iterator i = checksums.entrySet().iterator(); i.hasNext(); )
+            {
+                Map.Entry entry = (Map.Entry) i.next();
+
+                LocalRepositoryFiles.write( new File( destination + "." + entry.getKey() ), (String) entry.getValue(),
+                                            false );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new TransferFailedException( "Unable to copy " + source + " to " + destination + ": " +
+                e.getMessage(), e );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new TransferFailedException( "Unable to add checksum methods: " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * Verify the downloaded file against the first checksum file found on the repository. Once verified, the
+     * local checksum files are written from the given checksums, for all the algorithms.
+     *
+     * @throws ResourceDoesNotExistException if the repository has none of the checksum files
+     */
+    private void verifyChecksums( ArtifactRepository repository, Map actualChecksums, File destination,
+                                  File tempDestination, String remotePath, Wagon wagon )
+        throws ResourceDoesNotExistException, TransferFailedException, AuthorizationException
+    {
+        ChecksumStrategy strategy = getChecksumStrategy();
+
+        ResourceDoesNotExistException notFound = null;
+
+        for ( Iterator i = strategy.getExtensions( repository.getId() ).iterator(); i.hasNext(); )
+        {
+            String extension = (String) i.next();
+
+            String actualChecksum = (String) actualChecksums.get( extension );
+
+            if ( actualChecksum == null )
+            {
+                continue;
+            }
+
+            String expectedChecksum;
+            try
+            {
+                expectedChecksum = getRemoteChecksum( remotePath + "." + extension, tempDestination, extension, wagon );
+            }
+            catch ( ResourceDoesNotExistException e )
+            {
+                getLogger().debug( extension + " checksum not found for " + remotePath, e );
+
+                notFound = e;
+
+                continue;
+            }
+
+            strategy.found( repository.getId(), extension );
+
+            if ( !expectedChecksum.equals( actualChecksum ) )
+            {
+                throw new ChecksumFailedException( "Checksum failed on download: local = '" + actualChecksum +
+                    "'; remote = '" + expectedChecksum + "'" );
+            }
+
+            writeChecksums( destination, actualChecksums );
+
+            return;
+        }
+
+        throw notFound != null ? notFound
+            : new ResourceDoesNotExistException( "No checksum configured to verify " + remotePath );
+    }
+
+    private String getRemoteChecksum( String checksumPath, File tempDestination, String extension, Wagon wagon )
+        throws ResourceDoesNotExistException, TransferFailedException, AuthorizationException
+    {
+        File tempChecksumFile = new File( tempDestination + "." + extension + ".tmp" );
+        tempChecksumFile.deleteOnExit();
+
+        try
+        {
+            wagon.get( checksumPath, tempChecksumFile );
 
             String expectedChecksum = FileUtils.fileRead( tempChecksumFile );
 
@@ -620,24 +1195,188 @@ public class DefaultWagonManager
                     expectedChecksum = expectedChecksum.substring( 0, spacePos );
                 }
             }
-            if ( expectedChecksum.equals( actualChecksum ) )
+
+            return expectedChecksum;
+        }
+        catch ( IOException e )
+        {
+            throw new ChecksumFailedException( "Invalid checksum file", e );
+        }
+        finally
+        {
+            tempChecksumFile.delete();
+        }
+    }
+
+    private void writeChecksums( File destination, Map checksums )
+        throws ChecksumFailedException
+    {
+        for ( Iterator i = checksums.entrySet().iterator(); i.hasNext(); )
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+
+            File checksumFile = new File( destination + "." + entry.getKey() );
+
+            try
+            {
+                LocalRepositoryFiles.write( checksumFile, (String) entry.getValue() );
+            }
+            catch ( IOException e )
             {
-                File checksumFile = new File( destination + checksumFileExtension );
-                if ( checksumFile.exists() )
-                {
-                    checksumFile.delete();
-                }
-                FileUtils.copyFile( tempChecksumFile, checksumFile );
+                throw new ChecksumFailedException( "Unable to write checksum file " + checksumFile, e );
+            }
+        }
+    }
+
+    /**
+     * Get a connected wagon for the repository, reusing an idle connection from the pool when there is one.
+     */
+    private Wagon acquireWagon( ArtifactRepository repository )
+        throws TransferFailedException
+    {
+        WagonConnectionPool pool = getConnectionPool();
+
+        closeConnections( pool.evictIdle() );
+
+        String key = getConnectionKey( repository );
+
+        Wagon wagon = pool.borrow( key );
+
+        if ( wagon != null )
+        {
+            getLogger().debug( "Reusing connection to repository " + repository.getId() );
+
+            return wagon;
+        }
+
+        String protocol = repository.getProtocol();
+
+        try
+        {
+            wagon = getWagon( protocol );
+        }
+        catch ( UnsupportedProtocolException e )
+        {
+            throw new TransferFailedException( "Unsupported Protocol: '" + protocol + "': " + e.getMessage(), e );
+        }
+
+        try
+        {
+            configureWagon( wagon, repository );
+
+            Repository artifactRepository = new Repository( repository.getId(), repository.getUrl() );
+
+            if ( serverPermissionsMap.containsKey( repository.getId() ) )
+            {
+                RepositoryPermissions perms = (RepositoryPermissions) serverPermissionsMap.get( repository.getId() );
+                getLogger().debug(
+                    "adding permissions to wagon connection: " + perms.getFileMode() + " " + perms.getDirectoryMode() );
+                artifactRepository.setPermissions( perms );
             }
             else
             {
-                throw new ChecksumFailedException( "Checksum failed on download: local = '" + actualChecksum +
-                    "'; remote = '" + expectedChecksum + "'" );
+                getLogger().debug( "not adding permissions to wagon connection" );
             }
+
+            wagon.connect( artifactRepository, getAuthenticationInfo( repository.getId() ), getProxy( protocol ) );
+
+            return wagon;
+        }
+        catch ( ConnectionException e )
+        {
+            releaseWagon( protocol, wagon );
+
+            throw new TransferFailedException( "Connection failed: " + e.getMessage(), e );
+        }
+        catch ( AuthenticationException e )
+        {
+            releaseWagon( protocol, wagon );
+
+            throw new TransferFailedException( "Authentication failed: " + e.getMessage(), e );
+        }
+        catch ( WagonConfigurationException e )
+        {
+            releaseWagon( protocol, wagon );
+
+            throw e;
+        }
+    }
+
+    /**
+     * Give a connected wagon back to the pool when it may be reused, otherwise disconnect and release it.
+     */
+    private void returnWagon( ArtifactRepository repository, Wagon wagon, boolean reusable )
+    {
+        String protocol = repository.getProtocol();
+
+        if ( !reusable || !getConnectionPool().release( getConnectionKey( repository ), protocol, wagon ) )
+        {
+            disconnectWagon( wagon );
+
+            releaseWagon( protocol, wagon );
+        }
+    }
+
+    private static String getConnectionKey( ArtifactRepository repository )
+    {
+        return repository.getId() + "|" + repository.getUrl();
+    }
+
+    private RepositoryRoutes getRoutes( ArtifactRepository localRepository )
+    {
+        synchronized ( routes )
+        {
+            RepositoryRoutes repositoryRoutes = (RepositoryRoutes) routes.get( localRepository.getBasedir() );
+            if ( repositoryRoutes == null )
+            {
+                repositoryRoutes = new RepositoryRoutes( new File( localRepository.getBasedir() ) );
+                routes.put( localRepository.getBasedir(), repositoryRoutes );
+            }
+            return repositoryRoutes;
+        }
+    }
+
+    private synchronized ResolutionWorkerPool getHedgePool()
+    {
+        if ( hedgePool == null )
+        {
+            hedgePool = new ResolutionWorkerPool( "hedged-download", HEDGE_THREADS );
         }
-        catch ( IOException e )
+        return hedgePool;
+    }
+
+    private synchronized ChecksumStrategy getChecksumStrategy()
+    {
+        if ( checksumStrategy == null )
         {
-            throw new ChecksumFailedException( "Invalid checksum file", e );
+            checksumStrategy = new ChecksumStrategy( checksumAlgorithms );
+        }
+        return checksumStrategy;
+    }
+
+    private synchronized WagonConnectionPool getConnectionPool()
+    {
+        if ( connectionPool == null )
+        {
+            connectionPool = new WagonConnectionPool( maxConnectionsPerRepository, connectionIdleTimeout );
+        }
+        return connectionPool;
+    }
+
+    public void closeConnections()
+    {
+        closeConnections( getConnectionPool().clear() );
+    }
+
+    private void closeConnections( List connections )
+    {
+        for ( Iterator i = connections.iterator(); i.hasNext(); )
+        {
+            WagonConnectionPool.PooledConnection connection = (WagonConnectionPool.PooledConnection) i.next();
+
+            disconnectWagon( connection.wagon );
+
+            releaseWagon( connection.protocol, connection.wagon );
         }
     }
 
@@ -788,6 +1527,52 @@ public class DefaultWagonManager
         this.interactive = interactive;
     }
 
+    public void setMaxConnectionsPerRepository( int maxConnectionsPerRepository )
+    {
+        this.maxConnectionsPerRepository = maxConnectionsPerRepository;
+
+        getConnectionPool().setMaxIdlePerRepository( maxConnectionsPerRepository );
+    }
+
+    public synchronized void setChecksumAlgorithms( String checksumAlgorithms )
+    {
+        this.checksumAlgorithms = checksumAlgorithms;
+
+        checksumStrategy = null;
+    }
+
+    public void setHedgeRequests( boolean hedgeRequests )
+    {
+        this.hedgeRequests = hedgeRequests;
+    }
+
+    public void setHedgePercentile( int hedgePercentile )
+    {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public void setHedgeDelay( long hedgeDelay )
+    {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    public void setRouteRepositories( boolean routeRepositories )
+    {
+        this.routeRepositories = routeRepositories;
+    }
+
+    public void setCacheNotFound( boolean cacheNotFound )
+    {
+        this.cacheNotFound = cacheNotFound;
+    }
+
+    public void setConnectionIdleTimeout( long connectionIdleTimeout )
+    {
+        this.connectionIdleTimeout = connectionIdleTimeout;
+
+        getConnectionPool().setIdleTimeout( connectionIdleTimeout );
+    }
+
     public void findAndRegisterWagons( PlexusContainer container )
     {
         try
@@ -871,4 +1656,391 @@ public class DefaultWagonManager
         serverConfigurationMap.put( repositoryId, xmlConf );
     }
 
+
+    /**
+     * The downloads of an artifact started from several repositories. Each one downloads to a file of its own next
+     * to the artifact, and the first one to complete is moved in place.
+     */
+    private class HedgedDownload
+    {
+        private final Artifact artifact;
+
+        private final List finished = new LinkedList();
+
+        private int running;
+
+        /**
+         * Number of the running attempts which started to receive the artifact.
+         */
+        private int receiving;
+
+        private boolean closed;
+
+        private HedgedAttempt last;
+
+        HedgedDownload( Artifact artifact )
+        {
+            this.artifact = artifact;
+        }
+
+        void start( ArtifactRepository repository )
+        {
+            File file = new File( artifact.getFile().getPath() + "." + repository.getId() + ".part" );
+            file.delete();
+
+            HedgedAttempt attempt = new HedgedAttempt( this, repository, file, last == null ? downloadMonitor : null );
+
+            synchronized ( this )
+            {
+                running++;
+                last = attempt;
+            }
+
+            getHedgePool().submit( attempt );
+        }
+
+        synchronized int getRunning()
+        {
+            return running;
+        }
+
+        /**
+         * Wait for the next attempt to complete.
+         *
+         * @param hedge whether to stop waiting once the last attempt started takes longer than usual to start
+         *              receiving the artifact, unless another attempt receives it already
+         * @return the completed attempt, or <code>null</code> if the last one takes longer than usual
+         */
+        synchronized HedgedAttempt awaitAttempt( boolean hedge )
+        {
+            long delay = repositoryHealth.getLatency( last.repository.getId(), hedgePercentile );
+            long deadline = last.started + ( delay < 0 ? hedgeDelay : delay );
+
+            while ( finished.isEmpty() )
+            {
+                // asking another repository is no use once the artifact is on its way
+                boolean hedging = hedge && receiving == 0;
+
+                long timeout = deadline - System.currentTimeMillis();
+
+                if ( hedging && timeout <= 0 )
+                {
+                    return null;
+                }
+
+                try
+                {
+                    wait( hedging ? timeout : 0 );
+                }
+                catch ( InterruptedException e )
+                {
+                    // check again
+                }
+            }
+
+            HedgedAttempt attempt = (HedgedAttempt) finished.remove( 0 );
+
+            running--;
+            if ( attempt.receiving )
+            {
+                receiving--;
+            }
+
+            return attempt;
+        }
+
+        synchronized void receiving( HedgedAttempt attempt )
+        {
+            if ( !attempt.receiving )
+            {
+                attempt.receiving = true;
+                receiving++;
+            }
+        }
+
+        synchronized void finished( HedgedAttempt attempt )
+        {
+            if ( closed )
+            {
+                discard( attempt );
+            }
+            else
+            {
+                finished.add( attempt );
+
+                notifyAll();
+            }
+        }
+
+        /**
+         * Move the file downloaded by the attempt, and its checksums, in place of the artifact.
+         */
+        void complete( HedgedAttempt attempt )
+            throws TransferFailedException
+        {
+            move( attempt.file, artifact.getFile() );
+
+            for ( Iterator i = getChecksumStrategy().getExtensions( null ).iterator(); i.hasNext(); )
+            {
+                String extension = "." + i.next();
+
+                File checksum = new File( attempt.file + extension );
+                if ( checksum.exists() )
+                {
+                    move( checksum, new File( artifact.getFile() + extension ) );
+                }
+            }
+
+            deleteLockFile( attempt );
+        }
+
+        /**
+         * Discard the attempts completed since, and those still running once they complete.
+         */
+        synchronized void close()
+        {
+            closed = true;
+
+            for ( Iterator i = finished.iterator(); i.hasNext(); )
+            {
+                discard( (HedgedAttempt) i.next() );
+            }
+            finished.clear();
+        }
+
+        private void discard( HedgedAttempt attempt )
+        {
+            attempt.file.delete();
+
+            for ( Iterator i = getChecksumStrategy().getExtensions( null ).iterator(); i.hasNext(); )
+            {
+                new File( attempt.file + "." + i.next() ).delete();
+            }
+
+            deleteLockFile( attempt );
+        }
+
+        /**
+         * Delete the file the attempt locked its download with: unlike the lock file of the artifact, nothing else
+         * locks it once the attempt is over.
+         */
+        private void deleteLockFile( HedgedAttempt attempt )
+        {
+            new File( attempt.file + LocalFileLock.LOCK_FILE_EXTENSION ).delete();
+        }
+
+        private void move( File source, File destination )
+            throws TransferFailedException
+        {
+            try
+            {
+                LocalRepositoryFiles.move( source, destination );
+            }
+            catch ( IOException e )
+            {
+                throw new TransferFailedException(
+                    "Error copying downloaded file to the final destination: " + e.getMessage(), e );
+            }
+        }
+    }
+
+    /**
+     * A transfer in progress, which other threads asking for the same file wait for.
+     */
+    private static final class Transfer
+    {
+        private boolean finished;
+
+        private Exception error;
+
+        synchronized void finish( Exception error )
+        {
+            this.error = error;
+            this.finished = true;
+
+            notifyAll();
+        }
+
+        synchronized void await()
+            throws TransferFailedException, ResourceDoesNotExistException
+        {
+            while ( !finished )
+            {
+                try
+                {
+                    wait();
+                }
+                catch ( InterruptedException e )
+                {
+                    // check again
+                }
+            }
+
+            if ( error instanceof ResourceDoesNotExistException )
+            {
+                throw (ResourceDoesNotExistException) error;
+            }
+            else if ( error != null )
+            {
+                throw (TransferFailedException) error;
+            }
+        }
+    }
+
+    /**
+     * Measures the time a repository takes to start answering a request: until the content of the first file
+     * requested starts to be transferred, or else until the request is over.
+     */
+    private static final class ResponseTimer
+        implements TransferListener
+    {
+        private final long started = System.currentTimeMillis();
+
+        private long answered = -1;
+
+        long getLatency()
+        {
+            return ( answered < 0 ? System.currentTimeMillis() : answered ) - started;
+        }
+
+        public void transferInitiated( TransferEvent transferEvent )
+        {
+            // not answered yet
+        }
+
+        public void transferStarted( TransferEvent transferEvent )
+        {
+            if ( answered < 0 )
+            {
+                answered = System.currentTimeMillis();
+            }
+        }
+
+        public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+        {
+            // already answered
+        }
+
+        public void transferCompleted( TransferEvent transferEvent )
+        {
+            // already answered
+        }
+
+        public void transferError( TransferEvent transferEvent )
+        {
+            // measured when the request is over
+        }
+
+        public void debug( String message )
+        {
+            // nothing to measure
+        }
+    }
+
+    /**
+     * The download of an artifact from one repository, as part of a {@link HedgedDownload}. It tells the download
+     * once the artifact starts to be received, and passes the transfer events on to the download monitor, if any.
+     */
+    private class HedgedAttempt
+        implements Runnable, TransferListener
+    {
+        private final HedgedDownload download;
+
+        private final ArtifactRepository repository;
+
+        private final File file;
+
+        private final TransferListener downloadMonitor;
+
+        private final long started = System.currentTimeMillis();
+
+        private boolean receiving;
+
+        private Throwable error;
+
+        HedgedAttempt( HedgedDownload download, ArtifactRepository repository, File file,
+                       TransferListener downloadMonitor )
+        {
+            this.download = download;
+            this.repository = repository;
+            this.file = file;
+            this.downloadMonitor = downloadMonitor;
+        }
+
+        public void run()
+        {
+            try
+            {
+                getRemoteFile( repository, file, repository.pathOf( download.artifact ), this,
+                               repository.getReleases().getChecksumPolicy(), false );
+            }
+            catch ( ResourceDoesNotExistException e )
+            {
+                error = e;
+            }
+            catch ( TransferFailedException e )
+            {
+                error = e;
+            }
+            catch ( Throwable e )
+            {
+                // anything else, errors included, fails the attempt rather than passing for a download
+                error = e;
+            }
+            finally
+            {
+                download.finished( this );
+            }
+        }
+
+        public void transferInitiated( TransferEvent transferEvent )
+        {
+            if ( downloadMonitor != null )
+            {
+                downloadMonitor.transferInitiated( transferEvent );
+            }
+        }
+
+        public void transferStarted( TransferEvent transferEvent )
+        {
+            download.receiving( this );
+
+            if ( downloadMonitor != null )
+            {
+                downloadMonitor.transferStarted( transferEvent );
+            }
+        }
+
+        public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+        {
+            if ( downloadMonitor != null )
+            {
+                downloadMonitor.transferProgress( transferEvent, buffer, length );
+            }
+        }
+
+        public void transferCompleted( TransferEvent transferEvent )
+        {
+            if ( downloadMonitor != null )
+            {
+                downloadMonitor.transferCompleted( transferEvent );
+            }
+        }
+
+        public void transferError( TransferEvent transferEvent )
+        {
+            if ( downloadMonitor != null )
+            {
+                downloadMonitor.transferError( transferEvent );
+            }
+        }
+
+        public void debug( String message )
+        {
+            if ( downloadMonitor != null )
+            {
+                downloadMonitor.debug( message );
+            }
+        }
+    }
 }
@@ -0,0 +1,229 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exclusive lock on a file or a directory of the local repository, held against the other threads of this JVM and,
+ * through a lock on a <code>.lock</code> file next to the file or in the directory, against the other processes
+ * sharing the local repository. A thread already holding a lock gets it again at once, and must release it as many
+ * times.
+ * <p/>
+ * The lock files are left in place when the lock is released: removing them would let another process lock a
+ * file which is about to be deleted.
+ *
+ * @version $Id$
+ */
+public final class LocalFileLock
+{
+    static final String LOCK_FILE_EXTENSION = ".lock";
+
+    /**
+     * Map( String, Holder ) of the canonical paths of the files locked by threads of this JVM. File locks are held on
+     * behalf of the whole JVM, so they can't be used to exclude other threads; nor can the same file be locked twice
+     * by the JVM, so that paths reaching the same file must have the same key.
+     */
+    private static final Map LOCKED_PATHS = new HashMap();
+
+    private final String path;
+
+    private final RandomAccessFile lockFile;
+
+    private final FileLock fileLock;
+
+    private LocalFileLock( String path, RandomAccessFile lockFile, FileLock fileLock )
+    {
+        this.path = path;
+        this.lockFile = lockFile;
+        this.fileLock = fileLock;
+    }
+
+    /**
+     * Wait for the lock on the given file. If the lock can't be taken in the file system, e.g. because it is read
+     * only or doesn't support locks, the lock only excludes the other threads of this JVM.
+     */
+    public static LocalFileLock lock( File file )
+        throws InterruptedException
+    {
+        String path = getCanonicalPath( file );
+
+        return lock( path, new File( path + LOCK_FILE_EXTENSION ) );
+    }
+
+    /**
+     * Wait for the lock on the given directory, like {@link #lock(File)}. It doesn't exclude the locks on the files
+     * of the directory.
+     */
+    public static LocalFileLock lockDirectory( File directory )
+        throws InterruptedException
+    {
+        String path = getCanonicalPath( directory );
+
+        return lock( path + File.separator, new File( path, LOCK_FILE_EXTENSION ) );
+    }
+
+    /**
+     * @return the canonical path of the file, or its absolute path if it can't be resolved
+     */
+    private static String getCanonicalPath( File file )
+    {
+        try
+        {
+            return file.getCanonicalPath();
+        }
+        catch ( IOException e )
+        {
+            return file.getAbsolutePath();
+        }
+    }
+
+    private static LocalFileLock lock( String path, File file )
+        throws InterruptedException
+    {
+        synchronized ( LOCKED_PATHS )
+        {
+            Holder holder = (Holder) LOCKED_PATHS.get( path );
+
+            while ( holder != null && holder.thread != Thread.currentThread() )
+            {
+                LOCKED_PATHS.wait();
+
+                holder = (Holder) LOCKED_PATHS.get( path );
+            }
+
+            if ( holder != null )
+            {
+                holder.count++;
+
+                // the file lock stays with the outermost lock
+                return new LocalFileLock( path, null, null );
+            }
+
+            LOCKED_PATHS.put( path, new Holder( Thread.currentThread() ) );
+        }
+
+        RandomAccessFile lockFile = null;
+        FileLock fileLock = null;
+        try
+        {
+            file.getParentFile().mkdirs();
+
+            lockFile = new RandomAccessFile( file, "rw" );
+
+            fileLock = lockFile.getChannel().lock();
+        }
+        catch ( IOException e )
+        {
+            close( lockFile );
+
+            lockFile = null;
+        }
+        catch ( RuntimeException e )
+        {
+            close( lockFile );
+
+            unlock( path );
+
+            throw e;
+        }
+        catch ( Error e )
+        {
+            close( lockFile );
+
+            unlock( path );
+
+            throw e;
+        }
+
+        return new LocalFileLock( path, lockFile, fileLock );
+    }
+
+    public void release()
+    {
+        try
+        {
+            if ( fileLock != null )
+            {
+                fileLock.release();
+            }
+        }
+        catch ( IOException e )
+        {
+            // closing the file releases it anyway
+        }
+        finally
+        {
+            close( lockFile );
+
+            unlock( path );
+        }
+    }
+
+    /**
+     * Let the other threads of this JVM have the path once the current thread holds it no more.
+     */
+    private static void unlock( String path )
+    {
+        synchronized ( LOCKED_PATHS )
+        {
+            Holder holder = (Holder) LOCKED_PATHS.get( path );
+
+            if ( --holder.count == 0 )
+            {
+                LOCKED_PATHS.remove( path );
+
+                LOCKED_PATHS.notifyAll();
+            }
+        }
+    }
+
+    private static void close( RandomAccessFile file )
+    {
+        if ( file != null )
+        {
+            try
+            {
+                file.close();
+            }
+            catch ( IOException e )
+            {
+                // nothing to do
+            }
+        }
+    }
+
+    private static final class Holder
+    {
+        private final Thread thread;
+
+        private int count = 1;
+
+        Holder( Thread thread )
+        {
+            this.thread = thread;
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Properties;
+
+/**
+ * Writes to the local repository which the other processes sharing it never see half done: the content is written
+ * to a temporary file of the same directory, which is then renamed over the destination, while holding the lock on
+ * the directory.
+ * <p/>
+ * Files are copied with {@link FileChannel#transferTo(long,long,java.nio.channels.WritableByteChannel)}, which
+ * lets the operating system move the bytes without copying them through the JVM.
+ *
+ * @version $Id$
+ */
+public final class LocalRepositoryFiles
+{
+    /**
+     * Largest number of bytes transferred at once, as some platforms fail to transfer large files in one go.
+     */
+    private static final long MAX_TRANSFER = 64 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private LocalRepositoryFiles()
+    {
+    }
+
+    /**
+     * @return a new empty file of the directory of the destination, to write its content to before
+     *         {@link #move(File,File) moving} it in place
+     */
+    public static File createTempFile( File destination )
+        throws IOException
+    {
+        File directory = destination.getParentFile();
+        directory.mkdirs();
+
+        return File.createTempFile( destination.getName() + ".", ".tmp", directory );
+    }
+
+    /**
+     * @return whether the file of a local repository is a lock, a temporary file, a record of the remote
+     *         repositories or a cache of the builds of its POMs, rather than content of the repository
+     */
+    public static boolean isBookkeeping( File file )
+    {
+        String name = file.getName();
+
+        return name.endsWith( LocalFileLock.LOCK_FILE_EXTENSION ) || name.endsWith( ".tmp" ) ||
+            name.endsWith( NotFoundCache.EXTENSION ) || name.equals( RepositoryRoutes.FILE_NAME ) ||
+            name.endsWith( ".resolution" ) || name.endsWith( ".assembled" );
+    }
+
+    /**
+     * Copy the source file to the destination, unless the destination already has the same content, in which case
+     * it is only touched.
+     */
+    public static void copy( File source, File destination )
+        throws IOException
+    {
+        copy( source, destination, true );
+    }
+
+    /**
+     * Copy the source file to the destination like {@link #copy(File,File)}.
+     *
+     * @param lock whether to hold the lock on the directory of the destination, which only the local repository
+     *             needs: other directories, like the one of a file repository deployed to, are left without lock files
+     */
+    public static void copy( File source, File destination, boolean lock )
+        throws IOException
+    {
+        if ( isIdentical( source, destination ) )
+        {
+            destination.setLastModified( System.currentTimeMillis() );
+
+            return;
+        }
+
+        File temp = createTempFile( destination );
+        try
+        {
+            transfer( source, temp );
+
+            move( temp, destination, lock );
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Copy the source file over the destination file.
+     */
+    public static void transfer( File source, File destination )
+        throws IOException
+    {
+        FileInputStream in = null;
+        FileOutputStream out = null;
+        try
+        {
+            in = new FileInputStream( source );
+            out = new FileOutputStream( destination );
+
+            FileChannel input = in.getChannel();
+            FileChannel output = out.getChannel();
+
+            long size = input.size();
+            long position = 0;
+            while ( position < size )
+            {
+                long transferred = input.transferTo( position, Math.min( size - position, MAX_TRANSFER ), output );
+
+                if ( transferred <= 0 )
+                {
+                    throw new IOException( source + " was truncated while copying it to " + destination );
+                }
+                position += transferred;
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+            IOUtil.close( out );
+        }
+    }
+
+    /**
+     * @return whether both files exist and have the same content
+     */
+    public static boolean isIdentical( File file, File other )
+        throws IOException
+    {
+        if ( !file.isFile() || !other.isFile() || file.length() != other.length() )
+        {
+            return false;
+        }
+
+        FileInputStream in = null;
+        FileInputStream otherIn = null;
+        try
+        {
+            in = new FileInputStream( file );
+            otherIn = new FileInputStream( other );
+
+            FileChannel channel = in.getChannel();
+            FileChannel otherChannel = otherIn.getChannel();
+
+            ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+            ByteBuffer otherBuffer = ByteBuffer.allocate( BUFFER_SIZE );
+
+            while ( true )
+            {
+                int read = fill( channel, buffer );
+
+                if ( read != fill( otherChannel, otherBuffer ) || !buffer.equals( otherBuffer ) )
+                {
+                    return false;
+                }
+                if ( read < BUFFER_SIZE )
+                {
+                    return true;
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+            IOUtil.close( otherIn );
+        }
+    }
+
+    /**
+     * Read from the channel until the buffer is full or the end of the file is reached, and flip the buffer.
+     *
+     * @return the number of bytes read
+     */
+    private static int fill( FileChannel channel, ByteBuffer buffer )
+        throws IOException
+    {
+        buffer.clear();
+
+        while ( buffer.hasRemaining() && channel.read( buffer ) >= 0 )
+        {
+            // keep reading
+        }
+
+        buffer.flip();
+
+        return buffer.limit();
+    }
+
+    /**
+     * Write the content to the destination file.
+     */
+    public static void write( File destination, String content )
+        throws IOException
+    {
+        write( destination, content, true );
+    }
+
+    /**
+     * Write the content to the destination file.
+     *
+     * @param lock whether to hold the lock on the directory of the destination, as in
+     *             {@link #copy(File,File,boolean)}
+     */
+    public static void write( File destination, String content, boolean lock )
+        throws IOException
+    {
+        File temp = createTempFile( destination );
+        try
+        {
+            FileUtils.fileWrite( temp.getAbsolutePath(), content );
+
+            move( temp, destination, lock );
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Write the bytes to the destination file.
+     */
+    public static void write( File destination, byte[] content )
+        throws IOException
+    {
+        File temp = createTempFile( destination );
+        try
+        {
+            OutputStream out = null;
+            try
+            {
+                out = new FileOutputStream( temp );
+
+                out.write( content );
+            }
+            finally
+            {
+                IOUtil.close( out );
+            }
+
+            move( temp, destination );
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Store the properties to the destination file.
+     */
+    public static void store( File destination, Properties properties, String comments )
+        throws IOException
+    {
+        File temp = createTempFile( destination );
+        try
+        {
+            OutputStream out = null;
+            try
+            {
+                out = new FileOutputStream( temp );
+
+                properties.store( out, comments );
+            }
+            finally
+            {
+                IOUtil.close( out );
+            }
+
+            move( temp, destination );
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Move the file over the destination, which is replaced at once unless the file is on another file system or
+     * the platform can't rename over an existing file.
+     */
+    public static void move( File file, File destination )
+        throws IOException
+    {
+        move( file, destination, true );
+    }
+
+    /**
+     * Move the file over the destination like {@link #move(File,File)}.
+     *
+     * @param lock whether to hold the lock on the directory of the destination, as in
+     *             {@link #copy(File,File,boolean)}
+     */
+    public static void move( File file, File destination, boolean lock )
+        throws IOException
+    {
+        if ( !lock )
+        {
+            rename( file, destination );
+
+            return;
+        }
+
+        LocalFileLock directoryLock = lockDirectory( destination.getParentFile() );
+        try
+        {
+            rename( file, destination );
+        }
+        finally
+        {
+            directoryLock.release();
+        }
+    }
+
+    private static void rename( File file, File destination )
+        throws IOException
+    {
+        if ( file.renameTo( destination ) )
+        {
+            return;
+        }
+
+        // some platforms won't rename over an existing file
+        destination.delete();
+        if ( file.renameTo( destination ) )
+        {
+            return;
+        }
+
+        // another file system: copy it next to the destination first
+        if ( !file.getParentFile().getAbsoluteFile().equals( destination.getParentFile().getAbsoluteFile() ) )
+        {
+            File temp = createTempFile( destination );
+            try
+            {
+                transfer( file, temp );
+
+                if ( temp.renameTo( destination ) )
+                {
+                    file.delete();
+
+                    return;
+                }
+            }
+            finally
+            {
+                temp.delete();
+            }
+        }
+
+        throw new IOException( "Unable to move " + file + " to " + destination );
+    }
+
+    /**
+     * Wait for the lock on the directory, as {@link LocalFileLock#lockDirectory(File)} does.
+     *
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    public static LocalFileLock lockDirectory( File directory )
+        throws InterruptedIOException
+    {
+        try
+        {
+            return LocalFileLock.lockDirectory( directory );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException( "Interrupted while waiting for the lock on " + directory );
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.repository.ArtifactRepository;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Read-only base repositories laid under the local repository, such as a pre-populated repository shared by
+ * several machines. A file missing from the local repository is looked for in the base repositories, in order,
+ * before it is downloaded; whatever is downloaded, installed or updated is only ever written to the local
+ * repository, which shadows the base repositories.
+ *
+ * @version $Id$
+ */
+public interface LocalRepositoryLayers
+{
+    String ROLE = LocalRepositoryLayers.class.getName();
+
+    /**
+     * Add a base repository, consulted after the ones added before it.
+     *
+     * @param basedir the directory of a repository with the layout of the local repository
+     */
+    void addBaseRepository( File basedir );
+
+    /**
+     * Replace all the base repositories, such as when a new configuration is loaded.
+     *
+     * @param basedirs List( File ) of the directories of the base repositories, in the order they are consulted
+     */
+    void setBaseRepositories( List basedirs );
+
+    /**
+     * @return List( File ) of the directories of the base repositories, in the order they are consulted
+     */
+    List getBaseRepositories();
+
+    /**
+     * @param path the path of a file relative to the local repository
+     * @return the file of the local repository, if it exists, else the file of the first base repository which has
+     *         it, else the file of the local repository
+     */
+    File getLocalFile( ArtifactRepository localRepository, String path );
+}
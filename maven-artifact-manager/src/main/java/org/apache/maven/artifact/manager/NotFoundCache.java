@@ -0,0 +1,139 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.Properties;
+
+/**
+ * Remembers, across builds, the remote repositories in which an artifact was not found, so that they aren't asked
+ * for it again until the update policy of the repository says it's time to check again. A repository which has
+ * the <code>always</code> policy, as all of them have when updates are forced with <code>-U</code>, is always
+ * asked again.
+ * <p/>
+ * The misses are kept in a properties file next to the local copy of the artifact, mapping the id and URL of each
+ * repository the artifact was not found in to the time it was last looked for there.
+ *
+ * @version $Id$
+ */
+class NotFoundCache
+{
+    static final String EXTENSION = ".notfound";
+
+    /**
+     * @return whether the file was not found in the repository recently enough not to look for it there again
+     */
+    synchronized boolean isNotFound( File destination, ArtifactRepository repository,
+                                     ArtifactRepositoryPolicy policy )
+    {
+        File file = getFile( destination );
+
+        if ( !file.exists() )
+        {
+            return false;
+        }
+
+        String value = read( file ).getProperty( getKey( repository ) );
+
+        if ( value == null )
+        {
+            return false;
+        }
+
+        try
+        {
+            return !policy.checkOutOfDate( new Date( Long.parseLong( value ) ) );
+        }
+        catch ( NumberFormatException e )
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Record that the file was not found in the repository.
+     */
+    synchronized void notFound( File destination, ArtifactRepository repository )
+    {
+        File file = getFile( destination );
+
+        try
+        {
+            // another process mustn't record another repository between the time the file is read and written back
+            LocalFileLock lock = LocalRepositoryFiles.lockDirectory( file.getParentFile() );
+            try
+            {
+                Properties properties = read( file );
+                properties.setProperty( getKey( repository ), String.valueOf( System.currentTimeMillis() ) );
+
+                LocalRepositoryFiles.store( file, properties, "Remote repositories the artifact was not found in" );
+            }
+            finally
+            {
+                lock.release();
+            }
+        }
+        catch ( IOException e )
+        {
+            // the repository will be asked again next time
+        }
+    }
+
+    private static Properties read( File file )
+    {
+        Properties properties = new Properties();
+
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream( file );
+
+            properties.load( in );
+        }
+        catch ( IOException e )
+        {
+            // nothing was recorded, or the record is being written by another build
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+
+        return properties;
+    }
+
+    private static File getFile( File destination )
+    {
+        return new File( destination.getPath() + EXTENSION );
+    }
+
+    private static String getKey( ArtifactRepository repository )
+    {
+        return repository.getId() + "|" + repository.getUrl();
+    }
+}
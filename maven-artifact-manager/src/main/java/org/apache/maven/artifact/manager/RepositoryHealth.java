@@ -0,0 +1,76 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Keeps track of how well the remote repositories answer, so that a repository which keeps failing is left alone
+ * for a while instead of being asked again and again, or being given up on for good.
+ * <p/>
+ * A repository is available until too many of its recent requests failed. It is then unavailable for some time,
+ * after which a single request is let through to probe it: the repository is available again if the probe
+ * succeeds, and unavailable for longer if it fails.
+ *
+ * @version $Id$
+ */
+public interface RepositoryHealth
+{
+    String ROLE = RepositoryHealth.class.getName();
+
+    /**
+     * @return whether requests to the repository would currently be let through
+     */
+    boolean isAvailable( String repositoryId );
+
+    /**
+     * Ask to make a request to the repository. Each request let through must be followed by a call to
+     * {@link #succeeded(String,long)} or {@link #failed(String,long)}.
+     *
+     * @return whether the request may be made, which is only so for one request at a time while probing
+     */
+    boolean request( String repositoryId );
+
+    /**
+     * Record that the repository answered a request, whether or not it had the resource asked for.
+     *
+     * @param latency the time in milliseconds it took the repository to start answering, which doesn't include
+     *                the time the content took to be transferred
+     */
+    void succeeded( String repositoryId, long latency );
+
+    /**
+     * Record that a request to the repository failed.
+     *
+     * @param latency the time it took in milliseconds
+     */
+    void failed( String repositoryId, long latency );
+
+    /**
+     * @return the time in milliseconds after which a request to the repository which didn't start to be answered
+     *         is considered to have failed, adapted to the time the repository usually takes to answer
+     */
+    long getTimeout( String repositoryId );
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the time in milliseconds in which the repository started to answer the given percentage of the
+     *         recent requests, or -1 if too few requests were made to it to tell
+     */
+    long getLatency( String repositoryId, int percentile );
+}
@@ -0,0 +1,93 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Latencies of the recent requests to each remote repository, from which the time it usually takes a
+ * repository to answer is estimated.
+ *
+ * @version $Id$
+ */
+class RepositoryLatencies
+{
+    /**
+     * Number of the most recent latencies kept per repository.
+     */
+    private static final int SAMPLES = 64;
+
+    /**
+     * Number of latencies needed before estimating percentiles.
+     */
+    static final int MINIMUM_SAMPLES = 5;
+
+    /**
+     * Map( String, Samples ) from the repository ids to their latencies.
+     */
+    private final Map samples = new HashMap();
+
+    synchronized void record( String repositoryId, long latency )
+    {
+        Samples repositorySamples = (Samples) samples.get( repositoryId );
+        if ( repositorySamples == null )
+        {
+            repositorySamples = new Samples();
+            samples.put( repositoryId, repositorySamples );
+        }
+
+        repositorySamples.latencies[repositorySamples.next] = latency;
+        repositorySamples.next = ( repositorySamples.next + 1 ) % SAMPLES;
+        repositorySamples.count = Math.min( repositorySamples.count + 1, SAMPLES );
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the latency in milliseconds under which the given percentage of the recent requests to the
+     *         repository were answered, or -1 if there were too few of them to tell
+     */
+    synchronized long getPercentile( String repositoryId, int percentile )
+    {
+        Samples repositorySamples = (Samples) samples.get( repositoryId );
+        if ( repositorySamples == null || repositorySamples.count < MINIMUM_SAMPLES )
+        {
+            return -1;
+        }
+
+        long[] sorted = new long[repositorySamples.count];
+        System.arraycopy( repositorySamples.latencies, 0, sorted, 0, sorted.length );
+        Arrays.sort( sorted );
+
+        int index = (int) Math.ceil( sorted.length * Math.max( 0, Math.min( 100, percentile ) ) / 100.0 ) - 1;
+
+        return sorted[Math.max( 0, index )];
+    }
+
+    private static final class Samples
+    {
+        private final long[] latencies = new long[SAMPLES];
+
+        private int next;
+
+        private int count;
+    }
+}
@@ -0,0 +1,173 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Routing table of a local repository, learning which remote repository serves the artifacts of each group, so
+ * that it can be asked first the next time an artifact of the group, or of a group below it, is looked for. The
+ * other repositories are still asked in their order if it doesn't have the artifact.
+ * <p/>
+ * The routes map the group ids to the ids of the repositories, and are kept in a properties file of the local
+ * repository.
+ *
+ * @version $Id$
+ */
+class RepositoryRoutes
+{
+    static final String FILE_NAME = "repository-routes.properties";
+
+    private final File file;
+
+    private Properties routes;
+
+    RepositoryRoutes( File basedir )
+    {
+        this.file = new File( basedir, FILE_NAME );
+    }
+
+    /**
+     * @return the repositories to look for an artifact of the group in, starting with the one that served the
+     *         nearest group, if any
+     */
+    synchronized List order( String groupId, List repositories )
+    {
+        String repositoryId = getRoute( groupId );
+
+        if ( repositoryId == null || repositories.size() < 2 )
+        {
+            return repositories;
+        }
+
+        for ( int i = 1; i < repositories.size(); i++ )
+        {
+            ArtifactRepository repository = (ArtifactRepository) repositories.get( i );
+
+            if ( repositoryId.equals( repository.getId() ) )
+            {
+                List ordered = new ArrayList( repositories.size() );
+                ordered.add( repository );
+                ordered.addAll( repositories.subList( 0, i ) );
+                ordered.addAll( repositories.subList( i + 1, repositories.size() ) );
+                return ordered;
+            }
+        }
+
+        return repositories;
+    }
+
+    /**
+     * Record that the repository served an artifact of the group.
+     */
+    synchronized void served( String groupId, ArtifactRepository repository )
+    {
+        if ( groupId == null || repository.getId().equals( getRoute( groupId ) ) )
+        {
+            return;
+        }
+
+        getRoutes().setProperty( groupId, repository.getId() );
+
+        try
+        {
+            // another process mustn't record another route between the time the file is read and written back
+            LocalFileLock lock = LocalRepositoryFiles.lockDirectory( file.getParentFile() );
+            try
+            {
+                Properties properties = read( file );
+                properties.setProperty( groupId, repository.getId() );
+
+                LocalRepositoryFiles.store( file, properties, "Remote repositories serving the artifacts of each group" );
+
+                routes = properties;
+            }
+            finally
+            {
+                lock.release();
+            }
+        }
+        catch ( IOException e )
+        {
+            // the route is only kept for this build
+        }
+    }
+
+    /**
+     * @return the id of the repository which served the group, or else the nearest group above it
+     */
+    private String getRoute( String groupId )
+    {
+        for ( String group = groupId; group != null; )
+        {
+            String repositoryId = getRoutes().getProperty( group );
+
+            if ( repositoryId != null )
+            {
+                return repositoryId;
+            }
+
+            int index = group.lastIndexOf( '.' );
+            group = index > 0 ? group.substring( 0, index ) : null;
+        }
+        return null;
+    }
+
+    private Properties getRoutes()
+    {
+        if ( routes == null )
+        {
+            routes = read( file );
+        }
+        return routes;
+    }
+
+    private static Properties read( File file )
+    {
+        Properties properties = new Properties();
+
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream( file );
+
+            properties.load( in );
+        }
+        catch ( IOException e )
+        {
+            // nothing was learnt yet, or the routes are being written by another build
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+
+        return properties;
+    }
+}
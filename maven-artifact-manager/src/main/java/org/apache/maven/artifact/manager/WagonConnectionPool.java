@@ -0,0 +1,179 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.Wagon;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps connected {@link Wagon} instances around after a transfer, so that later transfers to the same
+ * repository can reuse the connection instead of setting up a new one. Idle connections are handed out
+ * most-recently-used first, at most <code>maxIdlePerRepository</code> of them are kept per repository,
+ * and those which have not been used for <code>idleTimeout</code> milliseconds are evicted.
+ * <p/>
+ * The pool doesn't know how to disconnect or release a wagon; evicted wagons are returned to the
+ * caller, which must close them.
+ *
+ * @version $Id$
+ */
+class WagonConnectionPool
+{
+    private final Map idleConnections = new HashMap();
+
+    private int maxIdlePerRepository;
+
+    private long idleTimeout;
+
+    WagonConnectionPool( int maxIdlePerRepository, long idleTimeout )
+    {
+        this.maxIdlePerRepository = maxIdlePerRepository;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Take an idle, connected wagon for the given repository key out of the pool.
+     *
+     * @return the wagon, or null if there is no idle connection for that repository
+     */
+    synchronized Wagon borrow( String repositoryKey )
+    {
+        LinkedList connections = (LinkedList) idleConnections.get( repositoryKey );
+
+        if ( connections == null || connections.isEmpty() )
+        {
+            return null;
+        }
+
+        PooledConnection connection = (PooledConnection) connections.removeFirst();
+
+        return connection.wagon;
+    }
+
+    /**
+     * Offer a connected wagon back to the pool after use.
+     *
+     * @return true if the pool kept the wagon, false if the caller must close it
+     */
+    synchronized boolean release( String repositoryKey, String protocol, Wagon wagon )
+    {
+        if ( maxIdlePerRepository < 1 )
+        {
+            return false;
+        }
+
+        LinkedList connections = (LinkedList) idleConnections.get( repositoryKey );
+
+        if ( connections == null )
+        {
+            connections = new LinkedList();
+            idleConnections.put( repositoryKey, connections );
+        }
+
+        if ( connections.size() >= maxIdlePerRepository )
+        {
+            return false;
+        }
+
+        connections.addFirst( new PooledConnection( wagon, protocol, System.currentTimeMillis() ) );
+
+        return true;
+    }
+
+    /**
+     * Remove the connections which have been idle for longer than the idle timeout.
+     *
+     * @return the evicted {@link PooledConnection}s, which must be closed by the caller
+     */
+    synchronized List evictIdle()
+    {
+        long cutoff = System.currentTimeMillis() - idleTimeout;
+
+        List evicted = new ArrayList();
+
+        for ( Iterator i = idleConnections.values().iterator(); i.hasNext(); )
+        {
+            LinkedList connections = (LinkedList) i.next();
+
+            // connections are kept most-recently-used first, so the stale ones are at the end.
+            while ( !connections.isEmpty() && ( (PooledConnection) connections.getLast() ).lastUsed < cutoff )
+            {
+                evicted.add( connections.removeLast() );
+            }
+
+            if ( connections.isEmpty() )
+            {
+                i.remove();
+            }
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Empty the pool.
+     *
+     * @return all {@link PooledConnection}s which were idle in the pool, which must be closed by the caller
+     */
+    synchronized List clear()
+    {
+        List evicted = new ArrayList();
+
+        for ( Iterator i = idleConnections.values().iterator(); i.hasNext(); )
+        {
+            evicted.addAll( (List) i.next() );
+        }
+
+        idleConnections.clear();
+
+        return evicted;
+    }
+
+    synchronized void setMaxIdlePerRepository( int maxIdlePerRepository )
+    {
+        this.maxIdlePerRepository = maxIdlePerRepository;
+    }
+
+    synchronized void setIdleTimeout( long idleTimeout )
+    {
+        this.idleTimeout = idleTimeout;
+    }
+
+    static final class PooledConnection
+    {
+        final Wagon wagon;
+
+        final String protocol;
+
+        final long lastUsed;
+
+        PooledConnection( Wagon wagon, String protocol, long lastUsed )
+        {
+            this.wagon = wagon;
+            this.protocol = protocol;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
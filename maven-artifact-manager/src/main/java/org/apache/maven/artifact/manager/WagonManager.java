@@ -74,6 +74,13 @@ public interface WagonManager
     void getArtifact( Artifact artifact, List remoteRepositories )
         throws TransferFailedException, ResourceDoesNotExistException;
 
+    /**
+     * Get the artifact from the first of the remote repositories which has it, starting with the one which served
+     * the artifacts of its group before, as recorded in the local repository.
+     */
+    void getArtifact( Artifact artifact, List remoteRepositories, ArtifactRepository localRepository )
+        throws TransferFailedException, ResourceDoesNotExistException;
+
     void getArtifact( Artifact artifact, ArtifactRepository repository )
         throws TransferFailedException, ResourceDoesNotExistException;
 
@@ -118,5 +125,10 @@ public interface WagonManager
 
     void registerWagons( Collection wagons, PlexusContainer extensionContainer );
 
-    void findAndRegisterWagons( PlexusContainer container );    
+    void findAndRegisterWagons( PlexusContainer container );
+
+    /**
+     * Disconnect and release all the connections kept open for reuse between transfers.
+     */
+    void closeConnections();
 }
\ No newline at end of file
@@ -19,6 +19,7 @@ package org.apache.maven.artifact.repository;
  * under the License.
  */
 
+import org.apache.maven.artifact.repository.archive.ArchiveArtifactRepository;
 import org.apache.maven.artifact.repository.layout.ArtifactRepositoryLayout;
 
 import java.util.HashMap;
@@ -82,8 +83,15 @@ public class DefaultArtifactRepositoryFactory
             releases.setChecksumPolicy( globalChecksumPolicy );
         }
 
-        DefaultArtifactRepository repository = new DefaultArtifactRepository( id, url, repositoryLayout, snapshots,
-                                                                              releases );
+        DefaultArtifactRepository repository;
+        if ( ArchiveArtifactRepository.isArchiveUrl( url ) )
+        {
+            repository = new ArchiveArtifactRepository( id, url, repositoryLayout, snapshots, releases );
+        }
+        else
+        {
+            repository = new DefaultArtifactRepository( id, url, repositoryLayout, snapshots, releases );
+        }
         repository.setBlacklisted( blacklisted );
 
         artifactRepositories.put( id, repository );
@@ -0,0 +1,88 @@
+package org.apache.maven.artifact.repository.archive;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.DefaultArtifactRepository;
+import org.apache.maven.artifact.repository.layout.ArtifactRepositoryLayout;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A read-only remote repository served from a {@link RepositoryArchive}, whose files are laid out with the layout of
+ * the repository. Its URL is the path or file URL of the archive prefixed with <code>archive:</code>, such as
+ * <code>archive:file:///ci/dependencies.zip</code>.
+ *
+ * @version $Id$
+ */
+public class ArchiveArtifactRepository
+    extends DefaultArtifactRepository
+{
+    public static final String PROTOCOL = "archive";
+
+    private final File archiveFile;
+
+    public ArchiveArtifactRepository( String id, String url, ArtifactRepositoryLayout layout,
+                                      ArtifactRepositoryPolicy snapshots, ArtifactRepositoryPolicy releases )
+    {
+        super( id, url, layout, snapshots, releases );
+
+        archiveFile = getArchiveFile( url );
+    }
+
+    /**
+     * @return whether the URL is the one of an archive repository
+     */
+    public static boolean isArchiveUrl( String url )
+    {
+        return url != null && url.startsWith( PROTOCOL + ":" );
+    }
+
+    private static File getArchiveFile( String url )
+    {
+        String path = url.substring( PROTOCOL.length() + 1 );
+
+        if ( path.startsWith( "file:" ) )
+        {
+            path = path.substring( "file:".length() );
+        }
+        if ( path.startsWith( "//" ) )
+        {
+            path = path.substring( 2 );
+        }
+
+        return new File( path ).getAbsoluteFile();
+    }
+
+    public File getArchiveFile()
+    {
+        return archiveFile;
+    }
+
+    /**
+     * @return the archive, which is only opened once for all the repositories of the same file
+     */
+    public RepositoryArchive getArchive()
+        throws IOException
+    {
+        return RepositoryArchive.open( archiveFile );
+    }
+}
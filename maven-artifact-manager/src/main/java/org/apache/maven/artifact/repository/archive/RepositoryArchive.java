@@ -0,0 +1,472 @@
+package org.apache.maven.artifact.repository.archive;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A read-only repository packed in a single zip archive, with the files of the repository as entries at their
+ * paths. The archive is mapped into memory and its central directory is read once, into an index from the paths to
+ * the entries; the entries are then read from the mapping as they are asked for.
+ * <p/>
+ * Archives are shared: {@link #open(File)} returns the same instance for a file until the file changes. Zip64
+ * archives, and thus archives over 2GB, aren't supported.
+ *
+ * @version $Id$
+ * @see RepositoryArchiveWriter
+ */
+public final class RepositoryArchive
+{
+    private static final int LOCAL_HEADER = 0x04034b50;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    private static final int CENTRAL_HEADER = 0x02014b50;
+
+    private static final int CENTRAL_HEADER_SIZE = 46;
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+    private static final int MAX_COMMENT_SIZE = 0xffff;
+
+    private static final int STORED = 0;
+
+    private static final int DEFLATED = 8;
+
+    /**
+     * Map( File, RepositoryArchive ) of the archives opened so far, by their canonical files.
+     */
+    private static final Map ARCHIVES = new HashMap();
+
+    private final File file;
+
+    private final long lastModified;
+
+    private final long length;
+
+    /**
+     * The mapped archive, only ever read with absolute gets or through duplicates so that it can be shared.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Map( String, Entry ) from the paths of the files of the archive to their entries.
+     */
+    private final Map entries;
+
+    private RepositoryArchive( File file )
+        throws IOException
+    {
+        this.file = file;
+
+        lastModified = file.lastModified();
+        length = file.length();
+
+        buffer = map( file );
+        entries = readCentralDirectory();
+    }
+
+    /**
+     * @return the archive of the file, which is only read again if it changed since it was last opened
+     */
+    public static RepositoryArchive open( File file )
+        throws IOException
+    {
+        File canonicalFile = file.getCanonicalFile();
+
+        synchronized ( ARCHIVES )
+        {
+            RepositoryArchive archive = (RepositoryArchive) ARCHIVES.get( canonicalFile );
+
+            if ( archive == null || archive.isStale() )
+            {
+                archive = new RepositoryArchive( canonicalFile );
+
+                ARCHIVES.put( canonicalFile, archive );
+            }
+            return archive;
+        }
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * @return the time the archive was modified, which stands for the time its entries were
+     */
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+
+    public boolean contains( String path )
+    {
+        return entries.containsKey( path );
+    }
+
+    /**
+     * @return the number of files of the archive
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Stream the content of a file of the archive, straight from the mapping.
+     *
+     * @throws FileNotFoundException if the archive has no such file
+     */
+    public InputStream getInputStream( String path )
+        throws IOException
+    {
+        Entry entry = getEntry( path );
+
+        if ( entry.method == STORED )
+        {
+            return new EntryInputStream( getData( entry ), false );
+        }
+
+        // the inflater needs an extra byte past the data when the zlib header and trailer are left out
+        return new EntryInflaterInputStream( new EntryInputStream( getData( entry ), true ) );
+    }
+
+    /**
+     * Write the content of a file of the archive to the destination file. Stored files are written from the mapping
+     * without being copied through the JVM.
+     *
+     * @throws FileNotFoundException if the archive has no such file
+     */
+    public void extract( String path, File destination )
+        throws IOException
+    {
+        Entry entry = getEntry( path );
+
+        FileOutputStream out = null;
+        try
+        {
+            out = new FileOutputStream( destination );
+
+            if ( entry.method == STORED )
+            {
+                FileChannel channel = out.getChannel();
+
+                ByteBuffer data = getData( entry );
+                while ( data.hasRemaining() )
+                {
+                    channel.write( data );
+                }
+            }
+            else
+            {
+                InputStream in = getInputStream( path );
+                try
+                {
+                    IOUtil.copy( in, out );
+                }
+                finally
+                {
+                    IOUtil.close( in );
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+    }
+
+    private boolean isStale()
+    {
+        return file.lastModified() != lastModified || file.length() != length;
+    }
+
+    private Entry getEntry( String path )
+        throws FileNotFoundException
+    {
+        Entry entry = (Entry) entries.get( path );
+
+        if ( entry == null )
+        {
+            throw new FileNotFoundException( path + " is not in " + file );
+        }
+        return entry;
+    }
+
+    /**
+     * @return the data of the entry, as a buffer of its own over the mapping
+     */
+    private ByteBuffer getData( Entry entry )
+        throws IOException
+    {
+        int header = entry.headerOffset;
+
+        if ( header + LOCAL_HEADER_SIZE > buffer.capacity() || buffer.getInt( header ) != LOCAL_HEADER )
+        {
+            throw new IOException( "Corrupt archive " + file + ": no header at " + header );
+        }
+
+        // the extra field of the local header needn't be the one of the central directory
+        int offset = header + LOCAL_HEADER_SIZE + getUnsignedShort( header + 26 ) + getUnsignedShort( header + 28 );
+
+        if ( offset + entry.compressedSize > buffer.capacity() )
+        {
+            throw new IOException( "Corrupt archive " + file + ": entry at " + header + " is truncated" );
+        }
+
+        ByteBuffer data = buffer.duplicate();
+        data.limit( offset + entry.compressedSize );
+        data.position( offset );
+
+        return data.slice();
+    }
+
+    private static ByteBuffer map( File file )
+        throws IOException
+    {
+        FileInputStream in = null;
+        try
+        {
+            in = new FileInputStream( file );
+
+            FileChannel channel = in.getChannel();
+
+            long size = channel.size();
+            if ( size > Integer.MAX_VALUE )
+            {
+                throw new IOException( "Archive " + file + " is too large" );
+            }
+
+            // the mapping stays valid once the channel is closed
+            ByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, size );
+            buffer.order( ByteOrder.LITTLE_ENDIAN );
+
+            return buffer;
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    private Map readCentralDirectory()
+        throws IOException
+    {
+        int end = findEndOfCentralDirectory();
+
+        int count = getUnsignedShort( end + 10 );
+        int offset = buffer.getInt( end + 16 );
+
+        Map entries = new HashMap( count * 4 / 3 + 1 );
+
+        for ( int i = 0; i < count; i++ )
+        {
+            if ( offset < 0 || offset + CENTRAL_HEADER_SIZE > end || buffer.getInt( offset ) != CENTRAL_HEADER )
+            {
+                throw new IOException( "Corrupt archive " + file + ": bad central directory entry at " + offset );
+            }
+
+            int method = getUnsignedShort( offset + 10 );
+            int compressedSize = buffer.getInt( offset + 20 );
+            int nameLength = getUnsignedShort( offset + 28 );
+            int extraLength = getUnsignedShort( offset + 30 );
+            int commentLength = getUnsignedShort( offset + 32 );
+            int headerOffset = buffer.getInt( offset + 42 );
+
+            String path = getString( offset + CENTRAL_HEADER_SIZE, nameLength );
+
+            if ( !path.endsWith( "/" ) )
+            {
+                if ( method != STORED && method != DEFLATED )
+                {
+                    throw new IOException( "Unsupported compression method " + method + " of " + path + " in " + file );
+                }
+
+                entries.put( path, new Entry( method, compressedSize, headerOffset ) );
+            }
+
+            offset += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+
+        return entries;
+    }
+
+    /**
+     * @return the offset of the end of central directory record, which is followed by the comment of the archive
+     */
+    private int findEndOfCentralDirectory()
+        throws IOException
+    {
+        int last = buffer.capacity() - END_OF_CENTRAL_DIRECTORY_SIZE;
+        int first = Math.max( 0, last - MAX_COMMENT_SIZE );
+
+        for ( int offset = last; offset >= first; offset-- )
+        {
+            if ( buffer.getInt( offset ) == END_OF_CENTRAL_DIRECTORY )
+            {
+                return offset;
+            }
+        }
+
+        throw new IOException( file + " is not a zip archive" );
+    }
+
+    private int getUnsignedShort( int offset )
+    {
+        return buffer.getShort( offset ) & 0xffff;
+    }
+
+    private String getString( int offset, int length )
+        throws IOException
+    {
+        byte[] bytes = new byte[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            bytes[i] = buffer.get( offset + i );
+        }
+        return new String( bytes, "UTF-8" );
+    }
+
+    /**
+     * Where a file is in the archive, and how it is compressed.
+     */
+    private static final class Entry
+    {
+        private final int method;
+
+        private final int compressedSize;
+
+        private final int headerOffset;
+
+        Entry( int method, int compressedSize, int headerOffset )
+        {
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.headerOffset = headerOffset;
+        }
+    }
+
+    /**
+     * Reads the data of an entry, optionally followed by a single zero byte.
+     */
+    private static final class EntryInputStream
+        extends InputStream
+    {
+        private final ByteBuffer data;
+
+        private boolean pad;
+
+        EntryInputStream( ByteBuffer data, boolean pad )
+        {
+            this.data = data;
+            this.pad = pad;
+        }
+
+        public int read()
+        {
+            if ( data.hasRemaining() )
+            {
+                return data.get() & 0xff;
+            }
+            if ( pad )
+            {
+                pad = false;
+
+                return 0;
+            }
+            return -1;
+        }
+
+        public int read( byte[] b, int off, int len )
+        {
+            if ( len == 0 )
+            {
+                return 0;
+            }
+            if ( !data.hasRemaining() )
+            {
+                int read = read();
+
+                if ( read < 0 )
+                {
+                    return -1;
+                }
+
+                b[off] = (byte) read;
+
+                return 1;
+            }
+
+            int count = Math.min( len, data.remaining() );
+            data.get( b, off, count );
+
+            return count;
+        }
+
+        public int available()
+        {
+            return data.remaining() + ( pad ? 1 : 0 );
+        }
+    }
+
+    /**
+     * Inflates the data of an entry, and releases the native memory of its inflater once closed, rather than
+     * whenever the inflater is finalized.
+     */
+    private static final class EntryInflaterInputStream
+        extends InflaterInputStream
+    {
+        EntryInflaterInputStream( InputStream in )
+        {
+            super( in, new Inflater( true ) );
+        }
+
+        public void close()
+            throws IOException
+        {
+            try
+            {
+                super.close();
+            }
+            finally
+            {
+                inf.end();
+            }
+        }
+    }
+}
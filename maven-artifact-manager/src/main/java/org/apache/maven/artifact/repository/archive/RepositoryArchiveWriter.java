@@ -0,0 +1,324 @@
+package org.apache.maven.artifact.repository.archive;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.manager.LocalRepositoryFiles;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Writer;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a {@link RepositoryArchive}. The files are stored without compression, so that they can be extracted
+ * straight from the mapping of the archive; the archive only replaces the file once it is closed.
+ *
+ * @version $Id$
+ */
+public class RepositoryArchiveWriter
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String METADATA_FILE_NAME = "maven-metadata.xml";
+
+    /**
+     * The prefix of the copies a local repository keeps of the metadata of each remote repository.
+     */
+    private static final String METADATA_COPY_PREFIX = "maven-metadata-";
+
+    private final File file;
+
+    private final File temp;
+
+    private final ZipOutputStream out;
+
+    private final Set paths = new HashSet();
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    public RepositoryArchiveWriter( File file )
+        throws IOException
+    {
+        this.file = file;
+
+        temp = LocalRepositoryFiles.createTempFile( file );
+        out = new ZipOutputStream( new BufferedOutputStream( new FileOutputStream( temp ), BUFFER_SIZE ) );
+    }
+
+    /**
+     * Add a file to the archive.
+     *
+     * @param path the path of the file in the repository
+     * @return whether the file was added, which it isn't if the archive already has a file at that path
+     */
+    public boolean add( String path, File source )
+        throws IOException
+    {
+        if ( !paths.add( path ) )
+        {
+            return false;
+        }
+
+        ZipEntry entry = new ZipEntry( path );
+        entry.setMethod( ZipEntry.STORED );
+        entry.setSize( source.length() );
+        entry.setCompressedSize( source.length() );
+        entry.setCrc( crc( source ) );
+        entry.setTime( source.lastModified() );
+
+        out.putNextEntry( entry );
+
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream( source );
+
+            int read;
+            while ( ( read = in.read( buffer ) ) >= 0 )
+            {
+                out.write( buffer, 0, read );
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+
+        out.closeEntry();
+
+        return true;
+    }
+
+    /**
+     * Add the content to the archive.
+     *
+     * @param path the path of the file in the repository
+     * @return whether the content was added, which it isn't if the archive already has a file at that path
+     */
+    public boolean add( String path, byte[] content )
+        throws IOException
+    {
+        if ( !paths.add( path ) )
+        {
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update( content );
+
+        ZipEntry entry = new ZipEntry( path );
+        entry.setMethod( ZipEntry.STORED );
+        entry.setSize( content.length );
+        entry.setCompressedSize( content.length );
+        entry.setCrc( crc.getValue() );
+
+        out.putNextEntry( entry );
+        out.write( content );
+        out.closeEntry();
+
+        return true;
+    }
+
+    /**
+     * Add all the files of a repository directory, such as a local repository, but for its locks, temporary files,
+     * records of the remote repositories and caches. The copies a local repository keeps of the metadata of each
+     * remote repository are merged into the metadata of the archive.
+     */
+    public void addRepository( File basedir )
+        throws IOException
+    {
+        addDirectory( basedir, "" );
+    }
+
+    private void addDirectory( File directory, String path )
+        throws IOException
+    {
+        File[] files = directory.listFiles();
+        if ( files == null )
+        {
+            return;
+        }
+
+        // in a stable order, for the archive and the merged metadata alike
+        Arrays.sort( files );
+
+        List metadataFiles = new ArrayList();
+
+        for ( int i = 0; i < files.length; i++ )
+        {
+            String name = files[i].getName();
+
+            if ( files[i].isFile() && name.startsWith( METADATA_COPY_PREFIX ) && name.endsWith( ".xml" ) )
+            {
+                metadataFiles.add( files[i] );
+            }
+        }
+
+        if ( !metadataFiles.isEmpty() )
+        {
+            // the metadata of the directory itself, if any, is merged with the copies rather than left stale
+            File metadataFile = new File( directory, METADATA_FILE_NAME );
+            if ( metadataFile.isFile() )
+            {
+                metadataFiles.add( 0, metadataFile );
+            }
+
+            add( path + METADATA_FILE_NAME, mergeMetadata( metadataFiles ) );
+        }
+
+        for ( int i = 0; i < files.length; i++ )
+        {
+            File file = files[i];
+            String name = file.getName();
+
+            if ( file.isDirectory() )
+            {
+                addDirectory( file, path + name + "/" );
+            }
+            else if ( !LocalRepositoryFiles.isBookkeeping( file ) && !name.startsWith( METADATA_COPY_PREFIX ) &&
+                ( metadataFiles.isEmpty() || !name.startsWith( METADATA_FILE_NAME ) ) )
+            {
+                // the merged metadata replaces the copies and the metadata of the directory, whose checksums no
+                // longer apply
+                add( path + name, file );
+            }
+        }
+    }
+
+    /**
+     * @param metadataFiles List( File ) of the metadata files to merge
+     * @return the content of the merged metadata
+     */
+    private static byte[] mergeMetadata( List metadataFiles )
+        throws IOException
+    {
+        Metadata metadata = null;
+
+        for ( Iterator i = metadataFiles.iterator(); i.hasNext(); )
+        {
+            Metadata read = readMetadata( (File) i.next() );
+
+            if ( metadata == null )
+            {
+                metadata = read;
+            }
+            else
+            {
+                metadata.merge( read );
+            }
+        }
+
+        StringWriter content = new StringWriter();
+
+        new MetadataXpp3Writer().write( content, metadata );
+
+        return content.toString().getBytes( "UTF-8" );
+    }
+
+    private static Metadata readMetadata( File file )
+        throws IOException
+    {
+        Reader reader = new FileReader( file );
+
+        try
+        {
+            return new MetadataXpp3Reader().read( reader, false );
+        }
+        catch ( XmlPullParserException e )
+        {
+            throw new IOException( "Unable to read the metadata " + file + ": " + e.getMessage() );
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /**
+     * Finish the archive and move it in place of the file.
+     */
+    public void close()
+        throws IOException
+    {
+        try
+        {
+            out.close();
+
+            LocalRepositoryFiles.move( temp, file, false );
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Give up on the archive, leaving the file as it is.
+     */
+    public void discard()
+    {
+        IOUtil.close( out );
+
+        temp.delete();
+    }
+
+    private long crc( File source )
+        throws IOException
+    {
+        CRC32 crc = new CRC32();
+
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream( source );
+
+            int read;
+            while ( ( read = in.read( buffer ) ) >= 0 )
+            {
+                crc.update( buffer, 0, read );
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+
+        return crc.getValue();
+    }
+}
@@ -20,6 +20,8 @@ package org.apache.maven.artifact.repository.metadata;
  */
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.manager.LocalFileLock;
+import org.apache.maven.artifact.manager.LocalRepositoryFiles;
 import org.apache.maven.artifact.metadata.ArtifactMetadata;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
@@ -29,8 +31,9 @@ import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 
@@ -79,14 +82,29 @@ public abstract class AbstractRepositoryMetadata
 
     protected void updateRepositoryMetadata( ArtifactRepository localRepository, ArtifactRepository remoteRepository )
         throws IOException, XmlPullParserException
+    {
+        File metadataFile = new File( localRepository.getBasedir(),
+                                      localRepository.pathOfLocalRepositoryMetadata( this, remoteRepository ) );
+
+        // another process mustn't update the metadata between the time it is read and written back
+        LocalFileLock lock = LocalRepositoryFiles.lockDirectory( metadataFile.getParentFile() );
+        try
+        {
+            updateRepositoryMetadata( metadataFile );
+        }
+        finally
+        {
+            lock.release();
+        }
+    }
+
+    private void updateRepositoryMetadata( File metadataFile )
+        throws IOException, XmlPullParserException
     {
         MetadataXpp3Reader mappingReader = new MetadataXpp3Reader();
 
         Metadata metadata = null;
 
-        File metadataFile = new File( localRepository.getBasedir(),
-                                      localRepository.pathOfLocalRepositoryMetadata( this, remoteRepository ) );
-
         if ( metadataFile.exists() )
         {
             Reader reader = null;
@@ -127,19 +145,29 @@ public abstract class AbstractRepositoryMetadata
 
         if ( changed || !metadataFile.exists() )
         {
-            Writer writer = null;
+            File temp = LocalRepositoryFiles.createTempFile( metadataFile );
             try
             {
-                metadataFile.getParentFile().mkdirs();
-                writer = new FileWriter( metadataFile );
-
-                MetadataXpp3Writer mappingWriter = new MetadataXpp3Writer();
-
-                mappingWriter.write( writer, metadata );
+                Writer writer = null;
+                try
+                {
+                    // the platform encoding, as the FileReader reading it back uses
+                    writer = new OutputStreamWriter( new FileOutputStream( temp ) );
+
+                    MetadataXpp3Writer mappingWriter = new MetadataXpp3Writer();
+
+                    mappingWriter.write( writer, metadata );
+                }
+                finally
+                {
+                    IOUtil.close( writer );
+                }
+
+                LocalRepositoryFiles.move( temp, metadataFile );
             }
             finally
             {
-                IOUtil.close( writer );
+                temp.delete();
             }
         }
         else
@@ -19,6 +19,10 @@ package org.apache.maven.artifact.repository.metadata;
  * under the License.
  */
 
+import org.apache.maven.artifact.manager.LocalFileLock;
+import org.apache.maven.artifact.manager.LocalRepositoryFiles;
+import org.apache.maven.artifact.manager.LocalRepositoryLayers;
+import org.apache.maven.artifact.manager.RepositoryHealth;
 import org.apache.maven.artifact.manager.WagonManager;
 import org.apache.maven.artifact.metadata.ArtifactMetadata;
 import org.apache.maven.artifact.repository.ArtifactRepository;
@@ -37,11 +41,9 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 public class DefaultRepositoryMetadataManager
     extends AbstractLogEnabled
@@ -50,83 +52,84 @@ public class DefaultRepositoryMetadataManager
     // component requirement
     private WagonManager wagonManager;
 
-    /**
-     * @todo very primitive. Probably we can cache artifacts themselves in a central location, as well as reset the flag over time in a long running process.
-     */
-    private Set cachedMetadata = new HashSet();
+    // component requirement
+    private RepositoryHealth repositoryHealth;
+
+    // component requirement
+    private LocalRepositoryLayers localRepositoryLayers;
+
+    private int maxCachedMetadata = 1000;
+
+    private long minimumCheckInterval = 10 * 60 * 1000;
+
+    private MetadataCache metadataCache;
+
+    public void setMaxCachedMetadata( int maxCachedMetadata )
+    {
+        this.maxCachedMetadata = maxCachedMetadata;
+
+        getMetadataCache().setMaxEntries( maxCachedMetadata );
+    }
+
+    public void setMinimumCheckInterval( long minimumCheckInterval )
+    {
+        this.minimumCheckInterval = minimumCheckInterval;
+
+        getMetadataCache().setMinimumCheckInterval( minimumCheckInterval );
+    }
+
+    private synchronized MetadataCache getMetadataCache()
+    {
+        if ( metadataCache == null )
+        {
+            metadataCache = new MetadataCache( maxCachedMetadata, minimumCheckInterval );
+        }
+        return metadataCache;
+    }
 
     public void resolve( RepositoryMetadata metadata, List remoteRepositories, ArtifactRepository localRepository )
         throws RepositoryMetadataResolutionException
     {
-        boolean alreadyResolved = alreadyResolved( metadata );
-        if ( !alreadyResolved )
+        for ( Iterator i = remoteRepositories.iterator(); i.hasNext(); )
         {
-            for ( Iterator i = remoteRepositories.iterator(); i.hasNext(); )
-            {
-                ArtifactRepository repository = (ArtifactRepository) i.next();
+            ArtifactRepository repository = (ArtifactRepository) i.next();
 
-                ArtifactRepositoryPolicy policy =
-                    metadata.isSnapshot() ? repository.getSnapshots() : repository.getReleases();
+            ArtifactRepositoryPolicy policy =
+                metadata.isSnapshot() ? repository.getSnapshots() : repository.getReleases();
 
-                if ( !policy.isEnabled() )
+            if ( !policy.isEnabled() )
+            {
+                getLogger().debug( "Skipping disabled repository " + repository.getId() );
+            }
+            else if ( repository.isBlacklisted() )
+            {
+                getLogger().debug( "Skipping blacklisted repository " + repository.getId() );
+            }
+            else if ( !repositoryHealth.isAvailable( repository.getId() ) )
+            {
+                getLogger().debug( "Skipping unavailable repository " + repository.getId() );
+            }
+            else if ( !getMetadataCache().isCheckCurrent( metadata.getKey(), repository.getId(), policy ) )
+            {
+                String path = localRepository.pathOfLocalRepositoryMetadata( metadata, repository );
+                File file = new File( localRepository.getBasedir(), path );
+
+                boolean checked = true;
+                if ( isOutOfDate( localRepositoryLayers.getLocalFile( localRepository, path ), policy ) )
                 {
-                    getLogger().debug( "Skipping disabled repository " + repository.getId() );
+                    checked = checkForUpdates( metadata, repository, file, policy, localRepository );
                 }
-                else if ( repository.isBlacklisted() )
+                else if ( file.exists() )
                 {
-                    getLogger().debug( "Skipping blacklisted repository " + repository.getId() );
+                    // touch file so that this is not checked again until interval has passed
+                    file.setLastModified( System.currentTimeMillis() );
                 }
-                else
-                {
-                    File file = new File( localRepository.getBasedir(),
-                                          localRepository.pathOfLocalRepositoryMetadata( metadata, repository ) );
-
-
 
-                    boolean checkForUpdates =
-                        policy.checkOutOfDate( new Date( file.lastModified() ) ) || !file.exists();
-
-                    boolean metadataIsEmpty = true;
-
-                    if ( checkForUpdates )
-                    {
-                        getLogger().info( metadata.getKey() + ": checking for updates from " + repository.getId() );
-
-                        try
-                        {
-                            resolveAlways( metadata, repository, file, policy.getChecksumPolicy(), true );
-                            metadataIsEmpty = false;
-                        }
-                        catch ( TransferFailedException e )
-                        {
-                            // TODO: [jc; 08-Nov-2005] revisit this for 2.1
-                            // suppressing logging to avoid logging this error twice.
-                            metadataIsEmpty = true;
-                        }
-                    }
-
-                    // TODO: should this be inside the above check?
-                    // touch file so that this is not checked again until interval has passed
-                    if ( file.exists() )
-                    {
-                        file.setLastModified( System.currentTimeMillis() );
-                    }
-                    else
-                    {
-                        // this ensures that files are not continuously checked when they don't exist remotely
-                        try
-                        {
-                            metadata.storeInLocalRepository( localRepository, repository );
-                        }
-                        catch ( RepositoryMetadataStoreException e )
-                        {
-                            throw new RepositoryMetadataResolutionException(
-                                "Unable to store local copy of metadata: " + e.getMessage(), e );
-                        }
-                    }
+                if ( checked )
+                {
+                    getMetadataCache().checked( metadata.getKey(), repository.getId() );
                 }
             }
-            cachedMetadata.add( metadata.getKey() );
         }
 
         try
@@ -145,6 +148,100 @@ public class DefaultRepositoryMetadataManager
         }
     }
 
+    /**
+     * @return whether the local copy of the metadata, which may be the one of a base repository, must be checked
+     *         for updates
+     */
+    private static boolean isOutOfDate( File file, ArtifactRepositoryPolicy policy )
+    {
+        return policy.checkOutOfDate( new Date( file.lastModified() ) ) || !file.exists();
+    }
+
+    /**
+     * Check the repository for updates of the metadata, unless another process sharing the local repository
+     * has just done so. The updates are only written to the local repository, never to its base repositories.
+     *
+     * @return false if the repository couldn't be checked, so that it is checked again next time
+     */
+    private boolean checkForUpdates( RepositoryMetadata metadata, ArtifactRepository repository, File file,
+                                  ArtifactRepositoryPolicy policy, ArtifactRepository localRepository )
+        throws RepositoryMetadataResolutionException
+    {
+        LocalFileLock lock;
+        try
+        {
+            lock = LocalFileLock.lock( file );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new RepositoryMetadataResolutionException(
+                "Interrupted while waiting for the lock on " + file + ": " + e.getMessage(), e );
+        }
+
+        try
+        {
+            // the file is touched once checked, so another process holding the lock before us shows here
+            File localFile = localRepositoryLayers.getLocalFile(
+                localRepository, localRepository.pathOfLocalRepositoryMetadata( metadata, repository ) );
+
+            boolean outOfDate = isOutOfDate( localFile, policy );
+            if ( outOfDate )
+            {
+                getLogger().info( metadata.getKey() + ": checking for updates from " + repository.getId() );
+
+                try
+                {
+                    resolveAlways( metadata, repository, file, policy.getChecksumPolicy(), true );
+                }
+                catch ( TransferFailedException e )
+                {
+                    // TODO: [jc; 08-Nov-2005] revisit this for 2.1
+                    // suppressing logging to avoid logging this error twice.
+
+                    // leave the file as it is, so that it is checked again once the repository is available
+                    return false;
+                }
+            }
+
+            // touch file so that this is not checked again until interval has passed
+            if ( file.exists() )
+            {
+                file.setLastModified( System.currentTimeMillis() );
+            }
+            else if ( outOfDate )
+            {
+                // this ensures that files are not continuously checked when they don't exist remotely, and that the
+                // copy of a base repository isn't used instead
+                try
+                {
+                    storeInLocalRepository( metadata, localRepository, repository );
+                }
+                catch ( RepositoryMetadataStoreException e )
+                {
+                    throw new RepositoryMetadataResolutionException(
+                        "Unable to store local copy of metadata: " + e.getMessage(), e );
+                }
+            }
+            return true;
+        }
+        finally
+        {
+            lock.release();
+        }
+    }
+
+    private void storeInLocalRepository( ArtifactMetadata metadata, ArtifactRepository localRepository,
+                                         ArtifactRepository repository )
+        throws RepositoryMetadataStoreException
+    {
+        metadata.storeInLocalRepository( localRepository, repository );
+
+        getMetadataCache().invalidate(
+            new File( localRepository.getBasedir(), localRepository.pathOfLocalRepositoryMetadata( metadata, repository ) ) );
+    }
+
     private void mergeMetadata( RepositoryMetadata metadata, List remoteRepositories,
                                 ArtifactRepository localRepository )
         throws RepositoryMetadataStoreException, RepositoryMetadataReadException
@@ -221,7 +318,7 @@ public class DefaultRepositoryMetadataManager
                     {
                         m.getVersioning().getSnapshot().setLocalCopy( false );
                         metadata.setMetadata( m );
-                        metadata.storeInLocalRepository( localRepository, repository );
+                        storeInLocalRepository( metadata, localRepository, repository );
                     }
                 }
             }
@@ -236,12 +333,12 @@ public class DefaultRepositoryMetadataManager
     {
         boolean setRepository = false;
 
-        File metadataFile = new File( localRepository.getBasedir(),
-                                      localRepository.pathOfLocalRepositoryMetadata( repoMetadata, remoteRepository ) );
+        File metadataFile = localRepositoryLayers.getLocalFile(
+            localRepository, localRepository.pathOfLocalRepositoryMetadata( repoMetadata, remoteRepository ) );
 
         if ( metadataFile.exists() )
         {
-            Metadata metadata = readMetadata( metadataFile );
+            Metadata metadata = readCachedMetadata( metadataFile );
 
             if ( repoMetadata.isSnapshot() && previousMetadata != null )
             {
@@ -261,6 +358,24 @@ public class DefaultRepositoryMetadataManager
         return setRepository;
     }
 
+    /**
+     * Read the metadata file, or get it from the cache if it hasn't changed since it was last read.
+     */
+    private Metadata readCachedMetadata( File file )
+        throws RepositoryMetadataReadException
+    {
+        Metadata metadata = getMetadataCache().getMetadata( file );
+
+        if ( metadata == null )
+        {
+            metadata = readMetadata( file );
+
+            getMetadataCache().putMetadata( file, metadata );
+        }
+
+        return metadata;
+    }
+
     /**
      * @todo share with DefaultPluginMappingManager.
      */
@@ -325,11 +440,15 @@ public class DefaultRepositoryMetadataManager
             // rethrowing this would change behavior.
         }
 
+        // the repository couldn't be reached if there is no file, but a base repository may still have a copy
+        file = localRepositoryLayers.getLocalFile(
+            localRepository, localRepository.pathOfLocalRepositoryMetadata( metadata, remoteRepository ) );
+
         try
         {
             if ( file.exists() )
             {
-                Metadata prevMetadata = readMetadata( file );
+                Metadata prevMetadata = readCachedMetadata( file );
                 metadata.setMetadata( prevMetadata );
             }
         }
@@ -340,12 +459,12 @@ public class DefaultRepositoryMetadataManager
     }
 
     private void resolveAlways( ArtifactMetadata metadata, ArtifactRepository repository, File file,
-                                String checksumPolicy, boolean allowBlacklisting )
+                                String checksumPolicy, boolean optional )
         throws RepositoryMetadataResolutionException, TransferFailedException
     {
         if ( !wagonManager.isOnline() )
         {
-            if ( allowBlacklisting )
+            if ( optional )
             {
                 getLogger().debug(
                     "System is offline. Cannot resolve metadata:\n" + metadata.extendedToString() + "\n\n" );
@@ -362,6 +481,8 @@ public class DefaultRepositoryMetadataManager
         try
         {
             wagonManager.getArtifactMetadata( metadata, repository, file, checksumPolicy );
+
+            getMetadataCache().invalidate( file );
         }
         catch ( ResourceDoesNotExistException e )
         {
@@ -372,24 +493,19 @@ public class DefaultRepositoryMetadataManager
             {
                 file.delete();
             }
+
+            getMetadataCache().invalidate( file );
         }
         catch ( TransferFailedException e )
         {
             getLogger().warn( metadata + " could not be retrieved from repository: " + repository.getId() +
                 " due to an error: " + e.getMessage() );
-            getLogger().info( "Repository '" + repository.getId() + "' will be blacklisted" );
             getLogger().debug( "Exception", e );
-            repository.setBlacklisted( allowBlacklisting );
 
             throw e;
         }
     }
 
-    private boolean alreadyResolved( ArtifactMetadata metadata )
-    {
-        return cachedMetadata.contains( metadata.getKey() );
-    }
-
     public void deploy( ArtifactMetadata metadata, ArtifactRepository localRepository,
                         ArtifactRepository deploymentRepository )
         throws RepositoryMetadataDeploymentException
@@ -425,7 +541,7 @@ public class DefaultRepositoryMetadataManager
 
         try
         {
-            metadata.storeInLocalRepository( localRepository, deploymentRepository );
+            storeInLocalRepository( metadata, localRepository, deploymentRepository );
         }
         catch ( RepositoryMetadataStoreException e )
         {
@@ -445,9 +561,24 @@ public class DefaultRepositoryMetadataManager
     public void install( ArtifactMetadata metadata, ArtifactRepository localRepository )
         throws RepositoryMetadataInstallationException
     {
+        String path = localRepository.pathOfLocalRepositoryMetadata( metadata, localRepository );
+        File file = new File( localRepository.getBasedir(), path );
+        File localFile = localRepositoryLayers.getLocalFile( localRepository, path );
+
         try
         {
-            metadata.storeInLocalRepository( localRepository, localRepository );
+            if ( !localFile.equals( file ) )
+            {
+                // merge with the metadata of the base repository, which is left as it is
+                LocalRepositoryFiles.copy( localFile, file );
+            }
+
+            storeInLocalRepository( metadata, localRepository, localRepository );
+        }
+        catch ( IOException e )
+        {
+            throw new RepositoryMetadataInstallationException(
+                "Error copying metadata from " + localFile + ": " + e.getMessage(), e );
         }
         catch ( RepositoryMetadataStoreException e )
         {
@@ -0,0 +1,227 @@
+package org.apache.maven.artifact.repository.metadata;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+
+import java.io.File;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, least recently used, cache of the repository metadata known to a
+ * {@link DefaultRepositoryMetadataManager}. It keeps:
+ * <ul>
+ * <li>the parsed local copies of the metadata files, which are used while the file keeps its last modification
+ * time and size. Callers always get their own copy, as merging modifies the metadata instances.</li>
+ * <li>the time the metadata was last checked for updates in each remote repository. A check stays current as
+ * long as the update policy of the repository says so, and at least for the minimum check interval, so that
+ * the metadata is not checked over and over during a single build with the <code>always</code> policy.</li>
+ * </ul>
+ *
+ * @version $Id$
+ */
+class MetadataCache
+{
+    private final Map parsedMetadata;
+
+    private final Map lastChecked;
+
+    private int maxEntries;
+
+    private long minimumCheckInterval;
+
+    MetadataCache( int maxEntries, long minimumCheckInterval )
+    {
+        this.maxEntries = maxEntries;
+        this.minimumCheckInterval = minimumCheckInterval;
+
+        parsedMetadata = new LinkedHashMap( 16, 0.75f, true )
+        {
+            protected boolean removeEldestEntry( Map.Entry eldest )
+            {
+                return size() > MetadataCache.this.maxEntries;
+            }
+        };
+
+        lastChecked = new LinkedHashMap( 16, 0.75f, true )
+        {
+            protected boolean removeEldestEntry( Map.Entry eldest )
+            {
+                return size() > MetadataCache.this.maxEntries;
+            }
+        };
+    }
+
+    synchronized void setMaxEntries( int maxEntries )
+    {
+        this.maxEntries = maxEntries;
+
+        trim( parsedMetadata );
+        trim( lastChecked );
+    }
+
+    synchronized void setMinimumCheckInterval( long minimumCheckInterval )
+    {
+        this.minimumCheckInterval = minimumCheckInterval;
+    }
+
+    /**
+     * @return a copy of the cached metadata of the file, or null if it has not been cached or has changed since
+     */
+    Metadata getMetadata( File file )
+    {
+        CachedMetadata cached;
+        synchronized ( this )
+        {
+            cached = (CachedMetadata) parsedMetadata.get( file.getPath() );
+        }
+
+        if ( cached == null || cached.lastModified != file.lastModified() || cached.length != file.length() )
+        {
+            return null;
+        }
+
+        return copy( cached.metadata );
+    }
+
+    /**
+     * Cache a copy of the metadata read from the file.
+     */
+    void putMetadata( File file, Metadata metadata )
+    {
+        CachedMetadata cached = new CachedMetadata( file.lastModified(), file.length(), copy( metadata ) );
+
+        synchronized ( this )
+        {
+            parsedMetadata.put( file.getPath(), cached );
+        }
+    }
+
+    synchronized void invalidate( File file )
+    {
+        parsedMetadata.remove( file.getPath() );
+    }
+
+    /**
+     * @return whether the metadata with the given key was checked in the repository recently enough to skip
+     * checking it again
+     */
+    boolean isCheckCurrent( String key, String repositoryId, ArtifactRepositoryPolicy policy )
+    {
+        Long checked;
+        long interval;
+        synchronized ( this )
+        {
+            checked = (Long) lastChecked.get( key + "|" + repositoryId );
+            interval = minimumCheckInterval;
+        }
+
+        if ( checked == null )
+        {
+            return false;
+        }
+
+        long time = checked.longValue();
+
+        return System.currentTimeMillis() - time < interval || !policy.checkOutOfDate( new Date( time ) );
+    }
+
+    synchronized void checked( String key, String repositoryId )
+    {
+        lastChecked.put( key + "|" + repositoryId, new Long( System.currentTimeMillis() ) );
+    }
+
+    synchronized void clear()
+    {
+        parsedMetadata.clear();
+        lastChecked.clear();
+    }
+
+    private void trim( Map map )
+    {
+        for ( Iterator i = map.keySet().iterator(); i.hasNext() && map.size() > maxEntries; )
+        {
+            i.next();
+            i.remove();
+        }
+    }
+
+    static Metadata copy( Metadata source )
+    {
+        Metadata metadata = new Metadata();
+        metadata.setGroupId( source.getGroupId() );
+        metadata.setArtifactId( source.getArtifactId() );
+        metadata.setVersion( source.getVersion() );
+
+        Versioning sourceVersioning = source.getVersioning();
+        if ( sourceVersioning != null )
+        {
+            Versioning versioning = new Versioning();
+            versioning.setLatest( sourceVersioning.getLatest() );
+            versioning.setRelease( sourceVersioning.getRelease() );
+            versioning.setLastUpdated( sourceVersioning.getLastUpdated() );
+            versioning.getVersions().addAll( sourceVersioning.getVersions() );
+
+            Snapshot sourceSnapshot = sourceVersioning.getSnapshot();
+            if ( sourceSnapshot != null )
+            {
+                Snapshot snapshot = new Snapshot();
+                snapshot.setTimestamp( sourceSnapshot.getTimestamp() );
+                snapshot.setBuildNumber( sourceSnapshot.getBuildNumber() );
+                snapshot.setLocalCopy( sourceSnapshot.isLocalCopy() );
+                versioning.setSnapshot( snapshot );
+            }
+
+            metadata.setVersioning( versioning );
+        }
+
+        for ( Iterator i = source.getPlugins().iterator(); i.hasNext(); )
+        {
+            Plugin sourcePlugin = (Plugin) i.next();
+
+            Plugin plugin = new Plugin();
+            plugin.setName( sourcePlugin.getName() );
+            plugin.setPrefix( sourcePlugin.getPrefix() );
+            plugin.setArtifactId( sourcePlugin.getArtifactId() );
+            metadata.addPlugin( plugin );
+        }
+
+        return metadata;
+    }
+
+    private static final class CachedMetadata
+    {
+        private final long lastModified;
+
+        private final long length;
+
+        private final Metadata metadata;
+
+        CachedMetadata( long lastModified, long length, Metadata metadata )
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.metadata = metadata;
+        }
+    }
+}
@@ -21,6 +21,8 @@ package org.apache.maven.artifact.resolver;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.manager.LocalRepositoryFiles;
+import org.apache.maven.artifact.manager.LocalRepositoryLayers;
 import org.apache.maven.artifact.manager.WagonManager;
 import org.apache.maven.artifact.metadata.ArtifactMetadata;
 import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
@@ -35,7 +37,6 @@ import org.apache.maven.artifact.transform.ArtifactTransformationManager;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.TransferFailedException;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
-import org.codehaus.plexus.util.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
@@ -63,6 +64,17 @@ public class DefaultArtifactResolver
 
     private ArtifactCollector artifactCollector;
 
+    private LocalRepositoryLayers localRepositoryLayers;
+
+    // ----------------------------------------------------------------------
+    // Configuration
+    // ----------------------------------------------------------------------
+
+    /**
+     * Maximum number of artifacts downloaded at the same time by {@link #resolveTransitively}.
+     */
+    private int downloadThreads = 5;
+
     // ----------------------------------------------------------------------
     // Implementation
     // ----------------------------------------------------------------------
@@ -140,11 +152,14 @@ public class DefaultArtifactResolver
                 File destination = artifact.getFile();
                 List repositories = remoteRepositories;
 
+                // the artifact may be missing from the local repository but be in one of its base repositories
+                File localFile = localRepositoryLayers.getLocalFile( localRepository, localRepository.pathOf( artifact ) );
+
                 // TODO: would prefer the snapshot transformation took care of this. Maybe we need a "shouldresolve" flag.
                 if ( artifact.isSnapshot() && artifact.getBaseVersion().equals( artifact.getVersion() ) &&
-                    destination.exists() && !localCopy )
+                    localFile.exists() && !localCopy )
                 {
-                    Date comparisonDate = new Date( destination.lastModified() );
+                    Date comparisonDate = new Date( localFile.lastModified() );
 
                     // cull to list of repositories that would like an update
                     repositories = new ArrayList( remoteRepositories );
@@ -165,7 +180,7 @@ public class DefaultArtifactResolver
                     }
                 }
                 boolean resolved = false;
-                if ( !destination.exists() || force )
+                if ( !localFile.exists() || force )
                 {
                     if ( !wagonManager.isOnline() )
                     {
@@ -182,7 +197,7 @@ public class DefaultArtifactResolver
                         }
                         else
                         {
-                            wagonManager.getArtifact( artifact, repositories );
+                            wagonManager.getArtifact( artifact, repositories, localRepository );
                         }
 
                         if ( !artifact.isResolved() && !destination.exists() )
@@ -203,23 +218,27 @@ public class DefaultArtifactResolver
 
                     resolved = true;
                 }
-                else if ( destination.exists() )
+                else if ( localFile.exists() )
                 {
                     // locally resolved...no need to hit the remote repo.
+                    artifact.setFile( localFile );
                     artifact.setResolved( true );
                 }
 
                 if ( artifact.isSnapshot() && !artifact.getBaseVersion().equals( artifact.getVersion() ) )
                 {
                     String version = artifact.getVersion();
+                    File file = resolved ? destination : localFile;
                     artifact.selectVersion( artifact.getBaseVersion() );
-                    File copy = new File( localRepository.getBasedir(), localRepository.pathOf( artifact ) );
+                    String copyPath = localRepository.pathOf( artifact );
+                    File copy = localRepositoryLayers.getLocalFile( localRepository, copyPath );
                     if ( resolved || !copy.exists() )
                     {
                         // recopy file if it was reresolved, or doesn't exist.
+                        copy = new File( localRepository.getBasedir(), copyPath );
                         try
                         {
-                            FileUtils.copyFile( destination, copy );
+                            LocalRepositoryFiles.copy( file, copy );
                         }
                         catch ( IOException e )
                         {
@@ -285,19 +304,29 @@ public class DefaultArtifactResolver
                                                               localRepository, remoteRepositories, source, filter,
                                                               listeners );
 
-        List missingArtifacts = new ArrayList();
-        for ( Iterator i = artifactResolutionResult.getArtifactResolutionNodes().iterator(); i.hasNext(); )
+        List nodes = new ArrayList( artifactResolutionResult.getArtifactResolutionNodes() );
+
+        List missingArtifacts;
+        if ( downloadThreads > 1 && nodes.size() > 1 )
         {
-            ResolutionNode node = (ResolutionNode) i.next();
-            try
-            {
-                resolve( node.getArtifact(), node.getRemoteRepositories(), localRepository );
-            }
-            catch ( ArtifactNotFoundException anfe )
+            missingArtifacts = resolveNodesInParallel( nodes, localRepository );
+        }
+        else
+        {
+            missingArtifacts = new ArrayList();
+            for ( Iterator i = nodes.iterator(); i.hasNext(); )
             {
-                getLogger().debug( anfe.getMessage(), anfe );
+                ResolutionNode node = (ResolutionNode) i.next();
+                try
+                {
+                    resolve( node.getArtifact(), node.getRemoteRepositories(), localRepository );
+                }
+                catch ( ArtifactNotFoundException anfe )
+                {
+                    getLogger().debug( anfe.getMessage(), anfe );
 
-                missingArtifacts.add( node.getArtifact() );
+                    missingArtifacts.add( node.getArtifact() );
+                }
             }
         }
 
@@ -309,6 +338,102 @@ public class DefaultArtifactResolver
         return artifactResolutionResult;
     }
 
+    /**
+     * Resolve the artifacts of the given nodes on up to <code>downloadThreads</code> threads. All nodes are
+     * attempted, even when some of them fail; the artifacts which could not be found are returned in node
+     * order, and the first other resolution failure (in node order) is rethrown once everything is done.
+     */
+    private List resolveNodesInParallel( List nodes, final ArtifactRepository localRepository )
+        throws ArtifactResolutionException
+    {
+        final Exception[] failures = new Exception[nodes.size()];
+
+        ResolutionWorkerPool pool =
+            new ResolutionWorkerPool( "artifact-download", Math.min( downloadThreads, nodes.size() ) );
+
+        ResolutionWorkerPool.Task[] tasks = new ResolutionWorkerPool.Task[nodes.size()];
+        try
+        {
+            for ( int i = 0; i < tasks.length; i++ )
+            {
+                final ResolutionNode node = (ResolutionNode) nodes.get( i );
+                final int index = i;
+
+                tasks[i] = pool.submit( new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            resolve( node.getArtifact(), node.getRemoteRepositories(), localRepository );
+                        }
+                        catch ( ArtifactResolutionException e )
+                        {
+                            failures[index] = e;
+                        }
+                        catch ( ArtifactNotFoundException e )
+                        {
+                            failures[index] = e;
+                        }
+                    }
+                } );
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        List missingArtifacts = new ArrayList();
+        ArtifactResolutionException firstError = null;
+        Throwable firstUncheckedError = null;
+
+        for ( int i = 0; i < tasks.length; i++ )
+        {
+            tasks[i].await();
+
+            // the task's completion is published under its lock, so failures[i] is visible from here on
+            Exception failure = failures[i];
+            if ( failure instanceof ArtifactNotFoundException )
+            {
+                getLogger().debug( failure.getMessage(), failure );
+
+                missingArtifacts.add( ( (ResolutionNode) nodes.get( i ) ).getArtifact() );
+            }
+            else if ( failure != null && firstError == null )
+            {
+                firstError = (ArtifactResolutionException) failure;
+            }
+
+            if ( tasks[i].getError() != null && firstUncheckedError == null )
+            {
+                firstUncheckedError = tasks[i].getError();
+            }
+        }
+
+        if ( firstUncheckedError instanceof Error )
+        {
+            throw (Error) firstUncheckedError;
+        }
+
+        if ( firstUncheckedError != null )
+        {
+            throw (RuntimeException) firstUncheckedError;
+        }
+
+        if ( firstError != null )
+        {
+            throw firstError;
+        }
+
+        return missingArtifacts;
+    }
+
+    public void setDownloadThreads( int downloadThreads )
+    {
+        this.downloadThreads = downloadThreads;
+    }
+
     public ArtifactResolutionResult resolveTransitively( Set artifacts, Artifact originatingArtifact,
                                                          List remoteRepositories, ArtifactRepository localRepository,
                                                          ArtifactMetadataSource source )
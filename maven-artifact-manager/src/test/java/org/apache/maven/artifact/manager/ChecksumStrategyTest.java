@@ -0,0 +1,75 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Id$
+ */
+public class ChecksumStrategyTest
+    extends TestCase
+{
+    public void testObserversFollowConfiguredOrder()
+        throws Exception
+    {
+        Map observers = new ChecksumStrategy( "MD5, SHA-1" ).createObservers();
+
+        assertEquals( Arrays.asList( new String[]{ "md5", "sha1" } ), Arrays.asList( observers.keySet().toArray() ) );
+    }
+
+    public void testChecksumFoundOnRepositoryIsTriedFirstThere()
+    {
+        ChecksumStrategy strategy = new ChecksumStrategy( "SHA-1,MD5" );
+
+        assertEquals( Arrays.asList( new String[]{ "sha1", "md5" } ), strategy.getExtensions( "central" ) );
+
+        strategy.found( "central", "md5" );
+
+        assertEquals( Arrays.asList( new String[]{ "md5", "sha1" } ), strategy.getExtensions( "central" ) );
+        assertEquals( Arrays.asList( new String[]{ "sha1", "md5" } ), strategy.getExtensions( "other" ) );
+    }
+
+    public void testDigestOfFile()
+        throws Exception
+    {
+        File file = File.createTempFile( "ChecksumStrategyTest.", ".txt" );
+        try
+        {
+            FileUtils.fileWrite( file.getAbsolutePath(), "abc" );
+
+            Map checksums = new ChecksumStrategy( "SHA-1,MD5" ).digest( file );
+
+            assertEquals( Arrays.asList( new String[]{ "sha1", "md5" } ), Arrays.asList( checksums.keySet().toArray() ) );
+            assertEquals( "a9993e364706816aba3e25717850c26c9cd0d89d", checksums.get( "sha1" ) );
+            assertEquals( "900150983cd24fb0d6963f7d28e17f72", checksums.get( "md5" ) );
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.DefaultArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @version $Id$
+ */
+public class DefaultLocalRepositoryLayersTest
+    extends TestCase
+{
+    private static final String PATH = "g/a/1.0/a-1.0.jar";
+
+    private File directory;
+
+    private DefaultLocalRepositoryLayers layers;
+
+    private ArtifactRepository localRepository;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        directory = File.createTempFile( "DefaultLocalRepositoryLayersTest.", ".dir" );
+        directory.delete();
+        directory.mkdirs();
+
+        layers = new DefaultLocalRepositoryLayers();
+        layers.enableLogging( new ConsoleLogger( Logger.LEVEL_DISABLED, "test" ) );
+
+        localRepository = new DefaultArtifactRepository( "local", "file://" + new File( directory, "local" ).getPath(),
+                                                         new DefaultRepositoryLayout() );
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( directory );
+
+        super.tearDown();
+    }
+
+    public void testLocalRepositoryShadowsBaseRepositoriesInOrder()
+        throws Exception
+    {
+        File first = new File( directory, "first" );
+        File second = new File( directory, "second" );
+        layers.addBaseRepository( first );
+        layers.addBaseRepository( second );
+        layers.addBaseRepository( first );
+
+        assertEquals( Arrays.asList( new File[]{first, second} ), layers.getBaseRepositories() );
+
+        File local = new File( localRepository.getBasedir(), PATH );
+        assertEquals( local, layers.getLocalFile( localRepository, PATH ) );
+
+        LocalRepositoryFiles.write( new File( second, PATH ), "second" );
+        assertEquals( new File( second, PATH ), layers.getLocalFile( localRepository, PATH ) );
+
+        LocalRepositoryFiles.write( new File( first, PATH ), "first" );
+        assertEquals( new File( first, PATH ), layers.getLocalFile( localRepository, PATH ) );
+
+        LocalRepositoryFiles.write( local, "local" );
+        assertEquals( local, layers.getLocalFile( localRepository, PATH ) );
+    }
+
+    public void testSetBaseRepositoriesReplacesThem()
+    {
+        File first = new File( directory, "first" );
+        File second = new File( directory, "second" );
+        layers.addBaseRepository( first );
+
+        layers.setBaseRepositories( Arrays.asList( new File[]{second, second} ) );
+        assertEquals( Collections.singletonList( second ), layers.getBaseRepositories() );
+
+        layers.setBaseRepositories( Collections.EMPTY_LIST );
+        assertTrue( layers.getBaseRepositories().isEmpty() );
+    }
+}
@@ -0,0 +1,152 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+
+/**
+ * @version $Id$
+ */
+public class DefaultRepositoryHealthTest
+    extends TestCase
+{
+    private DefaultRepositoryHealth health;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        health = new DefaultRepositoryHealth();
+        health.enableLogging( new ConsoleLogger( Logger.LEVEL_DISABLED, "test" ) );
+        health.setMinimumRequests( 5 );
+        health.setFailureRate( 50 );
+        health.setOpenInterval( 60000 );
+    }
+
+    public void testRepositoryIsUnavailableOnceTooManyRequestsFailed()
+    {
+        health.succeeded( "central", 10 );
+        health.failed( "central", 10 );
+        health.succeeded( "central", 10 );
+        health.failed( "central", 10 );
+
+        // too few requests to tell yet
+        assertTrue( health.request( "central" ) );
+
+        health.failed( "central", 10 );
+
+        assertFalse( health.isAvailable( "central" ) );
+        assertFalse( health.request( "central" ) );
+        assertTrue( health.isAvailable( "other" ) );
+    }
+
+    public void testSuccessfulProbeMakesRepositoryAvailableAgain()
+    {
+        health.setOpenInterval( 0 );
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            health.failed( "central", 10 );
+        }
+
+        assertTrue( health.request( "central" ) );
+
+        // only one probe at a time
+        assertFalse( health.isAvailable( "central" ) );
+        assertFalse( health.request( "central" ) );
+
+        health.succeeded( "central", 10 );
+
+        assertTrue( health.isAvailable( "central" ) );
+
+        // the failures before the probe are forgotten
+        for ( int i = 0; i < 4; i++ )
+        {
+            health.failed( "central", 10 );
+        }
+        assertTrue( health.isAvailable( "central" ) );
+    }
+
+    public void testFailedProbeKeepsRepositoryUnavailableLonger()
+        throws InterruptedException
+    {
+        health.setOpenInterval( 20 );
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            health.failed( "central", 10 );
+        }
+        assertFalse( health.isAvailable( "central" ) );
+
+        Thread.sleep( 50 );
+
+        assertTrue( health.request( "central" ) );
+        health.failed( "central", 10 );
+        assertFalse( health.isAvailable( "central" ) );
+
+        Thread.sleep( 100 );
+
+        assertTrue( health.isAvailable( "central" ) );
+    }
+
+    public void testTimeoutFollowsLatencies()
+    {
+        health.setMinimumTimeout( 10 );
+        health.setMaximumTimeout( 10000 );
+
+        assertEquals( 10000, health.getTimeout( "central" ) );
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            health.succeeded( "central", 20 );
+            health.succeeded( "slow", 500 );
+        }
+        assertEquals( 60, health.getTimeout( "central" ) );
+        assertEquals( 1500, health.getTimeout( "slow" ) );
+        assertEquals( 20, health.getLatency( "central", 95 ) );
+    }
+
+    public void testSlowAnswersSucceed()
+    {
+        health.setFailureRate( 10 );
+        health.setMinimumTimeout( 10 );
+        health.setOpenInterval( 0 );
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            health.succeeded( "central", 20 );
+        }
+        health.succeeded( "central", 500 );
+        assertTrue( health.isAvailable( "central" ) );
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            health.failed( "central", 10 );
+        }
+        assertTrue( health.request( "central" ) );
+
+        health.succeeded( "central", 500 );
+        assertTrue( health.request( "central" ) );
+        assertTrue( health.request( "central" ) );
+    }
+}
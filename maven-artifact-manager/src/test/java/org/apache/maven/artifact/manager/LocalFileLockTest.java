@@ -0,0 +1,115 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+import java.io.File;
+
+/**
+ * @version $Id$
+ */
+public class LocalFileLockTest
+    extends TestCase
+{
+    private File file;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        file = File.createTempFile( "LocalFileLockTest.", ".jar" );
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        file.delete();
+        new File( file.getPath() + ".lock" ).delete();
+
+        super.tearDown();
+    }
+
+    public void testLockIsReentrantAndExcludesOtherThreads()
+        throws Exception
+    {
+        final boolean[] locked = new boolean[1];
+
+        Thread other = new Thread()
+        {
+            public void run()
+            {
+                try
+                {
+                    LocalFileLock.lock( file ).release();
+
+                    synchronized ( locked )
+                    {
+                        locked[0] = true;
+                    }
+                }
+                catch ( InterruptedException e )
+                {
+                    // the test fails
+                }
+            }
+        };
+
+        LocalFileLock outer = LocalFileLock.lock( file );
+        LocalFileLock inner = LocalFileLock.lock( file );
+
+        other.start();
+
+        inner.release();
+        other.join( 200 );
+
+        synchronized ( locked )
+        {
+            assertFalse( locked[0] );
+        }
+
+        outer.release();
+        other.join( 5000 );
+
+        synchronized ( locked )
+        {
+            assertTrue( locked[0] );
+        }
+    }
+
+    public void testPathsOfTheSameFileShareTheLock()
+        throws Exception
+    {
+        File directory = file.getParentFile();
+        File other = new File( directory, ".." + File.separator + directory.getName() + File.separator +
+            file.getName() );
+
+        LocalFileLock outer = LocalFileLock.lock( file );
+
+        // the file can't be locked twice by the JVM, so this would fail were it another lock
+        LocalFileLock inner = LocalFileLock.lock( other );
+
+        inner.release();
+        outer.release();
+
+        LocalFileLock.lock( other ).release();
+    }
+}
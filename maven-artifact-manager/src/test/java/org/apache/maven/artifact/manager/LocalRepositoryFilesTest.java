@@ -0,0 +1,114 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * @version $Id$
+ */
+public class LocalRepositoryFilesTest
+    extends TestCase
+{
+    private File directory;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        directory = File.createTempFile( "LocalRepositoryFilesTest.", ".dir" );
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( directory );
+
+        super.tearDown();
+    }
+
+    public void testCopyReplacesDestination()
+        throws Exception
+    {
+        File source = new File( directory, "source.jar" );
+        FileUtils.fileWrite( source.getAbsolutePath(), "new" );
+
+        File destination = new File( directory, "g/a/1.0/a-1.0.jar" );
+        LocalRepositoryFiles.write( destination, "old" );
+        assertEquals( "old", FileUtils.fileRead( destination ) );
+
+        LocalRepositoryFiles.copy( source, destination );
+
+        assertEquals( "new", FileUtils.fileRead( destination ) );
+        assertEquals( "new", FileUtils.fileRead( source ) );
+
+        // only the lock file is left besides the artifact
+        String[] names = destination.getParentFile().list();
+        Arrays.sort( names );
+        assertEquals( Arrays.asList( new String[]{".lock", "a-1.0.jar"} ), Arrays.asList( names ) );
+    }
+
+    public void testCopyWithoutLockLeavesNoLockFile()
+        throws Exception
+    {
+        File source = new File( directory, "source.jar" );
+        FileUtils.fileWrite( source.getAbsolutePath(), "new" );
+
+        File destination = new File( directory, "g/a/1.0/a-1.0.jar" );
+        LocalRepositoryFiles.copy( source, destination, false );
+        LocalRepositoryFiles.write( new File( destination + ".md5" ), "checksum", false );
+
+        assertEquals( "new", FileUtils.fileRead( destination ) );
+
+        String[] names = destination.getParentFile().list();
+        Arrays.sort( names );
+        assertEquals( Arrays.asList( new String[]{"a-1.0.jar", "a-1.0.jar.md5"} ), Arrays.asList( names ) );
+    }
+
+    public void testIdenticalFilesAreDetected()
+        throws Exception
+    {
+        StringBuffer content = new StringBuffer();
+        for ( int i = 0; i < 100000; i++ )
+        {
+            content.append( (char) ( 'a' + i % 26 ) );
+        }
+
+        File file = new File( directory, "file" );
+        LocalRepositoryFiles.write( file, content.toString() );
+
+        File copy = new File( directory, "copy" );
+        LocalRepositoryFiles.transfer( file, copy );
+        assertTrue( LocalRepositoryFiles.isIdentical( file, copy ) );
+
+        content.setCharAt( 99999, '-' );
+        LocalRepositoryFiles.write( copy, content.toString() );
+        assertFalse( LocalRepositoryFiles.isIdentical( file, copy ) );
+
+        assertFalse( LocalRepositoryFiles.isIdentical( file, new File( directory, "missing" ) ) );
+    }
+}
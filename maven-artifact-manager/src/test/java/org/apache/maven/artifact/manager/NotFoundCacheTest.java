@@ -0,0 +1,94 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.DefaultArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+
+import java.io.File;
+
+/**
+ * @version $Id$
+ */
+public class NotFoundCacheTest
+    extends TestCase
+{
+    private static final ArtifactRepositoryPolicy DAILY = new ArtifactRepositoryPolicy(
+        true, ArtifactRepositoryPolicy.UPDATE_POLICY_DAILY, ArtifactRepositoryPolicy.CHECKSUM_POLICY_WARN );
+
+    private static final ArtifactRepositoryPolicy ALWAYS = new ArtifactRepositoryPolicy(
+        true, ArtifactRepositoryPolicy.UPDATE_POLICY_ALWAYS, ArtifactRepositoryPolicy.CHECKSUM_POLICY_WARN );
+
+    private File file;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        file = File.createTempFile( "artifact-1.0.", ".jar" );
+        file.delete();
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        new File( file.getPath() + ".notfound" ).delete();
+
+        super.tearDown();
+    }
+
+    public void testMissesAreRememberedPerRepository()
+    {
+        ArtifactRepository central = createRepository( "central", "http://repo1.maven.org/maven2" );
+        ArtifactRepository other = createRepository( "other", "http://repo.example.org" );
+
+        assertFalse( new NotFoundCache().isNotFound( file, central, DAILY ) );
+
+        new NotFoundCache().notFound( file, central );
+
+        NotFoundCache cache = new NotFoundCache();
+        assertTrue( cache.isNotFound( file, central, DAILY ) );
+        assertFalse( cache.isNotFound( file, other, DAILY ) );
+        assertFalse( cache.isNotFound( file, createRepository( "central", "http://mirror.example.org" ), DAILY ) );
+
+        cache.notFound( file, other );
+        assertTrue( cache.isNotFound( file, central, DAILY ) );
+        assertTrue( cache.isNotFound( file, other, DAILY ) );
+    }
+
+    public void testMissesAreForgottenWhenUpdatesAreForced()
+    {
+        ArtifactRepository central = createRepository( "central", "http://repo1.maven.org/maven2" );
+
+        NotFoundCache cache = new NotFoundCache();
+        cache.notFound( file, central );
+
+        assertFalse( cache.isNotFound( file, central, ALWAYS ) );
+    }
+
+    private static ArtifactRepository createRepository( String id, String url )
+    {
+        return new DefaultArtifactRepository( id, url, new DefaultRepositoryLayout() );
+    }
+}
@@ -0,0 +1,65 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Id$
+ */
+public class RepositoryLatenciesTest
+    extends TestCase
+{
+    public void testPercentilesNeedEnoughSamples()
+    {
+        RepositoryLatencies latencies = new RepositoryLatencies();
+
+        assertEquals( -1, latencies.getPercentile( "central", 95 ) );
+
+        for ( int i = 1; i < RepositoryLatencies.MINIMUM_SAMPLES; i++ )
+        {
+            latencies.record( "central", i );
+        }
+        assertEquals( -1, latencies.getPercentile( "central", 95 ) );
+
+        latencies.record( "central", RepositoryLatencies.MINIMUM_SAMPLES );
+        assertEquals( RepositoryLatencies.MINIMUM_SAMPLES, latencies.getPercentile( "central", 100 ) );
+        assertEquals( -1, latencies.getPercentile( "other", 95 ) );
+    }
+
+    public void testPercentilesOfRecentSamples()
+    {
+        RepositoryLatencies latencies = new RepositoryLatencies();
+
+        for ( int i = 100; i > 0; i-- )
+        {
+            latencies.record( "central", 10000 );
+        }
+        for ( int i = 100; i > 0; i-- )
+        {
+            latencies.record( "central", i );
+        }
+
+        // only the 64 most recent ones, 1 to 64, are kept
+        assertEquals( 61, latencies.getPercentile( "central", 95 ) );
+        assertEquals( 32, latencies.getPercentile( "central", 50 ) );
+        assertEquals( 1, latencies.getPercentile( "central", 0 ) );
+    }
+}
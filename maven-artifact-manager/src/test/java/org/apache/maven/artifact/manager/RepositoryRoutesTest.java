@@ -0,0 +1,115 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.DefaultArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @version $Id$
+ */
+public class RepositoryRoutesTest
+    extends TestCase
+{
+    private File basedir;
+
+    private ArtifactRepository internal = createRepository( "internal" );
+
+    private ArtifactRepository central = createRepository( "central" );
+
+    private ArtifactRepository vendor = createRepository( "vendor" );
+
+    private List repositories = Arrays.asList( new Object[]{internal, central, vendor} );
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        basedir = File.createTempFile( "local-repository.", "" );
+        basedir.delete();
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        new File( basedir, RepositoryRoutes.FILE_NAME ).delete();
+        new File( basedir, LocalFileLock.LOCK_FILE_EXTENSION ).delete();
+        basedir.delete();
+
+        super.tearDown();
+    }
+
+    public void testUnknownGroupsKeepTheOrder()
+    {
+        assertEquals( repositories, new RepositoryRoutes( basedir ).order( "org.apache.maven", repositories ) );
+    }
+
+    public void testServingRepositoryComesFirst()
+    {
+        RepositoryRoutes routes = new RepositoryRoutes( basedir );
+        routes.served( "com.vendor", vendor );
+
+        assertEquals( Arrays.asList( new Object[]{vendor, internal, central} ),
+                      routes.order( "com.vendor", repositories ) );
+        assertEquals( Arrays.asList( new Object[]{vendor, internal, central} ),
+                      routes.order( "com.vendor.tools", repositories ) );
+        assertEquals( repositories, routes.order( "com.vendorx", repositories ) );
+
+        routes.served( "com.vendor.tools", central );
+        assertEquals( Arrays.asList( new Object[]{central, internal, vendor} ),
+                      routes.order( "com.vendor.tools", repositories ) );
+        assertEquals( Arrays.asList( new Object[]{vendor, internal, central} ),
+                      routes.order( "com.vendor", repositories ) );
+    }
+
+    public void testRoutesArePersisted()
+    {
+        new RepositoryRoutes( basedir ).served( "com.vendor", vendor );
+
+        assertEquals( Arrays.asList( new Object[]{vendor, internal, central} ),
+                      new RepositoryRoutes( basedir ).order( "com.vendor", repositories ) );
+    }
+
+    public void testRoutesOfOtherBuildsAreKept()
+    {
+        RepositoryRoutes routes = new RepositoryRoutes( basedir );
+        routes.order( "com.vendor", repositories );
+
+        new RepositoryRoutes( basedir ).served( "org.codehaus", central );
+        routes.served( "com.vendor", vendor );
+
+        assertEquals( Arrays.asList( new Object[]{central, internal, vendor} ),
+                      new RepositoryRoutes( basedir ).order( "org.codehaus", repositories ) );
+        assertEquals( Arrays.asList( new Object[]{vendor, internal, central} ),
+                      new RepositoryRoutes( basedir ).order( "com.vendor", repositories ) );
+    }
+
+    private static ArtifactRepository createRepository( String id )
+    {
+        return new DefaultArtifactRepository( id, "http://" + id + ".example.org", new DefaultRepositoryLayout() );
+    }
+}
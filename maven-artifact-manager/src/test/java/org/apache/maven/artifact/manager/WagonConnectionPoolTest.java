@@ -0,0 +1,85 @@
+package org.apache.maven.artifact.manager;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.wagon.Wagon;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Id$
+ */
+public class WagonConnectionPoolTest
+    extends TestCase
+{
+    public void testReleasedWagonIsReusedForSameRepositoryOnly()
+    {
+        WagonConnectionPool pool = new WagonConnectionPool( 2, 60000 );
+
+        Wagon wagon = new WagonMock();
+
+        assertTrue( pool.release( "central|file:///repo", "file", wagon ) );
+
+        assertNull( pool.borrow( "other|file:///repo" ) );
+        assertSame( wagon, pool.borrow( "central|file:///repo" ) );
+        assertNull( pool.borrow( "central|file:///repo" ) );
+    }
+
+    public void testMaximumIdleConnectionsPerRepository()
+    {
+        WagonConnectionPool pool = new WagonConnectionPool( 1, 60000 );
+
+        assertTrue( pool.release( "central|file:///repo", "file", new WagonMock() ) );
+        assertFalse( pool.release( "central|file:///repo", "file", new WagonMock() ) );
+        assertTrue( pool.release( "other|file:///repo", "file", new WagonMock() ) );
+    }
+
+    public void testIdleConnectionsAreEvicted()
+        throws Exception
+    {
+        WagonConnectionPool pool = new WagonConnectionPool( 2, 0 );
+
+        Wagon wagon = new WagonMock();
+
+        pool.release( "central|file:///repo", "file", wagon );
+
+        Thread.sleep( 10 );
+
+        List evicted = pool.evictIdle();
+
+        assertEquals( 1, evicted.size() );
+        assertSame( wagon, ( (WagonConnectionPool.PooledConnection) evicted.get( 0 ) ).wagon );
+        assertNull( pool.borrow( "central|file:///repo" ) );
+    }
+
+    public void testClearReturnsAllIdleConnections()
+    {
+        WagonConnectionPool pool = new WagonConnectionPool( 2, 60000 );
+
+        pool.release( "central|file:///repo", "file", new WagonMock() );
+        pool.release( "central|file:///repo", "file", new WagonMock() );
+        pool.release( "other|file:///repo", "file", new WagonMock() );
+
+        assertEquals( 3, pool.clear().size() );
+        assertNull( pool.borrow( "central|file:///repo" ) );
+    }
+}
@@ -0,0 +1,185 @@
+package org.apache.maven.artifact.repository.archive;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.manager.LocalRepositoryFiles;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * @version $Id$
+ */
+public class RepositoryArchiveTest
+    extends TestCase
+{
+    private File directory;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        directory = File.createTempFile( "RepositoryArchiveTest.", ".dir" );
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( directory );
+
+        super.tearDown();
+    }
+
+    public void testWrittenRepositoryIsRead()
+        throws Exception
+    {
+        File repository = new File( directory, "repository" );
+        LocalRepositoryFiles.write( new File( repository, "g/a/1.0/a-1.0.jar" ), "jar" );
+        LocalRepositoryFiles.write( new File( repository, "g/a/1.0/a-1.0.pom" ), "pom" );
+        LocalRepositoryFiles.write( new File( repository, "g/a/1.0/a-1.0.jar.notfound" ), "central=0" );
+
+        File file = new File( directory, "repository.zip" );
+
+        RepositoryArchiveWriter writer = new RepositoryArchiveWriter( file );
+        writer.addRepository( repository );
+        assertFalse( writer.add( "g/a/1.0/a-1.0.pom", "other".getBytes() ) );
+        assertTrue( writer.add( "g/a/maven-metadata.xml", "metadata".getBytes( "UTF-8" ) ) );
+        writer.close();
+
+        assertFalse( new File( directory, ".lock" ).exists() );
+
+        RepositoryArchive archive = RepositoryArchive.open( file );
+
+        assertSame( archive, RepositoryArchive.open( file ) );
+        assertEquals( 3, archive.size() );
+        assertTrue( archive.contains( "g/a/1.0/a-1.0.jar" ) );
+        assertFalse( archive.contains( "g/a/1.0/a-1.0.jar.notfound" ) );
+        assertFalse( archive.contains( "g/a/1.0/.lock" ) );
+
+        File extracted = new File( directory, "a-1.0.pom" );
+        archive.extract( "g/a/1.0/a-1.0.pom", extracted );
+        assertEquals( "pom", FileUtils.fileRead( extracted ) );
+
+        assertEquals( "metadata", read( archive, "g/a/maven-metadata.xml" ) );
+
+        try
+        {
+            archive.extract( "g/a/1.0/a-1.0.war", extracted );
+            fail( "missing entry was extracted" );
+        }
+        catch ( FileNotFoundException e )
+        {
+            // expected
+        }
+    }
+
+    public void testCopiesOfMetadataAreMerged()
+        throws Exception
+    {
+        File repository = new File( directory, "repository" );
+        LocalRepositoryFiles.write( new File( repository, "g/a/maven-metadata-central.xml" ),
+                                    createMetadata( "1.0" ) );
+        LocalRepositoryFiles.write( new File( repository, "g/a/maven-metadata-central.xml.sha1" ), "checksum" );
+        LocalRepositoryFiles.write( new File( repository, "g/a/maven-metadata-local.xml" ), createMetadata( "1.1" ) );
+        LocalRepositoryFiles.write( new File( repository, "g/a/1.0/a-1.0.pom" ), "pom" );
+        LocalRepositoryFiles.write( new File( repository, "g/a/1.0/a-1.0.pom.resolution" ), "cache" );
+        LocalRepositoryFiles.write( new File( repository, "g/a/1.0/a-1.0.pom.assembled" ), "cache" );
+
+        File file = new File( directory, "repository.zip" );
+
+        RepositoryArchiveWriter writer = new RepositoryArchiveWriter( file );
+        writer.addRepository( repository );
+        writer.close();
+
+        RepositoryArchive archive = RepositoryArchive.open( file );
+
+        assertEquals( 2, archive.size() );
+        assertTrue( archive.contains( "g/a/1.0/a-1.0.pom" ) );
+
+        String content = read( archive, "g/a/maven-metadata.xml" );
+
+        Metadata metadata = new MetadataXpp3Reader().read( new StringReader( content ) );
+        assertEquals( Arrays.asList( new String[]{"1.0", "1.1"} ), metadata.getVersioning().getVersions() );
+    }
+
+    public void testCompressedEntriesAreInflated()
+        throws Exception
+    {
+        StringBuffer content = new StringBuffer();
+        for ( int i = 0; i < 10000; i++ )
+        {
+            content.append( "<version>" ).append( i ).append( "</version>\n" );
+        }
+
+        File file = new File( directory, "compressed.zip" );
+
+        ZipOutputStream out = new ZipOutputStream( new FileOutputStream( file ) );
+        out.putNextEntry( new ZipEntry( "g/a/" ) );
+        out.closeEntry();
+        out.putNextEntry( new ZipEntry( "g/a/maven-metadata.xml" ) );
+        out.write( content.toString().getBytes( "UTF-8" ) );
+        out.closeEntry();
+        out.setComment( "an archive comment" );
+        out.close();
+
+        RepositoryArchive archive = RepositoryArchive.open( file );
+
+        assertEquals( 1, archive.size() );
+        assertEquals( content.toString(), read( archive, "g/a/maven-metadata.xml" ) );
+
+        File extracted = new File( directory, "maven-metadata.xml" );
+        archive.extract( "g/a/maven-metadata.xml", extracted );
+        assertEquals( content.toString(), FileUtils.fileRead( extracted ) );
+    }
+
+    private static String createMetadata( String version )
+    {
+        return "<metadata><groupId>g</groupId><artifactId>a</artifactId><versioning><versions><version>" + version +
+            "</version></versions></versioning></metadata>";
+    }
+
+    private static String read( RepositoryArchive archive, String path )
+        throws Exception
+    {
+        InputStream in = archive.getInputStream( path );
+        try
+        {
+            return new String( IOUtil.toByteArray( in ), "UTF-8" );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.apache.maven.artifact.repository.metadata;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+
+/**
+ * @version $Id$
+ */
+public class MetadataCacheTest
+    extends TestCase
+{
+    private File file;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        file = File.createTempFile( "maven-metadata-central.", ".xml" );
+        FileUtils.fileWrite( file.getAbsolutePath(), "<metadata/>" );
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        file.delete();
+
+        super.tearDown();
+    }
+
+    public void testShouldReturnCopiesOfUnchangedMetadataOnly()
+        throws Exception
+    {
+        MetadataCache cache = new MetadataCache( 10, 0 );
+
+        Versioning versioning = new Versioning();
+        versioning.addVersion( "1.0" );
+
+        Metadata metadata = new Metadata();
+        metadata.setVersioning( versioning );
+
+        cache.putMetadata( file, metadata );
+
+        Metadata cached = cache.getMetadata( file );
+        assertNotSame( metadata, cached );
+        assertEquals( 1, cached.getVersioning().getVersions().size() );
+
+        cached.getVersioning().addVersion( "2.0" );
+        assertEquals( 1, cache.getMetadata( file ).getVersioning().getVersions().size() );
+
+        FileUtils.fileWrite( file.getAbsolutePath(), "<metadata><version>1.0</version></metadata>" );
+        assertNull( cache.getMetadata( file ) );
+    }
+
+    public void testShouldHonourUpdatePolicyOfRepository()
+    {
+        ArtifactRepositoryPolicy never = new ArtifactRepositoryPolicy( true, ArtifactRepositoryPolicy.UPDATE_POLICY_NEVER,
+                                                                       ArtifactRepositoryPolicy.CHECKSUM_POLICY_WARN );
+        ArtifactRepositoryPolicy always = new ArtifactRepositoryPolicy( true,
+                                                                        ArtifactRepositoryPolicy.UPDATE_POLICY_ALWAYS,
+                                                                        ArtifactRepositoryPolicy.CHECKSUM_POLICY_WARN );
+
+        MetadataCache cache = new MetadataCache( 10, 0 );
+
+        assertFalse( cache.isCheckCurrent( "key", "central", never ) );
+
+        cache.checked( "key", "central" );
+
+        assertTrue( cache.isCheckCurrent( "key", "central", never ) );
+        assertFalse( cache.isCheckCurrent( "key", "central", always ) );
+        assertFalse( cache.isCheckCurrent( "key", "other", never ) );
+
+        cache.setMinimumCheckInterval( 60000 );
+
+        assertTrue( cache.isCheckCurrent( "key", "central", always ) );
+    }
+
+    public void testShouldBoundNumberOfEntries()
+    {
+        ArtifactRepositoryPolicy never = new ArtifactRepositoryPolicy( true, ArtifactRepositoryPolicy.UPDATE_POLICY_NEVER,
+                                                                       ArtifactRepositoryPolicy.CHECKSUM_POLICY_WARN );
+
+        MetadataCache cache = new MetadataCache( 1, 0 );
+
+        cache.checked( "first", "central" );
+        cache.checked( "second", "central" );
+
+        assertFalse( cache.isCheckCurrent( "first", "central", never ) );
+        assertTrue( cache.isCheckCurrent( "second", "central", never ) );
+    }
+}
@@ -198,6 +198,58 @@ public class ArtifactResolverTest
         assertLocalArtifactPresent( j );
     }
 
+    public void testTransitiveResolutionReportsAllMissingArtifacts()
+        throws Exception
+    {
+        Artifact q = createRemoteArtifact( "q", "1.0" );
+        deleteLocalArtifact( q );
+
+        ArtifactMetadataSource mds = new ArtifactMetadataSource()
+        {
+            public ResolutionGroup retrieve( Artifact artifact, ArtifactRepository localRepository,
+                                             List remoteRepositories )
+                throws ArtifactMetadataRetrievalException
+            {
+                Set dependencies = new HashSet();
+
+                if ( "q".equals( artifact.getArtifactId() ) )
+                {
+                    try
+                    {
+                        dependencies.add( createArtifact( "org.apache.maven", "r", "1.0", "jar" ) );
+                        dependencies.add( createArtifact( "org.apache.maven", "s", "1.0", "jar" ) );
+                    }
+                    catch ( Exception e )
+                    {
+                        throw new ArtifactMetadataRetrievalException( e );
+                    }
+                }
+
+                return new ResolutionGroup( artifact, dependencies, remoteRepositories );
+            }
+
+            public List retrieveAvailableVersions( Artifact artifact, ArtifactRepository localRepository,
+                                                   List remoteRepositories )
+            {
+                throw new UnsupportedOperationException( "Cannot get available versions in this test case" );
+            }
+        };
+
+        try
+        {
+            artifactResolver.resolveTransitively( Collections.singleton( q ), projectArtifact, remoteRepositories(),
+                                                  localRepository(), mds );
+            fail( "Resolution succeeded when it should have failed" );
+        }
+        catch ( MultipleArtifactsNotFoundException expected )
+        {
+            assertEquals( 2, expected.getMissingArtifacts().size() );
+        }
+
+        // the artifact which is available is still downloaded
+        assertLocalArtifactPresent( q );
+    }
+
     public void testResolutionFailureWhenArtifactNotPresentInRemoteRepository()
         throws Exception
     {
@@ -0,0 +1,205 @@
+package org.apache.maven.artifact;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable, interned key made of artifact coordinates, such as the conflict id or the id of an artifact. Equal
+ * keys are the same instance, and its hash code and string form are only computed once, so it can be used in
+ * place of the coordinate strings which are otherwise concatenated over and over while resolving.
+ * <p/>
+ * The string form joins the group id, the artifact id and those of the type, classifier and version which are
+ * set with colons, in that order. It is the same as the one of {@link Artifact#getDependencyConflictId()} for the
+ * conflict id, of {@link Artifact#getId()} for the id, and of {@link ArtifactUtils#versionlessKey(String,String)}
+ * for the group and artifact ids only.
+ *
+ * @version $Id$
+ */
+public final class ArtifactKey
+{
+    /**
+     * Map( ArtifactKey, WeakReference( ArtifactKey ) ) of the keys in use, which are dropped once unused.
+     */
+    private static final Map INTERNED = new WeakHashMap();
+
+    private final String groupId;
+
+    private final String artifactId;
+
+    private final String type;
+
+    private final String classifier;
+
+    private final String version;
+
+    private final int hashCode;
+
+    private String string;
+
+    private ArtifactKey( String groupId, String artifactId, String type, String classifier, String version )
+    {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.type = type;
+        this.classifier = classifier;
+        this.version = version;
+
+        int hash = 17;
+        hash = hash * 31 + hashCode( groupId );
+        hash = hash * 31 + hashCode( artifactId );
+        hash = hash * 31 + hashCode( type );
+        hash = hash * 31 + hashCode( classifier );
+        hash = hash * 31 + hashCode( version );
+        this.hashCode = hash;
+    }
+
+    /**
+     * @param type       the type, or <code>null</code> to leave it out of the key
+     * @param classifier the classifier, or <code>null</code> to leave it out of the key
+     * @param version    the version, or <code>null</code> to leave it out of the key
+     * @return the one instance of the key with the given coordinates
+     */
+    public static ArtifactKey get( String groupId, String artifactId, String type, String classifier,
+                                   String version )
+    {
+        ArtifactKey key = new ArtifactKey( groupId, artifactId, type, classifier, version );
+
+        synchronized ( INTERNED )
+        {
+            WeakReference ref = (WeakReference) INTERNED.get( key );
+
+            ArtifactKey interned = ref != null ? (ArtifactKey) ref.get() : null;
+
+            if ( interned == null )
+            {
+                INTERNED.put( key, new WeakReference( key ) );
+
+                interned = key;
+            }
+
+            return interned;
+        }
+    }
+
+    /**
+     * @return the key of the group and artifact ids only
+     */
+    public static ArtifactKey get( String groupId, String artifactId )
+    {
+        return get( groupId, artifactId, null, null, null );
+    }
+
+    public String getGroupId()
+    {
+        return groupId;
+    }
+
+    public String getArtifactId()
+    {
+        return artifactId;
+    }
+
+    public String getType()
+    {
+        return type;
+    }
+
+    public String getClassifier()
+    {
+        return classifier;
+    }
+
+    public String getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * @return whether this key has the given coordinates
+     */
+    public boolean matches( String groupId, String artifactId, String type, String classifier, String version )
+    {
+        return equals( this.groupId, groupId ) && equals( this.artifactId, artifactId ) &&
+            equals( this.type, type ) && equals( this.classifier, classifier ) && equals( this.version, version );
+    }
+
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+        if ( !( obj instanceof ArtifactKey ) )
+        {
+            return false;
+        }
+
+        ArtifactKey other = (ArtifactKey) obj;
+
+        return hashCode == other.hashCode &&
+            other.matches( groupId, artifactId, type, classifier, version );
+    }
+
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    public String toString()
+    {
+        // racy but harmless: at worst two equal strings get built
+        String string = this.string;
+
+        if ( string == null )
+        {
+            StringBuffer sb = new StringBuffer( 64 );
+            sb.append( groupId ).append( ':' ).append( artifactId );
+            append( sb, type );
+            append( sb, classifier );
+            append( sb, version );
+
+            string = sb.toString();
+            this.string = string;
+        }
+
+        return string;
+    }
+
+    private static void append( StringBuffer sb, String coordinate )
+    {
+        if ( coordinate != null )
+        {
+            sb.append( ':' ).append( coordinate );
+        }
+    }
+
+    private static boolean equals( String a, String b )
+    {
+        return a == null ? b == null : a.equals( b );
+    }
+
+    private static int hashCode( String s )
+    {
+        return s == null ? 0 : s.hashCode();
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.maven.artifact;
  * under the License.
  */
 
+import org.apache.maven.artifact.versioning.SortedVersionList;
 import org.apache.maven.artifact.versioning.VersionRange;
 
 import java.util.ArrayList;
@@ -118,7 +119,11 @@ public final class ArtifactUtils
         clone.setFile( artifact.getFile() );
 
         clone.setAvailableVersions( copyList( artifact.getAvailableVersions() ) );
-        clone.setBaseVersion( artifact.getBaseVersion() );
+        if ( artifact.getVersion() != null )
+        {
+            // not known yet for an artifact only given a version range
+            clone.setBaseVersion( artifact.getBaseVersion() );
+        }
         clone.setDependencyFilter( artifact.getDependencyFilter() );
         clone.setDependencyTrail( copyList( artifact.getDependencyTrail() ) );
         clone.setDownloadUrl( artifact.getDownloadUrl() );
@@ -129,6 +134,12 @@ public final class ArtifactUtils
     
     private static List copyList( List original )
     {
+        if ( original instanceof SortedVersionList )
+        {
+            // immutable
+            return original;
+        }
+
         List copy = null;
         
         if ( original != null )
@@ -87,6 +87,10 @@ public class DefaultArtifact
 
     private boolean optional;
 
+    private ArtifactKey conflictKey;
+
+    private ArtifactKey idKey;
+
     public DefaultArtifact( String groupId, String artifactId, VersionRange versionRange, String scope, String type,
                             String classifier, ArtifactHandler artifactHandler )
     {
@@ -222,16 +226,48 @@ public class DefaultArtifact
 
     public String getId()
     {
-        return getDependencyConflictId() + ":" + getBaseVersion();
+        return getIdKey().toString();
     }
 
     public String getDependencyConflictId()
     {
-        StringBuffer sb = new StringBuffer();
-        sb.append( getGroupId() );
-        sb.append( ":" );
-        appendArtifactTypeClassifierString( sb );
-        return sb.toString();
+        return getConflictKey().toString();
+    }
+
+    /**
+     * @return the interned key of the id of this artifact, the string form of which is {@link #getId()}
+     */
+    public ArtifactKey getIdKey()
+    {
+        String baseVersion = getBaseVersion();
+
+        ArtifactKey key = idKey;
+        if ( key == null || !key.matches( getGroupId(), getArtifactId(), getType(), getKeyClassifier(), baseVersion ) )
+        {
+            key = ArtifactKey.get( getGroupId(), getArtifactId(), getType(), getKeyClassifier(), baseVersion );
+            idKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * @return the interned key of the conflict id of this artifact, the string form of which is
+     *         {@link #getDependencyConflictId()}
+     */
+    public ArtifactKey getConflictKey()
+    {
+        ArtifactKey key = conflictKey;
+        if ( key == null || !key.matches( getGroupId(), getArtifactId(), getType(), getKeyClassifier(), null ) )
+        {
+            key = ArtifactKey.get( getGroupId(), getArtifactId(), getType(), getKeyClassifier(), null );
+            conflictKey = key;
+        }
+        return key;
+    }
+
+    private String getKeyClassifier()
+    {
+        return hasClassifier() ? getClassifier() : null;
     }
 
     private void appendArtifactTypeClassifierString( StringBuffer sb )
@@ -0,0 +1,306 @@
+package org.apache.maven.artifact.resolver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.metadata.ArtifactMetadataRetrievalException;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
+import org.apache.maven.artifact.metadata.ResolutionGroup;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Artifact collector which walks the dependency graph level by level. All the dependencies found at one depth
+ * are mediated before the metadata of any of them is retrieved, so the metadata is only retrieved for the
+ * dependencies which win nearest-wins mediation: the ones omitted for a nearer one are never expanded.
+ * <p/>
+ * Mediation itself is the one of {@link DefaultArtifactCollector}, and its outcome is the same: nodes at the
+ * same depth are met in the order the depth-first walk meets them, and the metadata of a dependency is
+ * retrieved for the version and scope it was declared with, before dependency management and mediation,
+ * as the depth-first walk does. The nodes of the result are ordered as a depth-first walk would order them.
+ * Listeners get the same events, but grouped by depth rather than nested.
+ *
+ * @version $Id$
+ */
+public class BreadthFirstArtifactCollector
+    extends DefaultArtifactCollector
+{
+    public ArtifactResolutionResult collect( Set artifacts, Artifact originatingArtifact, Map managedVersions,
+                                             ArtifactRepository localRepository, List remoteRepositories,
+                                             ArtifactMetadataSource source, ArtifactFilter filter, List listeners )
+        throws ArtifactResolutionException
+    {
+        Map resolvedArtifacts = new HashMap();
+
+        source = memoize( source );
+
+        // Map( ResolutionNode, Declaration ) of the nodes whose metadata is still to be retrieved
+        Map declarations = new HashMap();
+
+        ResolutionNode root = new ResolutionNode( originatingArtifact, remoteRepositories );
+
+        root.addDependencies( artifacts, remoteRepositories, filter );
+
+        fireEvent( ResolutionListener.TEST_ARTIFACT, listeners, root );
+        manageArtifact( root, managedVersions, listeners );
+        mediate( root, resolvedArtifacts, listeners );
+        fireEvent( ResolutionListener.INCLUDE_ARTIFACT, listeners, root );
+
+        List level = Collections.singletonList( root );
+
+        while ( !level.isEmpty() )
+        {
+            List nextLevel = new ArrayList();
+
+            // settle mediation for the whole next level first...
+            for ( Iterator i = level.iterator(); i.hasNext(); )
+            {
+                ResolutionNode node = (ResolutionNode) i.next();
+
+                // nodes which lost, and the system-scoped ones, were never expanded
+                if ( !node.isActive() || !node.isResolved() )
+                {
+                    continue;
+                }
+
+                fireEvent( ResolutionListener.PROCESS_CHILDREN, listeners, node );
+
+                for ( Iterator j = node.getChildrenIterator(); j.hasNext(); )
+                {
+                    ResolutionNode child = (ResolutionNode) j.next();
+
+                    if ( isTraversable( child ) )
+                    {
+                        Artifact artifact = child.getArtifact();
+                        try
+                        {
+                            selectVersion( child, localRepository, remoteRepositories, source, listeners );
+                        }
+                        catch ( ArtifactMetadataRetrievalException e )
+                        {
+                            artifact.setDependencyTrail( node.getDependencyTrail() );
+                            throw new ArtifactResolutionException(
+                                "Unable to get dependency information: " + e.getMessage(), artifact,
+                                remoteRepositories, e );
+                        }
+
+                        declarations.put( child, new Declaration( artifact ) );
+
+                        fireEvent( ResolutionListener.TEST_ARTIFACT, listeners, child );
+                        manageArtifact( child, managedVersions, listeners );
+                        mediate( child, resolvedArtifacts, listeners );
+
+                        if ( child.isActive() )
+                        {
+                            fireEvent( ResolutionListener.INCLUDE_ARTIFACT, listeners, child );
+                        }
+
+                        nextLevel.add( child );
+                    }
+                }
+
+                fireEvent( ResolutionListener.FINISH_PROCESSING_CHILDREN, listeners, node );
+            }
+
+            // ...then only retrieve the metadata of the winners
+            for ( Iterator i = nextLevel.iterator(); i.hasNext(); )
+            {
+                ResolutionNode child = (ResolutionNode) i.next();
+
+                Declaration declaration = (Declaration) declarations.remove( child );
+
+                // don't pull in the transitive deps of a system-scoped dependency.
+                if ( child.isActive() && !Artifact.SCOPE_SYSTEM.equals( child.getArtifact().getScope() ) )
+                {
+                    expand( child, declaration, resolvedArtifacts, managedVersions, localRepository,
+                            remoteRepositories, source, filter, listeners );
+                }
+            }
+
+            level = nextLevel;
+        }
+
+        return createResult( root, orderDepthFirst( root, resolvedArtifacts ), filter );
+    }
+
+    private void expand( ResolutionNode child, Declaration declaration, Map resolvedArtifacts, Map managedVersions,
+                         ArtifactRepository localRepository, List remoteRepositories, ArtifactMetadataSource source,
+                         ArtifactFilter filter, List listeners )
+        throws ArtifactResolutionException
+    {
+        Artifact artifact = child.getArtifact();
+
+        Object key = child.getKey();
+
+        Declaration mediated = new Declaration( artifact );
+
+        List parentTrail = null;
+
+        try
+        {
+            declaration.apply( artifact );
+
+            parentTrail = new ArrayList( child.getDependencyTrail().subList( 0, child.getDepth() ) );
+            artifact.setDependencyTrail( parentTrail );
+            ResolutionGroup rGroup = source.retrieve( artifact, localRepository, remoteRepositories );
+
+            if ( !key.equals( child.getKey() ) )
+            {
+                // relocated: mediate it again under its new coordinates, as the depth-first walk would have
+                ( (List) resolvedArtifacts.get( key ) ).remove( child );
+
+                fireEvent( ResolutionListener.TEST_ARTIFACT, listeners, child );
+                manageArtifact( child, managedVersions, listeners );
+                mediate( child, resolvedArtifacts, listeners );
+
+                if ( !child.isActive() )
+                {
+                    return;
+                }
+                fireEvent( ResolutionListener.INCLUDE_ARTIFACT, listeners, child );
+            }
+            else
+            {
+                mediated.apply( artifact );
+            }
+
+            //TODO might be better to have source.retreive() throw a specific exception for this situation
+            //and catch here rather than have it return null
+            if ( rGroup == null )
+            {
+                //relocated dependency artifact is declared excluded, the depth-first walk would never have
+                //mediated it
+                ( (List) resolvedArtifacts.get( child.getKey() ) ).remove( child );
+                child.disable();
+                return;
+            }
+
+            child.addDependencies( rGroup.getArtifacts(), rGroup.getResolutionRepositories(), filter );
+        }
+        catch ( CyclicDependencyException e )
+        {
+            // would like to throw this, but we have crappy stuff in the repo
+
+            fireEvent( ResolutionListener.OMIT_FOR_CYCLE, listeners,
+                       new ResolutionNode( e.getArtifact(), remoteRepositories, child ) );
+        }
+        catch ( ArtifactMetadataRetrievalException e )
+        {
+            artifact.setDependencyTrail( parentTrail );
+            throw new ArtifactResolutionException( "Unable to get dependency information: " + e.getMessage(),
+                                                   artifact, remoteRepositories, e );
+        }
+    }
+
+    /**
+     * Order the mediated nodes by the conflict id in the order a depth-first walk of the graph meets them, which
+     * is the order of the result of the default collector.
+     */
+    private Map orderDepthFirst( ResolutionNode root, Map resolvedArtifacts )
+    {
+        Set keys = new LinkedHashSet();
+
+        List stack = new ArrayList();
+        stack.add( root );
+
+        while ( !stack.isEmpty() )
+        {
+            ResolutionNode node = (ResolutionNode) stack.remove( stack.size() - 1 );
+
+            keys.add( node.getKey() );
+
+            if ( node.isResolved() )
+            {
+                List children = new ArrayList();
+                for ( Iterator i = node.getChildrenIterator(); i.hasNext(); )
+                {
+                    children.add( i.next() );
+                }
+                for ( int i = children.size() - 1; i >= 0; i-- )
+                {
+                    stack.add( children.get( i ) );
+                }
+            }
+        }
+
+        Map ordered = new LinkedHashMap();
+
+        for ( Iterator i = keys.iterator(); i.hasNext(); )
+        {
+            Object key = i.next();
+
+            if ( resolvedArtifacts.containsKey( key ) )
+            {
+                ordered.put( key, resolvedArtifacts.get( key ) );
+            }
+        }
+
+        ordered.putAll( resolvedArtifacts );
+
+        return ordered;
+    }
+
+    /**
+     * The version and scope of an artifact at some point of the collection, to be restored later on.
+     */
+    private static final class Declaration
+    {
+        private final String version;
+
+        private final VersionRange versionRange;
+
+        private final String scope;
+
+        Declaration( Artifact artifact )
+        {
+            this.version = artifact.getVersion();
+            this.versionRange = artifact.getVersionRange();
+            this.scope = artifact.getScope();
+        }
+
+        void apply( Artifact artifact )
+        {
+            if ( versionRange != null )
+            {
+                artifact.setVersionRange( versionRange );
+                if ( version != null )
+                {
+                    artifact.selectVersion( version );
+                }
+            }
+            else
+            {
+                artifact.setVersion( version );
+            }
+            artifact.setScope( scope );
+        }
+    }
+}
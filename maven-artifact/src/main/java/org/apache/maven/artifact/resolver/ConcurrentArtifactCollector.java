@@ -0,0 +1,179 @@
+package org.apache.maven.artifact.resolver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.artifact.metadata.ArtifactMetadataRetrievalException;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
+import org.apache.maven.artifact.metadata.ResolutionGroup;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Artifact collector which retrieves the metadata (POMs) of all children of a node in parallel, on a
+ * bounded pool of worker threads, as soon as the node's children are known.
+ * <p/>
+ * Mediation is still done by the serial walk of {@link DefaultArtifactCollector}, in the same order,
+ * so the result is identical to the one of the default collector. The parallel retrievals only warm up
+ * the local repository and caches: they work on copies of the child artifacts and their results are
+ * thrown away. When the walk reaches a child, it waits for that child's prefetch to finish before
+ * retrieving its metadata for real, so the same POM is never fetched twice at once.
+ *
+ * @version $Id$
+ */
+public class ConcurrentArtifactCollector
+    extends DefaultArtifactCollector
+{
+    /**
+     * Maximum number of metadata retrievals running at the same time.
+     */
+    private int threads = 5;
+
+    public ArtifactResolutionResult collect( Set artifacts, Artifact originatingArtifact, Map managedVersions,
+                                             ArtifactRepository localRepository, List remoteRepositories,
+                                             ArtifactMetadataSource source, ArtifactFilter filter, List listeners )
+        throws ArtifactResolutionException
+    {
+        ResolutionWorkerPool pool = new ResolutionWorkerPool( "artifact-collector", threads );
+
+        try
+        {
+            return super.collect( artifacts, originatingArtifact, managedVersions, localRepository,
+                                  remoteRepositories, new PrefetchingMetadataSource( source, pool ), filter,
+                                  listeners );
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    protected void childrenDiscovered( ResolutionNode node, ArtifactRepository localRepository,
+                                       List remoteRepositories, ArtifactMetadataSource source )
+    {
+        if ( source instanceof PrefetchingMetadataSource )
+        {
+            ( (PrefetchingMetadataSource) source ).prefetch( node, localRepository, remoteRepositories );
+        }
+    }
+
+    public void setThreads( int threads )
+    {
+        this.threads = threads;
+    }
+
+    private static final class PrefetchingMetadataSource
+        implements ArtifactMetadataSource
+    {
+        private final ArtifactMetadataSource delegate;
+
+        private final ResolutionWorkerPool pool;
+
+        private final Map prefetches = new HashMap();
+
+        PrefetchingMetadataSource( ArtifactMetadataSource delegate, ResolutionWorkerPool pool )
+        {
+            this.delegate = delegate;
+            this.pool = pool;
+        }
+
+        void prefetch( ResolutionNode node, final ArtifactRepository localRepository,
+                       final List remoteRepositories )
+        {
+            for ( Iterator i = node.getChildrenIterator(); i.hasNext(); )
+            {
+                ResolutionNode child = (ResolutionNode) i.next();
+
+                Artifact artifact = child.getArtifact();
+
+                // the same conditions under which the collector will retrieve the child's metadata. Children
+                // with a version range are left alone, since their version is only selected later on.
+                if ( child.isResolved() || ( artifact.isOptional() && !child.isChildOfRootNode() ) ||
+                    artifact.getVersion() == null || Artifact.SCOPE_SYSTEM.equals( artifact.getScope() ) )
+                {
+                    continue;
+                }
+
+                String key = artifact.getId();
+
+                if ( prefetches.containsKey( key ) )
+                {
+                    continue;
+                }
+
+                final Artifact copy;
+                try
+                {
+                    copy = ArtifactUtils.copyArtifact( artifact );
+                }
+                catch ( RuntimeException e )
+                {
+                    // not worth failing over; the collector will retrieve this one itself.
+                    continue;
+                }
+
+                ResolutionWorkerPool.Task task = pool.submit( new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            delegate.retrieve( copy, localRepository, remoteRepositories );
+                        }
+                        catch ( ArtifactMetadataRetrievalException e )
+                        {
+                            // the collector will run into this again, and report it properly.
+                        }
+                    }
+                } );
+
+                prefetches.put( key, task );
+            }
+        }
+
+        public ResolutionGroup retrieve( Artifact artifact, ArtifactRepository localRepository,
+                                         List remoteRepositories )
+            throws ArtifactMetadataRetrievalException
+        {
+            ResolutionWorkerPool.Task task = (ResolutionWorkerPool.Task) prefetches.get( artifact.getId() );
+
+            if ( task != null )
+            {
+                task.await();
+            }
+
+            return delegate.retrieve( artifact, localRepository, remoteRepositories );
+        }
+
+        public List retrieveAvailableVersions( Artifact artifact, ArtifactRepository localRepository,
+                                               List remoteRepositories )
+            throws ArtifactMetadataRetrievalException
+        {
+            return delegate.retrieveAvailableVersions( artifact, localRepository, remoteRepositories );
+        }
+    }
+}
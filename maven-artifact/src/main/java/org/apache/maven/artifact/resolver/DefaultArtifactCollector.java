@@ -47,6 +47,19 @@ import java.util.Set;
 public class DefaultArtifactCollector
     implements ArtifactCollector
 {
+    /**
+     * Maximum number of expanded dependency lists remembered, see {@link ExpansionCache}.
+     */
+    private int maxExpansions = 10000;
+
+    /**
+     * Whether the expanded dependency lists are remembered from one collection to the next, e.g. for all the
+     * modules of a reactor, rather than for a single collection only.
+     */
+    private boolean shareExpansions;
+
+    private ExpansionCache sharedExpansions;
+
     public ArtifactResolutionResult collect( Set artifacts, Artifact originatingArtifact,
                                              ArtifactRepository localRepository, List remoteRepositories,
                                              ArtifactMetadataSource source, ArtifactFilter filter, List listeners )
@@ -67,9 +80,58 @@ public class DefaultArtifactCollector
 
         root.addDependencies( artifacts, remoteRepositories, filter );
 
-        recurse( root, resolvedArtifacts, managedVersions, localRepository, remoteRepositories, source, filter,
-                 listeners );
+        recurse( root, resolvedArtifacts, managedVersions, localRepository, remoteRepositories, memoize( source ),
+                 filter, listeners );
+
+        return createResult( root, resolvedArtifacts, filter );
+    }
+
+    /**
+     * @return a metadata source which retrieves the expansion of each artifact from the given one only once, for
+     *         this collection or, if they are shared, for all of them
+     */
+    ArtifactMetadataSource memoize( ArtifactMetadataSource source )
+    {
+        ExpansionCache expansions;
+
+        if ( shareExpansions )
+        {
+            synchronized ( this )
+            {
+                if ( sharedExpansions == null )
+                {
+                    sharedExpansions = new ExpansionCache( maxExpansions, true );
+                }
+                expansions = sharedExpansions;
+            }
+        }
+        else
+        {
+            expansions = new ExpansionCache( maxExpansions, false );
+        }
+
+        return expansions.wrap( source );
+    }
 
+    public void setMaxExpansions( int maxExpansions )
+    {
+        this.maxExpansions = maxExpansions;
+    }
+
+    public void setShareExpansions( boolean shareExpansions )
+    {
+        this.shareExpansions = shareExpansions;
+    }
+
+    /**
+     * Create the result from the active nodes of the given map, in the order of its values.
+     *
+     * @param resolvedArtifacts Map( Object, List( ResolutionNode ) ) from the conflict ids to all the nodes which
+     *                          took part in mediation
+     */
+    ArtifactResolutionResult createResult( ResolutionNode root, Map resolvedArtifacts, ArtifactFilter filter )
+        throws OverConstrainedVersionException
+    {
         Set set = new LinkedHashSet();
 
         for ( Iterator i = resolvedArtifacts.values().iterator(); i.hasNext(); )
@@ -109,6 +171,84 @@ public class DefaultArtifactCollector
     {
         fireEvent( ResolutionListener.TEST_ARTIFACT, listeners, node );
 
+        manageArtifact( node, managedVersions, listeners );
+
+        mediate( node, resolvedArtifacts, listeners );
+
+        if ( node.isActive() )
+        {
+            fireEvent( ResolutionListener.INCLUDE_ARTIFACT, listeners, node );
+        }
+
+        // don't pull in the transitive deps of a system-scoped dependency.
+        if ( node.isActive() && !Artifact.SCOPE_SYSTEM.equals( node.getArtifact().getScope() ) )
+        {
+            fireEvent( ResolutionListener.PROCESS_CHILDREN, listeners, node );
+
+            childrenDiscovered( node, localRepository, remoteRepositories, source );
+
+            for ( Iterator i = node.getChildrenIterator(); i.hasNext(); )
+            {
+                ResolutionNode child = (ResolutionNode) i.next();
+                // We leave in optional ones, but don't pick up its dependencies
+                if ( isTraversable( child ) )
+                {
+                    Artifact artifact = child.getArtifact();
+                    try
+                    {
+                        selectVersion( child, localRepository, remoteRepositories, source, listeners );
+
+                        artifact.setDependencyTrail( node.getDependencyTrail() );
+                        ResolutionGroup rGroup = source.retrieve( artifact, localRepository, remoteRepositories );
+
+                        //TODO might be better to have source.retreive() throw a specific exception for this situation
+                        //and catch here rather than have it return null
+                        if ( rGroup == null )
+                        {
+                            //relocated dependency artifact is declared excluded, no need to add and recurse further
+                            continue;
+                        }
+
+                        child.addDependencies( rGroup.getArtifacts(), rGroup.getResolutionRepositories(), filter );
+                    }
+                    catch ( CyclicDependencyException e )
+                    {
+                        // would like to throw this, but we have crappy stuff in the repo
+
+                        fireEvent( ResolutionListener.OMIT_FOR_CYCLE, listeners,
+                                   new ResolutionNode( e.getArtifact(), remoteRepositories, child ) );
+                    }
+                    catch ( ArtifactMetadataRetrievalException e )
+                    {
+                        artifact.setDependencyTrail( node.getDependencyTrail() );
+                        throw new ArtifactResolutionException(
+                            "Unable to get dependency information: " + e.getMessage(), artifact, remoteRepositories,
+                            e );
+                    }
+
+                    recurse( child, resolvedArtifacts, managedVersions, localRepository, remoteRepositories, source,
+                             filter, listeners );
+                }
+            }
+
+            fireEvent( ResolutionListener.FINISH_PROCESSING_CHILDREN, listeners, node );
+        }
+    }
+
+    /**
+     * @return whether the child is collected at all: optional dependencies are only collected as direct
+     *         dependencies.
+     */
+    boolean isTraversable( ResolutionNode child )
+    {
+        return !child.isResolved() && ( !child.getArtifact().isOptional() || child.isChildOfRootNode() );
+    }
+
+    /**
+     * Apply the managed version and scope of the node's artifact, if there are any.
+     */
+    void manageArtifact( ResolutionNode node, Map managedVersions, List listeners )
+    {
         // TODO: use as a conflict resolver
         Object key = node.getKey();
         if ( managedVersions.containsKey( key ) )
@@ -126,7 +266,18 @@ public class DefaultArtifactCollector
                 node.getArtifact().setScope( artifact.getScope() );
             }
         }
+    }
 
+    /**
+     * Mediate the node against the nodes with the same conflict id met so far, disabling the ones which lose, and
+     * add it to them.
+     *
+     * @param resolvedArtifacts Map( Object, List( ResolutionNode ) ) from the conflict ids to the nodes met so far
+     */
+    void mediate( ResolutionNode node, Map resolvedArtifacts, List listeners )
+        throws OverConstrainedVersionException
+    {
+        Object key = node.getKey();
         List previousNodes = (List) resolvedArtifacts.get( key );
         if ( previousNodes != null )
         {
@@ -210,107 +361,69 @@ public class DefaultArtifactCollector
             resolvedArtifacts.put( key, previousNodes );
         }
         previousNodes.add( node );
+    }
 
-        if ( node.isActive() )
-        {
-            fireEvent( ResolutionListener.INCLUDE_ARTIFACT, listeners, node );
-        }
+    /**
+     * Select the version of the child's artifact from its range, if it hasn't got one yet.
+     */
+    void selectVersion( ResolutionNode child, ArtifactRepository localRepository, List remoteRepositories,
+                        ArtifactMetadataSource source, List listeners )
+        throws ArtifactMetadataRetrievalException, OverConstrainedVersionException
+    {
+        Artifact artifact = child.getArtifact();
 
-        // don't pull in the transitive deps of a system-scoped dependency.
-        if ( node.isActive() && !Artifact.SCOPE_SYSTEM.equals( node.getArtifact().getScope() ) )
+        if ( artifact.getVersion() == null )
         {
-            fireEvent( ResolutionListener.PROCESS_CHILDREN, listeners, node );
-
-            for ( Iterator i = node.getChildrenIterator(); i.hasNext(); )
+            // set the recommended version
+            // TODO: maybe its better to just pass the range through to retrieval and use a transformation?
+            ArtifactVersion version;
+            if ( !artifact.isSelectedVersionKnown() )
             {
-                ResolutionNode child = (ResolutionNode) i.next();
-                // We leave in optional ones, but don't pick up its dependencies
-                if ( !child.isResolved() && ( !child.getArtifact().isOptional() || child.isChildOfRootNode() ) )
+                List versions = artifact.getAvailableVersions();
+                if ( versions == null )
                 {
-                    Artifact artifact = child.getArtifact();
-                    try
-                    {
-                        if ( artifact.getVersion() == null )
-                        {
-                            // set the recommended version
-                            // TODO: maybe its better to just pass the range through to retrieval and use a transformation?
-                            ArtifactVersion version;
-                            if ( !artifact.isSelectedVersionKnown() )
-                            {
-                                List versions = artifact.getAvailableVersions();
-                                if ( versions == null )
-                                {
-                                    versions = source.retrieveAvailableVersions( artifact, localRepository,
-                                                                                 remoteRepositories );
-                                    artifact.setAvailableVersions( versions );
-                                }
-
-                                VersionRange versionRange = artifact.getVersionRange();
-
-                                version = versionRange.matchVersion( versions );
-
-                                if ( version == null )
-                                {
-                                    if ( versions.isEmpty() )
-                                    {
-                                        throw new OverConstrainedVersionException(
-                                            "No versions are present in the repository for the artifact with a range " +
-                                                versionRange, artifact, remoteRepositories );
-                                    }
-                                    else
-                                    {
-                                        throw new OverConstrainedVersionException( "Couldn't find a version in " +
-                                            versions + " to match range " + versionRange, artifact,
-                                                                                          remoteRepositories );
-                                    }
-                                }
-                            }
-                            else
-                            {
-                                version = artifact.getSelectedVersion();
-                            }
+                    versions = source.retrieveAvailableVersions( artifact, localRepository, remoteRepositories );
+                    artifact.setAvailableVersions( versions );
+                }
 
-                            artifact.selectVersion( version.toString() );
-                            fireEvent( ResolutionListener.SELECT_VERSION_FROM_RANGE, listeners, child );
-                        }
+                VersionRange versionRange = artifact.getVersionRange();
 
-                        artifact.setDependencyTrail( node.getDependencyTrail() );
-                        ResolutionGroup rGroup = source.retrieve( artifact, localRepository, remoteRepositories );
+                version = versionRange.matchVersion( versions );
 
-                        //TODO might be better to have source.retreive() throw a specific exception for this situation
-                        //and catch here rather than have it return null
-                        if ( rGroup == null )
-                        {
-                            //relocated dependency artifact is declared excluded, no need to add and recurse further
-                            continue;
-                        }
-
-                        child.addDependencies( rGroup.getArtifacts(), rGroup.getResolutionRepositories(), filter );
-                    }
-                    catch ( CyclicDependencyException e )
+                if ( version == null )
+                {
+                    if ( versions.isEmpty() )
                     {
-                        // would like to throw this, but we have crappy stuff in the repo
-
-                        fireEvent( ResolutionListener.OMIT_FOR_CYCLE, listeners,
-                                   new ResolutionNode( e.getArtifact(), remoteRepositories, child ) );
+                        throw new OverConstrainedVersionException(
+                            "No versions are present in the repository for the artifact with a range " +
+                                versionRange, artifact, remoteRepositories );
                     }
-                    catch ( ArtifactMetadataRetrievalException e )
+                    else
                     {
-                        artifact.setDependencyTrail( node.getDependencyTrail() );
-                        throw new ArtifactResolutionException(
-                            "Unable to get dependency information: " + e.getMessage(), artifact, remoteRepositories,
-                            e );
+                        throw new OverConstrainedVersionException( "Couldn't find a version in " +
+                            versions + " to match range " + versionRange, artifact, remoteRepositories );
                     }
-
-                    recurse( child, resolvedArtifacts, managedVersions, localRepository, remoteRepositories, source,
-                             filter, listeners );
                 }
             }
+            else
+            {
+                version = artifact.getSelectedVersion();
+            }
 
-            fireEvent( ResolutionListener.FINISH_PROCESSING_CHILDREN, listeners, node );
+            artifact.selectVersion( version.toString() );
+            fireEvent( ResolutionListener.SELECT_VERSION_FROM_RANGE, listeners, child );
         }
     }
 
+    /**
+     * Called before the children of an active node are processed, in order. Subclasses can use this to
+     * start retrieving the metadata of those children ahead of time; the default does nothing.
+     */
+    protected void childrenDiscovered( ResolutionNode node, ArtifactRepository localRepository,
+                                       List remoteRepositories, ArtifactMetadataSource source )
+    {
+    }
+
     /**
      * Check if the scope needs to be updated.
      * <a href="http://docs.codehaus.org/x/IGU#DependencyMediationandConflictResolution-Scoperesolution">More info</a>.
@@ -359,12 +472,12 @@ public class DefaultArtifactCollector
         return updateScope;
     }
 
-    private void fireEvent( int event, List listeners, ResolutionNode node )
+    void fireEvent( int event, List listeners, ResolutionNode node )
     {
         fireEvent( event, listeners, node, null );
     }
 
-    private void fireEvent( int event, List listeners, ResolutionNode node, Artifact replacement )
+    void fireEvent( int event, List listeners, ResolutionNode node, Artifact replacement )
     {
         fireEvent( event, listeners, node, replacement, null );
     }
@@ -0,0 +1,230 @@
+package org.apache.maven.artifact.resolver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.metadata.ArtifactMetadataRetrievalException;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
+import org.apache.maven.artifact.metadata.ResolutionGroup;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers the dependencies a node of the graph expands to, so that an artifact reached through many paths of
+ * the graph only has its metadata retrieved and its dependencies created once. The expansion of an artifact
+ * depends on its conflict id and version, the scope its dependencies inherit, the exclusions applied to it and
+ * the repositories it is retrieved from, which together make the key.
+ * <p/>
+ * The collector changes the versions and scopes of the artifacts it gets, so each retrieval gets its own copies
+ * of the cached dependencies. Relocated artifacts, and expansions holding artifacts of the projects in the
+ * reactor, aren't cached. A cache shared by several collections doesn't cache snapshots either.
+ *
+ * @version $Id$
+ */
+class ExpansionCache
+{
+    private final Map expansions;
+
+    private final boolean shared;
+
+    private int maxEntries;
+
+    /**
+     * @param shared whether the cache outlives a single collection, in which case the expansions of snapshots
+     *               aren't cached since they can change in the mean time
+     */
+    ExpansionCache( int maxEntries, boolean shared )
+    {
+        this.maxEntries = maxEntries;
+        this.shared = shared;
+
+        expansions = new LinkedHashMap( 16, 0.75f, true )
+        {
+            protected boolean removeEldestEntry( Map.Entry eldest )
+            {
+                return size() > ExpansionCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return a metadata source retrieving from the given one through this cache
+     */
+    ArtifactMetadataSource wrap( ArtifactMetadataSource source )
+    {
+        return new CachingMetadataSource( source );
+    }
+
+    synchronized int size()
+    {
+        return expansions.size();
+    }
+
+    synchronized void clear()
+    {
+        expansions.clear();
+    }
+
+    private synchronized Expansion get( Object key )
+    {
+        return (Expansion) expansions.get( key );
+    }
+
+    private synchronized void put( Object key, Expansion expansion )
+    {
+        expansions.put( key, expansion );
+    }
+
+    private static Object createKey( Artifact artifact, List remoteRepositories )
+    {
+        StringBuffer repositories = new StringBuffer();
+
+        if ( remoteRepositories != null )
+        {
+            for ( Iterator i = remoteRepositories.iterator(); i.hasNext(); )
+            {
+                ArtifactRepository repository = (ArtifactRepository) i.next();
+
+                repositories.append( repository.getId() ).append( '=' ).append( repository.getUrl() ).append( ',' );
+            }
+        }
+
+        return Arrays.asList( new Object[]{artifact.getDependencyConflictId(), artifact.getVersion(),
+            artifact.getScope(), artifact.getDependencyFilter(), repositories.toString()} );
+    }
+
+    /**
+     * @return copies of the artifacts, or <code>null</code> if one of them can't be copied faithfully
+     */
+    private static Set copyArtifacts( Set artifacts )
+    {
+        Set copies = new LinkedHashSet();
+
+        for ( Iterator i = artifacts.iterator(); i.hasNext(); )
+        {
+            Artifact artifact = (Artifact) i.next();
+
+            // the artifacts of the projects in the reactor are replaced with wrappers which mustn't be lost
+            if ( artifact.getClass() != DefaultArtifact.class || artifact.getVersionRange() == null )
+            {
+                return null;
+            }
+
+            copies.add( ArtifactUtils.copyArtifact( artifact ) );
+        }
+
+        return copies;
+    }
+
+    private class CachingMetadataSource
+        implements ArtifactMetadataSource
+    {
+        private final ArtifactMetadataSource delegate;
+
+        CachingMetadataSource( ArtifactMetadataSource delegate )
+        {
+            this.delegate = delegate;
+        }
+
+        public ResolutionGroup retrieve( Artifact artifact, ArtifactRepository localRepository,
+                                         List remoteRepositories )
+            throws ArtifactMetadataRetrievalException
+        {
+            if ( artifact.getVersion() == null || shared && artifact.isSnapshot() )
+            {
+                return delegate.retrieve( artifact, localRepository, remoteRepositories );
+            }
+
+            Object key = createKey( artifact, remoteRepositories );
+
+            Expansion expansion = get( key );
+
+            if ( expansion != null )
+            {
+                return expansion.replay( artifact );
+            }
+
+            String id = artifact.getId();
+
+            ResolutionGroup group = delegate.retrieve( artifact, localRepository, remoteRepositories );
+
+            if ( group != null && id.equals( artifact.getId() ) )
+            {
+                Set copies = copyArtifacts( group.getArtifacts() );
+
+                if ( copies != null )
+                {
+                    put( key, new Expansion( group, copies, artifact.getDownloadUrl() ) );
+                }
+            }
+
+            return group;
+        }
+
+        public List retrieveAvailableVersions( Artifact artifact, ArtifactRepository localRepository,
+                                               List remoteRepositories )
+            throws ArtifactMetadataRetrievalException
+        {
+            return delegate.retrieveAvailableVersions( artifact, localRepository, remoteRepositories );
+        }
+    }
+
+    /**
+     * The dependencies an artifact expanded to, and what else the retrieval did to the artifact.
+     */
+    private static final class Expansion
+    {
+        private final Artifact pomArtifact;
+
+        private final Set artifacts;
+
+        private final List resolutionRepositories;
+
+        private final String downloadUrl;
+
+        Expansion( ResolutionGroup group, Set artifacts, String downloadUrl )
+        {
+            this.pomArtifact = group.getPomArtifact();
+            this.artifacts = artifacts;
+            this.resolutionRepositories = new ArrayList( group.getResolutionRepositories() );
+            this.downloadUrl = downloadUrl;
+        }
+
+        ResolutionGroup replay( Artifact artifact )
+        {
+            if ( artifact.getDownloadUrl() == null )
+            {
+                artifact.setDownloadUrl( downloadUrl );
+            }
+
+            return new ResolutionGroup( pomArtifact, copyArtifacts( artifacts ), resolutionRepositories );
+        }
+    }
+}
@@ -27,10 +27,21 @@ import java.util.List;
 public class MultipleArtifactsNotFoundException
     extends ArtifactResolutionException
 {
+    private final List missingArtifacts;
 
     public MultipleArtifactsNotFoundException( Artifact originatingArtifact, List artifacts, List remoteRepositories )
     {
         super( constructMessage( artifacts ), originatingArtifact, remoteRepositories );
+
+        this.missingArtifacts = artifacts;
+    }
+
+    /**
+     * @return the artifacts which could not be found, as {@link Artifact} instances
+     */
+    public List getMissingArtifacts()
+    {
+        return missingArtifacts;
     }
 
     private static String constructMessage( List artifacts )
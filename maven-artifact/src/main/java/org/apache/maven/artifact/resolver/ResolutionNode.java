@@ -24,9 +24,9 @@ import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
 import org.apache.maven.artifact.versioning.OverConstrainedVersionException;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
@@ -36,7 +36,11 @@ public class ResolutionNode
 
     private List children;
 
-    private final List parents;
+    /**
+     * Bloom filter of the conflict ids of the ancestors, so that checking for cycles rarely has to walk up the
+     * parents, and no node has to keep a list of them.
+     */
+    private final long ancestorKeys;
 
     private final int depth;
 
@@ -46,14 +50,12 @@ public class ResolutionNode
 
     private boolean active = true;
 
-    private List trail;
-
     public ResolutionNode( Artifact artifact, List remoteRepositories )
     {
         this.artifact = artifact;
         this.remoteRepositories = remoteRepositories;
         this.depth = 0;
-        this.parents = Collections.EMPTY_LIST;
+        this.ancestorKeys = 0;
         this.parent = null;
     }
 
@@ -62,9 +64,7 @@ public class ResolutionNode
         this.artifact = artifact;
         this.remoteRepositories = remoteRepositories;
         this.depth = parent.depth + 1;
-        this.parents = new ArrayList();
-        this.parents.addAll( parent.parents );
-        this.parents.add( parent.getKey() );
+        this.ancestorKeys = parent.ancestorKeys | getBloomBits( parent.getKey() );
         this.parent = parent;
     }
 
@@ -89,7 +89,7 @@ public class ResolutionNode
             {
                 Artifact a = (Artifact) i.next();
 
-                if ( parents.contains( a.getDependencyConflictId() ) )
+                if ( hasAncestor( a.getDependencyConflictId() ) )
                 {
                     a.setDependencyTrail( getDependencyTrail() );
 
@@ -103,7 +103,35 @@ public class ResolutionNode
         {
             children = Collections.EMPTY_LIST;
         }
-        trail = null;
+    }
+
+    /**
+     * @return whether one of the ancestors of this node has the given conflict id
+     */
+    private boolean hasAncestor( Object key )
+    {
+        long bits = getBloomBits( key );
+
+        if ( ( ancestorKeys & bits ) != bits )
+        {
+            return false;
+        }
+
+        for ( ResolutionNode node = parent; node != null; node = node.parent )
+        {
+            if ( key.equals( node.getKey() ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long getBloomBits( Object key )
+    {
+        int hash = key.hashCode();
+
+        return ( 1L << ( hash & 63 ) ) | ( 1L << ( ( hash >>> 6 ) & 63 ) );
     }
 
     public List getDependencyTrail()
@@ -120,29 +148,28 @@ public class ResolutionNode
         return ret;
     }
 
+    /**
+     * Build the trail from the root down to this node. It isn't kept: keeping it for every node takes memory
+     * quadratic in the depth of the graph.
+     */
     private List getTrail()
         throws OverConstrainedVersionException
     {
-        if ( trail == null )
+        Artifact[] trail = new Artifact[depth + 1];
+
+        for ( ResolutionNode node = this; node != null; node = node.parent )
         {
-            List ids = new LinkedList();
-            ResolutionNode node = this;
-            while ( node != null )
+            Artifact artifact = node.getArtifact();
+            if ( artifact.getVersion() == null )
             {
-                Artifact artifact = node.getArtifact();
-                if ( artifact.getVersion() == null )
-                {
-                    // set the recommended version
-                    String version = artifact.getSelectedVersion().toString();
-                    artifact.selectVersion( version );
-                }
-
-                ids.add( 0, artifact );
-                node = node.parent;
+                // set the recommended version
+                String version = artifact.getSelectedVersion().toString();
+                artifact.selectVersion( version );
             }
-            trail = ids;
+
+            trail[node.depth] = artifact;
         }
-        return trail;
+        return Arrays.asList( trail );
     }
 
     public boolean isResolved()
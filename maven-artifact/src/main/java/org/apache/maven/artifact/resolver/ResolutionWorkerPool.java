@@ -0,0 +1,214 @@
+package org.apache.maven.artifact.resolver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.LinkedList;
+
+/**
+ * Small bounded pool of worker threads used to overlap the (mostly latency bound) I/O done during
+ * artifact resolution. Threads are started lazily, up to the configured maximum, and exit once the
+ * pool has been shut down and the queue is drained.
+ *
+ * @version $Id$
+ */
+public class ResolutionWorkerPool
+{
+    private final String name;
+
+    private final int maxThreads;
+
+    private final LinkedList queue = new LinkedList();
+
+    private int threads;
+
+    private int idleThreads;
+
+    private boolean shutdown;
+
+    public ResolutionWorkerPool( String name, int maxThreads )
+    {
+        if ( maxThreads < 1 )
+        {
+            throw new IllegalArgumentException( "A worker pool needs at least one thread." );
+        }
+
+        this.name = name;
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Queue the given runnable for execution on one of the worker threads.
+     *
+     * @return a handle which can be used to wait for the runnable to complete
+     */
+    public synchronized Task submit( Runnable runnable )
+    {
+        if ( shutdown )
+        {
+            throw new IllegalStateException( "Worker pool '" + name + "' has been shut down." );
+        }
+
+        Task task = new Task( runnable );
+
+        queue.addLast( task );
+
+        if ( idleThreads == 0 && threads < maxThreads )
+        {
+            threads++;
+
+            Thread thread = new Thread( new Worker(), name + "-" + threads );
+            thread.setDaemon( true );
+            thread.start();
+        }
+        else
+        {
+            notify();
+        }
+
+        return task;
+    }
+
+    /**
+     * Stop accepting new work. Queued tasks are still executed.
+     */
+    public synchronized void shutdown()
+    {
+        shutdown = true;
+
+        notifyAll();
+    }
+
+    private synchronized Task nextTask()
+    {
+        while ( queue.isEmpty() && !shutdown )
+        {
+            idleThreads++;
+
+            try
+            {
+                wait();
+            }
+            catch ( InterruptedException e )
+            {
+                // check the queue again.
+            }
+            finally
+            {
+                idleThreads--;
+            }
+        }
+
+        if ( queue.isEmpty() )
+        {
+            threads--;
+
+            return null;
+        }
+
+        return (Task) queue.removeFirst();
+    }
+
+    private final class Worker
+        implements Runnable
+    {
+        public void run()
+        {
+            Task task;
+
+            while ( ( task = nextTask() ) != null )
+            {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Handle on a unit of work submitted to the pool.
+     */
+    public static final class Task
+    {
+        private final Runnable runnable;
+
+        private boolean done;
+
+        private Throwable error;
+
+        Task( Runnable runnable )
+        {
+            this.runnable = runnable;
+        }
+
+        void run()
+        {
+            Throwable failure = null;
+
+            try
+            {
+                runnable.run();
+            }
+            catch ( Throwable e )
+            {
+                // errors are caught as well, so that the worker survives to drain the queue
+                failure = e;
+            }
+            finally
+            {
+                synchronized ( this )
+                {
+                    error = failure;
+                    done = true;
+
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Block until the task has run.
+         */
+        public synchronized void await()
+        {
+            while ( !done )
+            {
+                try
+                {
+                    wait();
+                }
+                catch ( InterruptedException e )
+                {
+                    // keep waiting, the task will complete.
+                }
+            }
+        }
+
+        public synchronized boolean isDone()
+        {
+            return done;
+        }
+
+        /**
+         * The unchecked exception or error thrown by the task, if any.
+         */
+        public synchronized Throwable getError()
+        {
+            return error;
+        }
+    }
+}
@@ -50,8 +50,58 @@ public class AndArtifactFilter
         return include;
     }
 
+    /**
+     * Add a filter to apply. The filters of another <code>AndArtifactFilter</code> are added rather than the
+     * filter itself, and exclusions are merged into a single filter, so that the chains of filters built down the
+     * dependency graph stay flat.
+     */
     public void add( ArtifactFilter artifactFilter )
     {
-        filters.add( artifactFilter );
+        if ( artifactFilter instanceof AndArtifactFilter )
+        {
+            for ( Iterator i = ( (AndArtifactFilter) artifactFilter ).filters.iterator(); i.hasNext(); )
+            {
+                add( (ArtifactFilter) i.next() );
+            }
+        }
+        else if ( artifactFilter.getClass() == ExcludesArtifactFilter.class )
+        {
+            for ( int i = 0; i < filters.size(); i++ )
+            {
+                ArtifactFilter filter = (ArtifactFilter) filters.get( i );
+
+                if ( filter.getClass() == ExcludesArtifactFilter.class )
+                {
+                    List patterns = new ArrayList( ( (ExcludesArtifactFilter) filter ).getPatterns() );
+                    patterns.addAll( ( (ExcludesArtifactFilter) artifactFilter ).getPatterns() );
+
+                    filters.set( i, new ExcludesArtifactFilter( patterns ) );
+                    return;
+                }
+            }
+            filters.add( artifactFilter );
+        }
+        else
+        {
+            filters.add( artifactFilter );
+        }
+    }
+
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+        if ( !( obj instanceof AndArtifactFilter ) )
+        {
+            return false;
+        }
+        return filters.equals( ( (AndArtifactFilter) obj ).filters );
+    }
+
+    public int hashCode()
+    {
+        return filters.hashCode();
     }
 }
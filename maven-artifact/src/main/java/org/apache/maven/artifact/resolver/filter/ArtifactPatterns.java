@@ -0,0 +1,189 @@
+package org.apache.maven.artifact.resolver.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Artifact patterns compiled for lookup, so that matching an artifact takes as many hash lookups as the group id
+ * of the artifact has segments, whatever the number of patterns.
+ * <p/>
+ * Patterns are of the form <code>groupId:artifactId</code>. An artifact id of <code>*</code> matches any artifact
+ * of the group. A group id of <code>*</code> matches any group, and one ending in <code>.*</code> matches that
+ * group and the groups below it: <code>org.apache.*</code> matches <code>org.apache</code> and
+ * <code>org.apache.maven</code>, but not <code>org.apachefoo</code>. Other patterns never match.
+ *
+ * @version $Id$
+ */
+final class ArtifactPatterns
+{
+    private static final String WILDCARD = "*";
+
+    /**
+     * Map( String, Set( String ) ) from the group ids to the artifact ids matched exactly.
+     */
+    private final Map groups = new HashMap();
+
+    /**
+     * The root of the trie of the group id segments of the patterns matching groups below some group.
+     */
+    private Node prefixes;
+
+    ArtifactPatterns( List patterns )
+    {
+        for ( Iterator i = patterns.iterator(); i.hasNext(); )
+        {
+            Object pattern = i.next();
+
+            if ( pattern != null )
+            {
+                add( pattern.toString() );
+            }
+        }
+    }
+
+    private void add( String pattern )
+    {
+        int index = pattern.indexOf( ':' );
+
+        if ( index < 0 || pattern.indexOf( ':', index + 1 ) >= 0 )
+        {
+            return;
+        }
+
+        String groupId = pattern.substring( 0, index );
+        String artifactId = pattern.substring( index + 1 );
+
+        if ( WILDCARD.equals( groupId ) )
+        {
+            getNode( "" ).artifactIds.add( artifactId );
+        }
+        else if ( groupId.endsWith( ".*" ) )
+        {
+            getNode( groupId.substring( 0, groupId.length() - 2 ) ).artifactIds.add( artifactId );
+        }
+        else
+        {
+            Set artifactIds = (Set) groups.get( groupId );
+            if ( artifactIds == null )
+            {
+                artifactIds = new HashSet();
+                groups.put( groupId, artifactIds );
+            }
+            artifactIds.add( artifactId );
+        }
+    }
+
+    private Node getNode( String groupId )
+    {
+        if ( prefixes == null )
+        {
+            prefixes = new Node();
+        }
+
+        Node node = prefixes;
+
+        int start = 0;
+        while ( start < groupId.length() )
+        {
+            int end = groupId.indexOf( '.', start );
+            if ( end < 0 )
+            {
+                end = groupId.length();
+            }
+
+            String segment = groupId.substring( start, end );
+
+            Node child = (Node) node.children.get( segment );
+            if ( child == null )
+            {
+                child = new Node();
+                node.children.put( segment, child );
+            }
+            node = child;
+
+            start = end + 1;
+        }
+
+        return node;
+    }
+
+    boolean matches( String groupId, String artifactId )
+    {
+        if ( matches( (Set) groups.get( groupId ), artifactId ) )
+        {
+            return true;
+        }
+
+        Node node = prefixes;
+
+        if ( node == null || groupId == null )
+        {
+            return false;
+        }
+
+        int start = 0;
+        while ( true )
+        {
+            if ( matches( node.artifactIds, artifactId ) )
+            {
+                return true;
+            }
+
+            if ( start > groupId.length() || node.children.isEmpty() )
+            {
+                return false;
+            }
+
+            int end = groupId.indexOf( '.', start );
+            if ( end < 0 )
+            {
+                end = groupId.length();
+            }
+
+            node = (Node) node.children.get( groupId.substring( start, end ) );
+
+            if ( node == null )
+            {
+                return false;
+            }
+
+            start = end + 1;
+        }
+    }
+
+    private static boolean matches( Set artifactIds, String artifactId )
+    {
+        return artifactIds != null && !artifactIds.isEmpty() &&
+            ( artifactIds.contains( artifactId ) || artifactIds.contains( WILDCARD ) );
+    }
+
+    private static final class Node
+    {
+        private final Map children = new HashMap();
+
+        private final Set artifactIds = new HashSet();
+    }
+}
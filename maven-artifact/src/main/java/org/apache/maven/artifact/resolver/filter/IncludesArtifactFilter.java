@@ -21,11 +21,14 @@ package org.apache.maven.artifact.resolver.filter;
 
 import org.apache.maven.artifact.Artifact;
 
-import java.util.Iterator;
 import java.util.List;
 
 /**
- * Filter to include from a list of artifact patterns.
+ * Filter to include from a list of artifact patterns, of the form <code>groupId:artifactId</code>. The artifact id
+ * may be <code>*</code> to match any artifact of the group, and the group id may be <code>*</code> to match any
+ * group, or end in <code>.*</code> to match that group and the groups below it.
+ * <p/>
+ * The patterns are compiled on construction, and later changes to the list aren't seen.
  *
  * @author <a href="mailto:brett@apache.org">Brett Porter</a>
  * @version $Id$
@@ -35,24 +38,40 @@ public class IncludesArtifactFilter
 {
     private final List patterns;
 
+    private final ArtifactPatterns compiledPatterns;
+
     public IncludesArtifactFilter( List patterns )
     {
         this.patterns = patterns;
+        this.compiledPatterns = new ArtifactPatterns( patterns );
     }
 
     public boolean include( Artifact artifact )
     {
-        String id = artifact.getGroupId() + ":" + artifact.getArtifactId();
+        // TODO: versions?
+        return compiledPatterns.matches( artifact.getGroupId(), artifact.getArtifactId() );
+    }
+
+    List getPatterns()
+    {
+        return patterns;
+    }
 
-        boolean matched = false;
-        for ( Iterator i = patterns.iterator(); i.hasNext() & !matched; )
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
         {
-            // TODO: what about wildcards? Just specifying groups? versions?
-            if ( id.equals( i.next() ) )
-            {
-                matched = true;
-            }
+            return true;
         }
-        return matched;
+        if ( obj == null || obj.getClass() != getClass() )
+        {
+            return false;
+        }
+        return patterns.equals( ( (IncludesArtifactFilter) obj ).patterns );
+    }
+
+    public int hashCode()
+    {
+        return getClass().hashCode() * 31 + patterns.hashCode();
     }
 }
@@ -19,10 +19,15 @@ package org.apache.maven.artifact.versioning;
  * under the License.
  */
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 /**
  * Default implementation of artifact versioning.
+ * <p/>
+ * The same version strings are parsed over and over while resolving, so the outcome of parsing is cached and
+ * copied into new instances.
  *
  * @author <a href="mailto:brett@apache.org">Brett Porter</a>
  * @version $Id$
@@ -30,39 +35,71 @@ import java.util.StringTokenizer;
 public class DefaultArtifactVersion
     implements ArtifactVersion
 {
-    private Integer majorVersion;
+    private static final int MAX_PARSED_VERSIONS = 10000;
 
-    private Integer minorVersion;
+    /**
+     * Map( String, DefaultArtifactVersion ) from version strings to their parsed form, which is never handed out.
+     */
+    private static final Map PARSED_VERSIONS = new LinkedHashMap( 16, 0.75f, true )
+    {
+        protected boolean removeEldestEntry( Map.Entry eldest )
+        {
+            return size() > MAX_PARSED_VERSIONS;
+        }
+    };
+
+    private static final int MAJOR = 1;
+
+    private static final int MINOR = 2;
+
+    private static final int INCREMENTAL = 4;
+
+    private static final int BUILD = 8;
+
+    /**
+     * Which of the numeric components are part of the version: an absent one compares as 0, but isn't printed.
+     */
+    private int components;
+
+    private int majorVersion;
+
+    private int minorVersion;
 
-    private Integer incrementalVersion;
+    private int incrementalVersion;
 
-    private Integer buildNumber;
+    private int buildNumber;
 
     private String qualifier;
 
+    private String string;
+
     public DefaultArtifactVersion( String version )
     {
         parseVersion( version );
     }
 
+    private DefaultArtifactVersion()
+    {
+    }
+
     public int compareTo( Object o )
     {
         DefaultArtifactVersion otherVersion = (DefaultArtifactVersion) o;
 
-        int result = compareIntegers( majorVersion, otherVersion.majorVersion );
+        int result = compareInts( majorVersion, otherVersion.majorVersion );
         if ( result == 0 )
         {
-            result = compareIntegers( minorVersion, otherVersion.minorVersion );
+            result = compareInts( minorVersion, otherVersion.minorVersion );
         }
         if ( result == 0 )
         {
-            result = compareIntegers( incrementalVersion, otherVersion.incrementalVersion );
+            result = compareInts( incrementalVersion, otherVersion.incrementalVersion );
         }
         if ( result == 0 )
         {
-            if ( buildNumber != null || otherVersion.buildNumber != null )
+            if ( ( ( components | otherVersion.components ) & BUILD ) != 0 )
             {
-                result = compareIntegers( buildNumber, otherVersion.buildNumber );
+                result = compareInts( buildNumber, otherVersion.buildNumber );
             }
             else if ( qualifier != null )
             {
@@ -100,45 +137,30 @@ public class DefaultArtifactVersion
         return result;
     }
 
-    private int compareIntegers( Integer i1, Integer i2 )
+    private static int compareInts( int i1, int i2 )
     {
-        // treat null as 0 in comparison
-        if ( i1 == null ? i2 == null : i1.equals( i2 ) )
-        {
-            return 0;
-        }
-        else if ( i1 == null )
-        {
-            return -i2.intValue();
-        }
-        else if ( i2 == null )
-        {
-            return i1.intValue();
-        }
-        else
-        {
-            return i1.intValue() - i2.intValue();
-        }
+        // absent components are 0, so they compare as such
+        return i1 < i2 ? -1 : ( i1 == i2 ? 0 : 1 );
     }
 
     public int getMajorVersion()
     {
-        return majorVersion != null ? majorVersion.intValue() : 0;
+        return majorVersion;
     }
 
     public int getMinorVersion()
     {
-        return minorVersion != null ? minorVersion.intValue() : 0;
+        return minorVersion;
     }
 
     public int getIncrementalVersion()
     {
-        return incrementalVersion != null ? incrementalVersion.intValue() : 0;
+        return incrementalVersion;
     }
 
     public int getBuildNumber()
     {
-        return buildNumber != null ? buildNumber.intValue() : 0;
+        return buildNumber;
     }
 
     public String getQualifier()
@@ -147,6 +169,35 @@ public class DefaultArtifactVersion
     }
 
     public final void parseVersion( String version )
+    {
+        DefaultArtifactVersion parsed;
+        synchronized ( PARSED_VERSIONS )
+        {
+            parsed = (DefaultArtifactVersion) PARSED_VERSIONS.get( version );
+        }
+
+        if ( parsed == null )
+        {
+            parsed = new DefaultArtifactVersion();
+            parsed.parse( version );
+            parsed.string = parsed.buildString();
+
+            synchronized ( PARSED_VERSIONS )
+            {
+                PARSED_VERSIONS.put( version, parsed );
+            }
+        }
+
+        components = parsed.components;
+        majorVersion = parsed.majorVersion;
+        minorVersion = parsed.minorVersion;
+        incrementalVersion = parsed.incrementalVersion;
+        buildNumber = parsed.buildNumber;
+        qualifier = parsed.qualifier;
+        string = parsed.string;
+    }
+
+    private void parse( String version )
     {
         int index = version.indexOf( "-" );
 
@@ -169,7 +220,8 @@ public class DefaultArtifactVersion
             {
                 if ( part2.length() == 1 || !part2.startsWith( "0" ) )
                 {
-                    buildNumber = Integer.valueOf( part2 );
+                    buildNumber = Integer.parseInt( part2 );
+                    components |= BUILD;
                 }
                 else
                 {
@@ -186,13 +238,15 @@ public class DefaultArtifactVersion
         {
             try
             {
-                majorVersion = Integer.valueOf( part1 );
+                majorVersion = Integer.parseInt( part1 );
+                components |= MAJOR;
             }
             catch ( NumberFormatException e )
             {
                 // qualifier is the whole version, including "-"
                 qualifier = version;
-                buildNumber = null;
+                buildNumber = 0;
+                components &= ~BUILD;
             }
         }
         else
@@ -202,13 +256,16 @@ public class DefaultArtifactVersion
             try
             {
                 majorVersion = getNextIntegerToken( tok );
+                components |= MAJOR;
                 if ( tok.hasMoreTokens() )
                 {
                     minorVersion = getNextIntegerToken( tok );
+                    components |= MINOR;
                 }
                 if ( tok.hasMoreTokens() )
                 {
                     incrementalVersion = getNextIntegerToken( tok );
+                    components |= INCREMENTAL;
                 }
                 if ( tok.hasMoreTokens() )
                 {
@@ -224,42 +281,48 @@ public class DefaultArtifactVersion
             {
                 // qualifier is the whole version, including "-"
                 qualifier = version;
-                majorVersion = null;
-                minorVersion = null;
-                incrementalVersion = null;
-                buildNumber = null;
+                majorVersion = 0;
+                minorVersion = 0;
+                incrementalVersion = 0;
+                buildNumber = 0;
+                components = 0;
             }
         }
     }
 
-    private static Integer getNextIntegerToken( StringTokenizer tok )
+    private static int getNextIntegerToken( StringTokenizer tok )
     {
         String s = tok.nextToken();
         if ( s.length() > 1 && s.startsWith( "0" ) )
         {
             throw new NumberFormatException( "Number part has a leading 0: '" + s + "'" );
         }
-        return Integer.valueOf( s );
+        return Integer.parseInt( s );
     }
 
     public String toString()
+    {
+        return string;
+    }
+
+    private String buildString()
     {
         StringBuffer buf = new StringBuffer();
-        if ( majorVersion != null )
+        if ( ( components & MAJOR ) != 0 )
         {
             buf.append( majorVersion );
         }
-        if ( minorVersion != null )
+        if ( ( components & MINOR ) != 0 )
         {
             buf.append( "." );
             buf.append( minorVersion );
         }
-        if ( incrementalVersion != null )
+        if ( ( components & INCREMENTAL ) != 0 )
         {
             buf.append( "." );
             buf.append( incrementalVersion );
         }
-        if ( buildNumber != null )
+        if ( ( components & BUILD ) != 0 )
         {
             buf.append( "-" );
             buf.append( buildNumber );
@@ -0,0 +1,100 @@
+package org.apache.maven.artifact.versioning;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of {@link ArtifactVersion}s, normally in ascending order, which
+ * {@link VersionRange#matchVersion(List)} searches by bisecting it rather than by comparing all the versions.
+ * Versions comparing as equal keep the order they were given in.
+ * <p/>
+ * Bisecting relies on the versions being totally ordered, which {@link DefaultArtifactVersion#compareTo(Object)} is
+ * not: <code>1-0</code> equals both <code>1-alpha</code> and <code>1</code>, while <code>1-alpha</code> is less
+ * than <code>1</code>. When different versions compare as equal, the versions are therefore kept in the order
+ * they were given in and searched linearly, matching what they would have matched unsorted.
+ *
+ * @version $Id$
+ */
+public class SortedVersionList
+    extends AbstractList
+    implements RandomAccess
+{
+    private final Object[] versions;
+
+    private final boolean ordered;
+
+    /**
+     * @param versions the {@link ArtifactVersion}s to list, in any order
+     */
+    public SortedVersionList( Collection versions )
+    {
+        Object[] sorted = versions.toArray();
+
+        // a stable sort
+        Arrays.sort( sorted );
+
+        ordered = isStrictlyAscending( sorted );
+
+        this.versions = ordered ? sorted : versions.toArray();
+    }
+
+    /**
+     * Check that each version is either greater than the previous one or the same version: the versions are then
+     * consistently ordered, which they aren't when different versions compare as equal.
+     */
+    private static boolean isStrictlyAscending( Object[] versions )
+    {
+        for ( int i = 1; i < versions.length; i++ )
+        {
+            ArtifactVersion previous = (ArtifactVersion) versions[i - 1];
+            ArtifactVersion version = (ArtifactVersion) versions[i];
+
+            if ( version.compareTo( previous ) == 0 && !version.toString().equals( previous.toString() ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the versions are consistently ordered and listed in ascending order, so that the list can be
+     *         bisected
+     */
+    boolean isOrdered()
+    {
+        return ordered;
+    }
+
+    public Object get( int index )
+    {
+        return versions[index];
+    }
+
+    public int size()
+    {
+        return versions.length;
+    }
+}
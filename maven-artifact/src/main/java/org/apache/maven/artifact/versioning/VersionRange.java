@@ -43,17 +43,33 @@ import org.apache.maven.artifact.Artifact;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Construct a version range from a specification.
+ * <p/>
+ * Ranges are immutable, so those created from the same specification are shared.
  *
  * @author <a href="mailto:brett@apache.org">Brett Porter</a>
  * @version $Id$
  */
 public class VersionRange
 {
-    private final ArtifactVersion RELEASE = new DefaultArtifactVersion( "RELEASE" );
+    private static final ArtifactVersion RELEASE = new DefaultArtifactVersion( "RELEASE" );
+
+    private static final int MAX_CACHED_RANGES = 5000;
+
+    /**
+     * Map( String, VersionRange ) from version specifications to the ranges created from them.
+     */
+    private static final Map SPEC_RANGES = createCache();
+
+    /**
+     * Map( String, VersionRange ) from versions to the ranges created from them.
+     */
+    private static final Map VERSION_RANGES = createCache();
 
     private final ArtifactVersion recommendedVersion;
 
@@ -116,6 +132,21 @@ public class VersionRange
             return null;
         }
 
+        VersionRange range = getCachedRange( SPEC_RANGES, spec );
+
+        if ( range == null )
+        {
+            range = parseVersionSpec( spec );
+
+            cacheRange( SPEC_RANGES, spec, range );
+        }
+
+        return range;
+    }
+
+    private static VersionRange parseVersionSpec( String spec )
+        throws InvalidVersionSpecificationException
+    {
         List restrictions = new ArrayList();
         String process = spec;
         ArtifactVersion version = null;
@@ -178,7 +209,7 @@ public class VersionRange
             }
         }
 
-        return new VersionRange( version, restrictions );
+        return new VersionRange( version, Collections.unmodifiableList( restrictions ) );
     }
 
     private static Restriction parseRestriction( String spec )
@@ -237,7 +268,43 @@ public class VersionRange
 
     public static VersionRange createFromVersion( String version )
     {
-        return new VersionRange( new DefaultArtifactVersion( version ), Collections.EMPTY_LIST );
+        VersionRange range = getCachedRange( VERSION_RANGES, version );
+
+        if ( range == null )
+        {
+            range = new VersionRange( new DefaultArtifactVersion( version ), Collections.EMPTY_LIST );
+
+            cacheRange( VERSION_RANGES, version, range );
+        }
+
+        return range;
+    }
+
+    private static Map createCache()
+    {
+        return new LinkedHashMap( 16, 0.75f, true )
+        {
+            protected boolean removeEldestEntry( Map.Entry eldest )
+            {
+                return size() > MAX_CACHED_RANGES;
+            }
+        };
+    }
+
+    private static VersionRange getCachedRange( Map cache, String key )
+    {
+        synchronized ( cache )
+        {
+            return (VersionRange) cache.get( key );
+        }
+    }
+
+    private static void cacheRange( Map cache, String key, VersionRange range )
+    {
+        synchronized ( cache )
+        {
+            cache.put( key, range );
+        }
     }
 
     public VersionRange restrict( VersionRange restriction )
@@ -531,7 +598,10 @@ public class VersionRange
 
     public ArtifactVersion matchVersion( List versions )
     {
-        // TODO: could be more efficient by sorting the list and then moving along the restrictions in order?
+        if ( versions instanceof SortedVersionList && ( (SortedVersionList) versions ).isOrdered() )
+        {
+            return matchSortedVersion( versions );
+        }
 
         ArtifactVersion matched = null;
         for ( Iterator i = versions.iterator(); i.hasNext(); )
@@ -549,6 +619,74 @@ public class VersionRange
         return matched;
     }
 
+    /**
+     * Find the greatest version in the sorted list matching this range, going down the restrictions from the highest
+     * one and looking up the greatest version below its upper bound in the list, rather than comparing all of them.
+     */
+    private ArtifactVersion matchSortedVersion( List versions )
+    {
+        for ( int r = restrictions.size() - 1; r >= 0; r-- )
+        {
+            Restriction restriction = (Restriction) restrictions.get( r );
+
+            int index = versions.size() - 1;
+
+            ArtifactVersion upperBound = restriction.getUpperBound();
+            if ( upperBound != null )
+            {
+                // the last version not above the upper bound
+                int low = 0;
+                int high = index;
+                index = -1;
+                while ( low <= high )
+                {
+                    int mid = ( low + high ) >>> 1;
+                    if ( ( (ArtifactVersion) versions.get( mid ) ).compareTo( upperBound ) <= 0 )
+                    {
+                        index = mid;
+                        low = mid + 1;
+                    }
+                    else
+                    {
+                        high = mid - 1;
+                    }
+                }
+            }
+
+            if ( index >= 0 )
+            {
+                ArtifactVersion version = (ArtifactVersion) versions.get( index );
+
+                if ( !restriction.containsVersion( version ) )
+                {
+                    // excluded upper bound: go below it
+                    while ( index >= 0 && ( (ArtifactVersion) versions.get( index ) ).compareTo( version ) == 0 )
+                    {
+                        index--;
+                    }
+                }
+
+                if ( index >= 0 )
+                {
+                    // of equal versions, the first one listed is the one picked when matching an unsorted list
+                    while ( index > 0 &&
+                        ( (ArtifactVersion) versions.get( index - 1 ) ).compareTo( versions.get( index ) ) == 0 )
+                    {
+                        index--;
+                    }
+
+                    version = (ArtifactVersion) versions.get( index );
+
+                    if ( restriction.containsVersion( version ) )
+                    {
+                        return version;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
     public boolean containsVersion( ArtifactVersion version )
     {
         boolean matched = false;
@@ -0,0 +1,65 @@
+package org.apache.maven.artifact;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.handler.ArtifactHandlerMock;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+/**
+ * @version $Id$
+ */
+public class ArtifactKeyTest
+    extends TestCase
+{
+    public void testKeysAreInterned()
+    {
+        ArtifactKey key = ArtifactKey.get( "g", "a", "jar", null, "1.0" );
+
+        assertSame( key, ArtifactKey.get( new String( "g" ), "a", "jar", null, new String( "1.0" ) ) );
+        assertSame( key.toString(), ArtifactKey.get( "g", "a", "jar", null, "1.0" ).toString() );
+        assertNotSame( key, ArtifactKey.get( "g", "a", "jar", "sources", "1.0" ) );
+    }
+
+    public void testStringForms()
+    {
+        assertEquals( "g:a", ArtifactKey.get( "g", "a" ).toString() );
+        assertEquals( "g:a:jar:sources", ArtifactKey.get( "g", "a", "jar", "sources", null ).toString() );
+        assertEquals( "g:a:jar:1.0", ArtifactKey.get( "g", "a", "jar", null, "1.0" ).toString() );
+        assertEquals( "g:a:1.0", ArtifactKey.get( "g", "a", null, null, "1.0" ).toString() );
+    }
+
+    public void testArtifactKeysFollowChanges()
+    {
+        DefaultArtifact artifact = new DefaultArtifact( "g", "a", VersionRange.createFromVersion( "1.0" ),
+                                                        Artifact.SCOPE_COMPILE, "jar", null,
+                                                        new ArtifactHandlerMock() );
+
+        assertEquals( "g:a:jar", artifact.getDependencyConflictId() );
+        assertEquals( "g:a:jar:1.0", artifact.getId() );
+        assertSame( artifact.getId(), artifact.getId() );
+
+        artifact.setVersion( "2.0" );
+        artifact.setGroupId( "h" );
+
+        assertEquals( "h:a:jar", artifact.getDependencyConflictId() );
+        assertEquals( "h:a:jar:2.0", artifact.getId() );
+    }
+}
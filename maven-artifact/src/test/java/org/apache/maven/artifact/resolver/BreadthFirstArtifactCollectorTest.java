@@ -0,0 +1,56 @@
+package org.apache.maven.artifact.resolver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+
+import java.util.Arrays;
+
+/**
+ * Run the collector tests against the breadth-first collector, which must give the same results.
+ *
+ * @version $Id$
+ */
+public class BreadthFirstArtifactCollectorTest
+    extends DefaultArtifactCollectorTest
+{
+    protected ArtifactCollector createArtifactCollector()
+    {
+        return new BreadthFirstArtifactCollector();
+    }
+
+    public void testOmittedDependenciesAreNotExpanded()
+        throws ArtifactResolutionException, InvalidVersionSpecificationException
+    {
+        ArtifactSpec a = createArtifact( "a", "1.0" );
+        ArtifactSpec b = a.addDependency( "b", "1.0" );
+        ArtifactSpec c2 = b.addDependency( "c", "2.0" );
+        c2.addDependency( "d", "1.0" );
+
+        ArtifactSpec e = createArtifact( "e", "1.0" );
+        ArtifactSpec c1 = e.addDependency( "c", "1.0" );
+        c1.addDependency( "f", "1.0" );
+
+        collect( createSet( new Object[]{a.artifact, e.artifact} ) );
+
+        assertEquals( Arrays.asList( new String[]{"test:a:jar:1.0", "test:e:jar:1.0", "test:b:jar:1.0",
+            "test:c:jar:1.0", "test:f:jar:1.0"} ), getRetrievedArtifactIds() );
+    }
+}
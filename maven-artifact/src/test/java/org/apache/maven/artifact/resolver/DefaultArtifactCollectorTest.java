@@ -70,11 +70,16 @@ public class DefaultArtifactCollectorTest
 
         this.source = new Source();
         this.artifactFactory = (ArtifactFactory) lookup( ArtifactFactory.ROLE );
-        this.artifactCollector = new DefaultArtifactCollector();
+        this.artifactCollector = createArtifactCollector();
 
         this.projectArtifact = createArtifact( "project", "1.0", null );
     }
 
+    protected ArtifactCollector createArtifactCollector()
+    {
+        return new DefaultArtifactCollector();
+    }
+
     // works, but we don't fail on cycles presently
     public void disabledtestCircularDependencyNotIncludingCurrentProject()
         throws ArtifactResolutionException, InvalidVersionSpecificationException
@@ -663,7 +668,7 @@ public class DefaultArtifactCollectorTest
         return null;
     }
 
-    private ArtifactResolutionResult collect( Set artifacts )
+    ArtifactResolutionResult collect( Set artifacts )
         throws ArtifactResolutionException
     {
         return collect( artifacts, null );
@@ -698,7 +703,7 @@ public class DefaultArtifactCollectorTest
                                           managedVersions, null, null, source, null, Collections.EMPTY_LIST );
     }
 
-    private ArtifactSpec createArtifact( String id, String version )
+    ArtifactSpec createArtifact( String id, String version )
         throws InvalidVersionSpecificationException
     {
         return createArtifact( id, version, Artifact.SCOPE_COMPILE );
@@ -733,14 +738,14 @@ public class DefaultArtifactCollectorTest
         return spec;
     }
 
-    private static Set createSet( Object[] x )
+    static Set createSet( Object[] x )
     {
         return new LinkedHashSet( Arrays.asList( x ) );
     }
 
-    private class ArtifactSpec
+    class ArtifactSpec
     {
-        private Artifact artifact;
+        Artifact artifact;
 
         private Set dependencies = new HashSet();
 
@@ -780,6 +785,14 @@ public class DefaultArtifactCollectorTest
         }
     }
 
+    /**
+     * @return List( String ) with the ids of the artifacts whose metadata was retrieved, in order
+     */
+    List getRetrievedArtifactIds()
+    {
+        return source.retrieved;
+    }
+
     private class Source
         implements ArtifactMetadataSource
     {
@@ -787,10 +800,15 @@ public class DefaultArtifactCollectorTest
 
         private Map versions = new HashMap();
 
+        // the concurrent collector retrieves from its prefetching threads
+        private List retrieved = Collections.synchronizedList( new ArrayList() );
+
         public ResolutionGroup retrieve( Artifact artifact, ArtifactRepository localRepository,
                                          List remoteRepositories )
             throws ArtifactMetadataRetrievalException
         {
+            retrieved.add( artifact.getId() );
+
             String key = getKey( artifact );
 
             ArtifactSpec a = (ArtifactSpec) artifacts.get( key );
@@ -0,0 +1,163 @@
+package org.apache.maven.artifact.resolver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.ArtifactHandlerMock;
+import org.apache.maven.artifact.metadata.ArtifactMetadataRetrievalException;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
+import org.apache.maven.artifact.metadata.ResolutionGroup;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.filter.ExcludesArtifactFilter;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @version $Id$
+ */
+public class ExpansionCacheTest
+    extends TestCase
+{
+    private int retrievals;
+
+    private ArtifactMetadataSource source = new ArtifactMetadataSource()
+    {
+        public ResolutionGroup retrieve( Artifact artifact, ArtifactRepository localRepository,
+                                         List remoteRepositories )
+        {
+            retrievals++;
+
+            return new ResolutionGroup( artifact, Collections.singleton( createArtifact( "child", "1.0" ) ),
+                                        Collections.EMPTY_LIST );
+        }
+
+        public List retrieveAvailableVersions( Artifact artifact, ArtifactRepository localRepository,
+                                               List remoteRepositories )
+        {
+            return Collections.EMPTY_LIST;
+        }
+    };
+
+    public void testExpansionIsRetrievedOnceAndCopied()
+        throws Exception
+    {
+        ArtifactMetadataSource cached = new ExpansionCache( 10, false ).wrap( source );
+
+        Artifact first = (Artifact) cached.retrieve( createArtifact( "a", "1.0" ), null, null ).getArtifacts()
+            .iterator().next();
+        Artifact second = (Artifact) cached.retrieve( createArtifact( "a", "1.0" ), null, null ).getArtifacts()
+            .iterator().next();
+
+        assertEquals( 1, retrievals );
+        assertNotSame( first, second );
+        assertEquals( first, second );
+
+        first.setVersion( "2.0" );
+        Artifact third = (Artifact) cached.retrieve( createArtifact( "a", "1.0" ), null, null ).getArtifacts()
+            .iterator().next();
+        assertEquals( "1.0", third.getVersion() );
+    }
+
+    public void testKeyCoversVersionScopeAndExclusions()
+        throws Exception
+    {
+        ArtifactMetadataSource cached = new ExpansionCache( 10, false ).wrap( source );
+
+        cached.retrieve( createArtifact( "a", "1.0" ), null, null );
+        cached.retrieve( createArtifact( "a", "2.0" ), null, null );
+        assertEquals( 2, retrievals );
+
+        Artifact runtime = createArtifact( "a", "1.0" );
+        runtime.setScope( Artifact.SCOPE_RUNTIME );
+        cached.retrieve( runtime, null, null );
+        assertEquals( 3, retrievals );
+
+        Artifact excluding = createArtifact( "a", "1.0" );
+        excluding.setDependencyFilter( new ExcludesArtifactFilter( Collections.singletonList( "g:child" ) ) );
+        cached.retrieve( excluding, null, null );
+        assertEquals( 4, retrievals );
+
+        excluding = createArtifact( "a", "1.0" );
+        excluding.setDependencyFilter( new ExcludesArtifactFilter( Collections.singletonList( "g:child" ) ) );
+        cached.retrieve( excluding, null, null );
+        assertEquals( 4, retrievals );
+    }
+
+    public void testSharedCacheSkipsSnapshots()
+        throws Exception
+    {
+        ArtifactMetadataSource cached = new ExpansionCache( 10, true ).wrap( source );
+
+        cached.retrieve( createArtifact( "a", "1.0-SNAPSHOT" ), null, null );
+        cached.retrieve( createArtifact( "a", "1.0-SNAPSHOT" ), null, null );
+
+        assertEquals( 2, retrievals );
+    }
+
+    public void testRangeDependenciesAreCopied()
+        throws Exception
+    {
+        ArtifactMetadataSource rangeSource = new ArtifactMetadataSource()
+        {
+            public ResolutionGroup retrieve( Artifact artifact, ArtifactRepository localRepository,
+                                             List remoteRepositories )
+                throws ArtifactMetadataRetrievalException
+            {
+                try
+                {
+                    Artifact child = new DefaultArtifact( "g", "child", VersionRange.createFromVersionSpec(
+                        "[1.0,2.0)" ), Artifact.SCOPE_COMPILE, "jar", null, new ArtifactHandlerMock() );
+
+                    return new ResolutionGroup( artifact, Collections.singleton( child ), Collections.EMPTY_LIST );
+                }
+                catch ( InvalidVersionSpecificationException e )
+                {
+                    throw new ArtifactMetadataRetrievalException( e.getMessage(), e );
+                }
+            }
+
+            public List retrieveAvailableVersions( Artifact artifact, ArtifactRepository localRepository,
+                                                   List remoteRepositories )
+            {
+                return Collections.EMPTY_LIST;
+            }
+        };
+
+        ArtifactMetadataSource cached = new ExpansionCache( 10, false ).wrap( rangeSource );
+
+        cached.retrieve( createArtifact( "a", "1.0" ), null, null );
+        Artifact child = (Artifact) cached.retrieve( createArtifact( "a", "1.0" ), null, null ).getArtifacts()
+            .iterator().next();
+
+        assertNull( child.getVersion() );
+        assertEquals( "[1.0,2.0)", child.getVersionRange().toString() );
+    }
+
+    private static Artifact createArtifact( String artifactId, String version )
+    {
+        return new DefaultArtifact( "g", artifactId, VersionRange.createFromVersion( version ), Artifact.SCOPE_COMPILE,
+                                    "jar", null, new ArtifactHandlerMock() );
+    }
+}
@@ -0,0 +1,76 @@
+package org.apache.maven.artifact.resolver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.ArtifactHandlerMock;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @version $Id$
+ */
+public class ResolutionNodeTest
+    extends TestCase
+{
+    private static final int DEPTH = 2000;
+
+    public void testTrailAndCyclesOfDeepGraph()
+        throws Exception
+    {
+        ResolutionNode node = new ResolutionNode( createArtifact( "root" ), Collections.EMPTY_LIST );
+
+        for ( int i = 0; i < DEPTH; i++ )
+        {
+            node.addDependencies( Collections.singleton( createArtifact( "a" + i ) ), Collections.EMPTY_LIST, null );
+            node = (ResolutionNode) node.getChildrenIterator().next();
+        }
+
+        assertEquals( DEPTH, node.getDepth() );
+
+        List trail = node.getDependencyTrail();
+        assertEquals( DEPTH + 1, trail.size() );
+        assertEquals( "g:root:jar:1.0", trail.get( 0 ) );
+        assertEquals( "g:a0:jar:1.0", trail.get( 1 ) );
+        assertEquals( "g:a" + ( DEPTH - 1 ) + ":jar:1.0", trail.get( DEPTH ) );
+
+        node.addDependencies( Collections.singleton( createArtifact( "other" ) ), Collections.EMPTY_LIST, null );
+
+        try
+        {
+            node.addDependencies( Collections.singleton( createArtifact( "a7" ) ), Collections.EMPTY_LIST, null );
+            fail( "Should have detected the cycle" );
+        }
+        catch ( CyclicDependencyException expected )
+        {
+            assertEquals( DEPTH + 1, expected.getArtifact().getDependencyTrail().size() );
+        }
+    }
+
+    private static Artifact createArtifact( String artifactId )
+    {
+        return new DefaultArtifact( "g", artifactId, VersionRange.createFromVersion( "1.0" ), Artifact.SCOPE_COMPILE,
+                                    "jar", null, new ArtifactHandlerMock() );
+    }
+}
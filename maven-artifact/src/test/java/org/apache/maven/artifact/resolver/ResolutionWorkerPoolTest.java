@@ -0,0 +1,63 @@
+package org.apache.maven.artifact.resolver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Id$
+ */
+public class ResolutionWorkerPoolTest
+    extends TestCase
+{
+    public void testWorkerSurvivesErrors()
+    {
+        final Error error = new NoClassDefFoundError( "test" );
+
+        ResolutionWorkerPool pool = new ResolutionWorkerPool( "test", 1 );
+
+        ResolutionWorkerPool.Task failed = pool.submit( new Runnable()
+        {
+            public void run()
+            {
+                throw error;
+            }
+        } );
+
+        final boolean[] ran = new boolean[1];
+
+        ResolutionWorkerPool.Task next = pool.submit( new Runnable()
+        {
+            public void run()
+            {
+                ran[0] = true;
+            }
+        } );
+
+        pool.shutdown();
+
+        failed.await();
+        next.await();
+
+        assertSame( error, failed.getError() );
+        assertNull( next.getError() );
+        assertTrue( ran[0] );
+    }
+}
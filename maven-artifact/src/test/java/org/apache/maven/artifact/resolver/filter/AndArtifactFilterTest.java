@@ -0,0 +1,55 @@
+package org.apache.maven.artifact.resolver.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @version $Id$
+ */
+public class AndArtifactFilterTest
+    extends TestCase
+{
+    public void testChainedExclusionsAreMerged()
+    {
+        ArtifactFilter scope = new ScopeArtifactFilter( "compile" );
+
+        AndArtifactFilter parent = new AndArtifactFilter();
+        parent.add( scope );
+        parent.add( new ExcludesArtifactFilter( Collections.singletonList( "g:a" ) ) );
+
+        AndArtifactFilter child = new AndArtifactFilter();
+        child.add( parent );
+        child.add( new ExcludesArtifactFilter( Collections.singletonList( "g:b" ) ) );
+
+        assertFalse( child.include( IncludesArtifactFilterTest.createArtifact( "g", "a" ) ) );
+        assertFalse( child.include( IncludesArtifactFilterTest.createArtifact( "g", "b" ) ) );
+        assertTrue( child.include( IncludesArtifactFilterTest.createArtifact( "g", "c" ) ) );
+
+        AndArtifactFilter expected = new AndArtifactFilter();
+        expected.add( scope );
+        expected.add( new ExcludesArtifactFilter( Arrays.asList( new String[]{"g:a", "g:b"} ) ) );
+
+        assertEquals( expected, child );
+    }
+}
@@ -0,0 +1,88 @@
+package org.apache.maven.artifact.resolver.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.ArtifactHandlerMock;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+import java.util.Arrays;
+
+/**
+ * @version $Id$
+ */
+public class IncludesArtifactFilterTest
+    extends TestCase
+{
+    public void testExactPatterns()
+    {
+        ArtifactFilter filter = new IncludesArtifactFilter( Arrays.asList( new String[]{"g:a", "g:b", "h:a"} ) );
+
+        assertTrue( filter.include( createArtifact( "g", "a" ) ) );
+        assertTrue( filter.include( createArtifact( "g", "b" ) ) );
+        assertTrue( filter.include( createArtifact( "h", "a" ) ) );
+        assertFalse( filter.include( createArtifact( "h", "b" ) ) );
+        assertFalse( filter.include( createArtifact( "g", "c" ) ) );
+    }
+
+    public void testWildcardPatterns()
+    {
+        ArtifactFilter filter = new IncludesArtifactFilter(
+            Arrays.asList( new String[]{"g:*", "org.apache.*:a", "org.codehaus.*:*", "*:b"} ) );
+
+        assertTrue( filter.include( createArtifact( "g", "c" ) ) );
+        assertFalse( filter.include( createArtifact( "g.h", "c" ) ) );
+
+        assertTrue( filter.include( createArtifact( "org.apache", "a" ) ) );
+        assertTrue( filter.include( createArtifact( "org.apache.maven", "a" ) ) );
+        assertFalse( filter.include( createArtifact( "org.apache.maven", "c" ) ) );
+        assertFalse( filter.include( createArtifact( "org.apachefoo", "a" ) ) );
+        assertFalse( filter.include( createArtifact( "org", "a" ) ) );
+
+        assertTrue( filter.include( createArtifact( "org.codehaus.plexus", "c" ) ) );
+
+        assertTrue( filter.include( createArtifact( "x", "b" ) ) );
+        assertFalse( filter.include( createArtifact( "x", "c" ) ) );
+    }
+
+    public void testInvalidPatternsNeverMatch()
+    {
+        ArtifactFilter filter = new IncludesArtifactFilter( Arrays.asList( new String[]{"g", "g:a:jar", null} ) );
+
+        assertFalse( filter.include( createArtifact( "g", "a" ) ) );
+    }
+
+    public void testExcludes()
+    {
+        ArtifactFilter filter = new ExcludesArtifactFilter( Arrays.asList( new String[]{"g:a", "h:*"} ) );
+
+        assertFalse( filter.include( createArtifact( "g", "a" ) ) );
+        assertFalse( filter.include( createArtifact( "h", "b" ) ) );
+        assertTrue( filter.include( createArtifact( "g", "b" ) ) );
+    }
+
+    static Artifact createArtifact( String groupId, String artifactId )
+    {
+        return new DefaultArtifact( groupId, artifactId, VersionRange.createFromVersion( "1.0" ),
+                                    Artifact.SCOPE_COMPILE, "jar", null, new ArtifactHandlerMock() );
+    }
+}
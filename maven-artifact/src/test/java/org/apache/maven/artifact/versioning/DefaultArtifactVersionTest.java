@@ -253,4 +253,22 @@ public class DefaultArtifactVersionTest
         version = new DefaultArtifactVersion( "2.0.1-xyz" );
         assertTrue( version.compareTo( new DefaultArtifactVersion( "2.0.1-123" ) ) < 0 );
     }
+
+    public void testParsedVersionsAreIndependent()
+    {
+        DefaultArtifactVersion version = new DefaultArtifactVersion( "1.2.3-4" );
+        DefaultArtifactVersion other = new DefaultArtifactVersion( "1.2.3-4" );
+
+        other.parseVersion( "2.0-alpha" );
+
+        assertEquals( "1.2.3-4", version.toString() );
+        assertEquals( 3, version.getIncrementalVersion() );
+        assertEquals( 4, version.getBuildNumber() );
+        assertEquals( "2.0-alpha", other.toString() );
+        assertEquals( 2, other.getMajorVersion() );
+        assertEquals( "alpha", other.getQualifier() );
+
+        assertEquals( "1.2.3-4", new DefaultArtifactVersion( "1.2.3-4" ).toString() );
+        assertEquals( "01.2", new DefaultArtifactVersion( "01.2" ).toString() );
+    }
 }
@@ -21,6 +21,7 @@ package org.apache.maven.artifact.versioning;
 
 import junit.framework.TestCase;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -624,6 +625,101 @@ public class VersionRangeTest
         assertEquals( CHECK_NUM_RESTRICTIONS, 0, restrictions.size() );
     }
 
+    public void testRangesAreShared()
+        throws InvalidVersionSpecificationException
+    {
+        assertSame( VersionRange.createFromVersionSpec( "[1.0,2.0)" ),
+                    VersionRange.createFromVersionSpec( "[1.0,2.0)" ) );
+        assertSame( VersionRange.createFromVersion( "1.0" ), VersionRange.createFromVersion( "1.0" ) );
+
+        try
+        {
+            VersionRange.createFromVersionSpec( "[1.0,2.0)" ).getRestrictions().clear();
+            fail( "Shared ranges should be immutable" );
+        }
+        catch ( UnsupportedOperationException expected )
+        {
+            // expected
+        }
+    }
+
+    public void testMatchSortedVersion()
+        throws InvalidVersionSpecificationException
+    {
+        List versions = new ArrayList();
+        String[] ids = {"2.0", "1.0", "1.5-SNAPSHOT", "1.1", "3.0", "1.0.0", "2.0.0", "1.5", "2.5-beta", "RELEASE"};
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            versions.add( new DefaultArtifactVersion( ids[i] ) );
+        }
+
+        List sorted = new SortedVersionList( versions );
+
+        String[] specs = {"[1.0,2.0)", "[1.0,2.0]", "(,1.0]", "(,1.0)", "[1.0]", "[1.2,1.4]", "[1.0,)", "(3.0,)",
+            "(,1.0),(1.1,2.0)", "[1.0,1.1],[2.0,2.5)", "[1.0,1.1),(1.1,2.0.0)", "(2.0,3.0)", "[0.1,0.9]"};
+        for ( int i = 0; i < specs.length; i++ )
+        {
+            VersionRange range = VersionRange.createFromVersionSpec( specs[i] );
+
+            ArtifactVersion expected = range.matchVersion( versions );
+
+            assertSame( specs[i], expected, range.matchVersion( sorted ) );
+        }
+
+        assertEquals( "1.0", VersionRange.createFromVersionSpec( "[1.0]" ).matchVersion( sorted ).toString() );
+        assertNull( VersionRange.createFromVersion( "1.0" ).matchVersion( sorted ) );
+    }
+
+    public void testMatchSortedVersionOfStrictlyOrderedVersions()
+        throws InvalidVersionSpecificationException
+    {
+        String[] ids = {"2.0", "1.0", "1.5-SNAPSHOT", "1.1", "3.0", "1.0", "1.5", "2.5-beta", "1.0-alpha-1", "1-1"};
+        List versions = createVersions( ids );
+
+        SortedVersionList sorted = new SortedVersionList( versions );
+        assertTrue( sorted.isOrdered() );
+
+        String[] specs = {"[1.0,2.0)", "[1.0,2.0]", "(,1.0]", "(,1.0)", "[1.0]", "[1.2,1.4]", "[1.0,)", "(3.0,)",
+            "(,1.0),(1.1,2.0)", "[1.0,1.1],[2.0,2.5)", "[1.0,1.1),(1.1,2.0)", "(2.0,3.0)", "[0.1,0.9]", "(,1.0-alpha-1]"};
+        assertSameMatches( specs, versions, sorted );
+    }
+
+    public void testMatchSortedVersionOfInconsistentlyOrderedVersions()
+        throws InvalidVersionSpecificationException
+    {
+        // 1-0 compares equal to both 1-alpha and 1, yet 1-alpha is less than 1
+        String[] ids = {"1-alpha", "1-0", "1", "1-beta", "1-1", "0.9", "1-alpha-1", "2"};
+        List versions = createVersions( ids );
+
+        SortedVersionList sorted = new SortedVersionList( versions );
+        assertFalse( sorted.isOrdered() );
+
+        String[] specs = {"(,1-alpha]", "(,1-alpha)", "[1-alpha,1)", "(,1]", "[1-0]", "(1-0,)", "[1-beta,1-1)",
+            "(,1-0),(1-0,2)", "[0.9,1-alpha-1]", "(1-1,)"};
+        assertSameMatches( specs, versions, sorted );
+    }
+
+    private static List createVersions( String[] ids )
+    {
+        List versions = new ArrayList();
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            versions.add( new DefaultArtifactVersion( ids[i] ) );
+        }
+        return versions;
+    }
+
+    private static void assertSameMatches( String[] specs, List versions, List sorted )
+        throws InvalidVersionSpecificationException
+    {
+        for ( int i = 0; i < specs.length; i++ )
+        {
+            VersionRange range = VersionRange.createFromVersionSpec( specs[i] );
+
+            assertSame( specs[i], range.matchVersion( versions ), range.matchVersion( sorted ) );
+        }
+    }
+
     private void checkInvalidRange( String version )
     {
         try
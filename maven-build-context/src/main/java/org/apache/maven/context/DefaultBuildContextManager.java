@@ -38,7 +38,20 @@ public class DefaultBuildContextManager
     protected static final String BUILD_CONTEXT_MAP_KEY = ROLE + ":" + ROLE_HINT + ":contextMap";
     
     // NOTE: this needs to be static so it can be found by new ctxMgr instances.
-    private static InheritableThreadLocal tl = new InheritableThreadLocal();
+    // Child threads (eg. parallel reactor builds) receive a copy of the parent's context map, so that
+    // they don't overwrite each other's data.
+    private static InheritableThreadLocal tl = new InheritableThreadLocal()
+    {
+        protected Object childValue( Object parentValue )
+        {
+            if ( parentValue == null )
+            {
+                return null;
+            }
+
+            return new HashMap( (Map) parentValue );
+        }
+    };
     
     public DefaultBuildContextManager()
     {
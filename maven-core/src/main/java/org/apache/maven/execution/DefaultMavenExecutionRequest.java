@@ -93,6 +93,8 @@ public class DefaultMavenExecutionRequest
     private String globalChecksumPolicy = CHECKSUM_POLICY_WARN;
 
     private boolean recursive = true;
+
+    private int reactorThreadCount = 1;
         
     private boolean updateSnapshots = false;
 
@@ -215,6 +217,11 @@ public class DefaultMavenExecutionRequest
         return recursive;
     }
 
+    public int getReactorThreadCount()
+    {
+        return reactorThreadCount;
+    }
+
     // ----------------------------------------------------------------------
     //
     // ----------------------------------------------------------------------
@@ -485,6 +492,13 @@ public class DefaultMavenExecutionRequest
         return this;
     }
 
+    public MavenExecutionRequest setReactorThreadCount( int threadCount )
+    {
+        this.reactorThreadCount = threadCount;
+
+        return this;
+    }
+
     private Settings settings;
 
     public MavenExecutionRequest setSettings( Settings settings )
@@ -102,6 +102,10 @@ public interface MavenExecutionRequest
     MavenExecutionRequest setRecursive( boolean recursive );
     boolean isRecursive();
 
+    // Number of threads used to build independent reactor projects concurrently
+    MavenExecutionRequest setReactorThreadCount( int threadCount );
+    int getReactorThreadCount();
+
     // Event monitors
     MavenExecutionRequest addEventMonitor( EventMonitor monitor );
     List getEventMonitors();
@@ -28,6 +28,7 @@ import org.apache.maven.project.ProjectSorter;
 import org.codehaus.plexus.util.dag.CycleDetectedException;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -61,7 +62,7 @@ public class ReactorManager
         this.failureBehavior = failureBehavior;
     }
 
-    public Map getPluginContext( PluginDescriptor plugin, MavenProject project )
+    public synchronized Map getPluginContext( PluginDescriptor plugin, MavenProject project )
     {
         Map pluginContextsByKey = (Map) pluginContextsByProjectAndPluginKey.get( project.getId() );
 
@@ -88,7 +89,7 @@ public class ReactorManager
         return failureBehavior;
     }
 
-    public void blackList( MavenProject project )
+    public synchronized void blackList( MavenProject project )
     {
         blackList( getProjectKey( project ) );
     }
@@ -117,27 +118,22 @@ public class ReactorManager
         }
     }
 
-    public boolean isBlackListed( MavenProject project )
+    public synchronized boolean isBlackListed( MavenProject project )
     {
         return blackList.contains( getProjectKey( project ) );
     }
 
-    private static String getProjectKey( MavenProject project )
-    {
-        return ArtifactUtils.versionlessKey( project.getGroupId(), project.getArtifactId() );
-    }
-
-    public void registerBuildFailure( MavenProject project, Exception error, String task, long time )
+    public synchronized void registerBuildFailure( MavenProject project, Exception error, String task, long time )
     {
         buildFailuresByProject.put( getProjectKey( project ), new BuildFailure( error, task, time ) );
     }
 
-    public boolean hasBuildFailures()
+    public synchronized boolean hasBuildFailures()
     {
         return !buildFailuresByProject.isEmpty();
     }
 
-    public boolean hasBuildFailure( MavenProject project )
+    public synchronized boolean hasBuildFailure( MavenProject project )
     {
         return buildFailuresByProject.containsKey( getProjectKey( project ) );
     }
@@ -157,27 +153,48 @@ public class ReactorManager
         return sorter.getTopLevelProject();
     }
 
-    public boolean hasBuildSuccess( MavenProject project )
+    /**
+     * Retrieve the keys (groupId:artifactId) of the reactor projects which must be built before the
+     * given project can start.
+     */
+    public List getUpstreamProjectKeys( MavenProject project )
+    {
+        List dependencies = sorter.getDependencies( getProjectKey( project ) );
+
+        if ( dependencies == null )
+        {
+            return Collections.EMPTY_LIST;
+        }
+
+        return dependencies;
+    }
+
+    public static String getProjectKey( MavenProject project )
+    {
+        return ArtifactUtils.versionlessKey( project.getGroupId(), project.getArtifactId() );
+    }
+
+    public synchronized boolean hasBuildSuccess( MavenProject project )
     {
         return buildSuccessesByProject.containsKey( getProjectKey( project ) );
     }
 
-    public void registerBuildSuccess( MavenProject project, long time )
+    public synchronized void registerBuildSuccess( MavenProject project, long time )
     {
         buildSuccessesByProject.put( getProjectKey( project ), new BuildSuccess( project, time ) );
     }
 
-    public BuildFailure getBuildFailure( MavenProject project )
+    public synchronized BuildFailure getBuildFailure( MavenProject project )
     {
         return (BuildFailure) buildFailuresByProject.get( getProjectKey( project ) );
     }
 
-    public BuildSuccess getBuildSuccess( MavenProject project )
+    public synchronized BuildSuccess getBuildSuccess( MavenProject project )
     {
         return (BuildSuccess) buildSuccessesByProject.get( getProjectKey( project ) );
     }
 
-    public boolean executedMultipleProjects()
+    public synchronized boolean executedMultipleProjects()
     {
         return buildFailuresByProject.size() + buildSuccessesByProject.size() > 1;
     }
@@ -37,6 +37,7 @@ import org.apache.maven.lifecycle.plan.BuildPlanner;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.monitor.event.EventDispatcher;
 import org.apache.maven.monitor.event.MavenEvents;
+import org.apache.maven.monitor.logging.ThreadBufferedLogger;
 import org.apache.maven.plugin.InvalidPluginException;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -55,6 +56,7 @@ import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.artifact.InvalidDependencyVersionException;
 import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
+import org.codehaus.plexus.logging.Logger;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 
 import java.util.ArrayList;
@@ -93,10 +95,19 @@ public class DefaultLifecycleExecutor
 
     private BuildContextManager buildContextManager;
 
+    // Plugin loading and build planning aren't thread-safe; when building the reactor in parallel,
+    // only the mojo executions themselves run concurrently.
+    private final Object planningLock = new Object();
+
     // ----------------------------------------------------------------------
     //
     // ----------------------------------------------------------------------
 
+    public void enableLogging( Logger logger )
+    {
+        super.enableLogging( new ThreadBufferedLogger( logger ) );
+    }
+
     /**
      * Execute a task. Each task may be a phase in the lifecycle or the
      * execution of a mojo.
@@ -222,66 +233,100 @@ public class DefaultLifecycleExecutor
             {
                 List sortedProjects = session.getSortedProjects();
 
-                // iterate over projects, and execute on each...
-                for ( Iterator projectIterator = sortedProjects.iterator(); projectIterator.hasNext(); )
+                int threadCount = session.getRequest() == null ? 1 : session.getRequest().getReactorThreadCount();
+
+                if ( threadCount > 1 && sortedProjects.size() > 1 )
                 {
-                    MavenProject currentProject = (MavenProject) projectIterator.next();
+                    getLogger().info( "Building " + sortedProjects.size() + " projects using " + threadCount
+                        + " threads." );
 
-                    if ( !rm.isBlackListed( currentProject ) )
-                    {
-                        line();
+                    final TaskSegment currentSegment = segment;
+                    final ReactorManager reactorManager = rm;
+                    final MavenSession currentSession = session;
+                    final EventDispatcher currentDispatcher = dispatcher;
 
-                        getLogger().info( "Building " + currentProject.getName() );
+                    ParallelReactorExecutor executor = new ParallelReactorExecutor( rm, threadCount );
 
-                        getLogger().info( "  " + segment );
+                    executor.execute( sortedProjects, new ParallelReactorExecutor.ProjectExecution()
+                    {
+                        public void execute( MavenProject project )
+                            throws LifecycleExecutionException, BuildFailureException
+                        {
+                            executeTaskSegmentForProject( currentSegment, project, reactorManager, currentSession,
+                                                          currentDispatcher );
+                        }
+                    } );
+                }
+                else
+                {
+                    // iterate over projects, and execute on each...
+                    for ( Iterator projectIterator = sortedProjects.iterator(); projectIterator.hasNext(); )
+                    {
+                        MavenProject currentProject = (MavenProject) projectIterator.next();
 
-                        line();
+                        executeTaskSegmentForProject( segment, currentProject, rm, session, dispatcher );
+                    }
+                }
+            }
+        }
+    }
 
-                        String target = currentProject.getId() + " ( " + segment + " )";
-                        
-                        // !! This is ripe for refactoring to an aspect.
-                        // Event monitoring.
-                        String event = MavenEvents.PROJECT_EXECUTION;
+    private void executeTaskSegmentForProject( TaskSegment segment, MavenProject currentProject, ReactorManager rm,
+                                               MavenSession session, EventDispatcher dispatcher )
+        throws LifecycleExecutionException, BuildFailureException
+    {
+        if ( !rm.isBlackListed( currentProject ) )
+        {
+            line();
 
-                        long buildStartTime = System.currentTimeMillis();
+            getLogger().info( "Building " + currentProject.getName() );
 
-                        dispatcher.dispatchStart( event, target );
-                        
-                        LifecycleExecutionContext ctx = new LifecycleExecutionContext( currentProject );
-                        ctx.store( buildContextManager );
+            getLogger().info( "  " + segment );
 
-                        List mojoBindings = getLifecycleBindings( segment.getTasks(), currentProject, target );
-                        
-                        for ( Iterator mojoIterator = mojoBindings.iterator(); mojoIterator.hasNext(); )
-                        {
-                            MojoBinding mojoBinding = (MojoBinding) mojoIterator.next();
+            line();
 
-                            getLogger().debug( "Mojo: " + mojoBinding.getGoal() + " has config:\n" + mojoBinding.getConfiguration() );
-                            executeGoalAndHandleFailures( mojoBinding, session, dispatcher, event, rm,
-                                                          buildStartTime, target );
-                        }
+            String target = currentProject.getId() + " ( " + segment + " )";
 
-                        LifecycleExecutionContext.delete( buildContextManager );
-                        
-                        rm.registerBuildSuccess( currentProject, System.currentTimeMillis() - buildStartTime );
+            // !! This is ripe for refactoring to an aspect.
+            // Event monitoring.
+            String event = MavenEvents.PROJECT_EXECUTION;
 
-                        dispatcher.dispatchEnd( event, target );
-                    }
-                    else
-                    {
-                        line();
+            long buildStartTime = System.currentTimeMillis();
 
-                        getLogger().info( "SKIPPING " + currentProject.getName() );
+            dispatcher.dispatchStart( event, target );
 
-                        getLogger().info( "  " + segment );
+            LifecycleExecutionContext ctx = new LifecycleExecutionContext( currentProject );
+            ctx.store( buildContextManager );
 
-                        getLogger().info(
-                            "This project has been banned from further executions due to previous failures." );
+            List mojoBindings = getLifecycleBindings( segment.getTasks(), currentProject, target );
 
-                        line();
-                    }
-                }
+            for ( Iterator mojoIterator = mojoBindings.iterator(); mojoIterator.hasNext(); )
+            {
+                MojoBinding mojoBinding = (MojoBinding) mojoIterator.next();
+
+                getLogger().debug( "Mojo: " + mojoBinding.getGoal() + " has config:\n" + mojoBinding.getConfiguration() );
+                executeGoalAndHandleFailures( mojoBinding, session, dispatcher, event, rm,
+                                              buildStartTime, target );
             }
+
+            LifecycleExecutionContext.delete( buildContextManager );
+
+            rm.registerBuildSuccess( currentProject, System.currentTimeMillis() - buildStartTime );
+
+            dispatcher.dispatchEnd( event, target );
+        }
+        else
+        {
+            line();
+
+            getLogger().info( "SKIPPING " + currentProject.getName() );
+
+            getLogger().info( "  " + segment );
+
+            getLogger().info(
+                "This project has been banned from further executions due to previous failures." );
+
+            line();
         }
     }
 
@@ -297,14 +342,17 @@ public class DefaultLifecycleExecutor
         List mojoBindings;
         try
         {
-            BuildPlan plan = buildPlanner.constructBuildPlan( tasks, project );
-            
-            if ( getLogger().isDebugEnabled() )
+            synchronized ( planningLock )
             {
-                getLogger().debug( "\n\nOur build plan is:\n" + BuildPlanUtils.listBuildPlan( plan, project, lifecycleBindingManager, false ) + "\n\n" );
+                BuildPlan plan = buildPlanner.constructBuildPlan( tasks, project );
+
+                if ( getLogger().isDebugEnabled() )
+                {
+                    getLogger().debug( "\n\nOur build plan is:\n" + BuildPlanUtils.listBuildPlan( plan, project, lifecycleBindingManager, false ) + "\n\n" );
+                }
+
+                mojoBindings = plan.getPlanMojoBindings( project, lifecycleBindingManager );
             }
-            
-            mojoBindings = plan.getPlanMojoBindings( project, lifecycleBindingManager );
         }
         catch ( LifecycleException e )
         {
@@ -332,7 +380,10 @@ public class DefaultLifecycleExecutor
             PluginDescriptor pluginDescriptor = null;
             try
             {
-                pluginDescriptor = pluginLoader.loadPlugin( mojoBinding, project );
+                synchronized ( planningLock )
+                {
+                    pluginDescriptor = pluginLoader.loadPlugin( mojoBinding, project );
+                }
             }
             catch ( PluginLoaderException e )
             {
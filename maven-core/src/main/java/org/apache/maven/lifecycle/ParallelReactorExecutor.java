@@ -0,0 +1,216 @@
+package org.apache.maven.lifecycle;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.BuildFailureException;
+import org.apache.maven.execution.ReactorManager;
+import org.apache.maven.monitor.logging.ThreadBufferedLogger;
+import org.apache.maven.project.MavenProject;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds the projects of a reactor on a fixed number of threads. A project is started as soon as
+ * all of the reactor projects it depends on (according to the {@link ReactorManager}'s project DAG)
+ * have finished, regardless of whether they succeeded, failed or were skipped; the
+ * {@link ProjectExecution} callback is responsible for honoring the blacklist. When an execution
+ * throws (fail-fast), no further projects are started, the ones already running are allowed to
+ * finish, and the first error is rethrown from {@link #execute(List, ProjectExecution)}.
+ * <p/>
+ * Console output produced by each project execution is buffered through {@link ThreadBufferedLogger}
+ * and written out in one block when the project is done.
+ *
+ * @version $Id$
+ */
+class ParallelReactorExecutor
+{
+
+    private final ReactorManager reactorManager;
+
+    private final int threadCount;
+
+    private final Object lock = new Object();
+
+    private final Set finished = new HashSet();
+
+    private int running;
+
+    private Throwable error;
+
+    ParallelReactorExecutor( ReactorManager reactorManager, int threadCount )
+    {
+        this.reactorManager = reactorManager;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Build the given projects, which must be in reactor order (dependencies first), using up to
+     * threadCount threads at once.
+     */
+    void execute( List sortedProjects, ProjectExecution execution )
+        throws LifecycleExecutionException, BuildFailureException
+    {
+        LinkedList pending = new LinkedList( sortedProjects );
+
+        int threadId = 0;
+
+        synchronized ( lock )
+        {
+            while ( running > 0 || ( error == null && !pending.isEmpty() ) )
+            {
+                MavenProject next = null;
+
+                if ( error == null && running < threadCount )
+                {
+                    next = nextRunnableProject( pending );
+
+                    // shouldn't happen with a sorted reactor, but never wait on nothing.
+                    if ( next == null && running == 0 )
+                    {
+                        next = (MavenProject) pending.removeFirst();
+                    }
+                }
+
+                if ( next != null )
+                {
+                    running++;
+
+                    Thread thread = new Thread( new ProjectRunner( next, execution ), "reactor-" + ( ++threadId ) );
+                    thread.start();
+                }
+                else
+                {
+                    try
+                    {
+                        lock.wait();
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        // keep waiting; running projects will still notify us when they finish.
+                    }
+                }
+            }
+        }
+
+        if ( error instanceof LifecycleExecutionException )
+        {
+            throw (LifecycleExecutionException) error;
+        }
+        else if ( error instanceof BuildFailureException )
+        {
+            throw (BuildFailureException) error;
+        }
+        else if ( error instanceof RuntimeException )
+        {
+            throw (RuntimeException) error;
+        }
+        else if ( error instanceof Error )
+        {
+            throw (Error) error;
+        }
+    }
+
+    /**
+     * Remove and return the first pending project whose upstream reactor projects have all finished,
+     * or null if there is no such project yet. Must be called while holding the lock.
+     */
+    private MavenProject nextRunnableProject( List pending )
+    {
+        for ( Iterator it = pending.iterator(); it.hasNext(); )
+        {
+            MavenProject project = (MavenProject) it.next();
+
+            if ( finished.containsAll( reactorManager.getUpstreamProjectKeys( project ) ) )
+            {
+                it.remove();
+
+                return project;
+            }
+        }
+
+        return null;
+    }
+
+    private void projectFinished( MavenProject project, Throwable failure )
+    {
+        synchronized ( lock )
+        {
+            finished.add( ReactorManager.getProjectKey( project ) );
+
+            running--;
+
+            if ( failure != null && error == null )
+            {
+                error = failure;
+            }
+
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Callback used to build a single project of the reactor.
+     */
+    interface ProjectExecution
+    {
+        void execute( MavenProject project )
+            throws LifecycleExecutionException, BuildFailureException;
+    }
+
+    private final class ProjectRunner
+        implements Runnable
+    {
+        private final MavenProject project;
+
+        private final ProjectExecution execution;
+
+        ProjectRunner( MavenProject project, ProjectExecution execution )
+        {
+            this.project = project;
+            this.execution = execution;
+        }
+
+        public void run()
+        {
+            Throwable failure = null;
+
+            ThreadBufferedLogger.beginBuffer();
+
+            try
+            {
+                execution.execute( project );
+            }
+            catch ( Throwable e )
+            {
+                failure = e;
+            }
+            finally
+            {
+                ThreadBufferedLogger.flushBuffer();
+
+                projectFinished( project, failure );
+            }
+        }
+    }
+}
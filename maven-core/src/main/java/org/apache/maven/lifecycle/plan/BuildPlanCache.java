@@ -0,0 +1,193 @@
+package org.apache.maven.lifecycle.plan;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.model.ReportPlugin;
+import org.apache.maven.model.ReportSet;
+import org.apache.maven.model.Reporting;
+import org.apache.maven.project.MavenProject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded cache of the build plans constructed by {@link DefaultBuildPlanner}. Projects sharing the
+ * same packaging, build plugins (including their versions, executions and configuration), plugin
+ * management and reporting get the same build plan for the same tasks, so in a reactor of similar
+ * modules the plan is only constructed once. Each caller gets its own copy of the cached plan.
+ */
+public class BuildPlanCache
+{
+
+    private final Map plans;
+
+    private int maxEntries;
+
+    private long hits;
+
+    private long misses;
+
+    public BuildPlanCache( int maxEntries )
+    {
+        this.maxEntries = maxEntries;
+
+        plans = new LinkedHashMap( 16, 0.75f, true )
+        {
+            protected boolean removeEldestEntry( Map.Entry eldest )
+            {
+                return size() > BuildPlanCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized void setMaxEntries( int maxEntries )
+    {
+        this.maxEntries = maxEntries;
+
+        for ( Iterator it = plans.keySet().iterator(); it.hasNext() && plans.size() > maxEntries; )
+        {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Retrieve a copy of the build plan cached for the given key, counting the hit or miss.
+     */
+    public synchronized BuildPlan get( String key )
+    {
+        LifecycleBuildPlan plan = (LifecycleBuildPlan) plans.get( key );
+
+        if ( plan == null )
+        {
+            misses++;
+
+            return null;
+        }
+
+        hits++;
+
+        return plan.copy();
+    }
+
+    /**
+     * Cache a copy of the build plan, so that later changes to it don't affect the cache.
+     */
+    public synchronized void put( String key, LifecycleBuildPlan plan )
+    {
+        plans.put( key, plan.copy() );
+    }
+
+    public synchronized void clear()
+    {
+        plans.clear();
+    }
+
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Return the fraction of the lookups which were served from the cache, between 0 and 1.
+     */
+    public synchronized double getHitRate()
+    {
+        long lookups = hits + misses;
+
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Construct the key of the build plan of the given project for the given tasks, from everything in
+     * the project that takes part in building the plan.
+     */
+    public static String createKey( List tasks, MavenProject project )
+    {
+        StringBuffer key = new StringBuffer( 1024 );
+
+        key.append( tasks ).append( '|' ).append( project.getPackaging() );
+
+        Build build = project.getBuild();
+        if ( build != null )
+        {
+            key.append( "|plugins:" );
+            appendPlugins( key, build.getPlugins() );
+
+            if ( build.getPluginManagement() != null )
+            {
+                key.append( "|pluginManagement:" );
+                appendPlugins( key, build.getPluginManagement().getPlugins() );
+            }
+        }
+
+        Reporting reporting = project.getReporting();
+        if ( reporting != null )
+        {
+            key.append( "|reporting:" ).append( reporting.isExcludeDefaults() );
+
+            for ( Iterator it = reporting.getPlugins().iterator(); it.hasNext(); )
+            {
+                ReportPlugin plugin = (ReportPlugin) it.next();
+
+                key.append( '[' ).append( plugin.getGroupId() ).append( ':' ).append( plugin.getArtifactId() );
+                key.append( ':' ).append( plugin.getVersion() ).append( ':' ).append( plugin.getInherited() );
+                key.append( ':' ).append( plugin.getConfiguration() );
+
+                for ( Iterator setIt = plugin.getReportSets().iterator(); setIt.hasNext(); )
+                {
+                    ReportSet reportSet = (ReportSet) setIt.next();
+
+                    key.append( "(" ).append( reportSet.getId() ).append( ':' ).append( reportSet.getReports() );
+                    key.append( ':' ).append( reportSet.getInherited() ).append( ':' );
+                    key.append( reportSet.getConfiguration() ).append( ')' );
+                }
+
+                key.append( ']' );
+            }
+        }
+
+        return key.toString();
+    }
+
+    private static void appendPlugins( StringBuffer key, List plugins )
+    {
+        for ( Iterator it = plugins.iterator(); it.hasNext(); )
+        {
+            Plugin plugin = (Plugin) it.next();
+
+            key.append( '[' ).append( plugin.getKey() ).append( ':' ).append( plugin.getVersion() );
+            key.append( ':' ).append( plugin.isExtensions() ).append( ':' ).append( plugin.getInherited() );
+            key.append( ':' ).append( plugin.getConfiguration() );
+
+            for ( Iterator execIt = plugin.getExecutions().iterator(); execIt.hasNext(); )
+            {
+                PluginExecution execution = (PluginExecution) execIt.next();
+
+                key.append( "(" ).append( execution.getId() ).append( ':' ).append( execution.getPhase() );
+                key.append( ':' ).append( execution.getGoals() ).append( ':' ).append( execution.getInherited() );
+                key.append( ':' ).append( execution.getConfiguration() ).append( ')' );
+            }
+
+            for ( Iterator depIt = plugin.getDependencies().iterator(); depIt.hasNext(); )
+            {
+                Dependency dependency = (Dependency) depIt.next();
+
+                key.append( "(" ).append( dependency.getManagementKey() ).append( ':' );
+                key.append( dependency.getVersion() ).append( ')' );
+            }
+
+            key.append( ']' );
+        }
+    }
+
+}
@@ -44,15 +44,51 @@ public class DefaultBuildPlanner
 
     private MojoBindingFactory mojoBindingFactory;
 
+    private int maxCachedBuildPlans = 100;
+
+    private BuildPlanCache buildPlanCache;
+
     /**
      * Orchestrates construction of the build plan which will be used by the user of LifecycleExecutor.
+     * Plans are cached, so projects which only differ in things that don't affect the plan share
+     * its construction.
      */
     public BuildPlan constructBuildPlan( List tasks, MavenProject project )
         throws LifecycleLoaderException, LifecycleSpecificationException, LifecyclePlannerException
+    {
+        // NOTE: this injects the pluginManagement information into the project's plugins, so it has to
+        // happen before the cache key is created, and even when the plan is taken from the cache.
+        LifecycleBindings projectBindings = lifecycleBindingManager.getProjectCustomBindings( project );
+
+        BuildPlanCache cache = getBuildPlanCache();
+
+        String key = BuildPlanCache.createKey( tasks, project );
+
+        BuildPlan cached = cache.get( key );
+
+        if ( logger != null && logger.isDebugEnabled() )
+        {
+            logger.debug( "Build plan cache " + ( cached != null ? "hit" : "miss" ) + " for: " + project.getId()
+                + " (hits: " + cache.getHits() + ", misses: " + cache.getMisses() + ")" );
+        }
+
+        if ( cached != null )
+        {
+            return cached;
+        }
+
+        LifecycleBuildPlan plan = constructBuildPlan( tasks, project, projectBindings );
+
+        cache.put( key, plan );
+
+        return plan;
+    }
+
+    private LifecycleBuildPlan constructBuildPlan( List tasks, MavenProject project, LifecycleBindings projectBindings )
+        throws LifecycleLoaderException, LifecycleSpecificationException, LifecyclePlannerException
     {
         LifecycleBindings defaultBindings = lifecycleBindingManager.getDefaultBindings( project );
         LifecycleBindings packagingBindings = lifecycleBindingManager.getBindingsForPackaging( project );
-        LifecycleBindings projectBindings = lifecycleBindingManager.getProjectCustomBindings( project );
 
         LifecycleBindings merged = LifecycleUtils.mergeBindings( packagingBindings, projectBindings, defaultBindings, true, false );
 
@@ -62,7 +98,7 @@ public class DefaultBuildPlanner
         // if the binding list is null, treat it like a one-off mojo invocation, and parse/validate
         //     that it can be called as such.
         // as binding lists accumulate, push them onto an aggregated "plan" listing...
-        BuildPlan plan = new LifecycleBuildPlan( tasks, merged );
+        LifecycleBuildPlan plan = new LifecycleBuildPlan( tasks, merged );
 
         // Inject forked lifecycles as plan modifiers for each mojo that has @execute in it.
         addForkedLifecycleModifiers( plan, merged, project, tasks );
@@ -73,6 +109,26 @@ public class DefaultBuildPlanner
         return plan;
     }
 
+    /**
+     * Retrieve the cache of build plans, along with its hit and miss statistics.
+     */
+    public synchronized BuildPlanCache getBuildPlanCache()
+    {
+        if ( buildPlanCache == null )
+        {
+            buildPlanCache = new BuildPlanCache( maxCachedBuildPlans );
+        }
+
+        return buildPlanCache;
+    }
+
+    public void setMaxCachedBuildPlans( int maxCachedBuildPlans )
+    {
+        this.maxCachedBuildPlans = maxCachedBuildPlans;
+
+        getBuildPlanCache().setMaxEntries( maxCachedBuildPlans );
+    }
+
     public void enableLogging( Logger logger )
     {
         this.logger = logger;
@@ -79,6 +79,22 @@ public class LifecycleBuildPlan
         return !planModifiers.isEmpty();
     }
 
+    /**
+     * Create a copy of this build plan with its own lifecycle bindings, which can be modified
+     * independently of this instance. The modifiers are shared, since they are not changed once the
+     * plan has been constructed.
+     */
+    public LifecycleBuildPlan copy()
+    {
+        LifecycleBuildPlan copy = new LifecycleBuildPlan( new ArrayList( tasks ),
+                                                          LifecycleUtils.cloneBindings( lifecycleBindings ) );
+
+        copy.planModifiers.addAll( planModifiers );
+        copy.directInvocationModifiers.putAll( directInvocationModifiers );
+
+        return copy;
+    }
+
     /**
      * Add a new modifier for a direct-invocation MojoBinding in the build plan resulting from this
      * instance.
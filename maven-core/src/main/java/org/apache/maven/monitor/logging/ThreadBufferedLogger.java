@@ -0,0 +1,280 @@
+package org.apache.maven.monitor.logging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Logger decorator which can hold back the messages logged by the current thread, and write them
+ * out as one uninterrupted block later on. This is used by the parallel reactor, so that the output
+ * of projects being built at the same time doesn't get interleaved on the console.
+ * <p/>
+ * When the current thread hasn't called {@link #beginBuffer()}, messages are passed straight through
+ * to the wrapped logger.
+ *
+ * @version $Id$
+ */
+public class ThreadBufferedLogger
+    implements Logger
+{
+
+    private static final ThreadLocal BUFFER = new ThreadLocal();
+
+    private static final Object OUTPUT_LOCK = new Object();
+
+    private final Logger logger;
+
+    public ThreadBufferedLogger( Logger logger )
+    {
+        this.logger = logger;
+    }
+
+    /**
+     * Start holding back all messages logged by the current thread through any ThreadBufferedLogger.
+     */
+    public static void beginBuffer()
+    {
+        BUFFER.set( new ArrayList() );
+    }
+
+    /**
+     * Write out all messages held back for the current thread, as one block, and stop buffering.
+     */
+    public static void flushBuffer()
+    {
+        List buffer = (List) BUFFER.get();
+
+        BUFFER.set( null );
+
+        if ( buffer == null || buffer.isEmpty() )
+        {
+            return;
+        }
+
+        synchronized ( OUTPUT_LOCK )
+        {
+            for ( Iterator it = buffer.iterator(); it.hasNext(); )
+            {
+                LogEntry entry = (LogEntry) it.next();
+
+                entry.write();
+            }
+        }
+    }
+
+    private boolean buffer( int level, String message, Throwable error )
+    {
+        List buffer = (List) BUFFER.get();
+
+        if ( buffer == null )
+        {
+            return false;
+        }
+
+        buffer.add( new LogEntry( logger, level, message, error ) );
+
+        return true;
+    }
+
+    private void log( int level, String message, Throwable error )
+    {
+        if ( !buffer( level, message, error ) )
+        {
+            synchronized ( OUTPUT_LOCK )
+            {
+                LogEntry.write( logger, level, message, error );
+            }
+        }
+    }
+
+    public void debug( String message )
+    {
+        if ( logger.isDebugEnabled() )
+        {
+            log( LEVEL_DEBUG, message, null );
+        }
+    }
+
+    public void debug( String message, Throwable throwable )
+    {
+        if ( logger.isDebugEnabled() )
+        {
+            log( LEVEL_DEBUG, message, throwable );
+        }
+    }
+
+    public boolean isDebugEnabled()
+    {
+        return logger.isDebugEnabled();
+    }
+
+    public void info( String message )
+    {
+        if ( logger.isInfoEnabled() )
+        {
+            log( LEVEL_INFO, message, null );
+        }
+    }
+
+    public void info( String message, Throwable throwable )
+    {
+        if ( logger.isInfoEnabled() )
+        {
+            log( LEVEL_INFO, message, throwable );
+        }
+    }
+
+    public boolean isInfoEnabled()
+    {
+        return logger.isInfoEnabled();
+    }
+
+    public void warn( String message )
+    {
+        if ( logger.isWarnEnabled() )
+        {
+            log( LEVEL_WARN, message, null );
+        }
+    }
+
+    public void warn( String message, Throwable throwable )
+    {
+        if ( logger.isWarnEnabled() )
+        {
+            log( LEVEL_WARN, message, throwable );
+        }
+    }
+
+    public boolean isWarnEnabled()
+    {
+        return logger.isWarnEnabled();
+    }
+
+    public void error( String message )
+    {
+        if ( logger.isErrorEnabled() )
+        {
+            log( LEVEL_ERROR, message, null );
+        }
+    }
+
+    public void error( String message, Throwable throwable )
+    {
+        if ( logger.isErrorEnabled() )
+        {
+            log( LEVEL_ERROR, message, throwable );
+        }
+    }
+
+    public boolean isErrorEnabled()
+    {
+        return logger.isErrorEnabled();
+    }
+
+    public void fatalError( String message )
+    {
+        if ( logger.isFatalErrorEnabled() )
+        {
+            log( LEVEL_FATAL, message, null );
+        }
+    }
+
+    public void fatalError( String message, Throwable throwable )
+    {
+        if ( logger.isFatalErrorEnabled() )
+        {
+            log( LEVEL_FATAL, message, throwable );
+        }
+    }
+
+    public boolean isFatalErrorEnabled()
+    {
+        return logger.isFatalErrorEnabled();
+    }
+
+    public void setThreshold( int threshold )
+    {
+        logger.setThreshold( threshold );
+    }
+
+    public int getThreshold()
+    {
+        return logger.getThreshold();
+    }
+
+    public String getName()
+    {
+        return logger.getName();
+    }
+
+    public Logger getChildLogger( String name )
+    {
+        return new ThreadBufferedLogger( logger.getChildLogger( name ) );
+    }
+
+    private static final class LogEntry
+    {
+        private final Logger logger;
+
+        private final int level;
+
+        private final String message;
+
+        private final Throwable error;
+
+        LogEntry( Logger logger, int level, String message, Throwable error )
+        {
+            this.logger = logger;
+            this.level = level;
+            this.message = message;
+            this.error = error;
+        }
+
+        void write()
+        {
+            write( logger, level, message, error );
+        }
+
+        static void write( Logger logger, int level, String message, Throwable error )
+        {
+            switch ( level )
+            {
+                case LEVEL_DEBUG:
+                    logger.debug( message, error );
+                    break;
+                case LEVEL_INFO:
+                    logger.info( message, error );
+                    break;
+                case LEVEL_WARN:
+                    logger.warn( message, error );
+                    break;
+                case LEVEL_ERROR:
+                    logger.error( message, error );
+                    break;
+                default:
+                    logger.fatalError( message, error );
+            }
+        }
+    }
+}
@@ -46,6 +46,7 @@ import org.apache.maven.model.ReportPlugin;
 import org.apache.maven.monitor.event.EventDispatcher;
 import org.apache.maven.monitor.event.MavenEvents;
 import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.monitor.logging.ThreadBufferedLogger;
 import org.apache.maven.plugin.descriptor.MojoDescriptor;
 import org.apache.maven.plugin.descriptor.Parameter;
 import org.apache.maven.plugin.descriptor.PluginDescriptor;
@@ -1228,7 +1229,7 @@ public class DefaultPluginManager
     {
         container = (PlexusContainer) context.get( PlexusConstants.PLEXUS_KEY );
 
-        mojoLogger = new DefaultLog( container.getLoggerManager().getLoggerForComponent( Mojo.ROLE ) );
+        mojoLogger = new DefaultLog( new ThreadBufferedLogger( container.getLoggerManager().getLoggerForComponent( Mojo.ROLE ) ) );
     }
 
     // ----------------------------------------------------------------------
@@ -0,0 +1,135 @@
+package org.apache.maven.lifecycle;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.BuildFailureException;
+import org.apache.maven.execution.ReactorManager;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class ParallelReactorExecutorTest
+    extends TestCase
+{
+
+    public void testDependentProjectStartsAfterItsDependencyFinished()
+        throws Exception
+    {
+        MavenProject a = createProject( "a", null );
+        MavenProject b = createProject( "b", "a" );
+        MavenProject c = createProject( "c", null );
+
+        List projects = new ArrayList();
+        projects.add( a );
+        projects.add( b );
+        projects.add( c );
+
+        ReactorManager rm = new ReactorManager( projects, ReactorManager.FAIL_FAST );
+
+        final List events = Collections.synchronizedList( new ArrayList() );
+
+        new ParallelReactorExecutor( rm, 3 ).execute( rm.getSortedProjects(),
+                                                      new ParallelReactorExecutor.ProjectExecution()
+        {
+            public void execute( MavenProject project )
+            {
+                events.add( "start:" + project.getArtifactId() );
+
+                try
+                {
+                    Thread.sleep( 50 );
+                }
+                catch ( InterruptedException e )
+                {
+                    // ignore
+                }
+
+                events.add( "end:" + project.getArtifactId() );
+            }
+        } );
+
+        assertEquals( 6, events.size() );
+        assertTrue( events.indexOf( "end:a" ) < events.indexOf( "start:b" ) );
+    }
+
+    public void testFailureStopsSchedulingAndIsRethrown()
+        throws Exception
+    {
+        MavenProject a = createProject( "a", null );
+        MavenProject b = createProject( "b", "a" );
+
+        List projects = new ArrayList();
+        projects.add( a );
+        projects.add( b );
+
+        ReactorManager rm = new ReactorManager( projects, ReactorManager.FAIL_FAST );
+
+        final List built = Collections.synchronizedList( new ArrayList() );
+
+        try
+        {
+            new ParallelReactorExecutor( rm, 2 ).execute( rm.getSortedProjects(),
+                                                          new ParallelReactorExecutor.ProjectExecution()
+            {
+                public void execute( MavenProject project )
+                    throws BuildFailureException
+                {
+                    built.add( project.getArtifactId() );
+
+                    throw new BuildFailureException( "failed: " + project.getArtifactId() );
+                }
+            } );
+
+            fail( "Build failure should have been rethrown." );
+        }
+        catch ( BuildFailureException e )
+        {
+            assertEquals( "failed: a", e.getMessage() );
+        }
+
+        assertEquals( Collections.singletonList( "a" ), built );
+    }
+
+    private MavenProject createProject( String artifactId, String dependsOn )
+    {
+        Model model = new Model();
+        model.setGroupId( "group" );
+        model.setArtifactId( artifactId );
+        model.setVersion( "1" );
+
+        if ( dependsOn != null )
+        {
+            Dependency dep = new Dependency();
+            dep.setGroupId( "group" );
+            dep.setArtifactId( dependsOn );
+            dep.setVersion( "1" );
+
+            model.addDependency( dep );
+        }
+
+        return new MavenProject( model );
+    }
+}
@@ -0,0 +1,92 @@
+package org.apache.maven.lifecycle.plan;
+
+import org.apache.maven.lifecycle.model.LifecycleBindings;
+import org.apache.maven.lifecycle.model.MojoBinding;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class BuildPlanCacheTest
+    extends TestCase
+{
+
+    private static final List TASKS = Collections.singletonList( "compile" );
+
+    public void testKeyIgnoresProjectCoordinatesButNotPluginConfiguration()
+    {
+        String first = BuildPlanCache.createKey( TASKS, newProject( "first", "1.5" ) );
+        String second = BuildPlanCache.createKey( TASKS, newProject( "second", "1.5" ) );
+        String third = BuildPlanCache.createKey( TASKS, newProject( "third", "1.4" ) );
+
+        assertEquals( first, second );
+        assertFalse( first.equals( third ) );
+        assertFalse( first.equals( BuildPlanCache.createKey( Collections.singletonList( "install" ),
+                                                             newProject( "first", "1.5" ) ) ) );
+    }
+
+    public void testCachedPlansAreCopiesAndLookupsAreCounted()
+    {
+        LifecycleBindings bindings = new LifecycleBindings();
+        bindings.getBuildBinding().getCompile().addBinding( newMojo( "compile" ) );
+
+        LifecycleBuildPlan plan = new LifecycleBuildPlan( TASKS, bindings );
+
+        BuildPlanCache cache = new BuildPlanCache( 10 );
+
+        assertNull( cache.get( "key" ) );
+
+        cache.put( "key", plan );
+
+        BuildPlan cached = cache.get( "key" );
+
+        assertNotNull( cached );
+        assertNotSame( plan, cached );
+        assertNotSame( cached, cache.get( "key" ) );
+
+        assertEquals( 2, cache.getHits() );
+        assertEquals( 1, cache.getMisses() );
+        assertEquals( 2.0 / 3, cache.getHitRate(), 0.001 );
+    }
+
+    private MavenProject newProject( String artifactId, String target )
+    {
+        Xpp3Dom configuration = new Xpp3Dom( "configuration" );
+        Xpp3Dom child = new Xpp3Dom( "target" );
+        child.setValue( target );
+        configuration.addChild( child );
+
+        Plugin plugin = new Plugin();
+        plugin.setArtifactId( "maven-compiler-plugin" );
+        plugin.setConfiguration( configuration );
+
+        Build build = new Build();
+        build.addPlugin( plugin );
+
+        Model model = new Model();
+        model.setGroupId( "group" );
+        model.setArtifactId( artifactId );
+        model.setVersion( "1" );
+        model.setPackaging( "jar" );
+        model.setBuild( build );
+
+        return new MavenProject( model );
+    }
+
+    private MojoBinding newMojo( String goal )
+    {
+        MojoBinding binding = new MojoBinding();
+        binding.setGroupId( "org.apache.maven.plugins" );
+        binding.setArtifactId( "maven-compiler-plugin" );
+        binding.setGoal( goal );
+
+        return binding;
+    }
+
+}
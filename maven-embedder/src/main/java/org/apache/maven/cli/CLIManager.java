@@ -84,6 +84,8 @@ public class CLIManager
 
     public static final String FAIL_NEVER = "fn";
 
+    public static final char THREADS = 'T';
+
     private Options options;
 
     public CLIManager()
@@ -156,6 +158,9 @@ public class CLIManager
 
         options.addOption( OptionBuilder.withLongOpt( "fail-never" ).withDescription(
             "NEVER fail the build, regardless of project result" ).create( FAIL_NEVER ) );
+
+        options.addOption( OptionBuilder.withLongOpt( "threads" ).hasArg().withDescription(
+            "Build independent reactor projects in parallel, using the given number of threads" ).create( THREADS ) );
     }
 
     public CommandLine parse( String[] args )
@@ -21,9 +21,15 @@ package org.apache.maven.cli;
 
 import org.apache.maven.wagon.WagonConstants;
 import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.resource.Resource;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * Console download progress meter.
+ * Console download progress meter. When several transfers are running at the same time, the progress of
+ * all of them is shown on the same line.
  *
  * @author <a href="mailto:brett@apache.org">Brett Porter</a>
  * @version $Id$
@@ -31,36 +37,77 @@ import org.apache.maven.wagon.events.TransferEvent;
 public class ConsoleDownloadMonitor
     extends AbstractConsoleDownloadMonitor
 {
-    private long complete;
+    /**
+     * Map( Resource, long[] ) with the number of bytes transferred so far for each running transfer.
+     */
+    private Map transfers = new LinkedHashMap();
 
-    public void transferInitiated( TransferEvent transferEvent )
+    public synchronized void transferInitiated( TransferEvent transferEvent )
     {
         super.transferInitiated( transferEvent );
+    }
 
-        complete = 0;
+    public synchronized void transferStarted( TransferEvent transferEvent )
+    {
+        transfers.put( transferEvent.getResource(), new long[1] );
     }
 
-    public void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
+    public synchronized void transferProgress( TransferEvent transferEvent, byte[] buffer, int length )
     {
-        long total = transferEvent.getResource().getContentLength();
-        complete += length;
-        
-        if ( !showEvent( transferEvent ) )
+        Resource resource = transferEvent.getResource();
+
+        long[] complete = (long[]) transfers.get( resource );
+        if ( complete == null )
         {
-            return;
+            complete = new long[1];
+            transfers.put( resource, complete );
         }
-        
-        // TODO [BP]: Sys.out may no longer be appropriate, but will \r work with getLogger()?
-        if ( total >= 1024 )
+        complete[0] += length;
+
+        if ( !showEvent( transferEvent ) )
         {
-            System.out.print(
-                ( complete / 1024 ) + "/" + ( total == WagonConstants.UNKNOWN_LENGTH ? "?" : ( total / 1024 ) + "K" ) +
-                    "\r" );
+            return;
         }
-        else
+
+        StringBuffer buf = new StringBuffer();
+        for ( Iterator i = transfers.entrySet().iterator(); i.hasNext(); )
         {
-            System.out.print( complete + "/" + ( total == WagonConstants.UNKNOWN_LENGTH ? "?" : total + "b" ) + "\r" );
+            Map.Entry entry = (Map.Entry) i.next();
+
+            long total = ( (Resource) entry.getKey() ).getContentLength();
+            long done = ( (long[]) entry.getValue() )[0];
+
+            if ( buf.length() > 0 )
+            {
+                buf.append( ' ' );
+            }
+
+            if ( total >= 1024 )
+            {
+                buf.append( done / 1024 ).append( '/' ).append( total / 1024 ).append( 'K' );
+            }
+            else
+            {
+                buf.append( done ).append( '/' );
+                buf.append( total == WagonConstants.UNKNOWN_LENGTH ? "?" : total + "b" );
+            }
         }
+
+        // TODO [BP]: Sys.out may no longer be appropriate, but will \r work with getLogger()?
+        System.out.print( buf.append( '\r' ).toString() );
     }
-}
 
+    public synchronized void transferCompleted( TransferEvent transferEvent )
+    {
+        transfers.remove( transferEvent.getResource() );
+
+        super.transferCompleted( transferEvent );
+    }
+
+    public synchronized void transferError( TransferEvent transferEvent )
+    {
+        transfers.remove( transferEvent.getResource() );
+
+        super.transferError( transferEvent );
+    }
+}
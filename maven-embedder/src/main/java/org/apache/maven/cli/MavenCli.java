@@ -48,6 +48,8 @@ public class MavenCli
 {
     public static final String LOCAL_REPO_PROPERTY = "maven.repo.local";
 
+    public static final String BASE_REPOS_PROPERTY = "maven.repo.base";
+
     public static void main( String[] args )
     {
         ClassWorld classWorld = new ClassWorld( "plexus.core", Thread.currentThread().getContextClassLoader() );
@@ -194,6 +196,31 @@ public class MavenCli
                 reactorFailureBehaviour = MavenExecutionRequest.REACTOR_FAIL_NEVER;
             }
 
+            int reactorThreadCount = 1;
+
+            if ( commandLine.hasOption( CLIManager.THREADS ) )
+            {
+                String threads = commandLine.getOptionValue( CLIManager.THREADS );
+
+                try
+                {
+                    reactorThreadCount = Integer.parseInt( threads );
+                }
+                catch ( NumberFormatException e )
+                {
+                    reactorThreadCount = 0;
+                }
+
+                if ( reactorThreadCount < 1 )
+                {
+                    System.err.println( "Invalid thread count: '" + threads + "'. Must be a positive number." );
+
+                    cliManager.displayHelp();
+
+                    return 1;
+                }
+            }
+
             boolean offline = false;
 
             if ( commandLine.hasOption( CLIManager.OFFLINE ) )
@@ -314,6 +341,7 @@ public class MavenCli
                 .setProperties( executionProperties ) // optional
                 .setReactorFailureBehavior( reactorFailureBehaviour ) // default: fail fast
                 .setRecursive( recursive ) // default: true
+                .setReactorThreadCount( reactorThreadCount ) // default: 1
                 .setUseReactor( useReactor ) // default: false
                 .setPomFile( alternatePomFile ) // optional
                 .setShowErrors( showErrors ) // default: false
@@ -352,6 +380,18 @@ public class MavenCli
             configuration.setLocalRepository( new File( localRepoProperty ) );
         }
 
+        String baseReposProperty = executionProperties.getProperty( BASE_REPOS_PROPERTY );
+
+        if ( baseReposProperty != null )
+        {
+            StringTokenizer baseRepoTokens = new StringTokenizer( baseReposProperty, File.pathSeparator );
+
+            while ( baseRepoTokens.hasMoreTokens() )
+            {
+                configuration.addBaseRepository( new File( baseRepoTokens.nextToken().trim() ) );
+            }
+        }
+
         MavenEmbedder mavenEmbedder;
 
         try
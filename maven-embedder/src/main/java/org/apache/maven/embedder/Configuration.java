@@ -58,6 +58,15 @@ public interface Configuration
 
     File getLocalRepository();
 
+    /**
+     * Add a read-only repository in which the artifacts missing from the local repository are looked for before
+     * they are downloaded. These are consulted before the ones set in a settings file.
+     */
+    Configuration addBaseRepository( File baseRepository );
+
+    /** List of File instances with the directories of the base repositories. */
+    List getBaseRepositories();
+
     // ----------------------------------------------------------------------------
     // Logger
     // ----------------------------------------------------------------------------
@@ -55,6 +55,9 @@ public class DefaultConfiguration
 
     private File localRepository;
 
+    /** List&lt;File>. */
+    private List baseRepositories = new ArrayList();
+
     /** Creates a new instance of DefaultConfiguration */
     public DefaultConfiguration()
     {
@@ -204,4 +207,16 @@ public class DefaultConfiguration
     {
         return localRepository;
     }
+
+    public Configuration addBaseRepository( File baseRepository )
+    {
+        baseRepositories.add( baseRepository );
+
+        return this;
+    }
+
+    public List getBaseRepositories()
+    {
+        return baseRepositories;
+    }
 }
@@ -25,10 +25,17 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.factory.ArtifactFactory;
 import org.apache.maven.artifact.handler.ArtifactHandler;
 import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
+import org.apache.maven.artifact.manager.LocalRepositoryLayers;
+import org.apache.maven.artifact.manager.WagonManager;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.repository.ArtifactRepositoryFactory;
 import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.archive.RepositoryArchiveWriter;
 import org.apache.maven.artifact.repository.layout.ArtifactRepositoryLayout;
+import org.apache.maven.artifact.repository.metadata.ArtifactRepositoryMetadata;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Writer;
 import org.apache.maven.artifact.resolver.ArtifactNotFoundException;
 import org.apache.maven.artifact.resolver.ArtifactResolutionException;
 import org.apache.maven.artifact.resolver.ArtifactResolver;
@@ -43,6 +50,7 @@ import org.apache.maven.execution.MavenExecutionResult;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.lifecycle.LifecycleUtils;
 import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.io.jdom.MavenJDOMWriter;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
@@ -90,8 +98,10 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -152,6 +162,10 @@ public class MavenEmbedder
 
     private ArtifactHandlerManager artifactHandlerManager;
 
+    private WagonManager wagonManager;
+
+    private LocalRepositoryLayers localRepositoryLayers;
+
     private Maven maven;
 
     private MavenSettingsBuilder settingsBuilder;
@@ -478,6 +492,189 @@ public class MavenEmbedder
         return artifactHandlerManager.getArtifactHandler( artifact.getType() );
     }
 
+    // ----------------------------------------------------------------------
+    // Repository archives
+    // ----------------------------------------------------------------------
+
+    /**
+     * Export the resolved dependencies of the projects, such as the sorted projects of the reactor of a build, into
+     * a repository archive, which a later build can use as an <code>archive:</code> repository instead of
+     * downloading them. Each artifact goes with its POM and the POMs of its parents, and with the metadata of the
+     * local repository listing its versions; the POMs of the parents of the projects which aren't part of the
+     * reactor are exported as well.
+     * <p/>
+     * Plugins and their dependencies aren't part of the projects' dependencies, and aren't exported: to export
+     * everything a build used, build with an empty local repository and export the whole repository with
+     * {@link RepositoryArchiveWriter#addRepository(File)}.
+     *
+     * @param projects List( MavenProject ) of projects whose dependencies have been resolved
+     */
+    public void exportRepositoryArchive( List projects, File archive )
+        throws MavenEmbedderException
+    {
+        RepositoryArchiveWriter writer;
+        try
+        {
+            writer = new RepositoryArchiveWriter( archive );
+        }
+        catch ( IOException e )
+        {
+            throw new MavenEmbedderException( "Unable to create repository archive " + archive, e );
+        }
+
+        try
+        {
+            for ( Iterator i = projects.iterator(); i.hasNext(); )
+            {
+                MavenProject project = (MavenProject) i.next();
+
+                for ( MavenProject parent = project.getParent(); parent != null; parent = parent.getParent() )
+                {
+                    exportPom( writer, parent.getGroupId(), parent.getArtifactId(), parent.getVersion() );
+                }
+
+                for ( Iterator j = project.getArtifacts().iterator(); j.hasNext(); )
+                {
+                    exportArtifact( writer, (Artifact) j.next() );
+                }
+            }
+
+            writer.close();
+        }
+        catch ( IOException e )
+        {
+            writer.discard();
+
+            throw new MavenEmbedderException( "Unable to write repository archive " + archive, e );
+        }
+        catch ( XmlPullParserException e )
+        {
+            writer.discard();
+
+            throw new MavenEmbedderException( "Unable to read a file to write to repository archive " + archive, e );
+        }
+    }
+
+    private void exportArtifact( RepositoryArchiveWriter writer, Artifact artifact )
+        throws IOException, XmlPullParserException
+    {
+        File file = artifact.getFile();
+
+        if ( Artifact.SCOPE_SYSTEM.equals( artifact.getScope() ) || file == null || !file.isFile() )
+        {
+            return;
+        }
+
+        // snapshots are exported without their metadata, so they are only looked for at their base version
+        Artifact exported = artifactFactory.createArtifactWithClassifier( artifact.getGroupId(),
+                                                                          artifact.getArtifactId(),
+                                                                          artifact.getBaseVersion(),
+                                                                          artifact.getType(),
+                                                                          artifact.getClassifier() );
+
+        if ( writer.add( localRepository.pathOf( exported ), file ) )
+        {
+            exportPom( writer, artifact.getGroupId(), artifact.getArtifactId(), artifact.getBaseVersion() );
+
+            exportMetadata( writer, exported );
+        }
+    }
+
+    /**
+     * Export a POM of the local repository, along with the POMs of its parents.
+     */
+    private void exportPom( RepositoryArchiveWriter writer, String groupId, String artifactId, String version )
+        throws IOException, XmlPullParserException
+    {
+        while ( version != null )
+        {
+            String path = localRepository.pathOf( artifactFactory.createProjectArtifact( groupId, artifactId,
+                                                                                         version ) );
+
+            File file = localRepositoryLayers.getLocalFile( localRepository, path );
+
+            // a POM already exported was exported with its parents
+            if ( !file.isFile() || !writer.add( path, file ) )
+            {
+                return;
+            }
+
+            Parent parent = readModel( file ).getParent();
+            if ( parent == null )
+            {
+                return;
+            }
+
+            groupId = parent.getGroupId();
+            artifactId = parent.getArtifactId();
+            version = parent.getVersion();
+        }
+    }
+
+    /**
+     * Export the versions of the artifact which the local repository and its base repositories know of, merged
+     * from their copies of the metadata of each remote repository.
+     */
+    private void exportMetadata( RepositoryArchiveWriter writer, Artifact artifact )
+        throws IOException, XmlPullParserException
+    {
+        String path = localRepository.pathOfRemoteRepositoryMetadata( new ArtifactRepositoryMetadata( artifact ) );
+
+        List directories = new ArrayList();
+        directories.add( new File( localRepository.getBasedir() ) );
+        directories.addAll( localRepositoryLayers.getBaseRepositories() );
+
+        Metadata metadata = null;
+
+        for ( Iterator i = directories.iterator(); i.hasNext(); )
+        {
+            File[] files = new File( (File) i.next(), path ).getParentFile().listFiles();
+
+            for ( int j = 0; files != null && j < files.length; j++ )
+            {
+                String name = files[j].getName();
+
+                if ( name.startsWith( "maven-metadata-" ) && name.endsWith( ".xml" ) )
+                {
+                    Metadata local = readMetadata( files[j] );
+
+                    if ( metadata == null )
+                    {
+                        metadata = local;
+                    }
+                    else
+                    {
+                        metadata.merge( local );
+                    }
+                }
+            }
+        }
+
+        if ( metadata != null )
+        {
+            StringWriter content = new StringWriter();
+
+            new MetadataXpp3Writer().write( content, metadata );
+
+            writer.add( path, content.toString().getBytes( "UTF-8" ) );
+        }
+    }
+
+    private static Metadata readMetadata( File file )
+        throws IOException, XmlPullParserException
+    {
+        Reader reader = new FileReader( file );
+
+        try
+        {
+            return new MetadataXpp3Reader().read( reader, false );
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
     // ----------------------------------------------------------------------
     // Plugins
     // ----------------------------------------------------------------------
@@ -621,6 +818,10 @@ public class MavenEmbedder
 
             artifactHandlerManager = (ArtifactHandlerManager) container.lookup( ArtifactHandlerManager.ROLE );
 
+            wagonManager = (WagonManager) container.lookup( WagonManager.ROLE );
+
+            localRepositoryLayers = (LocalRepositoryLayers) container.lookup( LocalRepositoryLayers.ROLE );
+
             try
             {
                 settings = settingsBuilder.buildSettings( configuration.getUserSettingsFile(),
@@ -634,6 +835,8 @@ public class MavenEmbedder
 
             localRepository = createLocalRepository( settings );
 
+            setBaseRepositories( settings );
+
             profileManager.loadSettingsProfiles( settings );
 
         }
@@ -698,6 +901,10 @@ public class MavenEmbedder
             container.release( mavenProjectBuilder );
 
             container.release( artifactRepositoryFactory );
+
+            wagonManager.closeConnections();
+
+            container.release( wagonManager );
         }
         catch ( ComponentLifecycleException e )
         {
@@ -806,6 +1013,22 @@ public class MavenEmbedder
         return createLocalRepository( localRepositoryPath, MavenEmbedder.DEFAULT_LOCAL_REPO_ID );
     }
 
+    /**
+     * Lay the base repositories of the configuration, then the ones of the settings, under the local repository,
+     * in place of those of any previous start.
+     */
+    private void setBaseRepositories( Settings settings )
+    {
+        List baseRepositories = new ArrayList( configuration.getBaseRepositories() );
+
+        for ( Iterator i = settings.getBaseRepositories().iterator(); i.hasNext(); )
+        {
+            baseRepositories.add( new File( (String) i.next() ) );
+        }
+
+        localRepositoryLayers.setBaseRepositories( baseRepositories );
+    }
+
     public ArtifactRepository createLocalRepository( String url,
                                                      String repositoryId )
         throws MavenEmbedderException
@@ -24,6 +24,7 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.ArtifactStatus;
 import org.apache.maven.artifact.ArtifactUtils;
 import org.apache.maven.artifact.InvalidRepositoryException;
+import org.apache.maven.artifact.manager.LocalRepositoryLayers;
 import org.apache.maven.artifact.manager.WagonManager;
 import org.apache.maven.artifact.factory.ArtifactFactory;
 import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
@@ -36,13 +37,16 @@ import org.apache.maven.artifact.resolver.ArtifactResolver;
 import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
 import org.apache.maven.artifact.versioning.VersionRange;
 import org.apache.maven.context.BuildContextManager;
+import org.apache.maven.context.SystemBuildContext;
 import org.apache.maven.model.Build;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.DependencyManagement;
 import org.apache.maven.model.DistributionManagement;
 import org.apache.maven.model.Extension;
 import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
 import org.apache.maven.model.Plugin;
+import org.apache.maven.model.Profile;
 import org.apache.maven.model.ReportPlugin;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.profiles.DefaultProfileManager;
@@ -50,6 +54,8 @@ import org.apache.maven.profiles.MavenProfilesBuilder;
 import org.apache.maven.profiles.ProfileManager;
 import org.apache.maven.profiles.activation.ProfileActivationException;
 import org.apache.maven.project.artifact.InvalidDependencyVersionException;
+import org.apache.maven.project.build.ModelCacheInputs;
+import org.apache.maven.project.build.PersistentModelCache;
 import org.apache.maven.project.build.ProjectBuildCache;
 import org.apache.maven.project.build.ProjectBuildContext;
 import org.apache.maven.project.build.model.DefaultModelLineage;
@@ -171,6 +177,8 @@ public class DefaultMavenProjectBuilder
 
     private MavenTools mavenTools;
 
+    private LocalRepositoryLayers localRepositoryLayers;
+
     // ----------------------------------------------------------------------
     // I am making this available for use with a new method that takes a
     // a monitor wagon monitor as a parameter so that tools can use the
@@ -228,9 +236,38 @@ public class DefaultMavenProjectBuilder
             return project;
         }
 
-        Model model = findModelFromRepository( artifact, remoteArtifactRepositories, localRepository, allowStubModel );
+        Artifact projectArtifact;
 
-        return buildInternal( "Artifact [" + artifact + "]", model, localRepository, remoteArtifactRepositories, null, null, false );
+        // if the artifact is not a POM, we need to construct a POM artifact based on the artifact parameter given.
+        if ( "pom".equals( artifact.getType() ) )
+        {
+            projectArtifact = artifact;
+        }
+        else
+        {
+            getLogger().warn( "Attempting to build MavenProject instance for Artifact of type: " + artifact.getType() + "; constructing POM artifact instead." );
+
+            projectArtifact = artifactFactory.createProjectArtifact( artifact.getGroupId(),
+                                                                     artifact.getArtifactId(),
+                                                                     artifact.getVersion(),
+                                                                     artifact.getScope() );
+        }
+
+        Model model = findModelFromRepository( projectArtifact, remoteArtifactRepositories, localRepository, allowStubModel );
+
+        // only released POMs from the local repository, or from its base repositories, can't change behind our back
+        File repositoryPomFile = null;
+
+        File pomFile = projectArtifact.getFile();
+
+        if ( !projectArtifact.isSnapshot() && pomFile != null && pomFile.isFile() && pomFile.getAbsoluteFile().equals(
+            localRepositoryLayers.getLocalFile( localRepository, localRepository.pathOf( projectArtifact ) )
+                .getAbsoluteFile() ) )
+        {
+            repositoryPomFile = pomFile;
+        }
+
+        return buildInternal( "Artifact [" + artifact + "]", model, localRepository, remoteArtifactRepositories, null, null, false, repositoryPomFile );
     }
 
     public MavenProject buildFromRepository( Artifact artifact,
@@ -452,7 +489,8 @@ public class DefaultMavenProjectBuilder
                                               buildArtifactRepositories( getSuperModel() ),
                                               projectDescriptor,
                                               profileManager,
-                                              STRICT_MODEL_PARSING );
+                                              STRICT_MODEL_PARSING,
+                                              null );
 
         if ( checkDistributionManagementStatus )
         {
@@ -468,29 +506,12 @@ public class DefaultMavenProjectBuilder
         return project;
     }
 
-    private Model findModelFromRepository( Artifact artifact,
+    private Model findModelFromRepository( Artifact projectArtifact,
                                            List remoteArtifactRepositories,
                                            ArtifactRepository localRepository,
                                            boolean allowStubModel )
         throws ProjectBuildingException
     {
-        Artifact projectArtifact;
-
-        // if the artifact is not a POM, we need to construct a POM artifact based on the artifact parameter given.
-        if ( "pom".equals( artifact.getType() ) )
-        {
-            projectArtifact = artifact;
-        }
-        else
-        {
-            getLogger().warn( "Attempting to build MavenProject instance for Artifact of type: " + artifact.getType() + "; constructing POM artifact instead." );
-
-            projectArtifact = artifactFactory.createProjectArtifact( artifact.getGroupId(),
-                                                                     artifact.getArtifactId(),
-                                                                     artifact.getVersion(),
-                                                                     artifact.getScope() );
-        }
-
         Model model;
 
         String projectId = ArtifactUtils.versionlessKey( projectArtifact );
@@ -625,7 +646,8 @@ public class DefaultMavenProjectBuilder
                                         List parentSearchRepositories,
                                         File projectDescriptor,
                                         ProfileManager externalProfileManager,
-                                        boolean strict )
+                                        boolean strict,
+                                        File repositoryPomFile )
         throws ProjectBuildingException
     {
         File projectDir = null;
@@ -635,12 +657,133 @@ public class DefaultMavenProjectBuilder
             projectDir = projectDescriptor.getAbsoluteFile().getParentFile();
         }
 
+        String projectId = safeVersionlessKey( model.getGroupId(), model.getArtifactId() );
+
+        ProjectBuildCache projectBuildCache = ProjectBuildCache.read( buildContextManager );
+
+        Model originalModel = ModelUtils.cloneModel( model );
+
+        MavenProject project = null;
+
+        // the assembled model of a released POM from the repository only depends on the POM files of its lineage,
+        // and on what activates their profiles; external profiles would be injected as well, so they can't be cached
+        ModelCacheInputs cacheInputs = null;
+
+        // the cache files are only ever written to the local repository, even for POMs of its base repositories
+        File cacheFile = null;
+
+        if ( repositoryPomFile != null && externalProfileManager == null )
+        {
+            cacheFile = getLocalRepositoryFile( repositoryPomFile, localRepository );
+        }
+
+        if ( cacheFile != null )
+        {
+            cacheFile = new File( cacheFile.getPath() + PersistentModelCache.CACHE_FILE_EXTENSION );
+
+            SystemBuildContext systemContext = SystemBuildContext.getSystemBuildContext( buildContextManager, true );
+
+            cacheInputs = new ModelCacheInputs( systemContext.getSystemProperties(), System.getProperties() );
+
+            List activeProfileIds = new ArrayList();
+
+            Model assembledModel =
+                projectBuildCache.getAssembledModel( repositoryPomFile, cacheFile, cacheInputs, activeProfileIds );
+
+            if ( assembledModel != null )
+            {
+                project = restoreAssembledProject( assembledModel, activeProfileIds, localRepository,
+                                                   parentSearchRepositories );
+            }
+        }
+
+        if ( project == null )
+        {
+            //noinspection CollectionDeclaredAsConcreteClass
+            LinkedList lineage = new LinkedList();
+
+            project = assembleProject( projectId, model, lineage, localRepository, parentSearchRepositories,
+                                       projectDir, externalProfileManager, strict );
+
+            if ( cacheInputs != null )
+            {
+                cacheAssembledModel( projectBuildCache, repositoryPomFile, cacheFile, project, lineage, cacheInputs,
+                                     localRepository );
+            }
+        }
+
+        project.setOriginalModel( originalModel );
+
+        try
+        {
+            project = processProjectLogic( pomLocation, project, externalProfileManager, projectDir, strict );
+        }
+        catch ( ModelInterpolationException e )
+        {
+            throw new InvalidProjectModelException( projectId, pomLocation, e.getMessage(), e );
+        }
+        catch ( InvalidRepositoryException e )
+        {
+            throw new InvalidProjectModelException( projectId, pomLocation, e.getMessage(), e );
+        }
+
+        projectBuildCache.cacheProject( project );
+        projectBuildCache.store( buildContextManager );
+
+        // jvz:note
+        // this only happens if we are building from a source file
+        if ( projectDescriptor != null )
+        {
+            // Only translate the base directory for files in the source tree
+            pathTranslator.alignToBaseDirectory( project.getModel(), projectDescriptor.getParentFile() );
+
+            Build build = project.getBuild();
+
+            project.addCompileSourceRoot( build.getSourceDirectory() );
+
+            project.addScriptSourceRoot( build.getScriptSourceDirectory() );
+
+            project.addTestCompileSourceRoot( build.getTestSourceDirectory() );
+
+            // Only track the file of a POM in the source tree
+            project.setFile( projectDescriptor );
+        }
+        
+        MavenProject rawParent = project.getParent();
+        
+        if ( rawParent != null )
+        {
+            MavenProject processedParent = (MavenProject) projectBuildCache.getCachedProject( rawParent );
+            
+            // yeah, this null check might be a bit paranoid, but better safe than sorry...
+            if ( processedParent != null )
+            {
+                project.setParent( processedParent );
+            }
+        }
+
+        return project;
+    }
+    
+    /**
+     * Assemble the inheritance of the model from its lineage, after profile activation.
+     *
+     * @param lineage receives the projects of the lineage, from the top-most parent down to the returned project
+     */
+    private MavenProject assembleProject( String projectId,
+                                          Model model,
+                                          LinkedList lineage,
+                                          ArtifactRepository localRepository,
+                                          List parentSearchRepositories,
+                                          File projectDir,
+                                          ProfileManager externalProfileManager,
+                                          boolean strict )
+        throws ProjectBuildingException
+    {
         Model superModel = getSuperModel();
 
         MavenProject superProject = new MavenProject( superModel );
         
-        String projectId = safeVersionlessKey( model.getGroupId(), model.getArtifactId() );
-
         List explicitlyActive;
         List explicitlyInactive;
         
@@ -667,16 +810,11 @@ public class DefaultMavenProjectBuilder
         
         superProject.setActiveProfiles( profileAdvisor.applyActivatedProfiles( superModel, null, explicitlyActive, explicitlyInactive ) );
 
-        //noinspection CollectionDeclaredAsConcreteClass
-        LinkedList lineage = new LinkedList();
-
         LinkedHashSet aggregatedRemoteWagonRepositories = collectInitialRepositories( model, superModel,
                                                                                       parentSearchRepositories,
                                                                                       projectDir, explicitlyActive,
                                                                                       explicitlyInactive );
         
-        Model originalModel = ModelUtils.cloneModel( model );
-
         MavenProject project = null;
         try
         {
@@ -694,8 +832,6 @@ public class DefaultMavenProjectBuilder
             throw new ProjectBuildingException( projectId, e.getMessage(), e );
         }
 
-        project.setOriginalModel( originalModel );
-
         // we don't have to force the collision exception for superModel here, it's already been done in getSuperModel()
         MavenProject previousProject = superProject;
 
@@ -739,58 +875,147 @@ public class DefaultMavenProjectBuilder
             }
         }
 
-        try
+        return project;
+    }
+
+    private void cacheAssembledModel( ProjectBuildCache projectBuildCache, File repositoryPomFile, File cacheFile,
+                                      MavenProject project, List lineage, ModelCacheInputs cacheInputs,
+                                      ArtifactRepository localRepository )
+        throws ProjectBuildingException
+    {
+        List lineageFiles = new ArrayList( lineage.size() );
+
+        lineageFiles.add( repositoryPomFile );
+
+        // the profiles of the super POM are activated as well, and inherited from
+        List models = new ArrayList( lineage.size() + 1 );
+
+        models.add( getSuperModel() );
+
+        for ( Iterator i = lineage.iterator(); i.hasNext(); )
         {
-            project = processProjectLogic( pomLocation, project, externalProfileManager, projectDir, strict );
+            models.add( ( (MavenProject) i.next() ).getModel() );
         }
-        catch ( ModelInterpolationException e )
+
+        Map inputValues = ModelCacheInputs.createValues();
+
+        if ( !cacheInputs.addActivationValues( models, inputValues ) )
         {
-            throw new InvalidProjectModelException( projectId, pomLocation, e.getMessage(), e );
+            return;
         }
-        catch ( InvalidRepositoryException e )
+
+        // the last one is the project itself, which has no file of its own here
+        for ( Iterator i = lineage.subList( 0, lineage.size() - 1 ).iterator(); i.hasNext(); )
         {
-            throw new InvalidProjectModelException( projectId, pomLocation, e.getMessage(), e );
+            MavenProject parent = (MavenProject) i.next();
+
+            // a snapshot parent can change without the POM itself changing
+            if ( parent.getFile() == null || ArtifactUtils.isSnapshot( parent.getVersion() ) )
+            {
+                return;
+            }
+
+            lineageFiles.add( parent.getFile() );
         }
 
-        ProjectBuildCache projectBuildCache = ProjectBuildCache.read( buildContextManager );
-        projectBuildCache.cacheProject( project );
-        projectBuildCache.store( buildContextManager );
+        // the POMs of base repositories are only used until the local repository has them
+        List shadowingFiles = new ArrayList();
 
-        // jvz:note
-        // this only happens if we are building from a source file
-        if ( projectDescriptor != null )
+        for ( Iterator i = lineageFiles.iterator(); i.hasNext(); )
         {
-            // Only translate the base directory for files in the source tree
-            pathTranslator.alignToBaseDirectory( project.getModel(), projectDescriptor.getParentFile() );
+            File file = ( (File) i.next() ).getAbsoluteFile();
 
-            Build build = project.getBuild();
+            File localFile = getLocalRepositoryFile( file, localRepository );
 
-            project.addCompileSourceRoot( build.getSourceDirectory() );
+            if ( localFile == null )
+            {
+                return;
+            }
+            else if ( !localFile.equals( file ) )
+            {
+                shadowingFiles.add( localFile );
+            }
+        }
 
-            project.addScriptSourceRoot( build.getScriptSourceDirectory() );
+        List activeProfileIds = new ArrayList();
 
-            project.addTestCompileSourceRoot( build.getTestSourceDirectory() );
+        for ( Iterator i = project.getActiveProfiles().iterator(); i.hasNext(); )
+        {
+            activeProfileIds.add( ( (Profile) i.next() ).getId() );
+        }
 
-            // Only track the file of a POM in the source tree
-            project.setFile( projectDescriptor );
+        projectBuildCache.cacheAssembledModel( repositoryPomFile, cacheFile, project.getModel(), lineageFiles,
+                                               shadowingFiles, inputValues, activeProfileIds );
+    }
+
+    /**
+     * @return the file of the local repository with the path the given file has in the local repository or in one of
+     *         its base repositories, or null if the file is in none of them
+     */
+    private File getLocalRepositoryFile( File file, ArtifactRepository localRepository )
+    {
+        File basedir = new File( localRepository.getBasedir() ).getAbsoluteFile();
+
+        List directories = new ArrayList();
+        directories.add( basedir );
+        directories.addAll( localRepositoryLayers.getBaseRepositories() );
+
+        String path = file.getAbsolutePath();
+
+        for ( Iterator i = directories.iterator(); i.hasNext(); )
+        {
+            String directory = ( (File) i.next() ).getAbsolutePath() + File.separator;
+
+            if ( path.startsWith( directory ) )
+            {
+                return new File( basedir, path.substring( directory.length() ) );
+            }
         }
-        
-        MavenProject rawParent = project.getParent();
-        
-        if ( rawParent != null )
+        return null;
+    }
+
+    /**
+     * Rebuild the project of a cached assembled model: its active profiles are those of the model which were
+     * active when it was cached, and its parent is built from the repository, as the POM itself is.
+     */
+    private MavenProject restoreAssembledProject( Model assembledModel,
+                                                  List activeProfileIds,
+                                                  ArtifactRepository localRepository,
+                                                  List parentSearchRepositories )
+        throws ProjectBuildingException
+    {
+        MavenProject project = new MavenProject( assembledModel );
+
+        List activeProfiles = new ArrayList( activeProfileIds.size() );
+
+        for ( Iterator i = assembledModel.getProfiles().iterator(); i.hasNext(); )
         {
-            MavenProject processedParent = (MavenProject) projectBuildCache.getCachedProject( rawParent );
-            
-            // yeah, this null check might be a bit paranoid, but better safe than sorry...
-            if ( processedParent != null )
+            Profile profile = (Profile) i.next();
+
+            if ( activeProfileIds.contains( profile.getId() ) )
             {
-                project.setParent( processedParent );
+                activeProfiles.add( profile );
             }
         }
 
+        project.setActiveProfiles( activeProfiles );
+
+        Parent parent = assembledModel.getParent();
+
+        if ( parent != null )
+        {
+            Artifact parentArtifact = artifactFactory.createParentArtifact( parent.getGroupId(),
+                                                                            parent.getArtifactId(),
+                                                                            parent.getVersion() );
+
+            project.setParent( buildFromRepository( parentArtifact, parentSearchRepositories, localRepository ) );
+
+            project.setParentArtifact( parentArtifact );
+        }
+
         return project;
     }
-    
+
     /*
      * Order is:
      * 
@@ -238,4 +238,12 @@ public class ProjectSorter
     {
         return dag.getParentLabels( id );
     }
+
+    /**
+     * Retrieve the ids of the projects in this reactor which must be built before the given project.
+     */
+    public List getDependencies( String id )
+    {
+        return dag.getChildLabels( id );
+    }
 }
@@ -19,8 +19,10 @@ package org.apache.maven.project.artifact;
  * under the License.
  */
 
+import org.apache.maven.MavenTools;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.manager.LocalRepositoryLayers;
 import org.apache.maven.artifact.metadata.ArtifactMetadataRetrievalException;
 import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
 import org.apache.maven.artifact.metadata.ResolutionGroup;
@@ -35,8 +37,10 @@ import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
 import org.apache.maven.artifact.resolver.filter.ExcludesArtifactFilter;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.SortedVersionList;
 import org.apache.maven.artifact.versioning.VersionRange;
 import org.apache.maven.context.BuildContextManager;
+import org.apache.maven.context.SystemBuildContext;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.DistributionManagement;
 import org.apache.maven.model.Exclusion;
@@ -45,6 +49,7 @@ import org.apache.maven.project.InvalidProjectModelException;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectBuilder;
 import org.apache.maven.project.ProjectBuildingException;
+import org.apache.maven.project.build.ModelCacheInputs;
 import org.apache.maven.project.build.ProjectBuildCache;
 import org.apache.maven.project.validation.ModelValidationResult;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
@@ -77,9 +82,16 @@ public class MavenMetadataSource
     
     private BuildContextManager buildContextManager;
 
+    private MavenTools mavenTools;
+
+    private LocalRepositoryLayers localRepositoryLayers;
+
     // lazily instantiated and cached.
     private MavenProject superProject;
 
+    // lazily instantiated, once the components are injected.
+    private ResolutionGroupCache resolutionGroupCache;
+
     /**
      * Retrieve the metadata for the project from the repository.
      * Uses the ProjectBuilder, to enable post-processing and inheritance calculation before retrieving the
@@ -107,13 +119,24 @@ public class MavenMetadataSource
             else
             {
                 project = cache.getCachedProject( artifact );
-                
+
+                ModelCacheInputs cacheInputs = null;
+
+                if ( project == null )
+                {
+                    cacheInputs = createCacheInputs();
+
+                    project = getResolutionGroupCache().read( pomArtifact, localRepository, cacheInputs );
+                }
+
                 if ( project == null )
                 {
                     try
                     {
                         project = mavenProjectBuilder.buildFromRepository( pomArtifact, remoteRepositories, localRepository,
                                                                            true );
+
+                        getResolutionGroupCache().write( pomArtifact, project, localRepository, cacheInputs );
                     }
                     catch ( InvalidProjectModelException e )
                     {
@@ -256,6 +279,28 @@ public class MavenMetadataSource
         return result;
     }
 
+    /**
+     * @return the inputs besides its POMs of the build of a project from the repository, as the project builder
+     *         sees them: it activates profiles with the system properties of the build context, and interpolates
+     *         with those of the JVM
+     */
+    private ModelCacheInputs createCacheInputs()
+    {
+        SystemBuildContext systemContext = SystemBuildContext.getSystemBuildContext( buildContextManager, true );
+
+        return new ModelCacheInputs( systemContext.getSystemProperties(), System.getProperties() );
+    }
+
+    private synchronized ResolutionGroupCache getResolutionGroupCache()
+    {
+        if ( resolutionGroupCache == null )
+        {
+            resolutionGroupCache =
+                new ResolutionGroupCache( artifactFactory, mavenTools, localRepositoryLayers, getLogger() );
+        }
+        return resolutionGroupCache;
+    }
+
     private List aggregateRepositoryLists( List remoteRepositories, List remoteArtifactRepositories )
         throws ArtifactMetadataRetrievalException
     {
@@ -418,6 +463,7 @@ public class MavenMetadataSource
                 String version = (String) i.next();
                 versions.add( new DefaultArtifactVersion( version ) );
             }
+            versions = new SortedVersionList( versions );
         }
         else
         {
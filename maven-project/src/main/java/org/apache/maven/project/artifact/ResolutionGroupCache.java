@@ -0,0 +1,389 @@
+package org.apache.maven.project.artifact;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.MavenTools;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.artifact.InvalidRepositoryException;
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.manager.LocalRepositoryFiles;
+import org.apache.maven.artifact.manager.LocalRepositoryLayers;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.model.DistributionManagement;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.build.ModelCacheInputs;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Keeps what {@link MavenMetadataSource} needs from a repository POM (its dependencies after inheritance,
+ * interpolation and dependency management, its relocation, download URL and repositories) in a file next
+ * to where the POM is in the local repository, so that later builds don't have to build the project again.
+ * <p/>
+ * The cache file is a stripped down model holding only that information. Its properties record the SHA-1
+ * checksums of the POM and of all of its parent POMs, and the {@link ModelCacheInputs inputs} of the build of
+ * the project besides them: the JVM and OS, and the system properties and files its profiles are activated by
+ * and its expressions interpolated with. The entry is only used while they all still match. Snapshots are never
+ * cached.
+ * <p/>
+ * The POMs are looked up in the base repositories of the local repository as well, and so are the cache files,
+ * which are only ever written to the local repository. The paths of the POMs are recorded rather than their files,
+ * so that a POM of a base repository which the local repository comes to shadow is seen to have changed.
+ *
+ * @version $Id$
+ */
+class ResolutionGroupCache
+{
+    private static final String CACHE_FILE_EXTENSION = ".resolution";
+
+    private static final String INPUT_KEY = "resolution.cache.input.";
+
+    private static final String INPUT_VALUE_KEY = "resolution.cache.value.";
+
+    private static final String POM_PATH_KEY = "resolution.cache.pom.";
+
+    private static final String POM_CHECKSUM_KEY = "resolution.cache.sha1.";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final ArtifactFactory artifactFactory;
+
+    private final MavenTools mavenTools;
+
+    private final LocalRepositoryLayers localRepositoryLayers;
+
+    private final Logger logger;
+
+    ResolutionGroupCache( ArtifactFactory artifactFactory, MavenTools mavenTools,
+                          LocalRepositoryLayers localRepositoryLayers, Logger logger )
+    {
+        this.artifactFactory = artifactFactory;
+        this.mavenTools = mavenTools;
+        this.localRepositoryLayers = localRepositoryLayers;
+        this.logger = logger;
+    }
+
+    /**
+     * Get the cached project for the given POM artifact.
+     *
+     * @return a project holding the cached information only, or null if there is no valid cache entry
+     */
+    MavenProject read( Artifact pomArtifact, ArtifactRepository localRepository, ModelCacheInputs inputs )
+    {
+        if ( pomArtifact.isSnapshot() )
+        {
+            return null;
+        }
+
+        File cacheFile = localRepositoryLayers.getLocalFile( localRepository, getCachePath( pomArtifact,
+                                                                                             localRepository ) );
+
+        if ( !cacheFile.exists() )
+        {
+            return null;
+        }
+
+        Model model;
+
+        Reader reader = null;
+        try
+        {
+            reader = new FileReader( cacheFile );
+
+            model = new MavenXpp3Reader().read( reader );
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Unable to read resolution cache " + cacheFile + ": " + e.getMessage() );
+
+            return null;
+        }
+        catch ( XmlPullParserException e )
+        {
+            logger.debug( "Unable to read resolution cache " + cacheFile + ": " + e.getMessage() );
+
+            return null;
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+
+        if ( !isValid( model, pomArtifact, localRepository, inputs ) )
+        {
+            return null;
+        }
+
+        MavenProject project = new MavenProject( model );
+
+        try
+        {
+            project.setRemoteArtifactRepositories( mavenTools.buildArtifactRepositories( model.getRepositories() ) );
+        }
+        catch ( InvalidRepositoryException e )
+        {
+            logger.debug( "Unable to use resolution cache " + cacheFile + ": " + e.getMessage() );
+
+            return null;
+        }
+
+        return project;
+    }
+
+    /**
+     * Store the resolution information of a project built from the repository for the given POM artifact.
+     * Failures are logged and otherwise ignored.
+     */
+    void write( Artifact pomArtifact, MavenProject project, ArtifactRepository localRepository,
+                ModelCacheInputs inputs )
+    {
+        if ( pomArtifact.isSnapshot() )
+        {
+            return;
+        }
+
+        // the POMs of all the parents must be recorded
+        if ( project.getParent() == null && project.getModel().getParent() != null )
+        {
+            return;
+        }
+
+        Properties properties = new Properties();
+
+        Map inputValues = ModelCacheInputs.createValues();
+
+        List pomArtifacts = new ArrayList();
+        pomArtifacts.add( pomArtifact );
+
+        List models = new ArrayList();
+        models.add( project.getModel() );
+
+        for ( MavenProject parent = project.getParent(); parent != null; parent = parent.getParent() )
+        {
+            pomArtifacts.add( artifactFactory.createProjectArtifact( parent.getGroupId(), parent.getArtifactId(),
+                                                                     parent.getVersion() ) );
+
+            models.add( parent.getModel() );
+        }
+
+        if ( !inputs.addActivationValues( models, inputValues ) )
+        {
+            return;
+        }
+
+        int index = 0;
+        for ( Iterator i = pomArtifacts.iterator(); i.hasNext(); index++ )
+        {
+            Artifact artifact = (Artifact) i.next();
+
+            String path = localRepository.pathOf( artifact );
+
+            File pomFile = localRepositoryLayers.getLocalFile( localRepository, path );
+
+            // a snapshot parent can change without the POM itself changing version
+            if ( artifact.isSnapshot() || !pomFile.exists() )
+            {
+                return;
+            }
+
+            try
+            {
+                properties.setProperty( POM_PATH_KEY + index, path );
+                properties.setProperty( POM_CHECKSUM_KEY + index, checksum( pomFile ) );
+
+                // system properties override the properties of the POMs in interpolation
+                inputs.addInterpolationValues( FileUtils.fileRead( pomFile ), inputValues );
+            }
+            catch ( IOException e )
+            {
+                logger.debug( "Unable to read " + pomFile + ": " + e.getMessage() );
+
+                return;
+            }
+        }
+
+        index = 0;
+        for ( Iterator i = inputValues.entrySet().iterator(); i.hasNext(); index++ )
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+
+            properties.setProperty( INPUT_KEY + index, (String) entry.getKey() );
+            properties.setProperty( INPUT_VALUE_KEY + index, (String) entry.getValue() );
+        }
+
+        Model model = new Model();
+        model.setGroupId( pomArtifact.getGroupId() );
+        model.setArtifactId( pomArtifact.getArtifactId() );
+        model.setVersion( pomArtifact.getVersion() );
+        model.setDependencies( project.getDependencies() );
+        model.setRepositories( project.getRepositories() );
+        model.setProperties( properties );
+
+        DistributionManagement projectDistMgmt = project.getDistributionManagement();
+        if ( projectDistMgmt != null )
+        {
+            DistributionManagement distMgmt = new DistributionManagement();
+            distMgmt.setDownloadUrl( projectDistMgmt.getDownloadUrl() );
+            distMgmt.setRelocation( projectDistMgmt.getRelocation() );
+            model.setDistributionManagement( distMgmt );
+        }
+
+        File cacheFile = new File( localRepository.getBasedir(), getCachePath( pomArtifact, localRepository ) );
+
+        try
+        {
+            StringWriter writer = new StringWriter();
+
+            new MavenXpp3Writer().write( writer, model );
+
+            LocalRepositoryFiles.write( cacheFile, writer.toString() );
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Unable to write resolution cache " + cacheFile + ": " + e.getMessage() );
+        }
+    }
+
+    private boolean isValid( Model model, Artifact pomArtifact, ArtifactRepository localRepository,
+                             ModelCacheInputs inputs )
+    {
+        if ( !ArtifactUtils.versionlessKey( pomArtifact ).equals(
+            ArtifactUtils.versionlessKey( model.getGroupId(), model.getArtifactId() ) ) ||
+            !pomArtifact.getVersion().equals( model.getVersion() ) )
+        {
+            return false;
+        }
+
+        Properties properties = model.getProperties();
+
+        Map inputValues = ModelCacheInputs.createValues();
+
+        String input;
+        for ( int index = 0; ( input = properties.getProperty( INPUT_KEY + index ) ) != null; index++ )
+        {
+            inputValues.put( input, properties.getProperty( INPUT_VALUE_KEY + index, "" ) );
+        }
+
+        // at least the environment must have been recorded
+        if ( inputValues.isEmpty() || !inputs.matches( inputValues ) )
+        {
+            logger.debug( "Resolution cache for " + pomArtifact.getId() + " is stale: the environment, profile " +
+                "activation or interpolation has changed." );
+
+            return false;
+        }
+
+        int index = 0;
+        String path;
+        while ( ( path = properties.getProperty( POM_PATH_KEY + index ) ) != null )
+        {
+            File pomFile = localRepositoryLayers.getLocalFile( localRepository, path );
+
+            String expected = properties.getProperty( POM_CHECKSUM_KEY + index );
+
+            try
+            {
+                if ( !pomFile.exists() || !checksum( pomFile ).equals( expected ) )
+                {
+                    logger.debug( "Resolution cache for " + pomArtifact.getId() + " is stale: " + pomFile +
+                        " has changed." );
+
+                    return false;
+                }
+            }
+            catch ( IOException e )
+            {
+                return false;
+            }
+
+            index++;
+        }
+
+        // at least the POM itself must have been recorded
+        return index > 0;
+    }
+
+    private static String getCachePath( Artifact pomArtifact, ArtifactRepository localRepository )
+    {
+        return localRepository.pathOf( pomArtifact ) + CACHE_FILE_EXTENSION;
+    }
+
+    private static String checksum( File file )
+        throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IOException( "SHA-1 is not available: " + e.getMessage() );
+        }
+
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream( file );
+
+            byte[] buffer = new byte[8192];
+            int read;
+            while ( ( read = in.read( buffer ) ) >= 0 )
+            {
+                digest.update( buffer, 0, read );
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+
+        byte[] bytes = digest.digest();
+
+        StringBuffer buf = new StringBuffer( bytes.length * 2 );
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            buf.append( HEX_DIGITS[( bytes[i] >> 4 ) & 0xf] );
+            buf.append( HEX_DIGITS[bytes[i] & 0xf] );
+        }
+        return buf.toString();
+    }
+}
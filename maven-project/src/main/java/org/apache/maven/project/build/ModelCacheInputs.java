@@ -0,0 +1,218 @@
+package org.apache.maven.project.build;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.model.Activation;
+import org.apache.maven.model.ActivationFile;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Profile;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.StringUtils;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The inputs which a model built from POMs of the local repository depends on besides the POM files: the JVM and
+ * OS, the system properties and files activating the profiles of the POMs, and the system properties their
+ * expressions can be interpolated with. Caches of such models record the values of the inputs when the model was
+ * built, and only use the model while the inputs still have those values.
+ * <p/>
+ * Profile activation reads the system properties of the build context while interpolation reads those of the JVM,
+ * so both are given; they are the same unless the build is embedded.
+ *
+ * @version $Id$
+ */
+public class ModelCacheInputs
+{
+    private static final String ENVIRONMENT = "environment";
+
+    private static final String ACTIVATION_PROPERTY = "activation.property:";
+
+    private static final String INTERPOLATION_PROPERTY = "interpolation.property:";
+
+    private static final String FILE = "file:";
+
+    private static final Pattern EXPRESSION_PATTERN = Pattern.compile( "\\$\\{(pom\\.|project\\.|env\\.)?([^}]+)\\}" );
+
+    private final Properties activationProperties;
+
+    private final Properties interpolationProperties;
+
+    public ModelCacheInputs( Properties activationProperties, Properties interpolationProperties )
+    {
+        this.activationProperties = activationProperties;
+        this.interpolationProperties = interpolationProperties;
+    }
+
+    /**
+     * @return the JVM and OS, which take part in profile activation and interpolation
+     */
+    private static String getEnvironment()
+    {
+        return System.getProperty( "java.version" ) + "|" + System.getProperty( "os.name" ) + "|" +
+            System.getProperty( "os.arch" ) + "|" + System.getProperty( "os.version" );
+    }
+
+    /**
+     * Get the current values of the inputs the activation of the profiles of the models depends on.
+     *
+     * @param models List( Model ) of the POMs
+     * @param values Map( String, String ) receiving the inputs and their values
+     * @return false if the activation of a profile depends on something else, so that the models can't be cached
+     */
+    public boolean addActivationValues( List models, Map values )
+    {
+        values.put( ENVIRONMENT, getValue( ENVIRONMENT ) );
+
+        for ( Iterator i = models.iterator(); i.hasNext(); )
+        {
+            Model model = (Model) i.next();
+
+            for ( Iterator j = model.getProfiles().iterator(); j.hasNext(); )
+            {
+                Activation activation = ( (Profile) j.next() ).getActivation();
+
+                if ( activation == null )
+                {
+                    continue;
+                }
+
+                if ( activation.getCustom() != null )
+                {
+                    return false;
+                }
+
+                if ( activation.getProperty() != null )
+                {
+                    String name = activation.getProperty().getName();
+
+                    if ( name.startsWith( "!" ) )
+                    {
+                        name = name.substring( 1 );
+                    }
+
+                    addValue( ACTIVATION_PROPERTY + name, values );
+                }
+
+                ActivationFile file = activation.getFile();
+                if ( file != null )
+                {
+                    if ( StringUtils.isNotEmpty( file.getExists() ) )
+                    {
+                        addValue( FILE + file.getExists(), values );
+                    }
+                    else if ( StringUtils.isNotEmpty( file.getMissing() ) )
+                    {
+                        addValue( FILE + file.getMissing(), values );
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the current values of the system properties the expressions of a POM could be interpolated with.
+     *
+     * @param values Map( String, String ) receiving the inputs and their values
+     */
+    public void addInterpolationValues( String pomContent, Map values )
+    {
+        Matcher matcher = EXPRESSION_PATTERN.matcher( pomContent );
+
+        while ( matcher.find() )
+        {
+            addValue( INTERPOLATION_PROPERTY + matcher.group( 2 ), values );
+        }
+    }
+
+    /**
+     * @param values Map( String, String ) from inputs to the values they had
+     * @return whether all the inputs still have the same values
+     */
+    public boolean matches( Map values )
+    {
+        for ( Iterator i = values.entrySet().iterator(); i.hasNext(); )
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+
+            if ( !entry.getValue().equals( getValue( (String) entry.getKey() ) ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a new map to gather the values of inputs, which keeps them in a stable order
+     */
+    public static Map createValues()
+    {
+        return new TreeMap();
+    }
+
+    private void addValue( String input, Map values )
+    {
+        if ( !values.containsKey( input ) )
+        {
+            values.put( input, getValue( input ) );
+        }
+    }
+
+    /**
+     * @return the current value of the input: a property which isn't set has an empty value, and one which is has
+     *         its value prefixed with '='; an unknown input has no value, and never matches
+     */
+    private String getValue( String input )
+    {
+        if ( ENVIRONMENT.equals( input ) )
+        {
+            return getEnvironment();
+        }
+        if ( input.startsWith( ACTIVATION_PROPERTY ) )
+        {
+            return getPropertyValue( activationProperties, input.substring( ACTIVATION_PROPERTY.length() ) );
+        }
+        if ( input.startsWith( INTERPOLATION_PROPERTY ) )
+        {
+            return getPropertyValue( interpolationProperties, input.substring( INTERPOLATION_PROPERTY.length() ) );
+        }
+        if ( input.startsWith( FILE ) )
+        {
+            return FileUtils.fileExists( input.substring( FILE.length() ) ) ? "exists" : "missing";
+        }
+        return null;
+    }
+
+    private static String getPropertyValue( Properties properties, String name )
+    {
+        String value = properties == null ? null : properties.getProperty( name );
+
+        return value == null ? "" : "=" + value;
+    }
+}
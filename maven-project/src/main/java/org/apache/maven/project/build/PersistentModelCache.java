@@ -0,0 +1,434 @@
+package org.apache.maven.project.build;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.manager.LocalRepositoryFiles;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the assembled model (after parent inheritance and profile activation, before interpolation) of
+ * POMs in the local repository, so that they don't have to go through their lineage again in the next build.
+ * <p/>
+ * Entries are kept in a file the caller chooses, and in a bounded, least recently used, in-memory map in front
+ * of it which is shared by all the builds in the JVM. An entry records the last modification time and
+ * the size of the POM and of all of its parents, as well as the values of the {@link ModelCacheInputs inputs}
+ * their profiles were activated with, and is only used while they all still match. It also records which of
+ * the profiles of the POM were active. When these files come from a base repository of the local repository, the
+ * entry is also only used while the files of the local repository which would shadow them are still missing.
+ * <p/>
+ * It is up to the caller to only cache what can't change without its files changing: release POMs,
+ * with release parents, coming from the local repository.
+ *
+ * @version $Id$
+ */
+public class PersistentModelCache
+{
+    public static final int DEFAULT_MAX_ENTRIES = 500;
+
+    /**
+     * The extension of the entry files, which are best kept next to the POM they're for.
+     */
+    public static final String CACHE_FILE_EXTENSION = ".assembled";
+
+    private static final int FORMAT_VERSION = 3;
+
+    private static final String ENCODING = "UTF-8";
+
+    private static final PersistentModelCache INSTANCE = new PersistentModelCache( DEFAULT_MAX_ENTRIES );
+
+    private final Map entries;
+
+    private int maxEntries;
+
+    public PersistentModelCache( int maxEntries )
+    {
+        this.maxEntries = maxEntries;
+
+        this.entries = new LinkedHashMap( 16, 0.75f, true )
+        {
+            protected boolean removeEldestEntry( Map.Entry eldest )
+            {
+                return size() > PersistentModelCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the cache shared by all the builds in this JVM
+     */
+    public static PersistentModelCache getInstance()
+    {
+        return INSTANCE;
+    }
+
+    public synchronized void setMaxEntries( int maxEntries )
+    {
+        this.maxEntries = maxEntries;
+
+        while ( entries.size() > maxEntries )
+        {
+            entries.remove( entries.keySet().iterator().next() );
+        }
+    }
+
+    /**
+     * Get the assembled model of the given POM.
+     *
+     * @param cacheFile the file the entry was stored in
+     * @param inputs the current inputs of profile activation
+     * @param activeProfileIds List( String ) receiving the ids of the profiles of the POM which were active
+     * @return a new instance of the model, or null if there is no entry or it is out of date
+     */
+    public Model getAssembledModel( File pomFile, File cacheFile, ModelCacheInputs inputs, List activeProfileIds )
+    {
+        String key = pomFile.getAbsolutePath();
+
+        Entry entry;
+        synchronized ( this )
+        {
+            entry = (Entry) entries.get( key );
+        }
+
+        if ( entry == null || !entry.isValid( inputs ) )
+        {
+            entry = readEntry( cacheFile );
+
+            if ( entry == null || !entry.isValid( inputs ) )
+            {
+                return null;
+            }
+
+            synchronized ( this )
+            {
+                entries.put( key, entry );
+            }
+        }
+
+        Model model;
+        try
+        {
+            model = entry.getModel();
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+
+        activeProfileIds.addAll( Arrays.asList( entry.activeProfileIds ) );
+
+        return model;
+    }
+
+    /**
+     * Store the assembled model of the given POM.
+     *
+     * @param cacheFile the file to store the entry in
+     * @param lineageFiles List( File ) with the POM file and those of all of its parents
+     * @param shadowingFiles List( File ) of the missing files which would be used instead of some of the lineage
+     *                       files if they appeared
+     * @param inputValues Map( String, String ) with the values of the inputs the profiles were activated with, as
+     *                    given by {@link ModelCacheInputs#addActivationValues(List,Map)}
+     * @param activeProfileIds List( String ) with the ids of the profiles of the POM which were active
+     */
+    public void cacheAssembledModel( File pomFile, File cacheFile, Model model, List lineageFiles,
+                                     List shadowingFiles, Map inputValues, List activeProfileIds )
+    {
+        String[] paths = new String[lineageFiles.size()];
+        long[] lastModified = new long[paths.length];
+        long[] length = new long[paths.length];
+
+        for ( int i = 0; i < paths.length; i++ )
+        {
+            File file = (File) lineageFiles.get( i );
+
+            if ( file == null || !file.isFile() )
+            {
+                return;
+            }
+
+            paths[i] = file.getAbsolutePath();
+            lastModified[i] = file.lastModified();
+            length[i] = file.length();
+        }
+
+        String[] missingPaths = new String[shadowingFiles.size()];
+
+        for ( int i = 0; i < missingPaths.length; i++ )
+        {
+            File file = (File) shadowingFiles.get( i );
+
+            if ( file.exists() )
+            {
+                return;
+            }
+
+            missingPaths[i] = file.getAbsolutePath();
+        }
+
+        byte[] modelData;
+        try
+        {
+            StringWriter writer = new StringWriter();
+
+            new MavenXpp3Writer().write( writer, model );
+
+            modelData = writer.toString().getBytes( ENCODING );
+        }
+        catch ( IOException e )
+        {
+            return;
+        }
+
+        Entry entry = new Entry( new TreeMap( inputValues ),
+                                 (String[]) activeProfileIds.toArray( new String[activeProfileIds.size()] ), paths,
+                                 lastModified, length, missingPaths, modelData );
+
+        synchronized ( this )
+        {
+            entries.put( pomFile.getAbsolutePath(), entry );
+        }
+
+        writeEntry( cacheFile, entry );
+    }
+
+    /**
+     * Forget all the in-memory entries. The files in the local repository are left alone.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    private static Entry readEntry( File cacheFile )
+    {
+        if ( !cacheFile.exists() )
+        {
+            return null;
+        }
+
+        DataInputStream in = null;
+        try
+        {
+            in = new DataInputStream( new BufferedInputStream( new FileInputStream( cacheFile ) ) );
+
+            if ( in.readInt() != FORMAT_VERSION )
+            {
+                return null;
+            }
+
+            Map inputValues = ModelCacheInputs.createValues();
+
+            for ( int i = in.readInt(); i > 0; i-- )
+            {
+                inputValues.put( in.readUTF(), in.readUTF() );
+            }
+
+            String[] activeProfileIds = new String[in.readInt()];
+
+            for ( int i = 0; i < activeProfileIds.length; i++ )
+            {
+                activeProfileIds[i] = in.readUTF();
+            }
+
+            int count = in.readInt();
+
+            String[] paths = new String[count];
+            long[] lastModified = new long[count];
+            long[] length = new long[count];
+
+            for ( int i = 0; i < count; i++ )
+            {
+                paths[i] = in.readUTF();
+                lastModified[i] = in.readLong();
+                length[i] = in.readLong();
+            }
+
+            String[] missingPaths = new String[in.readInt()];
+
+            for ( int i = 0; i < missingPaths.length; i++ )
+            {
+                missingPaths[i] = in.readUTF();
+            }
+
+            byte[] modelData = new byte[in.readInt()];
+            in.readFully( modelData );
+
+            return new Entry( inputValues, activeProfileIds, paths, lastModified, length, missingPaths, modelData );
+        }
+        catch ( IOException e )
+        {
+            // a corrupt or truncated entry is just a miss; it will be written again
+            return null;
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    private static void writeEntry( File cacheFile, Entry entry )
+    {
+        try
+        {
+            ByteArrayOutputStream content = new ByteArrayOutputStream( entry.modelData.length + 1024 );
+
+            DataOutputStream out = new DataOutputStream( content );
+
+            out.writeInt( FORMAT_VERSION );
+
+            out.writeInt( entry.inputValues.size() );
+            for ( Iterator i = entry.inputValues.entrySet().iterator(); i.hasNext(); )
+            {
+                Map.Entry input = (Map.Entry) i.next();
+
+                out.writeUTF( (String) input.getKey() );
+                out.writeUTF( (String) input.getValue() );
+            }
+
+            out.writeInt( entry.activeProfileIds.length );
+            for ( int i = 0; i < entry.activeProfileIds.length; i++ )
+            {
+                out.writeUTF( entry.activeProfileIds[i] );
+            }
+
+            out.writeInt( entry.paths.length );
+
+            for ( int i = 0; i < entry.paths.length; i++ )
+            {
+                out.writeUTF( entry.paths[i] );
+                out.writeLong( entry.lastModified[i] );
+                out.writeLong( entry.length[i] );
+            }
+
+            out.writeInt( entry.missingPaths.length );
+
+            for ( int i = 0; i < entry.missingPaths.length; i++ )
+            {
+                out.writeUTF( entry.missingPaths[i] );
+            }
+
+            out.writeInt( entry.modelData.length );
+            out.write( entry.modelData );
+
+            out.close();
+
+            LocalRepositoryFiles.write( cacheFile, content.toByteArray() );
+        }
+        catch ( IOException e )
+        {
+            // the in-memory entry is still there, and the next build will just assemble the model again
+        }
+    }
+
+    private static final class Entry
+    {
+        /**
+         * Map( String, String ) from the inputs of profile activation to their values.
+         */
+        private final Map inputValues;
+
+        private final String[] activeProfileIds;
+
+        private final String[] paths;
+
+        private final long[] lastModified;
+
+        private final long[] length;
+
+        private final String[] missingPaths;
+
+        private final byte[] modelData;
+
+        Entry( Map inputValues, String[] activeProfileIds, String[] paths, long[] lastModified, long[] length,
+               String[] missingPaths, byte[] modelData )
+        {
+            this.inputValues = inputValues;
+            this.activeProfileIds = activeProfileIds;
+            this.paths = paths;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.missingPaths = missingPaths;
+            this.modelData = modelData;
+        }
+
+        boolean isValid( ModelCacheInputs inputs )
+        {
+            if ( paths.length == 0 || inputValues.isEmpty() || !inputs.matches( inputValues ) )
+            {
+                return false;
+            }
+
+            for ( int i = 0; i < paths.length; i++ )
+            {
+                File file = new File( paths[i] );
+
+                if ( file.lastModified() != lastModified[i] || file.length() != length[i] )
+                {
+                    return false;
+                }
+            }
+
+            for ( int i = 0; i < missingPaths.length; i++ )
+            {
+                if ( new File( missingPaths[i] ).exists() )
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        Model getModel()
+            throws IOException
+        {
+            try
+            {
+                return new MavenXpp3Reader().read(
+                    new InputStreamReader( new ByteArrayInputStream( modelData ), ENCODING ) );
+            }
+            catch ( XmlPullParserException e )
+            {
+                throw new IOException( "Invalid cached model: " + e.getMessage() );
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.maven.project.build;
  */
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactKey;
 import org.apache.maven.context.BuildContext;
 import org.apache.maven.context.BuildContextManager;
 import org.apache.maven.context.ManagedBuildData;
@@ -29,6 +30,7 @@ import org.apache.maven.project.MavenProject;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -115,6 +117,37 @@ public class ProjectBuildCache
         return (File) pomFileCache.get( generateCacheKey( groupId, artifactId, version ) );
     }
 
+    /**
+     * Retrieve the assembled model of a POM in the local repository from the persistent tier of this cache,
+     * which outlives the build. See {@link PersistentModelCache}.
+     *
+     * @param cacheFile the file the model was stored in
+     * @param inputs the current inputs of profile activation
+     * @param activeProfileIds List( String ) receiving the ids of the profiles of the POM which were active
+     * @return a new instance of the model, or null if it hasn't been cached or is out of date
+     */
+    public Model getAssembledModel( File pomFile, File cacheFile, ModelCacheInputs inputs, List activeProfileIds )
+    {
+        return PersistentModelCache.getInstance().getAssembledModel( pomFile, cacheFile, inputs, activeProfileIds );
+    }
+
+    /**
+     * Store the assembled model of a POM in the local repository in the persistent tier of this cache.
+     *
+     * @param cacheFile the file of the local repository to store the model in
+     * @param lineageFiles List( File ) with the POM file and those of all of its parents
+     * @param shadowingFiles List( File ) of the missing files of the local repository which would be used instead
+     *                       of the lineage files coming from its base repositories
+     * @param inputValues Map( String, String ) with the values of the inputs the profiles were activated with
+     * @param activeProfileIds List( String ) with the ids of the profiles of the POM which were active
+     */
+    public void cacheAssembledModel( File pomFile, File cacheFile, Model model, List lineageFiles,
+                                     List shadowingFiles, Map inputValues, List activeProfileIds )
+    {
+        PersistentModelCache.getInstance().cacheAssembledModel( pomFile, cacheFile, model, lineageFiles,
+                                                                shadowingFiles, inputValues, activeProfileIds );
+    }
+
     public Map getData()
     {
         Map data = new HashMap( 2 );
@@ -154,7 +187,7 @@ public class ProjectBuildCache
         return cache;
     }
 
-    private static String generateCacheKey( Model model )
+    private static ArtifactKey generateCacheKey( Model model )
     {
         Parent modelParent = model.getParent();
 
@@ -177,24 +210,24 @@ public class ProjectBuildCache
         return generateCacheKey( groupId, artifactId, version );
     }
     
-    private static String generateCacheKey( Parent parent )
+    private static ArtifactKey generateCacheKey( Parent parent )
     {
         return generateCacheKey( parent.getGroupId(), parent.getArtifactId(), parent.getVersion() );
     }
     
-    private static String generateCacheKey( Artifact artifact )
+    private static ArtifactKey generateCacheKey( Artifact artifact )
     {
         return generateCacheKey( artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion() );
     }
     
-    private static String generateCacheKey( MavenProject project )
+    private static ArtifactKey generateCacheKey( MavenProject project )
     {
         return generateCacheKey( project.getGroupId(), project.getArtifactId(), project.getVersion() );
     }
     
-    private static String generateCacheKey( String groupId, String artifactId, String version )
+    private static ArtifactKey generateCacheKey( String groupId, String artifactId, String version )
     {
-        return groupId + ":" + artifactId + ":" + version;
+        return ArtifactKey.get( groupId, artifactId, null, null, version );
     }
 
 }
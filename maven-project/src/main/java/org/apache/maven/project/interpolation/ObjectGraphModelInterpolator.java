@@ -0,0 +1,392 @@
+package org.apache.maven.project.interpolation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.model.Model;
+import org.codehaus.plexus.logging.AbstractLogEnabled;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.introspection.ReflectionValueExtractor;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolve the expressions within the POM by walking the model object graph, instead of serializing it to
+ * XML and back like {@link RegexBasedModelInterpolator} does. Every string in the model is scanned once, left
+ * to right, and the value of each expression is computed only once per interpolation.
+ * <p/>
+ * Expressions are resolved exactly as in {@link RegexBasedModelInterpolator}: from the context first (an
+ * expression mapped to null in the context is left alone, see MNG-2124), then from the model properties,
+ * then from the model itself; values are interpolated in turn, and an expression whose value refers to
+ * itself is an error.
+ * <br/>
+ * <b>NOTE:</b> Like the regex based implementation, this returns a different instance of Model; the inbound
+ * Model is left untouched.
+ *
+ * @version $Id$
+ */
+public class ObjectGraphModelInterpolator
+    extends AbstractLogEnabled
+    implements ModelInterpolator
+{
+    private static final Pattern EXPRESSION_PATTERN = Pattern.compile( "\\$\\{(pom\\.|project\\.|env\\.)?([^}]+)\\}" );
+
+    private static final String MODEL_PACKAGE = Model.class.getPackage().getName() + ".";
+
+    /**
+     * Map( Class, Field[] ) with the instance fields of each model class, including inherited ones.
+     */
+    private static final Map FIELDS_BY_CLASS = new HashMap();
+
+    public Model interpolate( Model model, Map context )
+        throws ModelInterpolationException
+    {
+        return interpolate( model, context, true );
+    }
+
+    public Model interpolate( Model model, Map context, boolean strict )
+        throws ModelInterpolationException
+    {
+        return (Model) new Interpolation( model, context ).copy( model );
+    }
+
+    private static Field[] getFields( Class type )
+    {
+        synchronized ( FIELDS_BY_CLASS )
+        {
+            Field[] fields = (Field[]) FIELDS_BY_CLASS.get( type );
+
+            if ( fields == null )
+            {
+                List fieldList = new ArrayList();
+
+                for ( Class c = type; c != null && c != Object.class; c = c.getSuperclass() )
+                {
+                    Field[] declared = c.getDeclaredFields();
+
+                    for ( int i = 0; i < declared.length; i++ )
+                    {
+                        if ( !Modifier.isStatic( declared[i].getModifiers() ) )
+                        {
+                            declared[i].setAccessible( true );
+
+                            fieldList.add( declared[i] );
+                        }
+                    }
+                }
+
+                fields = (Field[]) fieldList.toArray( new Field[fieldList.size()] );
+
+                FIELDS_BY_CLASS.put( type, fields );
+            }
+
+            return fields;
+        }
+    }
+
+    /**
+     * State of a single interpolation: the source model and context, the values of the expressions resolved
+     * so far, and the copies of the model objects made so far.
+     */
+    private final class Interpolation
+    {
+        private final Model model;
+
+        private final Map context;
+
+        /**
+         * Map( String, String ) from an expression to its interpolated value, or to null if it is to be left alone.
+         */
+        private final Map resolvedExpressions = new HashMap();
+
+        /**
+         * Expressions currently being resolved, to detect expressions which indirectly refer to themselves.
+         */
+        private final Set expressionsInProgress = new HashSet();
+
+        /**
+         * Map( Object, Object ) from the source model objects to their copies, so that objects which are
+         * referenced from several places in the model (e.g. cached plugin maps) are still shared in the copy.
+         */
+        private final Map copies = new IdentityHashMap();
+
+        Interpolation( Model model, Map context )
+        {
+            this.model = model;
+            this.context = context;
+        }
+
+        Object copy( Object value )
+            throws ModelInterpolationException
+        {
+            if ( value == null )
+            {
+                return null;
+            }
+            else if ( value instanceof String )
+            {
+                return interpolate( (String) value );
+            }
+            else if ( copies.containsKey( value ) )
+            {
+                return copies.get( value );
+            }
+            else if ( value instanceof Xpp3Dom )
+            {
+                return copyDom( (Xpp3Dom) value );
+            }
+            else if ( value instanceof Properties )
+            {
+                Properties source = (Properties) value;
+                Properties result = new Properties();
+                copies.put( value, result );
+
+                for ( Iterator i = source.keySet().iterator(); i.hasNext(); )
+                {
+                    Object key = i.next();
+                    result.put( key, copy( source.get( key ) ) );
+                }
+                return result;
+            }
+            else if ( value instanceof List )
+            {
+                List source = (List) value;
+                List result = new ArrayList( source.size() );
+                copies.put( value, result );
+
+                for ( Iterator i = source.iterator(); i.hasNext(); )
+                {
+                    result.add( copy( i.next() ) );
+                }
+                return result;
+            }
+            else if ( value instanceof Map )
+            {
+                Map source = (Map) value;
+                Map result = (Map) newInstance( value.getClass() );
+                copies.put( value, result );
+
+                for ( Iterator i = source.entrySet().iterator(); i.hasNext(); )
+                {
+                    Map.Entry entry = (Map.Entry) i.next();
+                    result.put( entry.getKey(), copy( entry.getValue() ) );
+                }
+                return result;
+            }
+            else if ( value.getClass().getName().startsWith( MODEL_PACKAGE ) )
+            {
+                return copyModelObject( value );
+            }
+            else
+            {
+                // immutable values: booleans, numbers, ...
+                return value;
+            }
+        }
+
+        private Object copyModelObject( Object source )
+            throws ModelInterpolationException
+        {
+            Object result = newInstance( source.getClass() );
+            copies.put( source, result );
+
+            Field[] fields = getFields( source.getClass() );
+
+            for ( int i = 0; i < fields.length; i++ )
+            {
+                try
+                {
+                    fields[i].set( result, copy( fields[i].get( source ) ) );
+                }
+                catch ( IllegalAccessException e )
+                {
+                    throw new ModelInterpolationException( "Cannot copy field '" + fields[i].getName() + "' of " +
+                        source.getClass().getName() + " for interpolation.", e );
+                }
+            }
+
+            return result;
+        }
+
+        private Xpp3Dom copyDom( Xpp3Dom source )
+            throws ModelInterpolationException
+        {
+            Xpp3Dom result = new Xpp3Dom( source.getName() );
+            copies.put( source, result );
+
+            result.setValue( interpolate( source.getValue() ) );
+
+            String[] attributeNames = source.getAttributeNames();
+            for ( int i = 0; i < attributeNames.length; i++ )
+            {
+                result.setAttribute( attributeNames[i], interpolate( source.getAttribute( attributeNames[i] ) ) );
+            }
+
+            Xpp3Dom[] children = source.getChildren();
+            for ( int i = 0; i < children.length; i++ )
+            {
+                result.addChild( copyDom( children[i] ) );
+            }
+
+            return result;
+        }
+
+        private Object newInstance( Class type )
+            throws ModelInterpolationException
+        {
+            try
+            {
+                return type.newInstance();
+            }
+            catch ( InstantiationException e )
+            {
+                throw new ModelInterpolationException( "Cannot copy " + type.getName() + " for interpolation.", e );
+            }
+            catch ( IllegalAccessException e )
+            {
+                throw new ModelInterpolationException( "Cannot copy " + type.getName() + " for interpolation.", e );
+            }
+        }
+
+        String interpolate( String src )
+            throws ModelInterpolationException
+        {
+            if ( src == null || src.indexOf( "${" ) < 0 )
+            {
+                return src;
+            }
+
+            StringBuffer result = null;
+            int copied = 0;
+
+            Matcher matcher = EXPRESSION_PATTERN.matcher( src );
+            while ( matcher.find() )
+            {
+                String value = resolve( matcher.group( 0 ), matcher.group( 2 ) );
+
+                if ( value != null )
+                {
+                    if ( result == null )
+                    {
+                        result = new StringBuffer( src.length() + value.length() );
+                    }
+
+                    result.append( src.substring( copied, matcher.start() ) ).append( value );
+                    copied = matcher.end();
+                }
+            }
+
+            if ( result == null )
+            {
+                return src;
+            }
+
+            return result.append( src.substring( copied ) ).toString();
+        }
+
+        /**
+         * @return the interpolated value of the expression, or null if it should be left as it is
+         */
+        private String resolve( String wholeExpr, String realExpr )
+            throws ModelInterpolationException
+        {
+            if ( resolvedExpressions.containsKey( wholeExpr ) )
+            {
+                return (String) resolvedExpressions.get( wholeExpr );
+            }
+
+            Object value = context.get( realExpr );
+
+            if ( value == null )
+            {
+                // This may look out of place, but its here for the MNG-2124/MNG-1927 fix described in the project builder
+                if ( context.containsKey( realExpr ) )
+                {
+                    // It existed, but was null. Leave it alone.
+                    resolvedExpressions.put( wholeExpr, null );
+
+                    return null;
+                }
+
+                value = model.getProperties().getProperty( realExpr );
+            }
+
+            if ( value == null )
+            {
+                try
+                {
+                    // NOTE: We've already trimmed off any leading expression parts like 'project.'
+                    // or 'pom.', and now we have to ensure that the ReflectionValueExtractor
+                    // doesn't try to do it again.
+                    value = ReflectionValueExtractor.evaluate( realExpr, model, false );
+                }
+                catch ( Exception e )
+                {
+                    Logger logger = getLogger();
+                    if ( logger != null )
+                    {
+                        logger.debug( "POM interpolation cannot proceed with expression: " + wholeExpr +
+                            ". Skipping...", e );
+                    }
+                }
+            }
+
+            String result = null;
+
+            if ( value != null )
+            {
+                String stringValue = String.valueOf( value );
+
+                // if the expression refers to itself, fail.
+                if ( stringValue.indexOf( wholeExpr ) > -1 || expressionsInProgress.contains( wholeExpr ) )
+                {
+                    throw new ModelInterpolationException( wholeExpr, "Expression value '" + value +
+                        "' references itself in '" + model.getId() + "'." );
+                }
+
+                expressionsInProgress.add( wholeExpr );
+                try
+                {
+                    result = interpolate( stringValue );
+                }
+                finally
+                {
+                    expressionsInProgress.remove( wholeExpr );
+                }
+            }
+
+            resolvedExpressions.put( wholeExpr, result );
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.apache.maven.project.artifact;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.MavenTools;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.manager.LocalRepositoryLayers;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.DefaultArtifactRepository;
+import org.apache.maven.artifact.repository.layout.ArtifactRepositoryLayout;
+import org.apache.maven.model.Activation;
+import org.apache.maven.model.ActivationProperty;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Profile;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.build.ModelCacheInputs;
+import org.codehaus.plexus.PlexusTestCase;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.util.Properties;
+
+public class ResolutionGroupCacheTest
+    extends PlexusTestCase
+{
+    private ResolutionGroupCache cache;
+
+    private ArtifactFactory artifactFactory;
+
+    private ArtifactRepository localRepository;
+
+    private File localRepoDirectory;
+
+    private File baseRepoDirectory;
+
+    private Properties properties;
+
+    private ModelCacheInputs inputs;
+
+    public void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        artifactFactory = (ArtifactFactory) lookup( ArtifactFactory.ROLE );
+
+        localRepoDirectory = File.createTempFile( "ResolutionGroupCacheTest.", ".dir" );
+        localRepoDirectory.delete();
+        localRepoDirectory.mkdirs();
+
+        baseRepoDirectory = File.createTempFile( "ResolutionGroupCacheTest.", ".base" );
+        baseRepoDirectory.delete();
+        baseRepoDirectory.mkdirs();
+
+        LocalRepositoryLayers localRepositoryLayers = (LocalRepositoryLayers) lookup( LocalRepositoryLayers.ROLE );
+        localRepositoryLayers.addBaseRepository( baseRepoDirectory );
+
+        cache = new ResolutionGroupCache( artifactFactory, (MavenTools) lookup( MavenTools.ROLE ),
+                                          localRepositoryLayers, new ConsoleLogger( Logger.LEVEL_DISABLED, "test" ) );
+
+        ArtifactRepositoryLayout layout = (ArtifactRepositoryLayout) lookup( ArtifactRepositoryLayout.ROLE, "default" );
+
+        localRepository = new DefaultArtifactRepository( "local", localRepoDirectory.toURL().toExternalForm(),
+                                                         layout );
+
+        properties = new Properties();
+        inputs = new ModelCacheInputs( properties, properties );
+    }
+
+    public void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( localRepoDirectory );
+        FileUtils.deleteDirectory( baseRepoDirectory );
+
+        super.tearDown();
+    }
+
+    public void testShouldReturnCachedDependenciesWhilePomIsUnchanged()
+        throws Exception
+    {
+        Artifact pomArtifact = artifactFactory.createProjectArtifact( "group", "artifact", "1.0" );
+
+        File pomFile = writePom( pomArtifact, "<project/>" );
+
+        cache.write( pomArtifact, createProject(), localRepository, inputs );
+
+        MavenProject cached = cache.read( pomArtifact, localRepository, inputs );
+
+        assertNotNull( cached );
+        assertEquals( 1, cached.getDependencies().size() );
+        assertEquals( "dep", ( (Dependency) cached.getDependencies().get( 0 ) ).getArtifactId() );
+
+        FileUtils.fileWrite( pomFile.getAbsolutePath(), "<project><name>changed</name></project>" );
+
+        assertNull( cache.read( pomArtifact, localRepository, inputs ) );
+    }
+
+    public void testShouldNotCacheSnapshots()
+        throws Exception
+    {
+        Artifact pomArtifact = artifactFactory.createProjectArtifact( "group", "artifact", "1.0-SNAPSHOT" );
+
+        writePom( pomArtifact, "<project/>" );
+
+        cache.write( pomArtifact, createProject(), localRepository, inputs );
+
+        assertNull( cache.read( pomArtifact, localRepository, inputs ) );
+    }
+
+    public void testShouldNotReturnDependenciesInterpolatedWithOtherSystemProperties()
+        throws Exception
+    {
+        Artifact pomArtifact = artifactFactory.createProjectArtifact( "group", "artifact", "1.0" );
+
+        writePom( pomArtifact, "<project><dependencies><dependency><version>${dep.version}</version>" +
+            "</dependency></dependencies></project>" );
+
+        cache.write( pomArtifact, createProject(), localRepository, inputs );
+
+        properties.setProperty( "dep.version", "3.0" );
+
+        assertNull( cache.read( pomArtifact, localRepository, inputs ) );
+
+        properties.remove( "dep.version" );
+
+        assertNotNull( cache.read( pomArtifact, localRepository, inputs ) );
+    }
+
+    public void testShouldNotReturnDependenciesWhenProfileActivationChanges()
+        throws Exception
+    {
+        Artifact pomArtifact = artifactFactory.createProjectArtifact( "group", "artifact", "1.0" );
+
+        writePom( pomArtifact, "<project/>" );
+
+        ActivationProperty property = new ActivationProperty();
+        property.setName( "!ci" );
+
+        Activation activation = new Activation();
+        activation.setProperty( property );
+
+        Profile profile = new Profile();
+        profile.setId( "local" );
+        profile.setActivation( activation );
+
+        MavenProject project = createProject();
+        project.getModel().addProfile( profile );
+
+        cache.write( pomArtifact, project, localRepository, inputs );
+
+        properties.setProperty( "ci", "true" );
+
+        assertNull( cache.read( pomArtifact, localRepository, inputs ) );
+    }
+
+    public void testShouldCachePomsOfBaseRepositoriesInLocalRepository()
+        throws Exception
+    {
+        Artifact pomArtifact = artifactFactory.createProjectArtifact( "group", "artifact", "1.0" );
+
+        writePom( baseRepoDirectory, pomArtifact, "<project/>" );
+
+        cache.write( pomArtifact, createProject(), localRepository, inputs );
+
+        String cachePath = localRepository.pathOf( pomArtifact ) + ".resolution";
+        assertTrue( new File( localRepoDirectory, cachePath ).exists() );
+        assertFalse( new File( baseRepoDirectory, cachePath ).exists() );
+
+        assertNotNull( cache.read( pomArtifact, localRepository, inputs ) );
+
+        // the local repository now shadows the POM of the base repository
+        writePom( localRepoDirectory, pomArtifact, "<project><name>changed</name></project>" );
+
+        assertNull( cache.read( pomArtifact, localRepository, inputs ) );
+    }
+
+    private MavenProject createProject()
+    {
+        Dependency dep = new Dependency();
+        dep.setGroupId( "group" );
+        dep.setArtifactId( "dep" );
+        dep.setVersion( "2.0" );
+
+        Model model = new Model();
+        model.addDependency( dep );
+
+        return new MavenProject( model );
+    }
+
+    private File writePom( Artifact pomArtifact, String content )
+        throws Exception
+    {
+        return writePom( localRepoDirectory, pomArtifact, content );
+    }
+
+    private File writePom( File repoDirectory, Artifact pomArtifact, String content )
+        throws Exception
+    {
+        File pomFile = new File( repoDirectory, localRepository.pathOf( pomArtifact ) );
+        pomFile.getParentFile().mkdirs();
+
+        FileUtils.fileWrite( pomFile.getAbsolutePath(), content );
+
+        return pomFile;
+    }
+}
@@ -0,0 +1,212 @@
+package org.apache.maven.project.build;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.model.Activation;
+import org.apache.maven.model.ActivationProperty;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Profile;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * @version $Id$
+ */
+public class PersistentModelCacheTest
+    extends TestCase
+{
+    private File directory;
+
+    private File pomFile;
+
+    private File parentPomFile;
+
+    private File cacheFile;
+
+    private Properties properties;
+
+    private ModelCacheInputs inputs;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        directory = File.createTempFile( "PersistentModelCacheTest.", ".dir" );
+        directory.delete();
+        directory.mkdirs();
+
+        pomFile = new File( directory, "child-1.0.pom" );
+        FileUtils.fileWrite( pomFile.getAbsolutePath(), "<project/>" );
+
+        parentPomFile = new File( directory, "parent-1.0.pom" );
+        FileUtils.fileWrite( parentPomFile.getAbsolutePath(), "<project/>" );
+
+        cacheFile = new File( directory, "child-1.0.pom.assembled" );
+
+        properties = new Properties();
+        inputs = new ModelCacheInputs( properties, properties );
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( directory );
+
+        super.tearDown();
+    }
+
+    public void testShouldReturnCachedModelFromDiskInAnotherCache()
+    {
+        new PersistentModelCache( 10 ).cacheAssembledModel( pomFile, cacheFile, createModel(),
+                                                            Arrays.asList( new File[]{ pomFile, parentPomFile } ),
+                                                            Collections.EMPTY_LIST,
+                                                            getInputValues( createModel() ),
+                                                            Collections.EMPTY_LIST );
+
+        Model cached = new PersistentModelCache( 10 ).getAssembledModel( pomFile, cacheFile, inputs, new ArrayList() );
+
+        assertNotNull( cached );
+        assertEquals( "child", cached.getArtifactId() );
+        assertEquals( "value", cached.getProperties().getProperty( "key" ) );
+    }
+
+    public void testShouldReturnNewInstances()
+    {
+        PersistentModelCache cache = new PersistentModelCache( 10 );
+
+        cache.cacheAssembledModel( pomFile, cacheFile, createModel(), Arrays.asList( new File[]{ pomFile } ),
+                                   Collections.EMPTY_LIST, getInputValues( createModel() ), Collections.EMPTY_LIST );
+
+        Model cached = cache.getAssembledModel( pomFile, cacheFile, inputs, new ArrayList() );
+        cached.setArtifactId( "changed" );
+
+        assertEquals( "child", cache.getAssembledModel( pomFile, cacheFile, inputs, new ArrayList() ).getArtifactId() );
+    }
+
+    public void testShouldInvalidateWhenParentChanges()
+        throws Exception
+    {
+        PersistentModelCache cache = new PersistentModelCache( 10 );
+
+        cache.cacheAssembledModel( pomFile, cacheFile, createModel(),
+                                   Arrays.asList( new File[]{ pomFile, parentPomFile } ), Collections.EMPTY_LIST,
+                                   getInputValues( createModel() ), Collections.EMPTY_LIST );
+
+        FileUtils.fileWrite( parentPomFile.getAbsolutePath(), "<project><name>changed</name></project>" );
+
+        assertNull( cache.getAssembledModel( pomFile, cacheFile, inputs, new ArrayList() ) );
+        assertNull( new PersistentModelCache( 10 ).getAssembledModel( pomFile, cacheFile, inputs, new ArrayList() ) );
+    }
+
+    public void testShouldNotCacheWhenLineageFileIsMissing()
+    {
+        PersistentModelCache cache = new PersistentModelCache( 10 );
+
+        cache.cacheAssembledModel( pomFile, cacheFile, createModel(),
+                                   Arrays.asList( new File[]{ pomFile, new File( directory, "missing.pom" ) } ),
+                                   Collections.EMPTY_LIST, getInputValues( createModel() ), Collections.EMPTY_LIST );
+
+        assertNull( cache.getAssembledModel( pomFile, cacheFile, inputs, new ArrayList() ) );
+    }
+
+    public void testShouldInvalidateWhenProfileActivationChanges()
+    {
+        Model model = createModel();
+
+        ActivationProperty property = new ActivationProperty();
+        property.setName( "release" );
+
+        Activation activation = new Activation();
+        activation.setProperty( property );
+
+        Profile profile = new Profile();
+        profile.setId( "release" );
+        profile.setActivation( activation );
+        model.addProfile( profile );
+
+        properties.setProperty( "release", "true" );
+
+        PersistentModelCache cache = new PersistentModelCache( 10 );
+
+        cache.cacheAssembledModel( pomFile, cacheFile, model, Arrays.asList( new File[]{ pomFile } ),
+                                   Collections.EMPTY_LIST, getInputValues( model ),
+                                   Collections.singletonList( "release" ) );
+
+        List activeProfileIds = new ArrayList();
+        assertNotNull( cache.getAssembledModel( pomFile, cacheFile, inputs, activeProfileIds ) );
+        assertEquals( Collections.singletonList( "release" ), activeProfileIds );
+
+        properties.remove( "release" );
+
+        assertNull( cache.getAssembledModel( pomFile, cacheFile, inputs, new ArrayList() ) );
+        assertNull( new PersistentModelCache( 10 ).getAssembledModel( pomFile, cacheFile, inputs, new ArrayList() ) );
+    }
+
+    public void testShouldInvalidateWhenShadowingFileAppears()
+        throws Exception
+    {
+        File shadowingFile = new File( directory, "local/parent-1.0.pom" );
+
+        PersistentModelCache cache = new PersistentModelCache( 10 );
+
+        cache.cacheAssembledModel( pomFile, cacheFile, createModel(),
+                                   Arrays.asList( new File[]{ pomFile, parentPomFile } ),
+                                   Collections.singletonList( shadowingFile ), getInputValues( createModel() ),
+                                   Collections.EMPTY_LIST );
+
+        assertNotNull( cache.getAssembledModel( pomFile, cacheFile, inputs, new ArrayList() ) );
+
+        shadowingFile.getParentFile().mkdirs();
+        FileUtils.fileWrite( shadowingFile.getAbsolutePath(), "<project/>" );
+
+        assertNull( cache.getAssembledModel( pomFile, cacheFile, inputs, new ArrayList() ) );
+        assertNull( new PersistentModelCache( 10 ).getAssembledModel( pomFile, cacheFile, inputs, new ArrayList() ) );
+    }
+
+    private Map getInputValues( Model model )
+    {
+        Map values = ModelCacheInputs.createValues();
+
+        assertTrue( inputs.addActivationValues( Collections.singletonList( model ), values ) );
+
+        return values;
+    }
+
+    private Model createModel()
+    {
+        Model model = new Model();
+        model.setModelVersion( "4.0.0" );
+        model.setGroupId( "group" );
+        model.setArtifactId( "child" );
+        model.setVersion( "1.0" );
+        model.addProperty( "key", "value" );
+
+        return model;
+    }
+}
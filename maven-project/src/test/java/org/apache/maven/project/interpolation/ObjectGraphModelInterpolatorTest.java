@@ -0,0 +1,155 @@
+package org.apache.maven.project.interpolation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.Scm;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @version $Id$
+ */
+public class ObjectGraphModelInterpolatorTest
+    extends TestCase
+{
+    private Map context;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        context = new HashMap();
+        context.put( "basedir", "myBasedir" );
+    }
+
+    public void testShouldInterpolateNestedExpressionsAndLeaveUnknownOnesAlone()
+        throws Exception
+    {
+        Model model = new Model();
+        model.setArtifactId( "foo" );
+        model.setVersion( "3.8.1" );
+        model.addProperty( "fullName", "${artifactId}-${version}" );
+
+        Dependency dep = new Dependency();
+        dep.setVersion( "${fullName}/${basedir}/${unknown}" );
+        model.addDependency( dep );
+
+        Model out = new ObjectGraphModelInterpolator().interpolate( model, context );
+
+        assertEquals( "foo-3.8.1/myBasedir/${unknown}", ( (Dependency) out.getDependencies().get( 0 ) ).getVersion() );
+
+        // the inbound model is left untouched
+        assertNotSame( model, out );
+        assertEquals( "${fullName}/${basedir}/${unknown}", dep.getVersion() );
+    }
+
+    public void testShouldInterpolatePluginConfiguration()
+        throws Exception
+    {
+        Model model = new Model();
+        model.setVersion( "3.8.1" );
+
+        Xpp3Dom configuration = new Xpp3Dom( "configuration" );
+        Xpp3Dom child = new Xpp3Dom( "target" );
+        child.setValue( "${pom.version}" );
+        child.setAttribute( "dir", "${basedir}" );
+        configuration.addChild( child );
+
+        Plugin plugin = new Plugin();
+        plugin.setArtifactId( "plugin" );
+        plugin.setConfiguration( configuration );
+
+        Build build = new Build();
+        build.addPlugin( plugin );
+        model.setBuild( build );
+
+        Model out = new ObjectGraphModelInterpolator().interpolate( model, context );
+
+        Xpp3Dom outConfiguration = (Xpp3Dom) ( (Plugin) out.getBuild().getPlugins().get( 0 ) ).getConfiguration();
+
+        assertEquals( "3.8.1", outConfiguration.getChild( "target" ).getValue() );
+        assertEquals( "myBasedir", outConfiguration.getChild( "target" ).getAttribute( "dir" ) );
+    }
+
+    public void testShouldLeaveExpressionsMappedToNullInContextAlone()
+        throws Exception
+    {
+        context.put( "build.directory", null );
+
+        Model model = new Model();
+
+        Build build = new Build();
+        build.setDirectory( "target" );
+        build.setOutputDirectory( "${project.build.directory}/classes" );
+        model.setBuild( build );
+
+        Model out = new ObjectGraphModelInterpolator().interpolate( model, context );
+
+        assertEquals( "${project.build.directory}/classes", out.getBuild().getOutputDirectory() );
+    }
+
+    public void testShouldThrowExceptionOnSelfReference()
+    {
+        Model model = new Model();
+
+        Scm scm = new Scm();
+        scm.setConnection( "${project.scm.connection}/somepath" );
+
+        model.setScm( scm );
+
+        try
+        {
+            new ObjectGraphModelInterpolator().interpolate( model, context );
+
+            fail( "The interpolator should not allow self-referencing expressions in POM." );
+        }
+        catch ( ModelInterpolationException e )
+        {
+            assertTrue( true );
+        }
+    }
+
+    public void testShouldThrowExceptionOnIndirectSelfReference()
+    {
+        Model model = new Model();
+        model.setName( "${a}" );
+        model.addProperty( "a", "${b}" );
+        model.addProperty( "b", "${a}" );
+
+        try
+        {
+            new ObjectGraphModelInterpolator().interpolate( model, context );
+
+            fail( "The interpolator should not allow expressions which indirectly reference themselves." );
+        }
+        catch ( ModelInterpolationException e )
+        {
+            assertTrue( true );
+        }
+    }
+}
@@ -119,6 +119,28 @@ public final class SettingsUtils
             }
         }
 
+        List dominantBaseRepositories = dominant.getBaseRepositories();
+        List recessiveBaseRepositories = recessive.getBaseRepositories();
+
+        if ( recessiveBaseRepositories != null )
+        {
+            if ( dominantBaseRepositories == null )
+            {
+                dominantBaseRepositories = new ArrayList();
+                dominant.setBaseRepositories( dominantBaseRepositories );
+            }
+
+            for ( Iterator it = recessiveBaseRepositories.iterator(); it.hasNext(); )
+            {
+                String baseRepository = (String) it.next();
+
+                if ( !dominantBaseRepositories.contains( baseRepository ) )
+                {
+                    dominantBaseRepositories.add( baseRepository );
+                }
+            }
+        }
+
         shallowMergeById( dominant.getMirrors(), recessive.getMirrors(), recessiveSourceLevel );
         shallowMergeById( dominant.getServers(), recessive.getServers(), recessiveSourceLevel );
         shallowMergeById( dominant.getProxies(), recessive.getProxies(), recessiveSourceLevel );
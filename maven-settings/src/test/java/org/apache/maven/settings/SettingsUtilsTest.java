@@ -51,4 +51,22 @@ public class SettingsUtilsTest
         assertEquals( "org.codehaus.plexus", pluginGroups.get( 2 ) );
     }
 
+    public void testShouldAppendRecessiveBaseRepositories()
+    {
+        Settings dominant = new Settings();
+        dominant.addBaseRepository( "/shared/repository" );
+
+        Settings recessive = new Settings();
+        recessive.addBaseRepository( "/opt/repository" );
+        recessive.addBaseRepository( "/shared/repository" );
+
+        SettingsUtils.merge( dominant, recessive, Settings.GLOBAL_LEVEL );
+
+        List baseRepositories = dominant.getBaseRepositories();
+
+        assertEquals( 2, baseRepositories.size() );
+        assertEquals( "/shared/repository", baseRepositories.get( 0 ) );
+        assertEquals( "/opt/repository", baseRepositories.get( 1 ) );
+    }
+
 }